@@ -27,6 +27,9 @@ import ca.uhn.fhir.util.ValidateUtil;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IBase;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -45,6 +48,7 @@ public abstract class BaseRuntimeDeclaredChildDefinition extends BaseRuntimeChil
 	private String myBindingValueSet;
 	private boolean myModifier;
 	private boolean mySummary;
+	private IFieldAccess myFieldAccess;
 
 	BaseRuntimeDeclaredChildDefinition(
 			Field theField, Child theChildAnnotation, Description theDescriptionAnnotation, String theElementName)
@@ -72,6 +76,7 @@ public abstract class BaseRuntimeDeclaredChildDefinition extends BaseRuntimeChil
 		}
 
 		myField.setAccessible(true);
+		myFieldAccess = new ReflectionFieldAccess(myField);
 		if (List.class.equals(myField.getType())) {
 			// TODO: verify that generic type is IElement
 			myAccessor = new FieldListAccessor();
@@ -140,11 +145,22 @@ public abstract class BaseRuntimeDeclaredChildDefinition extends BaseRuntimeChil
 		return mySummary;
 	}
 
+	/**
+	 * Switches the accessor and mutator for this child from reflective field access to
+	 * method handles. Called while sealing the definition if
+	 * {@link PerformanceOptionsEnum#METHOD_HANDLE_FIELD_ACCESS} is enabled.
+	 */
+	void useMethodHandleFieldAccess() {
+		if (!(myFieldAccess instanceof MethodHandleFieldAccess)) {
+			myFieldAccess = new MethodHandleFieldAccess(myField);
+		}
+	}
+
 	private final class FieldListAccessor implements IAccessor {
 		@SuppressWarnings("unchecked")
 		@Override
 		public List<IBase> getValues(IBase theTarget) {
-			List<IBase> retVal = (List<IBase>) getFieldValue(theTarget, myField);
+			List<IBase> retVal = (List<IBase>) myFieldAccess.get(theTarget);
 			if (retVal == null) {
 				retVal = Collections.emptyList();
 			}
@@ -160,10 +176,10 @@ public abstract class BaseRuntimeDeclaredChildDefinition extends BaseRuntimeChil
 
 		private void addValue(IBase theTarget, IBase theValue, boolean theClear) {
 			@SuppressWarnings("unchecked")
-			List<IBase> existingList = (List<IBase>) getFieldValue(theTarget, myField);
+			List<IBase> existingList = (List<IBase>) myFieldAccess.get(theTarget);
 			if (existingList == null) {
 				existingList = new ArrayList<>(2);
-				setFieldValue(theTarget, existingList, myField);
+				myFieldAccess.set(theTarget, existingList);
 			}
 			if (theClear) {
 				existingList.clear();
@@ -181,7 +197,7 @@ public abstract class BaseRuntimeDeclaredChildDefinition extends BaseRuntimeChil
 
 		@Override
 		public void remove(IBase theTarget, int theIndex) {
-			List<IBase> existingList = (List<IBase>) getFieldValue(theTarget, myField);
+			List<IBase> existingList = (List<IBase>) myFieldAccess.get(theTarget);
 			if (existingList == null) {
 				throw new IndexOutOfBoundsException(
 						Msg.code(2143) + "Can not remove element at index " + theIndex + " from list - List is null");
@@ -197,7 +213,7 @@ public abstract class BaseRuntimeDeclaredChildDefinition extends BaseRuntimeChil
 	private final class FieldPlainAccessor implements IAccessor {
 		@Override
 		public List<IBase> getValues(IBase theTarget) {
-			Object values = getFieldValue(theTarget, myField);
+			Object values = myFieldAccess.get(theTarget);
 			if (values == null) {
 				return Collections.emptyList();
 			}
@@ -206,14 +222,14 @@ public abstract class BaseRuntimeDeclaredChildDefinition extends BaseRuntimeChil
 
 		@Override
 		public <T extends IBase> Optional<T> getFirstValueOrNull(IBase theTarget) {
-			return Optional.ofNullable(((T) getFieldValue(theTarget, myField)));
+			return Optional.ofNullable(((T) myFieldAccess.get(theTarget)));
 		}
 	}
 
 	protected final class FieldPlainMutator implements IMutator {
 		@Override
 		public void addValue(IBase theTarget, IBase theValue) {
-			setFieldValue(theTarget, theValue, myField);
+			myFieldAccess.set(theTarget, theValue);
 		}
 
 		@Override
@@ -229,19 +245,80 @@ public abstract class BaseRuntimeDeclaredChildDefinition extends BaseRuntimeChil
 		}
 	}
 
-	private static void setFieldValue(IBase theTarget, Object theValue, Field theField) {
-		try {
-			theField.set(theTarget, theValue);
-		} catch (IllegalAccessException e) {
-			throw new ConfigurationException(Msg.code(1736) + "Failed to set value", e);
+	/**
+	 * Reads and writes the field backing a declared child
+	 */
+	private interface IFieldAccess {
+
+		Object get(IBase theTarget);
+
+		void set(IBase theTarget, Object theValue);
+	}
+
+	private static final class ReflectionFieldAccess implements IFieldAccess {
+		private final Field myField;
+
+		private ReflectionFieldAccess(Field theField) {
+			myField = theField;
+		}
+
+		@Override
+		public Object get(IBase theTarget) {
+			try {
+				return myField.get(theTarget);
+			} catch (IllegalAccessException e) {
+				throw new ConfigurationException(Msg.code(1737) + "Failed to get value", e);
+			}
+		}
+
+		@Override
+		public void set(IBase theTarget, Object theValue) {
+			try {
+				myField.set(theTarget, theValue);
+			} catch (IllegalAccessException e) {
+				throw new ConfigurationException(Msg.code(1736) + "Failed to set value", e);
+			}
 		}
 	}
 
-	private static Object getFieldValue(IBase theTarget, Field theField) {
-		try {
-			return theField.get(theTarget);
-		} catch (IllegalAccessException e) {
-			throw new ConfigurationException(Msg.code(1737) + "Failed to get value", e);
+	private static final class MethodHandleFieldAccess implements IFieldAccess {
+		private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, IBase.class);
+		private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, IBase.class, Object.class);
+		private final MethodHandle myGetter;
+		private final MethodHandle mySetter;
+
+		private MethodHandleFieldAccess(Field theField) {
+			try {
+				MethodHandles.Lookup lookup =
+						MethodHandles.privateLookupIn(theField.getDeclaringClass(), MethodHandles.lookup());
+				myGetter = lookup.unreflectGetter(theField).asType(GETTER_TYPE);
+				mySetter = lookup.unreflectSetter(theField).asType(SETTER_TYPE);
+			} catch (IllegalAccessException e) {
+				throw new ConfigurationException(
+						Msg.code(2430) + "Failed to create method handles for field: " + theField, e);
+			}
+		}
+
+		@Override
+		public Object get(IBase theTarget) {
+			try {
+				return (Object) myGetter.invokeExact(theTarget);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new ConfigurationException(Msg.code(2431) + "Failed to get value", e);
+			}
+		}
+
+		@Override
+		public void set(IBase theTarget, Object theValue) {
+			try {
+				mySetter.invokeExact(theTarget, theValue);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new ConfigurationException(Msg.code(2432) + "Failed to set value", e);
+			}
 		}
 	}
 }
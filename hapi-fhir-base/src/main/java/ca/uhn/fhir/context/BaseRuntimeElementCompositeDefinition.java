@@ -558,7 +558,12 @@ public abstract class BaseRuntimeElementCompositeDefinition<T extends IBase> ext
 
 			super.sealAndInitialize(theContext, theClassToElementDefinitions);
 
+			boolean methodHandleFieldAccess =
+					theContext.getPerformanceOptions().contains(PerformanceOptionsEnum.METHOD_HANDLE_FIELD_ACCESS);
 			for (BaseRuntimeChildDefinition next : myChildren) {
+				if (methodHandleFieldAccess && next instanceof BaseRuntimeDeclaredChildDefinition) {
+					((BaseRuntimeDeclaredChildDefinition) next).useMethodHandleFieldAccess();
+				}
 				next.sealAndInitialize(theContext, theClassToElementDefinitions);
 			}
 
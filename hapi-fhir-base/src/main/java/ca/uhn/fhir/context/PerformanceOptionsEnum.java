@@ -34,5 +34,20 @@ public enum PerformanceOptionsEnum {
 	 * Android or low powered devices.
 	 * </p>
 	 */
-	DEFERRED_MODEL_SCANNING
+	DEFERRED_MODEL_SCANNING,
+
+	/**
+	 * When this option is set, the accessors and mutators for declared model children
+	 * read and write the backing fields through {@link java.lang.invoke.MethodHandle}s
+	 * instead of {@link java.lang.reflect.Field#get(Object)} and
+	 * {@link java.lang.reflect.Field#set(Object, Object)}.
+	 * <p>
+	 * Field access happens for every element touched while parsing, encoding,
+	 * walking a resource with the {@link ca.uhn.fhir.util.FhirTerser} and extracting
+	 * search parameters. Method handles avoid the access checks performed on every
+	 * reflective call and can be inlined by the JIT. This option must be set before
+	 * the context is first used, since the accessors are created when the model is scanned.
+	 * </p>
+	 */
+	METHOD_HANDLE_FIELD_ACCESS
 }
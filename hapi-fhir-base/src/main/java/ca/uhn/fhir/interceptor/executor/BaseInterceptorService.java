@@ -39,9 +39,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -63,12 +66,20 @@ import javax.annotation.Nullable;
 public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & IPointcut>
 		implements IBaseInterceptorService<POINTCUT>, IBaseInterceptorBroadcaster<POINTCUT> {
 	private static final Logger ourLog = LoggerFactory.getLogger(BaseInterceptorService.class);
+	private static final BaseInvoker[] EMPTY_INVOKER_ARRAY = new BaseInvoker[0];
 	private final List<Object> myInterceptors = new ArrayList<>();
 	private final ListMultimap<POINTCUT, BaseInvoker> myGlobalInvokers = ArrayListMultimap.create();
 	private final ListMultimap<POINTCUT, BaseInvoker> myAnonymousInvokers = ArrayListMultimap.create();
 	private final Object myRegistryMutex = new Object();
 	private final Class<POINTCUT> myPointcutType;
 	private volatile EnumSet<POINTCUT> myRegisteredPointcuts;
+	/**
+	 * The sorted invokers for each pointcut, indexed by ordinal. Each array is rebuilt
+	 * (while holding {@link #myRegistryMutex}) whenever the registry changes and is never
+	 * modified after being published, so hooks can be called without any locking or copying.
+	 */
+	private volatile BaseInvoker[][] myInvokersByPointcut;
+
 	private String myName;
 	private boolean myWarnOnInterceptorWithNoHooks = true;
 
@@ -208,10 +219,25 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 		}
 	}
 
+	/**
+	 * Rebuilds the registered pointcut set and the per-pointcut invoker snapshots. This
+	 * must be called (while holding {@link #myRegistryMutex}) after any change to the
+	 * invoker multimaps.
+	 */
 	private void rebuildRegisteredPointcutSet() {
 		EnumSet<POINTCUT> registeredPointcuts = EnumSet.noneOf(myPointcutType);
 		registeredPointcuts.addAll(myAnonymousInvokers.keySet());
 		registeredPointcuts.addAll(myGlobalInvokers.keySet());
+
+		POINTCUT[] pointcuts = myPointcutType.getEnumConstants();
+		BaseInvoker[][] invokersByPointcut = new BaseInvoker[pointcuts.length][];
+		for (POINTCUT next : pointcuts) {
+			List<BaseInvoker> invokers = union(myGlobalInvokers.get(next), myAnonymousInvokers.get(next));
+			invokersByPointcut[next.ordinal()] =
+					invokers.isEmpty() ? EMPTY_INVOKER_ARRAY : invokers.toArray(EMPTY_INVOKER_ARRAY);
+		}
+
+		myInvokersByPointcut = invokersByPointcut;
 		myRegisteredPointcuts = registeredPointcuts;
 	}
 
@@ -273,15 +299,19 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	}
 
 	private Object doCallHooks(POINTCUT thePointcut, HookParams theParams, Object theRetVal) {
-		// use new list for loop to avoid ConcurrentModificationException in case invoker gets added while looping
-		List<BaseInvoker> invokers = new ArrayList<>(getInvokersForPointcut(thePointcut));
+		// The snapshot array is never modified, so invokers added or removed while looping
+		// don't affect this call
+		BaseInvoker[] invokers = myInvokersByPointcut[thePointcut.ordinal()];
+		if (invokers.length == 0) {
+			return theRetVal;
+		}
 
 		/*
 		 * Call each hook in order
 		 */
+		Class<?> pointcutReturnType = thePointcut.getReturnType();
 		for (BaseInvoker nextInvoker : invokers) {
 			Object nextOutcome = nextInvoker.invoke(theParams);
-			Class<?> pointcutReturnType = thePointcut.getReturnType();
 			if (pointcutReturnType.equals(boolean.class)) {
 				Boolean nextOutcomeAsBoolean = (Boolean) nextOutcome;
 				if (Boolean.FALSE.equals(nextOutcomeAsBoolean)) {
@@ -308,27 +338,18 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	}
 
 	/**
-	 * Returns an ordered list of invokers for the given pointcut. Note that
-	 * a new and stable list is returned to.. do whatever you want with it.
+	 * Returns an ordered list of invokers for the given pointcut. The list is an
+	 * unmodifiable view of the current (immutable) snapshot.
 	 */
 	private List<BaseInvoker> getInvokersForPointcut(POINTCUT thePointcut) {
-		List<BaseInvoker> invokers;
-
-		synchronized (myRegistryMutex) {
-			List<BaseInvoker> globalInvokers = myGlobalInvokers.get(thePointcut);
-			List<BaseInvoker> anonymousInvokers = myAnonymousInvokers.get(thePointcut);
-			List<BaseInvoker> threadLocalInvokers = null;
-			invokers = union(globalInvokers, anonymousInvokers, threadLocalInvokers);
-		}
-
-		return invokers;
+		return Collections.unmodifiableList(Arrays.asList(myInvokersByPointcut[thePointcut.ordinal()]));
 	}
 
 	/**
 	 * First argument must be the global invoker list!!
 	 */
 	@SafeVarargs
-	private List<BaseInvoker> union(List<BaseInvoker>... theInvokersLists) {
+	private static List<BaseInvoker> union(List<BaseInvoker>... theInvokersLists) {
 		List<BaseInvoker> haveOne = null;
 		boolean haveMultiple = false;
 		for (List<BaseInvoker> nextInvokerList : theInvokersLists) {
@@ -470,6 +491,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	private class HookInvoker extends BaseInvoker {
 
 		private final Method myMethod;
+		private final MethodHandle myMethodHandle;
 		private final Class<?>[] myParameterTypes;
 		private final int[] myParameterIndexes;
 		private final POINTCUT myPointcut;
@@ -508,6 +530,27 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			}
 
 			myMethod.setAccessible(true);
+			myMethodHandle = toMethodHandle(theInterceptor, theHookMethod);
+		}
+
+		/**
+		 * Creates a handle for the hook method which is bound to the interceptor and has the
+		 * type <code>(Object[])Object</code>, so that it can be called with
+		 * {@link MethodHandle#invokeExact(Object...)} without reflective access checks or
+		 * argument boxing on each call. Methods returning <code>void</code> return <code>null</code>.
+		 */
+		private MethodHandle toMethodHandle(Object theInterceptor, Method theHookMethod) {
+			MethodHandle retVal;
+			try {
+				retVal = MethodHandles.lookup().unreflect(theHookMethod);
+			} catch (IllegalAccessException e) {
+				throw new InternalErrorException(Msg.code(1911) + e);
+			}
+			if (!Modifier.isStatic(theHookMethod.getModifiers())) {
+				retVal = retVal.bindTo(theInterceptor);
+			}
+			return retVal.asSpreader(Object[].class, myParameterTypes.length)
+					.asType(MethodType.methodType(Object.class, Object[].class));
 		}
 
 		@Override
@@ -541,9 +584,8 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 
 			// Invoke the method
 			try {
-				return myMethod.invoke(getInterceptor(), args);
-			} catch (InvocationTargetException e) {
-				Throwable targetException = e.getTargetException();
+				return (Object) myMethodHandle.invokeExact(args);
+			} catch (Throwable targetException) {
 				if (myPointcut.isShouldLogAndSwallowException(targetException)) {
 					ourLog.error("Exception thrown by interceptor: " + targetException.toString(), targetException);
 					return null;
@@ -556,8 +598,6 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 							Msg.code(1910) + "Failure invoking interceptor for pointcut(s) " + getPointcut(),
 							targetException);
 				}
-			} catch (Exception e) {
-				throw new InternalErrorException(Msg.code(1911) + e);
 			}
 		}
 	}
@@ -42,7 +42,14 @@ public class PagingIterator<T> implements Iterator<T> {
 
 	private final PageFetcher<T> myFetcher;
 
+	private final int myPageSize;
+
 	public PagingIterator(PageFetcher<T> theFetcher) {
+		this(PAGE_SIZE, theFetcher);
+	}
+
+	public PagingIterator(int thePageSize, PageFetcher<T> theFetcher) {
+		myPageSize = thePageSize;
 		myFetcher = theFetcher;
 	}
 
@@ -66,9 +73,9 @@ public class PagingIterator<T> implements Iterator<T> {
 
 	private void fetchNextBatch() {
 		if (!myIsFinished && myCurrentBatch.isEmpty()) {
-			myFetcher.fetchNextPage(myPage, PAGE_SIZE, myCurrentBatch::add);
+			myFetcher.fetchNextPage(myPage, myPageSize, myCurrentBatch::add);
 			myPage++;
-			myIsFinished = myCurrentBatch.size() < PAGE_SIZE;
+			myIsFinished = myCurrentBatch.size() < myPageSize;
 		}
 	}
 }
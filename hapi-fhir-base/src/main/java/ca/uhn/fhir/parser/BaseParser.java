@@ -73,6 +73,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -381,6 +382,24 @@ public abstract class BaseParser implements IParser {
 		return retVal;
 	}
 
+	/**
+	 * Same as {@link #getChildNameAndDef(BaseRuntimeChildDefinition, IBase)} but memoizes the
+	 * result in the {@link EncodeContext}, so that encoding many instances of the same element
+	 * type (e.g. every Coding in a large Bundle) only resolves the child name and definition once.
+	 */
+	ChildNameAndDef getChildNameAndDef(
+			BaseRuntimeChildDefinition theChild, IBase theValue, EncodeContext theEncodeContext) {
+		Map<Class<? extends IBase>, ChildNameAndDef> childCache =
+				theEncodeContext.getChildNameAndDefCache().computeIfAbsent(theChild, t -> new IdentityHashMap<>());
+		Class<? extends IBase> type = theValue.getClass();
+		ChildNameAndDef retVal = childCache.get(type);
+		if (retVal == null) {
+			retVal = getChildNameAndDef(theChild, theValue);
+			childCache.put(type, retVal);
+		}
+		return retVal;
+	}
+
 	@SuppressWarnings("unchecked")
 	ChildNameAndDef getChildNameAndDef(BaseRuntimeChildDefinition theChild, IBase theValue) {
 		Class<? extends IBase> type = theValue.getClass();
@@ -1035,10 +1054,16 @@ public abstract class BaseParser implements IParser {
 	 */
 	public class EncodeContext extends EncodeContextPath {
 		private final Map<Key, List<BaseParser.CompositeChildElement>> myCompositeChildrenCache = new HashMap<>();
+		private final Map<BaseRuntimeChildDefinition, Map<Class<? extends IBase>, ChildNameAndDef>>
+				myChildNameAndDefCache = new IdentityHashMap<>();
 
 		public Map<Key, List<BaseParser.CompositeChildElement>> getCompositeChildrenCache() {
 			return myCompositeChildrenCache;
 		}
+
+		Map<BaseRuntimeChildDefinition, Map<Class<? extends IBase>, ChildNameAndDef>> getChildNameAndDefCache() {
+			return myChildNameAndDefCache;
+		}
 	}
 
 	protected class CompositeChildElement {
@@ -1046,6 +1071,7 @@ public abstract class BaseParser implements IParser {
 		private final CompositeChildElement myParent;
 		private final RuntimeResourceDefinition myResDef;
 		private final EncodeContext myEncodeContext;
+		private int myHashCode;
 
 		public CompositeChildElement(
 				CompositeChildElement theParent,
@@ -1253,12 +1279,18 @@ public abstract class BaseParser implements IParser {
 
 		@Override
 		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((myDef == null) ? 0 : myDef.hashCode());
-			result = prime * result + ((myParent == null) ? 0 : myParent.hashCode());
-			result = prime * result + ((myResDef == null) ? 0 : myResDef.hashCode());
-			result = prime * result + ((myEncodeContext == null) ? 0 : myEncodeContext.hashCode());
+			// All fields are final, and this is called for every element being encoded (it
+			// recurses through the parent chain) so we only compute it once
+			int result = myHashCode;
+			if (result == 0) {
+				final int prime = 31;
+				result = 1;
+				result = prime * result + ((myDef == null) ? 0 : myDef.hashCode());
+				result = prime * result + ((myParent == null) ? 0 : myParent.hashCode());
+				result = prime * result + ((myResDef == null) ? 0 : myResDef.hashCode());
+				result = prime * result + ((myEncodeContext == null) ? 0 : myEncodeContext.hashCode());
+				myHashCode = result;
+			}
 			return result;
 		}
 
@@ -543,10 +543,11 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 			String currentChildName = null;
 			boolean inArray = false;
 
-			ArrayList<ArrayList<HeldExtension>> extensions = new ArrayList<>(0);
-			ArrayList<ArrayList<HeldExtension>> modifierExtensions = new ArrayList<>(0);
-			ArrayList<ArrayList<String>> comments = new ArrayList<>(0);
-			ArrayList<String> ids = new ArrayList<>(0);
+			// These are only needed for primitives, so they are created lazily
+			ArrayList<ArrayList<HeldExtension>> extensions = null;
+			ArrayList<ArrayList<HeldExtension>> modifierExtensions = null;
+			ArrayList<ArrayList<String>> comments = null;
+			ArrayList<String> ids = null;
 
 			int valueIdx = 0;
 			for (IBase nextValue : values) {
@@ -561,7 +562,8 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 					}
 				}
 
-				BaseParser.ChildNameAndDef childNameAndDef = super.getChildNameAndDef(nextChild, nextValue);
+				BaseParser.ChildNameAndDef childNameAndDef =
+						super.getChildNameAndDef(nextChild, nextValue, theEncodeContext);
 				if (childNameAndDef == null) {
 					continue;
 				}
@@ -589,6 +591,12 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 
 				boolean force = false;
 				if (primitive) {
+					if (extensions == null) {
+						extensions = new ArrayList<>(0);
+						modifierExtensions = new ArrayList<>(0);
+						comments = new ArrayList<>(0);
+						ids = new ArrayList<>(0);
+					}
 					if (nextValue instanceof ISupportsUndeclaredExtensions) {
 						List<ExtensionDt> ext = ((ISupportsUndeclaredExtensions) nextValue).getUndeclaredExtensions();
 						force |= addToHeldExtensions(
@@ -711,9 +719,10 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 				theEventWriter.endArray();
 			}
 
-			if (!extensions.isEmpty()
-					|| !modifierExtensions.isEmpty()
-					|| (!comments.isEmpty() && isSupportsFhirComment())) {
+			if (extensions != null
+					&& (!extensions.isEmpty()
+							|| !modifierExtensions.isEmpty()
+							|| (!comments.isEmpty() && isSupportsFhirComment()))) {
 				if (inArray) {
 					// If this is a repeatable field, the extensions go in an array too
 					beginArray(theEventWriter, '_' + currentChildName);
@@ -486,7 +486,8 @@ public class XmlParser extends BaseParser {
 						continue;
 					}
 
-					BaseParser.ChildNameAndDef childNameAndDef = super.getChildNameAndDef(nextChild, nextValue);
+					BaseParser.ChildNameAndDef childNameAndDef =
+							super.getChildNameAndDef(nextChild, nextValue, theEncodeContext);
 					if (childNameAndDef == null) {
 						continue;
 					}
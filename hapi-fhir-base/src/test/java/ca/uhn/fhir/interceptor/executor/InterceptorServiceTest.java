@@ -284,6 +284,44 @@ public class InterceptorServiceTest {
 		assertSame("B", interceptor1.myLastString1);
 	}
 
+	@Test
+	public void testInvokeGlobalAndAnonymousInterceptorMethods() {
+		InterceptorService svc = new InterceptorService();
+
+		svc.registerInterceptor(new MyTestInterceptorTwo());
+		svc.registerAnonymousInterceptor(Pointcut.TEST_RB, 200, new MyTestAnonymousInterceptorOne());
+		svc.registerInterceptor(new MyTestInterceptorOne());
+
+		boolean outcome = svc.callHooks(Pointcut.TEST_RB, new HookParams("A", "B"));
+		assertTrue(outcome);
+
+		assertThat(myInvocations, contains("MyTestInterceptorOne.testRb", "MyTestAnonymousInterceptorOne.testRb", "MyTestInterceptorTwo.testRb"));
+	}
+
+	/**
+	 * Interceptors registered or unregistered by a hook only apply to later calls
+	 */
+	@Test
+	public void testRegisterInterceptorWhileInvoking() {
+		InterceptorService svc = new InterceptorService();
+
+		MyTestInterceptorTwo interceptor1 = new MyTestInterceptorTwo();
+		svc.registerAnonymousInterceptor(Pointcut.TEST_RB, 0, (thePointcut, theArgs) -> {
+			myInvocations.add("Anonymous.testRb");
+			svc.unregisterInterceptor(interceptor1);
+			svc.registerInterceptor(new MyTestInterceptorManual());
+		});
+		svc.registerInterceptor(interceptor1);
+
+		svc.callHooks(Pointcut.TEST_RB, new HookParams("A", "B"));
+		assertThat(myInvocations, contains("Anonymous.testRb", "MyTestInterceptorTwo.testRb"));
+
+		myInvocations.clear();
+		svc.unregisterAllAnonymousInterceptors();
+		svc.callHooks(Pointcut.TEST_RB, new HookParams("A", "B"));
+		assertThat(myInvocations, contains("MyTestInterceptorManual.testRb"));
+	}
+
 	@Test
 	public void testInvokeUsingSupplierArg() {
 		InterceptorService svc = new InterceptorService();
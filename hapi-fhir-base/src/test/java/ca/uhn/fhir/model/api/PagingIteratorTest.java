@@ -76,6 +76,25 @@ public class PagingIteratorTest {
 		}
 	}
 
+	@Test
+	public void next_customPageSize_fetchesPagesOfThatSize() {
+		List<String> data = getDataList(25);
+		List<Integer> batchSizes = new ArrayList<>();
+		myPagingIterator = new PagingIterator<>(10, (thePageIndex, theBatchSize, theConsumer) -> {
+			batchSizes.add(theBatchSize);
+			int start = (thePageIndex * theBatchSize);
+			for (int i = start; i < Math.min(start + theBatchSize, data.size()); i++) {
+				theConsumer.accept(data.get(i));
+			}
+		});
+
+		List<String> results = new ArrayList<>();
+		myPagingIterator.forEachRemaining(results::add);
+
+		assertEquals(data, results);
+		assertEquals(List.of(10, 10, 10), batchSizes);
+	}
+
 	@Test
 	public void next_throwsNoSuchElement_whenNoElements() {
 		myPagingIterator = createPagingIterator(0);
@@ -0,0 +1,64 @@
+package ca.uhn.fhir.parser.json.jackson;
+
+import ca.uhn.fhir.parser.json.BaseJsonLikeWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JacksonWriterTest {
+
+	@Test
+	public void testWriteAllValueTypes() throws Exception {
+		StringWriter stringWriter = new StringWriter();
+		BaseJsonLikeWriter writer = new JacksonStructure().getJsonLikeWriter(stringWriter);
+		writer.init();
+		writer.beginObject();
+		writer.write("string", "value");
+		writer.write("nullString", (String) null);
+		writer.write("bigInteger", new BigInteger("12345678901234567890"));
+		writer.write("bigDecimal", new BigDecimal("1.50"));
+		writer.write("long", 123L);
+		writer.write("double", 1.5d);
+		writer.write("boxedBoolean", Boolean.TRUE);
+		writer.write("nullBoolean", (Boolean) null);
+		writer.write("boolean", false);
+		writer.beginArray("array");
+		writer.write("a");
+		writer.write(new BigInteger("1"));
+		writer.write(new BigDecimal("2.0"));
+		writer.write(3L);
+		writer.write(4.5d);
+		writer.write(Boolean.FALSE);
+		writer.write(true);
+		writer.writeNull();
+		writer.endArray();
+		writer.endObject();
+		writer.close();
+
+		assertEquals("{\"string\":\"value\",\"nullString\":null,\"bigInteger\":12345678901234567890,"
+			+ "\"bigDecimal\":1.50,\"long\":123,\"double\":1.5,\"boxedBoolean\":true,\"nullBoolean\":null,"
+			+ "\"boolean\":false,\"array\":[\"a\",1,2.0,3,4.5,false,true,null]}", stringWriter.toString());
+	}
+
+	@Test
+	public void testWriteDecimalPreservesCustomToString() throws Exception {
+		StringWriter stringWriter = new StringWriter();
+		BaseJsonLikeWriter writer = new JacksonStructure().getJsonLikeWriter(stringWriter);
+		writer.init();
+		writer.beginObject();
+		writer.write("value", new BigDecimal("1E+2") {
+			@Override
+			public String toString() {
+				return "100";
+			}
+		});
+		writer.endObject();
+		writer.close();
+
+		assertEquals("{\"value\":100}", stringWriter.toString());
+	}
+}
@@ -0,0 +1,183 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import org.hl7.fhir.r4.model.Address;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.ContactPoint;
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.HumanName;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Meta;
+import org.hl7.fhir.r4.model.Narrative;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+
+import java.util.Date;
+
+/**
+ * Builds deterministic, reasonably realistic R4 resources for the benchmarks in this
+ * module. Every benchmark works on the same shapes so that numbers are comparable
+ * across releases.
+ */
+public class BenchmarkData {
+
+	private static final long BASE_TIME = 1690000000000L;
+
+	private BenchmarkData() {
+		// nothing
+	}
+
+	/**
+	 * A Patient with several names, identifiers, telecoms and addresses
+	 */
+	public static Patient newPatient(int theIndex) {
+		Patient retVal = new Patient();
+		retVal.setId("Patient/P" + theIndex);
+		retVal.setMeta(newMeta(theIndex));
+		retVal.getText().setStatus(Narrative.NarrativeStatus.GENERATED);
+		retVal.getText().setDivAsString("<div xmlns=\"http://www.w3.org/1999/xhtml\">Patient " + theIndex + "</div>");
+		retVal.setActive(true);
+		for (int i = 0; i < 3; i++) {
+			retVal.addIdentifier(new Identifier()
+					.setSystem("http://example.com/mrn/" + i)
+					.setValue("MRN-" + theIndex + "-" + i));
+		}
+		retVal.addName(new HumanName()
+				.setFamily("Family" + theIndex)
+				.addGiven("Given" + theIndex)
+				.addGiven("Middle" + theIndex)
+				.addPrefix("Mr.")
+				.setUse(HumanName.NameUse.OFFICIAL));
+		retVal.addName(new HumanName().setText("Nick " + theIndex).setUse(HumanName.NameUse.NICKNAME));
+		retVal.addTelecom(new ContactPoint()
+				.setSystem(ContactPoint.ContactPointSystem.PHONE)
+				.setValue("555-0100-" + theIndex));
+		retVal.addTelecom(new ContactPoint()
+				.setSystem(ContactPoint.ContactPointSystem.EMAIL)
+				.setValue("patient" + theIndex + "@example.com"));
+		retVal.setGender(theIndex % 2 == 0 ? Enumerations.AdministrativeGender.MALE : Enumerations.AdministrativeGender.FEMALE);
+		retVal.setBirthDate(new Date(BASE_TIME - (theIndex * 86400000L * 365)));
+		for (int i = 0; i < 2; i++) {
+			retVal.addAddress(new Address()
+					.addLine(theIndex + " Main Street")
+					.addLine("Unit " + i)
+					.setCity("Toronto")
+					.setState("ON")
+					.setPostalCode("M5V 1A" + i)
+					.setCountry("CA"));
+		}
+		retVal.setManagingOrganization(new Reference("Organization/O1"));
+		return retVal;
+	}
+
+	/**
+	 * A laboratory Observation with several codings, components and references
+	 */
+	public static Observation newObservation(int theIndex, String thePatientId) {
+		Observation retVal = new Observation();
+		retVal.setId("Observation/OBS" + theIndex);
+		retVal.setMeta(newMeta(theIndex));
+		retVal.setStatus(Observation.ObservationStatus.FINAL);
+		retVal.addIdentifier().setSystem("http://example.com/obs").setValue("OBS-" + theIndex);
+		retVal.addCategory()
+				.addCoding()
+				.setSystem("http://terminology.hl7.org/CodeSystem/observation-category")
+				.setCode("laboratory");
+		retVal.setCode(newCode("http://loinc.org", "8867-4", "Heart rate"));
+		retVal.getCode().addCoding().setSystem("http://example.com/local").setCode("HR" + (theIndex % 10));
+		retVal.setSubject(new Reference(thePatientId));
+		retVal.setEncounter(new Reference("Encounter/E" + theIndex));
+		retVal.addPerformer(new Reference("Practitioner/PR" + (theIndex % 5)));
+		retVal.setEffective(new DateTimeType(new Date(BASE_TIME + (theIndex * 60000L))));
+		retVal.setIssued(new Date(BASE_TIME + (theIndex * 60000L) + 1000L));
+		retVal.setValue(new Quantity()
+				.setValue(60 + (theIndex % 40))
+				.setUnit("beats/minute")
+				.setSystem("http://unitsofmeasure.org")
+				.setCode("/min"));
+		retVal.addInterpretation(newCode(
+				"http://terminology.hl7.org/CodeSystem/v3-ObservationInterpretation", "N", "Normal"));
+		retVal.addReferenceRange()
+				.setLow(new Quantity().setValue(50).setSystem("http://unitsofmeasure.org").setCode("/min"))
+				.setHigh(new Quantity().setValue(100).setSystem("http://unitsofmeasure.org").setCode("/min"));
+		for (int i = 0; i < 3; i++) {
+			retVal.addComponent()
+					.setCode(newCode("http://loinc.org", "8480-" + i, "Component " + i))
+					.setValue(new Quantity()
+							.setValue(100 + i + (theIndex % 20))
+							.setSystem("http://unitsofmeasure.org")
+							.setCode("mm[Hg]"));
+		}
+		retVal.addNote().setText("Observation note " + theIndex);
+		return retVal;
+	}
+
+	/**
+	 * A searchset Bundle of the given size, alternating a Patient with a handful of
+	 * Observations for that patient, similar to a search response with <code>_include</code>
+	 */
+	public static Bundle newSearchBundle(int theEntryCount) {
+		Bundle retVal = new Bundle();
+		retVal.setType(Bundle.BundleType.SEARCHSET);
+		retVal.setTotal(theEntryCount);
+		retVal.addLink().setRelation("self").setUrl("http://example.com/fhir/Observation?_count=" + theEntryCount);
+		int patientIndex = 0;
+		String patientId = null;
+		for (int i = 0; i < theEntryCount; i++) {
+			if (i % 10 == 0) {
+				Patient patient = newPatient(patientIndex++);
+				patientId = patient.getIdElement().toUnqualifiedVersionless().getValue();
+				Bundle.BundleEntryComponent entry = retVal.addEntry();
+				entry.setFullUrl("http://example.com/fhir/" + patientId);
+				entry.setResource(patient);
+				entry.getSearch().setMode(Bundle.SearchEntryMode.INCLUDE);
+			} else {
+				Observation obs = newObservation(i, patientId);
+				Bundle.BundleEntryComponent entry = retVal.addEntry();
+				entry.setFullUrl("http://example.com/fhir/" + obs.getIdElement().getValue());
+				entry.setResource(obs);
+				entry.getSearch().setMode(Bundle.SearchEntryMode.MATCH);
+			}
+		}
+		return retVal;
+	}
+
+	private static CodeableConcept newCode(String theSystem, String theCode, String theDisplay) {
+		CodeableConcept retVal = new CodeableConcept();
+		retVal.addCoding().setSystem(theSystem).setCode(theCode).setDisplay(theDisplay);
+		retVal.setText(theDisplay);
+		return retVal;
+	}
+
+	private static Meta newMeta(int theIndex) {
+		Meta retVal = new Meta();
+		retVal.setVersionId("1");
+		retVal.setLastUpdated(new Date(BASE_TIME + theIndex));
+		retVal.setSource("#benchmark");
+		retVal.addTag().setSystem("http://example.com/tags").setCode("tag" + (theIndex % 3));
+		retVal.addProfile("http://hl7.org/fhir/StructureDefinition/vitalsigns");
+		return retVal;
+	}
+}
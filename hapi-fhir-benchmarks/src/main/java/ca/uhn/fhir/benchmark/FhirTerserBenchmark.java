@@ -0,0 +1,94 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.PerformanceOptionsEnum;
+import ca.uhn.fhir.util.FhirTerser;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseReference;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FhirTerser#getValues(IBase, String)} and
+ * {@link FhirTerser#getAllPopulatedChildElementsOfType(org.hl7.fhir.instance.model.api.IBaseResource, Class)}
+ * on an Observation and on a full searchset Bundle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FhirTerserBenchmark {
+
+	/**
+	 * Compare reflective field access with {@link PerformanceOptionsEnum#METHOD_HANDLE_FIELD_ACCESS}
+	 */
+	@Param({"false", "true"})
+	public boolean myMethodHandleFieldAccess;
+
+	private FhirTerser myTerser;
+	private Observation myObservation;
+	private Bundle myBundle;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		myTerser = ParserBenchmark.newFhirContext(myMethodHandleFieldAccess).newTerser();
+		myObservation = BenchmarkData.newObservation(1, "Patient/P1");
+		myBundle = BenchmarkData.newSearchBundle(200);
+	}
+
+	@Benchmark
+	public List<IBase> getValuesShallowPath() {
+		return myTerser.getValues(myObservation, "Observation.subject");
+	}
+
+	@Benchmark
+	public List<IBase> getValuesDeepPath() {
+		return myTerser.getValues(myObservation, "Observation.component.code.coding.code");
+	}
+
+	@Benchmark
+	public List<IBase> getValuesAcrossBundle() {
+		return myTerser.getValues(myBundle, "Bundle.entry.resource");
+	}
+
+	@Benchmark
+	public List<IBaseReference> getAllReferencesInBundle() {
+		return myTerser.getAllPopulatedChildElementsOfType(myBundle, IBaseReference.class);
+	}
+}
@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.test.config.TestR4Config;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Shared JMH state which boots the JPA server against an embedded in-memory H2
+ * database (using the same configuration as the R4 JPA test suite) and seeds it
+ * with a number of Patients, each with a set of Observations.
+ */
+@State(Scope.Benchmark)
+public class JpaBenchmarkState {
+
+	@Param({"100"})
+	public int myPatientCount;
+
+	@Param({"20"})
+	public int myObservationsPerPatient;
+
+	private AnnotationConfigApplicationContext myAppCtx;
+
+	@Setup(Level.Trial)
+	public void startContext() {
+		myAppCtx = new AnnotationConfigApplicationContext(TestR4Config.class);
+
+		DaoRegistry daoRegistry = getBean(DaoRegistry.class);
+		IFhirResourceDao<Patient> patientDao = daoRegistry.getResourceDao(Patient.class);
+		IFhirResourceDao<Observation> observationDao = daoRegistry.getResourceDao(Observation.class);
+		SystemRequestDetails requestDetails = new SystemRequestDetails();
+
+		int observationIndex = 0;
+		for (int patientIndex = 0; patientIndex < myPatientCount; patientIndex++) {
+			Patient patient = BenchmarkData.newPatient(patientIndex);
+			patient.setManagingOrganization(null);
+			patientDao.update(patient, requestDetails);
+
+			String patientId = patient.getIdElement().toUnqualifiedVersionless().getValue();
+			for (int i = 0; i < myObservationsPerPatient; i++) {
+				Observation observation = BenchmarkData.newObservation(observationIndex++, patientId);
+				observation.setEncounter(null);
+				observation.setPerformer(null);
+				observationDao.update(observation, requestDetails);
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void stopContext() {
+		if (myAppCtx != null) {
+			myAppCtx.close();
+		}
+	}
+
+	public <T> T getBean(Class<T> theType) {
+		return myAppCtx.getBean(theType);
+	}
+}
@@ -0,0 +1,100 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.PerformanceOptionsEnum;
+import ca.uhn.fhir.parser.IParser;
+import org.hl7.fhir.r4.model.Bundle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ca.uhn.fhir.parser.JsonParser} and {@link ca.uhn.fhir.parser.XmlParser}
+ * encoding and parsing of a searchset Bundle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParserBenchmark {
+
+	/**
+	 * Compare reflective field access with {@link PerformanceOptionsEnum#METHOD_HANDLE_FIELD_ACCESS}
+	 */
+	@Param({"false", "true"})
+	public boolean myMethodHandleFieldAccess;
+
+	@Param({"JSON", "XML"})
+	public String myEncoding;
+
+	@Param({"50", "500"})
+	public int myBundleSize;
+
+	private FhirContext myFhirContext;
+	private Bundle myBundle;
+	private String myEncodedBundle;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		myFhirContext = newFhirContext(myMethodHandleFieldAccess);
+		myBundle = BenchmarkData.newSearchBundle(myBundleSize);
+		myEncodedBundle = newParser().encodeResourceToString(myBundle);
+	}
+
+	@Benchmark
+	public String encodeBundle() {
+		return newParser().encodeResourceToString(myBundle);
+	}
+
+	@Benchmark
+	public Bundle parseBundle() {
+		return newParser().parseResource(Bundle.class, myEncodedBundle);
+	}
+
+	static FhirContext newFhirContext(boolean theMethodHandleFieldAccess) {
+		FhirContext retVal = FhirContext.forR4();
+		if (theMethodHandleFieldAccess) {
+			retVal.setPerformanceOptions(PerformanceOptionsEnum.METHOD_HANDLE_FIELD_ACCESS);
+		}
+		return retVal;
+	}
+
+	private IParser newParser() {
+		if ("XML".equals(myEncoding)) {
+			return myFhirContext.newXmlParser();
+		}
+		return myFhirContext.newJsonParser();
+	}
+}
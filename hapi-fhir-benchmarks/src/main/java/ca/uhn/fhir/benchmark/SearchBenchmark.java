@@ -0,0 +1,149 @@
+/*-
+ * #%L
+ * HAPI FHIR - JMH Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.config.HibernatePropertiesProvider;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.search.builder.QueryStack;
+import ca.uhn.fhir.jpa.search.builder.sql.GeneratedSql;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryBuilder;
+import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.SearchContainedModeEnum;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.ParamPrefixEnum;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import com.healthmarketscience.sqlbuilder.Condition;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Observation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures SQL generation by {@link SearchQueryBuilder} and {@link QueryStack} for a
+ * multi-parameter {@link SearchParameterMap}, as well as end-to-end synchronous
+ * search execution against an embedded H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+	private FhirContext myFhirContext;
+	private JpaStorageSettings myStorageSettings;
+	private PartitionSettings myPartitionSettings;
+	private SqlObjectFactory mySqlObjectFactory;
+	private HibernatePropertiesProvider myDialectProvider;
+	private ISearchParamRegistry mySearchParamRegistry;
+	private IHapiTransactionService myTransactionService;
+	private IFhirResourceDao<Observation> myObservationDao;
+
+	@Setup(Level.Trial)
+	public void setup(JpaBenchmarkState theState) {
+		myFhirContext = theState.getBean(FhirContext.class);
+		myStorageSettings = theState.getBean(JpaStorageSettings.class);
+		myPartitionSettings = theState.getBean(PartitionSettings.class);
+		mySqlObjectFactory = theState.getBean(SqlObjectFactory.class);
+		myDialectProvider = theState.getBean(HibernatePropertiesProvider.class);
+		mySearchParamRegistry = theState.getBean(ISearchParamRegistry.class);
+		myTransactionService = theState.getBean(IHapiTransactionService.class);
+		myObservationDao = theState.getBean(DaoRegistry.class).getResourceDao(Observation.class);
+	}
+
+	@Benchmark
+	public GeneratedSql generateMultiParameterSql() {
+		return myTransactionService.withSystemRequest().execute(() -> {
+			SearchParameterMap params = newMultiParameterMap();
+			SystemRequestDetails requestDetails = new SystemRequestDetails();
+			RequestPartitionId partitionId = RequestPartitionId.allPartitions();
+
+			SearchQueryBuilder sqlBuilder = new SearchQueryBuilder(
+					myFhirContext,
+					myStorageSettings,
+					myPartitionSettings,
+					partitionId,
+					"Observation",
+					mySqlObjectFactory,
+					myDialectProvider,
+					false);
+			sqlBuilder.setNeedResourceTableRoot(true);
+			QueryStack queryStack = new QueryStack(
+					params, myStorageSettings, myFhirContext, sqlBuilder, mySearchParamRegistry, myPartitionSettings);
+
+			for (String nextParamName : params.keySet()) {
+				Condition predicate = queryStack.searchForIdsWithAndOr(
+						null,
+						"Observation",
+						nextParamName,
+						params.get(nextParamName),
+						requestDetails,
+						partitionId,
+						SearchContainedModeEnum.FALSE);
+				if (predicate != null) {
+					sqlBuilder.addPredicate(predicate);
+				}
+			}
+
+			return sqlBuilder.generate(null, 100);
+		});
+	}
+
+	@Benchmark
+	public List<IBaseResource> searchMultiParameter() {
+		SearchParameterMap params = newMultiParameterMap();
+		params.setLoadSynchronous(true);
+		IBundleProvider outcome = myObservationDao.search(params, new SystemRequestDetails());
+		return outcome.getResources(0, 100);
+	}
+
+	private static SearchParameterMap newMultiParameterMap() {
+		SearchParameterMap retVal = new SearchParameterMap();
+		retVal.add(Observation.SP_SUBJECT, new ReferenceParam("Patient/P1"));
+		retVal.add(Observation.SP_CODE, new TokenParam("http://loinc.org", "8867-4"));
+		retVal.add(Observation.SP_STATUS, new TokenParam("final"));
+		retVal.add(Observation.SP_DATE, new DateParam(ParamPrefixEnum.GREATERTHAN_OR_EQUALS, "2020-01-01"));
+		return retVal;
+	}
+}
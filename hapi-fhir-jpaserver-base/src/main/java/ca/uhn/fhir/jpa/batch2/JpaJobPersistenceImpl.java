@@ -20,6 +20,7 @@
 package ca.uhn.fhir.jpa.batch2;
 
 import ca.uhn.fhir.batch2.api.IJobPersistence;
+import ca.uhn.fhir.batch2.api.IWorkChunkDataCodec;
 import ca.uhn.fhir.batch2.api.JobOperationResultJson;
 import ca.uhn.fhir.batch2.model.FetchJobInstancesRequest;
 import ca.uhn.fhir.batch2.model.JobInstance;
@@ -82,6 +83,7 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 	private final IBatch2WorkChunkRepository myWorkChunkRepository;
 	private final EntityManager myEntityManager;
 	private final IHapiTransactionService myTransactionService;
+	private final IWorkChunkDataCodec myWorkChunkDataCodec;
 
 	/**
 	 * Constructor
@@ -90,13 +92,16 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 			IBatch2JobInstanceRepository theJobInstanceRepository,
 			IBatch2WorkChunkRepository theWorkChunkRepository,
 			IHapiTransactionService theTransactionService,
-			EntityManager theEntityManager) {
+			EntityManager theEntityManager,
+			IWorkChunkDataCodec theWorkChunkDataCodec) {
 		Validate.notNull(theJobInstanceRepository);
 		Validate.notNull(theWorkChunkRepository);
+		Validate.notNull(theWorkChunkDataCodec);
 		myJobInstanceRepository = theJobInstanceRepository;
 		myWorkChunkRepository = theWorkChunkRepository;
 		myTransactionService = theTransactionService;
 		myEntityManager = theEntityManager;
+		myWorkChunkDataCodec = theWorkChunkDataCodec;
 	}
 
 	@Override
@@ -108,13 +113,16 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 		entity.setJobDefinitionVersion(theBatchWorkChunk.jobDefinitionVersion);
 		entity.setTargetStepId(theBatchWorkChunk.targetStepId);
 		entity.setInstanceId(theBatchWorkChunk.instanceId);
-		entity.setSerializedData(theBatchWorkChunk.serializedData);
+		entity.setSerializedData(myWorkChunkDataCodec.encode(theBatchWorkChunk.serializedData));
 		entity.setCreateTime(new Date());
 		entity.setStartTime(new Date());
 		entity.setStatus(WorkChunkStatusEnum.QUEUED);
 		ourLog.debug("Create work chunk {}/{}/{}", entity.getInstanceId(), entity.getId(), entity.getTargetStepId());
 		ourLog.trace(
-				"Create work chunk data {}/{}: {}", entity.getInstanceId(), entity.getId(), entity.getSerializedData());
+				"Create work chunk data {}/{}: {}",
+				entity.getInstanceId(),
+				entity.getId(),
+				theBatchWorkChunk.serializedData);
 		myWorkChunkRepository.save(entity);
 		return entity.getId();
 	}
@@ -283,7 +291,9 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 	}
 
 	private WorkChunk toChunk(Batch2WorkChunkEntity theEntity) {
-		return JobInstanceUtil.fromEntityToWorkChunk(theEntity);
+		WorkChunk retVal = JobInstanceUtil.fromEntityToWorkChunk(theEntity);
+		retVal.setData(myWorkChunkDataCodec.decode(retVal.getData()));
+		return retVal;
 	}
 
 	private JobInstance toInstance(Batch2JobInstanceEntity theEntity) {
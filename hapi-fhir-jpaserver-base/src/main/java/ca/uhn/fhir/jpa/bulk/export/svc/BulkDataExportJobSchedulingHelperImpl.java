@@ -193,6 +193,11 @@ public class BulkDataExportJobSchedulingHelperImpl implements IBulkDataExportJob
 					getBinaryDao().delete(id, new SystemRequestDetails());
 				}
 			}
+			for (String binaryId : bulkExportJobResults.getDeletedBinaryIds()) {
+				ourLog.info("Purging batch 2 bulk export binary: {}", binaryId);
+				IIdType id = myBulkExportHelperSvc.toId(binaryId);
+				getBinaryDao().delete(id, new SystemRequestDetails());
+			}
 		} // else we can't know what the binary IDs are, so delete this job and move on
 	}
 
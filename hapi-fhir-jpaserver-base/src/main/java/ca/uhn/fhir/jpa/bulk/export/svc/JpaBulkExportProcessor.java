@@ -38,6 +38,7 @@ import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.dao.mdm.MdmExpansionCacheSvc;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.search.SearchBuilderLoadIncludesParameters;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
@@ -46,6 +47,7 @@ import ca.uhn.fhir.mdm.api.MdmMatchResultEnum;
 import ca.uhn.fhir.mdm.dao.IMdmLinkDao;
 import ca.uhn.fhir.mdm.model.MdmPidTuple;
 import ca.uhn.fhir.model.api.Include;
+import ca.uhn.fhir.model.api.PagingIterator;
 import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
@@ -58,6 +60,8 @@ import ca.uhn.fhir.util.HapiExtensions;
 import ca.uhn.fhir.util.Logs;
 import ca.uhn.fhir.util.SearchParameterUtil;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.mutable.MutableObject;
+import org.apache.commons.lang3.tuple.Pair;
 import org.hl7.fhir.instance.model.api.IBaseExtension;
 import org.hl7.fhir.instance.model.api.IBaseReference;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -68,6 +72,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -78,8 +84,17 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.persistence.EntityManager;
-
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import static ca.uhn.fhir.jpa.util.QueryParameterUtils.toPartitionIdPredicate;
+import static ca.uhn.fhir.jpa.util.QueryParameterUtils.toPredicateArray;
 import static ca.uhn.fhir.rest.api.Constants.PARAM_HAS;
 import static ca.uhn.fhir.rest.api.Constants.PARAM_ID;
 
@@ -87,6 +102,7 @@ public class JpaBulkExportProcessor implements IBulkExportProcessor<JpaPid> {
 	private static final Logger ourLog = LoggerFactory.getLogger(JpaBulkExportProcessor.class);
 
 	public static final int QUERY_CHUNK_SIZE = 100;
+	public static final int RESOURCE_TABLE_PAGE_SIZE = 1000;
 	public static final List<String> PATIENT_BULK_EXPORT_FORWARD_REFERENCE_RESOURCE_TYPES =
 			List.of("Practitioner", "Organization");
 
@@ -125,6 +141,10 @@ public class JpaBulkExportProcessor implements IBulkExportProcessor<JpaPid> {
 
 	@Override
 	public Iterator<JpaPid> getResourcePidIterator(ExportPIDIteratorParameters theParams) {
+		if (isResourceTableQueryApplicable(theParams)) {
+			return getPidsFromResourceTable(theParams, false);
+		}
+
 		return myHapiTransactionService
 				.withSystemRequest()
 				.withRequestPartitionId(theParams.getPartitionIdOrAllPartitions())
@@ -354,6 +374,154 @@ public class JpaBulkExportProcessor implements IBulkExportProcessor<JpaPid> {
 		return searchParam;
 	}
 
+	@Override
+	public Pair<Long, Long> getResourcePidRange(String theResourceType, RequestPartitionId thePartitionId) {
+		return myHapiTransactionService
+				.withSystemRequest()
+				.withRequestPartitionId(thePartitionId)
+				.readOnly()
+				.execute(() -> {
+					CriteriaBuilder cb = myEntityManager.getCriteriaBuilder();
+					CriteriaQuery<Object[]> criteriaQuery = cb.createQuery(Object[].class);
+					Root<ResourceTable> from = criteriaQuery.from(ResourceTable.class);
+					Expression<Long> pid = from.get("myId").as(Long.class);
+					criteriaQuery.multiselect(cb.min(pid), cb.max(pid));
+
+					List<Predicate> predicates = new ArrayList<>();
+					predicates.add(cb.equal(from.get("myResourceType"), theResourceType));
+					predicates.add(cb.isNull(from.get("myDeleted")));
+					Predicate partitionIdPredicate = toPartitionIdPredicate(cb, from, thePartitionId);
+					if (partitionIdPredicate != null) {
+						predicates.add(partitionIdPredicate);
+					}
+					criteriaQuery.where(toPredicateArray(predicates));
+
+					Object[] result = myEntityManager.createQuery(criteriaQuery).getSingleResult();
+					if (result[0] == null) {
+						return null;
+					}
+					return Pair.of((Long) result[0], (Long) result[1]);
+				});
+	}
+
+	@Override
+	public Iterator<JpaPid> getDeletedResourcePidIterator(ExportPIDIteratorParameters theParams) {
+		if (!isIncrementalModeApplicable(theParams)) {
+			return Collections.emptyIterator();
+		}
+		return getPidsFromResourceTable(theParams, true);
+	}
+
+	/**
+	 * In incremental mode, system level exports of resource types without a <code>_typeFilter</code>
+	 * read their PIDs directly from the resource table instead of performing a search
+	 */
+	private boolean isIncrementalModeApplicable(ExportPIDIteratorParameters theParams) {
+		return myStorageSettings.isBulkExportIncrementalModeEnabled() && isSystemExportWithoutTypeFilter(theParams);
+	}
+
+	/**
+	 * System level exports of resource types without a <code>_typeFilter</code> read their PIDs
+	 * directly from the resource table if incremental mode is enabled, or if they are restricted
+	 * to a range of PIDs (which a search can't be)
+	 */
+	private boolean isResourceTableQueryApplicable(ExportPIDIteratorParameters theParams) {
+		if (theParams.getStartPid() != null || theParams.getEndPid() != null) {
+			return isSystemExportWithoutTypeFilter(theParams);
+		}
+		return isIncrementalModeApplicable(theParams);
+	}
+
+	private static boolean isSystemExportWithoutTypeFilter(ExportPIDIteratorParameters theParams) {
+		if (theParams.getExportStyle() != BulkExportJobParameters.ExportStyle.SYSTEM) {
+			return false;
+		}
+		String typeFilterPrefix = theParams.getResourceType() + "?";
+		return theParams.getFilters().stream().noneMatch(t -> t.startsWith(typeFilterPrefix));
+	}
+
+	/**
+	 * Fetches the PIDs of the resources of the requested type which were last updated (or if
+	 * <code>theDeleted</code> is <code>true</code>, which were deleted) since the requested start
+	 * date, within the requested PID range. Deleted resources remain in the resource table until
+	 * they are expunged, and both of these queries can be satisfied entirely by the
+	 * IDX_RES_TYPE_DEL_UPDATED index.
+	 * <p>
+	 * The PIDs are fetched lazily in pages ordered by PID, each page in its own transaction and
+	 * starting after the last PID of the previous page, so that the PIDs of a large resource type
+	 * are never all held in memory at once.
+	 * </p>
+	 */
+	private Iterator<JpaPid> getPidsFromResourceTable(ExportPIDIteratorParameters theParams, boolean theDeleted) {
+		Logs.getBatchTroubleshootingLog()
+				.debug(
+						"Fetching {} {} resources for bulk export job[{}] chunk[{}] from the resource table",
+						theDeleted ? "deleted" : "changed",
+						theParams.getResourceType(),
+						theParams.getInstanceId(),
+						theParams.getChunkId());
+
+		MutableObject<Long> lastPid = new MutableObject<>();
+		return new PagingIterator<>(RESOURCE_TABLE_PAGE_SIZE, (thePageIndex, theBatchSize, theConsumer) -> {
+			List<Long> page = myHapiTransactionService
+					.withSystemRequest()
+					.withRequestPartitionId(theParams.getPartitionIdOrAllPartitions())
+					.readOnly()
+					.execute(() -> fetchResourceTablePidPage(theParams, theDeleted, lastPid.getValue(), theBatchSize));
+			for (Long next : page) {
+				theConsumer.accept(JpaPid.fromIdAndResourceType(next, theParams.getResourceType()));
+			}
+			if (!page.isEmpty()) {
+				lastPid.setValue(page.get(page.size() - 1));
+			}
+		});
+	}
+
+	private List<Long> fetchResourceTablePidPage(
+			ExportPIDIteratorParameters theParams, boolean theDeleted, @Nullable Long theAfterPid, int thePageSize) {
+		CriteriaBuilder cb = myEntityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
+		Root<ResourceTable> from = criteriaQuery.from(ResourceTable.class);
+		Expression<Long> pid = from.get("myId").as(Long.class);
+		criteriaQuery.select(pid);
+
+		List<Predicate> predicates = new ArrayList<>();
+		predicates.add(cb.equal(from.get("myResourceType"), theParams.getResourceType()));
+
+		Expression<Date> date;
+		if (theDeleted) {
+			date = from.get("myDeleted").as(Date.class);
+			predicates.add(cb.isNotNull(date));
+		} else {
+			predicates.add(cb.isNull(from.get("myDeleted")));
+			date = from.get("myUpdated").as(Date.class);
+		}
+		if (theParams.getStartDate() != null) {
+			predicates.add(cb.greaterThanOrEqualTo(date, theParams.getStartDate()));
+		}
+		if (theParams.getStartPid() != null) {
+			predicates.add(cb.greaterThanOrEqualTo(pid, theParams.getStartPid()));
+		}
+		if (theParams.getEndPid() != null) {
+			predicates.add(cb.lessThan(pid, theParams.getEndPid()));
+		}
+		if (theAfterPid != null) {
+			predicates.add(cb.greaterThan(pid, theAfterPid));
+		}
+
+		Predicate partitionIdPredicate = toPartitionIdPredicate(cb, from, theParams.getPartitionIdOrAllPartitions());
+		if (partitionIdPredicate != null) {
+			predicates.add(partitionIdPredicate);
+		}
+
+		criteriaQuery.where(toPredicateArray(predicates));
+		criteriaQuery.orderBy(cb.asc(pid));
+
+		TypedQuery<Long> query = myEntityManager.createQuery(criteriaQuery);
+		query.setMaxResults(thePageSize);
+		return query.getResultList();
+	}
+
 	@Override
 	public void expandMdmResources(List<IBaseResource> theResources) {
 		for (IBaseResource resource : theResources) {
@@ -33,6 +33,7 @@ import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.delete.batch2.DeleteExpungeSqlBuilder;
 import ca.uhn.fhir.jpa.delete.batch2.DeleteExpungeSvcImpl;
 import ca.uhn.fhir.jpa.reindex.Batch2DaoSvcImpl;
+import ca.uhn.fhir.jpa.search.cache.ISearchFirstPageCacheSvc;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -62,8 +63,10 @@ public class Batch2SupportConfig {
 	public IDeleteExpungeSvc deleteExpungeSvc(
 			EntityManager theEntityManager,
 			DeleteExpungeSqlBuilder theDeleteExpungeSqlBuilder,
-			@Autowired(required = false) IFulltextSearchSvc theFullTextSearchSvc) {
-		return new DeleteExpungeSvcImpl(theEntityManager, theDeleteExpungeSqlBuilder, theFullTextSearchSvc);
+			@Autowired(required = false) IFulltextSearchSvc theFullTextSearchSvc,
+			ISearchFirstPageCacheSvc theSearchFirstPageCacheSvc) {
+		return new DeleteExpungeSvcImpl(
+				theEntityManager, theDeleteExpungeSqlBuilder, theFullTextSearchSvc, theSearchFirstPageCacheSvc);
 	}
 
 	@Bean
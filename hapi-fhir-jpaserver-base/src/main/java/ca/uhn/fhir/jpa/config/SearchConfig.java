@@ -26,6 +26,7 @@ import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IDao;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.jpa.api.svc.ISearchCoordinatorSvc;
+import ca.uhn.fhir.jpa.config.util.ConnectionPoolInfoProvider;
 import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.dao.data.IResourceSearchViewDao;
@@ -38,7 +39,9 @@ import ca.uhn.fhir.jpa.search.ISynchronousSearchSvc;
 import ca.uhn.fhir.jpa.search.PersistedJpaBundleProviderFactory;
 import ca.uhn.fhir.jpa.search.SearchCoordinatorSvcImpl;
 import ca.uhn.fhir.jpa.search.SearchStrategyFactory;
+import ca.uhn.fhir.jpa.search.builder.ResourceSearchViewBulkLoader;
 import ca.uhn.fhir.jpa.search.builder.SearchBuilder;
+import ca.uhn.fhir.jpa.search.builder.SearchParamCardinalitySvc;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchContinuationTask;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchTask;
@@ -47,18 +50,25 @@ import ca.uhn.fhir.jpa.search.cache.ISearchCacheSvc;
 import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
 import ca.uhn.fhir.rest.server.IPagingProvider;
 import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.util.ThreadPoolUtil;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.Optional;
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 public class SearchConfig {
 	public static final String SEARCH_TASK = "searchTask";
 	public static final String CONTINUE_TASK = "continueTask";
+	public static final String INCLUDE_TASK_EXECUTOR = "searchIncludeTaskExecutor";
+	public static final String RESOURCE_PARSE_TASK_EXECUTOR = "searchResourceParseTaskExecutor";
 
 	@Autowired
 	private JpaStorageSettings myStorageSettings;
@@ -148,6 +158,52 @@ public class SearchConfig {
 				myBeanFactory);
 	}
 
+	@Bean
+	public SearchParamCardinalitySvc searchParamCardinalitySvc() {
+		return new SearchParamCardinalitySvc(mySearchParamRegistry, myPartitionSettings);
+	}
+
+	/**
+	 * Used for parallel _include/_revinclude loading. The pool size is read from
+	 * {@link JpaStorageSettings#getIncludeLoadingPoolSize()} when the context starts.
+	 * <p>
+	 * Each include worker uses its own database connection while the searching thread keeps
+	 * holding its connection and waits for the workers. To make sure the workers can never be
+	 * starved of connections by the threads waiting on them, the pool is limited to half of the
+	 * database connection pool, and it has no queue: tasks which can not be started right away are
+	 * rejected so that the searching thread runs them on its own connection instead.
+	 * </p>
+	 */
+	@Bean(name = INCLUDE_TASK_EXECUTOR)
+	public ThreadPoolTaskExecutor searchIncludeTaskExecutor() {
+		int poolSize = Math.max(1, myStorageSettings.getIncludeLoadingPoolSize());
+		Optional<Integer> maxConnections =
+				new ConnectionPoolInfoProvider(myDialectProvider.getDataSource()).getTotalConnectionSize();
+		if (maxConnections.isPresent()) {
+			poolSize = Math.max(1, Math.min(poolSize, maxConnections.get() / 2));
+		}
+		ThreadPoolTaskExecutor retVal = ThreadPoolUtil.newThreadPool(poolSize, poolSize, "search-include-");
+		// Spring re-initializes the executor after this method returns, so set the policy on both
+		retVal.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+		retVal.getThreadPoolExecutor().setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+		return retVal;
+	}
+
+	@Bean
+	public ResourceSearchViewBulkLoader resourceSearchViewBulkLoader() {
+		return new ResourceSearchViewBulkLoader();
+	}
+
+	/**
+	 * Used for parallel parsing of search result resources. The pool size is read from
+	 * {@link JpaStorageSettings#getSearchResourceParsePoolSize()} when the context starts.
+	 */
+	@Bean(name = RESOURCE_PARSE_TASK_EXECUTOR)
+	public ThreadPoolTaskExecutor searchResourceParseTaskExecutor() {
+		int poolSize = Math.max(1, myStorageSettings.getSearchResourceParsePoolSize());
+		return ThreadPoolUtil.newThreadPool(poolSize, poolSize, "search-parse-");
+	}
+
 	@Bean
 	public ExceptionService exceptionService() {
 		return new ExceptionService(myContext);
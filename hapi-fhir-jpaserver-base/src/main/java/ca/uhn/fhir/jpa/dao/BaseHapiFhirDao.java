@@ -70,6 +70,7 @@ import ca.uhn.fhir.jpa.model.search.ExtendedHSearchIndexData;
 import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
 import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import ca.uhn.fhir.jpa.partition.IPartitionLookupSvc;
+import ca.uhn.fhir.jpa.search.cache.ISearchFirstPageCacheSvc;
 import ca.uhn.fhir.jpa.searchparam.extractor.LogicalReferenceHelper;
 import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
@@ -263,6 +264,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 	@Autowired
 	private MemoryCacheService myMemoryCacheService;
 
+	@Autowired
+	private ISearchFirstPageCacheSvc mySearchFirstPageCacheSvc;
+
 	@Autowired(required = false)
 	private IFulltextSearchSvc myFulltextSearchSvc;
 
@@ -1056,6 +1060,19 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		}
 	}
 
+	/**
+	 * Cached resource lookups include the deleted status, so they are invalidated whenever it changes
+	 */
+	private void invalidateResourceLookup(ResourceTable theEntity) {
+		if (theEntity.getId() != null && myStorageSettings.isIdCacheInvalidationBroadcastEnabled()) {
+			String forcedId = theEntity.getForcedId() != null
+					? theEntity.getForcedId().getForcedId()
+					: theEntity.getTransientForcedId();
+			myIdHelperService.invalidateResourceLookup(
+					theEntity.getPersistentId(), theEntity.getResourceType(), forcedId);
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public ResourceTable updateEntity(
@@ -1094,6 +1111,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			}
 		}
 
+		recordWriteForSearchFirstPageCache(
+				theResource != null ? myContext.getResourceType(theResource) : entity.getResourceType());
+
 		if (entity.getPublished() == null) {
 			ourLog.debug("Entity has published time: {}", theTransactionDetails.getTransactionDate());
 			entity.setPublished(theTransactionDetails.getTransactionDate());
@@ -1103,10 +1123,15 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 
 		ResourceIndexedSearchParams newParams = null;
 
+		boolean wasDeleted = entity.getDeleted() != null;
+
 		EncodedResource changed;
 		if (theDeletedTimestampOrNull != null) {
 			// DELETE
 
+			if (!wasDeleted) {
+				invalidateResourceLookup(entity);
+			}
 			entity.setDeleted(theDeletedTimestampOrNull);
 			entity.setUpdated(theDeletedTimestampOrNull);
 			entity.setNarrativeText(null);
@@ -1141,6 +1166,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 				}
 				existingSearchParams.put(entity, existingParams);
 			}
+			if (wasDeleted) {
+				invalidateResourceLookup(entity);
+			}
 			entity.setDeleted(null);
 
 			// TODO: is this IF statement always true? Try removing it
@@ -1541,6 +1569,18 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		return theRequest != null ? theRequest.getRequestId() : null;
 	}
 
+	/**
+	 * Advances the write watermark used to invalidate cached searches. Changes to search
+	 * parameters can alter the results of searches against any type.
+	 */
+	private void recordWriteForSearchFirstPageCache(String theResourceType) {
+		if ("SearchParameter".equals(theResourceType)) {
+			mySearchFirstPageCacheSvc.recordWriteToAllResourceTypes();
+		} else if (theResourceType != null) {
+			mySearchFirstPageCacheSvc.recordWrite(theResourceType);
+		}
+	}
+
 	private void validateIncomingResourceTypeMatchesExisting(IBaseResource theResource, BaseHasResource entity) {
 		String resourceType = myContext.getResourceType(theResource);
 		if (!resourceType.equals(entity.getResourceType())) {
@@ -1838,6 +1878,11 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		myJpaStorageResourceParser = theJpaStorageResourceParser;
 	}
 
+	@VisibleForTesting
+	public void setSearchFirstPageCacheSvcForUnitTest(ISearchFirstPageCacheSvc theSearchFirstPageCacheSvc) {
+		mySearchFirstPageCacheSvc = theSearchFirstPageCacheSvc;
+	}
+
 	private class AddTagDefinitionToCacheAfterCommitSynchronization implements TransactionSynchronization {
 
 		private final TagDefinition myTagDefinition;
@@ -49,6 +49,7 @@ import ca.uhn.fhir.jpa.dao.index.IdHelperService;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
 import ca.uhn.fhir.jpa.delete.DeleteConflictUtil;
 import ca.uhn.fhir.jpa.model.cross.IBasePersistedResource;
+import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.BaseHasResource;
 import ca.uhn.fhir.jpa.model.entity.BaseTag;
@@ -107,7 +108,9 @@ import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import ca.uhn.fhir.rest.server.provider.ProviderConstants;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
+import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.ReflectionUtil;
+import ca.uhn.fhir.util.ResourceReferenceInfo;
 import ca.uhn.fhir.util.StopWatch;
 import ca.uhn.fhir.util.UrlUtil;
 import ca.uhn.fhir.validation.FhirValidator;
@@ -143,6 +146,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -336,6 +340,85 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 						requestPartitionId));
 	}
 
+	@Override
+	public List<DaoMethodOutcome> createAll(List<T> theResources, RequestDetails theRequestDetails) {
+		TransactionDetails transactionDetails = new TransactionDetails();
+		return myTransactionService
+				.withRequest(theRequestDetails)
+				.withTransactionDetails(transactionDetails)
+				.execute(tx -> doCreateAll(theResources, theRequestDetails, transactionDetails));
+	}
+
+	private List<DaoMethodOutcome> doCreateAll(
+			List<T> theResources, RequestDetails theRequestDetails, TransactionDetails theTransactionDetails) {
+		List<RequestPartitionId> requestPartitionIds = new ArrayList<>(theResources.size());
+		for (T next : theResources) {
+			requestPartitionIds.add(myRequestPartitionHelperService.determineCreatePartitionForRequest(
+					theRequestDetails, next, getResourceName()));
+		}
+
+		preResolveReferenceTargets(theResources, theTransactionDetails);
+
+		List<DaoMethodOutcome> retVal = new ArrayList<>(theResources.size());
+		for (int i = 0; i < theResources.size(); i++) {
+			T resource = theResources.get(i);
+			RequestPartitionId requestPartitionId = requestPartitionIds.get(i);
+			DaoMethodOutcome outcome = myTransactionService
+					.withRequest(theRequestDetails)
+					.withTransactionDetails(theTransactionDetails)
+					.withRequestPartitionId(requestPartitionId)
+					.execute(tx -> doCreateForPost(
+							resource, null, true, theTransactionDetails, theRequestDetails, requestPartitionId));
+			retVal.add(outcome);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Resolves every resource referenced by any of the given resources in a single lookup, and
+	 * stores the results in the {@link TransactionDetails} so that the reference indexing for each
+	 * individual resource doesn't need to go back to the database. Besides saving the round trips
+	 * themselves, this avoids the auto-flush that each of those queries would otherwise trigger,
+	 * which lets Hibernate batch the inserts for the whole set of resources.
+	 * <p>
+	 * Targets which don't exist (or are deleted) are left unresolved, so they go through the normal
+	 * reference handling (placeholder creation, referential integrity errors, etc.). When
+	 * partitioning is enabled the partition used to resolve a reference depends on the
+	 * cross-partition reference settings, so we leave resolution to the normal path there too.
+	 */
+	private void preResolveReferenceTargets(List<T> theResources, TransactionDetails theTransactionDetails) {
+		if (myPartitionSettings.isPartitioningEnabled()) {
+			return;
+		}
+
+		FhirTerser terser = getContext().newTerser();
+		List<IIdType> targetIds = new ArrayList<>();
+		for (T next : theResources) {
+			for (ResourceReferenceInfo nextReference : terser.getAllResourceReferences(next)) {
+				IIdType targetId = nextReference.getResourceReference().getReferenceElement();
+				if (targetId.hasResourceType()
+						&& targetId.hasIdPart()
+						&& !targetId.hasBaseUrl()
+						&& !targetId.isLocal()
+						&& !targetId.getValue().startsWith("urn:")) {
+					targetIds.add(targetId);
+				}
+			}
+		}
+		if (targetIds.isEmpty()) {
+			return;
+		}
+
+		Map<String, IResourceLookup<JpaPid>> lookups =
+				myIdHelperService.resolveResourceIdentities(RequestPartitionId.allPartitions(), targetIds, true);
+		for (Map.Entry<String, IResourceLookup<JpaPid>> next : lookups.entrySet()) {
+			JpaPid pid = JpaPid.fromId(next.getValue().getPersistentId().getId());
+			IIdType targetId = getContext().getVersion().newIdType().setValue(next.getKey());
+			pid.setAssociatedResourceId(targetId);
+			theTransactionDetails.addResolvedResourceId(targetId, pid);
+		}
+	}
+
 	@VisibleForTesting
 	public void setRequestPartitionHelperService(IRequestPartitionHelperSvc theRequestPartitionHelperService) {
 		myRequestPartitionHelperService = theRequestPartitionHelperService;
@@ -2020,7 +2103,9 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 					count = maxPageSize;
 				}
 				theParams.setCount(count);
-			} else if (theRequest.getServer().getDefaultPageSize() != null) {
+			} else if (theRequest.getServer().getDefaultPageSize() != null
+					// Keyset page IDs carry the page size of the original search
+					&& !(theParams.isKeysetPaging() && theParams.getCount() != null)) {
 				theParams.setCount(theRequest.getServer().getDefaultPageSize());
 			}
 		}
@@ -55,6 +55,7 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
 
+import static ca.uhn.fhir.jpa.util.QueryParameterUtils.toPartitionIdPredicate;
 import static ca.uhn.fhir.jpa.util.QueryParameterUtils.toPredicateArray;
 
 /**
@@ -175,21 +176,9 @@ public class HistoryBuilder {
 			HistorySearchStyleEnum theHistorySearchStyle) {
 		List<Predicate> predicates = new ArrayList<>();
 
-		if (!thePartitionId.isAllPartitions()) {
-			if (thePartitionId.isDefaultPartition()) {
-				predicates.add(theCriteriaBuilder.isNull(
-						theFrom.get("myPartitionIdValue").as(Integer.class)));
-			} else if (thePartitionId.hasDefaultPartitionId()) {
-				predicates.add(theCriteriaBuilder.or(
-						theCriteriaBuilder.isNull(
-								theFrom.get("myPartitionIdValue").as(Integer.class)),
-						theFrom.get("myPartitionIdValue")
-								.as(Integer.class)
-								.in(thePartitionId.getPartitionIdsWithoutDefault())));
-			} else {
-				predicates.add(
-						theFrom.get("myPartitionIdValue").as(Integer.class).in(thePartitionId.getPartitionIds()));
-			}
+		Predicate partitionIdPredicate = toPartitionIdPredicate(theCriteriaBuilder, theFrom, thePartitionId);
+		if (partitionIdPredicate != null) {
+			predicates.add(partitionIdPredicate);
 		}
 
 		if (myResourceId != null) {
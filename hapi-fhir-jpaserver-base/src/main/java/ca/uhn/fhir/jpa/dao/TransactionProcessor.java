@@ -28,6 +28,7 @@ import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.jpa.config.HapiFhirHibernateJpaDialect;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
@@ -57,6 +58,7 @@ import org.springframework.context.ApplicationContext;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
@@ -197,6 +199,18 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		preFetchConditionalUrls(
 				theTransactionDetails, theEntries, theVersionAdapter, theRequestPartitionId, idsToPreFetch);
 
+		/*
+		 * Pre-resolve the targets of any references by ID, so that they don't each need
+		 * to be looked up individually when the resources are indexed. If references can
+		 * cross partitions, a target could be in any partition, so a lookup in the partition
+		 * of the transaction can't tell us whether it exists.
+		 */
+		if (!myPartitionSettings.isPartitioningEnabled()
+				|| myPartitionSettings.getAllowReferencesAcrossPartitions()
+						!= PartitionSettings.CrossPartitionReferenceMode.ALLOWED_UNQUALIFIED) {
+			preResolveReferenceTargets(theTransactionDetails, theEntries, theVersionAdapter, theRequestPartitionId);
+		}
+
 		IFhirSystemDao<?, ?> systemDao = myApplicationContext.getBean(IFhirSystemDao.class);
 		systemDao.preFetchResources(JpaPid.fromLongList(idsToPreFetch), true);
 	}
@@ -242,6 +256,84 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		}
 	}
 
+	private void preResolveReferenceTargets(
+			TransactionDetails theTransactionDetails,
+			List<IBase> theEntries,
+			ITransactionProcessorVersionAdapter theVersionAdapter,
+			RequestPartitionId theRequestPartitionId) {
+		Set<String> entryIds = new HashSet<>();
+		for (IBase nextEntry : theEntries) {
+			String verb = theVersionAdapter.getEntryRequestVerb(myFhirContext, nextEntry);
+			if ("DELETE".equals(verb)) {
+				// Targets could be deleted partway through the transaction, so leave them to be checked as they're used
+				return;
+			}
+			String fullUrl = theVersionAdapter.getFullUrl(nextEntry);
+			if (fullUrl != null) {
+				entryIds.add(newIdType(fullUrl).toUnqualifiedVersionless().getValue());
+			}
+			String requestUrl = theVersionAdapter.getEntryRequestUrl(nextEntry);
+			if (requestUrl != null && !requestUrl.contains("?")) {
+				entryIds.add(newIdType(requestUrl).toUnqualifiedVersionless().getValue());
+			}
+		}
+
+		Map<String, IIdType> idsToResolve = new HashMap<>();
+		for (IBase nextEntry : theEntries) {
+			IBaseResource resource = theVersionAdapter.getResource(nextEntry);
+			if (resource == null) {
+				continue;
+			}
+			for (ResourceReferenceInfo next : myFhirContext.newTerser().getAllResourceReferences(resource)) {
+				IIdType targetId = next.getResourceReference().getReferenceElement();
+				if (!isPreResolvableReference(targetId)) {
+					continue;
+				}
+				IIdType id = targetId.toUnqualifiedVersionless();
+				if (!entryIds.contains(id.getValue()) && !theTransactionDetails.hasResolvedResourceId(id)) {
+					idsToResolve.put(id.getValue(), id);
+				}
+			}
+		}
+
+		new QueryChunker<IIdType>().chunk(idsToResolve.values(), ids -> {
+			Map<String, IResourceLookup<JpaPid>> lookups =
+					myIdHelperService.resolveResourceIdentities(theRequestPartitionId, ids, false);
+			for (IIdType next : ids) {
+				IResourceLookup<JpaPid> lookup = lookups.get(next.getValue());
+				if (lookup == null) {
+					// Placeholder creation (or failure) can skip looking this up again
+					theTransactionDetails.addResolvedResourceId(next, null);
+				} else if (lookup.getDeleted() == null) {
+					JpaPid pid = lookup.getPersistentId();
+					pid.setAssociatedResourceId(next);
+					theTransactionDetails.addResolvedResourceId(next, pid);
+				}
+			}
+		});
+	}
+
+	private boolean isPreResolvableReference(IIdType theTargetId) {
+		if (theTargetId.isEmpty()
+				|| theTargetId.isLocal()
+				|| theTargetId.isAbsolute()
+				|| !theTargetId.hasResourceType()
+				|| !theTargetId.hasIdPart()) {
+			return false;
+		}
+		String value = theTargetId.getValue();
+		if (value.contains("?") || value.startsWith("urn:")) {
+			return false;
+		}
+		return myFhirContext.getResourceTypes().contains(theTargetId.getResourceType());
+	}
+
+	private IIdType newIdType(String theValue) {
+		IIdType retVal = myFhirContext.getVersion().newIdType();
+		retVal.setValue(theValue);
+		return retVal;
+	}
+
 	private void preFetchConditionalUrls(
 			TransactionDetails theTransactionDetails,
 			List<IBase> theEntries,
@@ -72,6 +72,7 @@ import ca.uhn.fhir.jpa.model.entity.ResourceTag;
 import ca.uhn.fhir.jpa.model.entity.SearchParamPresentEntity;
 import ca.uhn.fhir.jpa.model.entity.TagDefinition;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.search.cache.ISearchFirstPageCacheSvc;
 import ca.uhn.fhir.jpa.util.MemoryCacheService;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.provider.ProviderConstants;
@@ -110,6 +111,9 @@ public class ExpungeEverythingService implements IExpungeEverythingService {
 	@Autowired
 	private MemoryCacheService myMemoryCacheService;
 
+	@Autowired
+	private ISearchFirstPageCacheSvc mySearchFirstPageCacheSvc;
+
 	@Autowired
 	private IRequestPartitionHelperSvc myRequestPartitionHelperSvc;
 
@@ -253,8 +257,13 @@ public class ExpungeEverythingService implements IExpungeEverythingService {
 		return deletedResourceEntityCount;
 	}
 
+	/**
+	 * If ID cache invalidation broadcast is enabled, this is also broadcast to the other nodes,
+	 * since their caches may hold lookups for resources which no longer exist
+	 */
 	private void purgeAllCaches() {
-		myMemoryCacheService.invalidateAllCaches();
+		myMemoryCacheService.invalidateAllCachesAfterCommit();
+		mySearchFirstPageCacheSvc.recordWriteToAllResourceTypes();
 	}
 
 	private int expungeEverythingByTypeWithoutPurging(
@@ -68,8 +68,6 @@ import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Collections;
 import java.util.List;
@@ -222,17 +220,13 @@ public class JpaResourceExpungeService implements IResourceExpungeService<JpaPid
 
 		/*
 		 * Once this transaction is committed, we will invalidate all memory caches
-		 * in order to avoid any caches having references to things that no longer
-		 * exist. This is a pretty brute-force way of addressing this, and could probably
-		 * be optimized, but expunge is hopefully not frequently called on busy servers
-		 * so it shouldn't be too big a deal.
+		 * (on every node, if ID cache invalidation broadcast is enabled) in order to
+		 * avoid any caches having references to things that no longer exist. This is
+		 * a pretty brute-force way of addressing this, and could probably be optimized,
+		 * but expunge is hopefully not frequently called on busy servers so it
+		 * shouldn't be too big a deal.
 		 */
-		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-			@Override
-			public void afterCommit() {
-				myMemoryCacheService.invalidateAllCaches();
-			}
-		});
+		myMemoryCacheService.invalidateAllCachesAfterCommit();
 	}
 
 	private void expungeHistoricalVersion(
@@ -189,6 +189,42 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		return matches.get(theResourceId).get(0);
 	}
 
+	@Override
+	@Nonnull
+	public Map<String, IResourceLookup<JpaPid>> resolveResourceIdentities(
+			@Nonnull RequestPartitionId theRequestPartitionId, Collection<IIdType> theIds, boolean theExcludeDeleted) {
+		assert myDontCheckActiveTransactionForUnitTest || TransactionSynchronizationManager.isSynchronizationActive();
+
+		Map<String, IIdType> idsToResolve = new HashMap<>();
+		for (IIdType next : theIds) {
+			if (next.hasResourceType() && next.hasIdPart()) {
+				IIdType id = next.toUnqualifiedVersionless();
+				idsToResolve.put(id.getValue(), id);
+			}
+		}
+
+		Map<String, IResourceLookup<JpaPid>> retVal = new HashMap<>();
+		if (idsToResolve.isEmpty()) {
+			return retVal;
+		}
+
+		Map<String, List<IResourceLookup<JpaPid>>> matches =
+				translateForcedIdToPids(theRequestPartitionId, idsToResolve.values(), theExcludeDeleted);
+		for (Map.Entry<String, IIdType> next : idsToResolve.entrySet()) {
+			String resourceType = next.getValue().getResourceType();
+			List<IResourceLookup<JpaPid>> candidates =
+					matches.getOrDefault(next.getValue().getIdPart(), Collections.emptyList());
+			List<IResourceLookup<JpaPid>> typeMatches = candidates.stream()
+					.filter(t -> resourceType.equals(t.getResourceType()))
+					.collect(Collectors.toList());
+			if (typeMatches.size() == 1) {
+				retVal.put(next.getKey(), typeMatches.get(0));
+			}
+		}
+
+		return retVal;
+	}
+
 	/**
 	 * Returns a mapping of Id -> IResourcePersistentId.
 	 * If any resource is not found, it will throw ResourceNotFound exception (and no map will be returned)
@@ -217,42 +253,105 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		Validate.isTrue(!theIds.isEmpty(), "theIds must not be empty");
 
 		Map<String, JpaPid> retVals = new HashMap<>();
+		List<String> forcedIds = new ArrayList<>();
 
 		for (String id : theIds) {
-			JpaPid retVal;
 			if (!idRequiresForcedId(id)) {
 				// is already a PID
-				retVal = JpaPid.fromId(Long.parseLong(id));
-				retVals.put(id, retVal);
-			} else {
-				// is a forced id
-				// we must resolve!
-				if (myStorageSettings.isDeleteEnabled()) {
-					retVal = resolveResourceIdentity(theRequestPartitionId, theResourceType, id, theExcludeDeleted)
-							.getPersistentId();
-					retVals.put(id, retVal);
+				retVals.put(id, JpaPid.fromId(Long.parseLong(id)));
+			} else if (!myStorageSettings.isDeleteEnabled()) {
+				// fetch from cache, and resolve any misses below
+				String key = toForcedIdToPidKey(theRequestPartitionId, theResourceType, id);
+				JpaPid cachedId = myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, key);
+				if (cachedId != null) {
+					retVals.put(id, cachedId);
 				} else {
-					// fetch from cache... adding to cache if not available
-					String key = toForcedIdToPidKey(theRequestPartitionId, theResourceType, id);
-					retVal = myMemoryCacheService.getThenPutAfterCommit(
-							MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, key, t -> {
-								List<IIdType> ids = Collections.singletonList(new IdType(theResourceType, id));
-								// fetches from cache using a function that checks cache first...
-								List<JpaPid> resolvedIds =
-										resolveResourcePersistentIdsWithCache(theRequestPartitionId, ids);
-								if (resolvedIds.isEmpty()) {
-									throw new ResourceNotFoundException(Msg.code(1100) + ids.get(0));
-								}
-								return resolvedIds.get(0);
-							});
-					retVals.put(id, retVal);
+					forcedIds.add(id);
 				}
+			} else {
+				forcedIds.add(id);
+			}
+		}
+
+		/*
+		 * Forced IDs are all resolved together so that a list of IDs costs a single
+		 * round trip to the database rather than one per ID
+		 */
+		if (!forcedIds.isEmpty()) {
+			if (myStorageSettings.isDeleteEnabled()) {
+				resolveForcedIdsIncludingDeleted(
+						theRequestPartitionId, theResourceType, forcedIds, theExcludeDeleted, retVals);
+			} else {
+				resolveForcedIdsWithCache(theRequestPartitionId, theResourceType, forcedIds, retVals);
 			}
 		}
 
 		return retVals;
 	}
 
+	private void resolveForcedIdsIncludingDeleted(
+			@Nonnull RequestPartitionId theRequestPartitionId,
+			String theResourceType,
+			List<String> theForcedIds,
+			boolean theExcludeDeleted,
+			Map<String, JpaPid> theOutput) {
+		if (theForcedIds.size() == 1) {
+			String forcedId = theForcedIds.get(0);
+			theOutput.put(
+					forcedId,
+					resolveResourceIdentity(theRequestPartitionId, theResourceType, forcedId, theExcludeDeleted)
+							.getPersistentId());
+			return;
+		}
+
+		List<IIdType> ids = theForcedIds.stream()
+				.map(t -> (IIdType) new IdDt(theResourceType, t))
+				.collect(Collectors.toList());
+		Map<String, List<IResourceLookup<JpaPid>>> matches =
+				translateForcedIdToPids(theRequestPartitionId, ids, theExcludeDeleted);
+
+		for (IIdType next : ids) {
+			List<IResourceLookup<JpaPid>> lookups = matches.get(next.getIdPart());
+			if (lookups == null || lookups.isEmpty()) {
+				throw new ResourceNotFoundException(Msg.code(2456) + "Resource " + next + " is not known");
+			}
+			if (lookups.size() > 1) {
+				String msg = myFhirCtx.getLocalizer().getMessage(IdHelperService.class, "nonUniqueForcedId");
+				throw new PreconditionFailedException(Msg.code(2457) + msg);
+			}
+			theOutput.put(next.getIdPart(), lookups.get(0).getPersistentId());
+		}
+	}
+
+	private void resolveForcedIdsWithCache(
+			@Nonnull RequestPartitionId theRequestPartitionId,
+			String theResourceType,
+			List<String> theForcedIds,
+			Map<String, JpaPid> theOutput) {
+		List<IIdType> ids = theForcedIds.stream()
+				.map(t -> (IIdType) new IdType(theResourceType, t))
+				.collect(Collectors.toList());
+		List<JpaPid> resolvedIds = resolveResourcePersistentIdsWithCache(theRequestPartitionId, ids, true);
+
+		Map<String, JpaPid> idPartToPid = new HashMap<>();
+		for (JpaPid next : resolvedIds) {
+			IIdType resolvedId = next.getAssociatedResourceId();
+			if (resolvedId != null && theResourceType.equals(resolvedId.getResourceType())) {
+				idPartToPid.put(resolvedId.getIdPart(), next);
+			}
+		}
+
+		for (IIdType next : ids) {
+			JpaPid pid = idPartToPid.get(next.getIdPart());
+			if (pid == null) {
+				throw new ResourceNotFoundException(Msg.code(1100) + next);
+			}
+			String key = toForcedIdToPidKey(theRequestPartitionId, theResourceType, next.getIdPart());
+			myMemoryCacheService.putAfterCommit(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, key, pid);
+			theOutput.put(next.getIdPart(), pid);
+		}
+	}
+
 	/**
 	 * Given a resource type and ID, determines the internal persistent ID for the resource.
 	 *
@@ -520,6 +619,10 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 
 		Map<String, List<IResourceLookup<JpaPid>>> retVal = new HashMap<>();
 		RequestPartitionId requestPartitionId = replaceDefault(theRequestPartitionId);
+		boolean useResourceLookupCache = useResourceLookupCache();
+		boolean cacheNotFound = useNotFoundCache() && !theExcludeDeleted;
+		String partitionKey = RequestPartitionId.stringifyForKey(requestPartitionId);
+		long invalidationCount = myMemoryCacheService.getInvalidationCount();
 
 		if (myStorageSettings.getResourceClientIdStrategy() != JpaStorageSettings.ClientIdStrategyEnum.ANY) {
 			List<Long> pids = theId.stream()
@@ -535,9 +638,9 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		ListMultimap<String, String> typeToIds = organizeIdsByResourceType(theId);
 		for (Map.Entry<String, Collection<String>> nextEntry : typeToIds.asMap().entrySet()) {
 			String nextResourceType = nextEntry.getKey();
-			Collection<String> nextIds = nextEntry.getValue();
+			Collection<String> nextIds = new ArrayList<>(nextEntry.getValue());
 
-			if (!myStorageSettings.isDeleteEnabled()) {
+			if (useResourceLookupCache) {
 				for (Iterator<String> forcedIdIterator = nextIds.iterator(); forcedIdIterator.hasNext(); ) {
 					String nextForcedId = forcedIdIterator.next();
 					String nextKey = nextResourceType + "/" + nextForcedId;
@@ -545,10 +648,17 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 							myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, nextKey);
 					if (cachedLookup != null) {
 						forcedIdIterator.remove();
+						if (theExcludeDeleted && cachedLookup.getDeleted() != null) {
+							continue;
+						}
 						if (!retVal.containsKey(nextForcedId)) {
 							retVal.put(nextForcedId, new ArrayList<>());
 						}
 						retVal.get(nextForcedId).add(cachedLookup);
+					} else if (useNotFoundCache()
+							&& partitionKey.equals(myMemoryCacheService.getIfPresent(
+									MemoryCacheService.CacheEnum.FORCED_ID_NOT_FOUND, nextKey))) {
+						forcedIdIterator.remove();
 					}
 				}
 			}
@@ -576,6 +686,7 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 					}
 				}
 
+				Set<String> notFound = cacheNotFound ? new HashSet<>(nextIds) : Collections.emptySet();
 				for (Object[] next : views) {
 					String resourceType = (String) next[0];
 					Long resourcePid = (Long) next[1];
@@ -587,12 +698,20 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 						retVal.put(forcedId, new ArrayList<>());
 					}
 					retVal.get(forcedId).add(lookup);
+					notFound.remove(forcedId);
 
-					if (!myStorageSettings.isDeleteEnabled()) {
+					if (useResourceLookupCache) {
 						String key = resourceType + "/" + forcedId;
-						myMemoryCacheService.putAfterCommit(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, key, lookup);
+						myMemoryCacheService.putAfterCommitUnlessInvalidated(
+								MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, key, lookup, invalidationCount);
 					}
 				}
+
+				for (String nextNotFound : notFound) {
+					String key = nextResourceType + "/" + nextNotFound;
+					myMemoryCacheService.putAfterCommitUnlessInvalidated(
+							MemoryCacheService.CacheEnum.FORCED_ID_NOT_FOUND, key, partitionKey, invalidationCount);
+				}
 			}
 		}
 
@@ -615,7 +734,9 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 			@Nonnull RequestPartitionId theRequestPartitionId,
 			List<Long> thePidsToResolve,
 			Map<String, List<IResourceLookup<JpaPid>>> theTargets) {
-		if (!myStorageSettings.isDeleteEnabled()) {
+		boolean useResourceLookupCache = useResourceLookupCache();
+		long invalidationCount = myMemoryCacheService.getInvalidationCount();
+		if (useResourceLookupCache) {
 			for (Iterator<Long> forcedIdIterator = thePidsToResolve.iterator(); forcedIdIterator.hasNext(); ) {
 				Long nextPid = forcedIdIterator.next();
 				String nextKey = Long.toString(nextPid);
@@ -654,10 +775,10 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 							theTargets.put(id, new ArrayList<>());
 						}
 						theTargets.get(id).add(t);
-						if (!myStorageSettings.isDeleteEnabled()) {
+						if (useResourceLookupCache) {
 							String nextKey = t.getPersistentId().toString();
-							myMemoryCacheService.putAfterCommit(
-									MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, nextKey, t);
+							myMemoryCacheService.putAfterCommitUnlessInvalidated(
+									MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, nextKey, t, invalidationCount);
 						}
 					});
 		}
@@ -719,18 +840,49 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 					Optional.of(theResourceType + "/" + theForcedId));
 			String key = toForcedIdToPidKey(theRequestPartitionId, theResourceType, theForcedId);
 			myMemoryCacheService.putAfterCommit(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, key, theJpaPid);
+			if (useNotFoundCache()) {
+				myMemoryCacheService.invalidateAfterCommit(
+						MemoryCacheService.CacheEnum.FORCED_ID_NOT_FOUND,
+						Collections.singletonList(theResourceType + "/" + theForcedId));
+			}
 		} else {
 			myMemoryCacheService.putAfterCommit(
 					MemoryCacheService.CacheEnum.PID_TO_FORCED_ID, theJpaPid.getId(), Optional.empty());
 		}
 
-		if (!myStorageSettings.isDeleteEnabled()) {
+		if (useResourceLookupCache()) {
 			JpaResourceLookup lookup = new JpaResourceLookup(theResourceType, theJpaPid.getId(), theDeletedAt);
 			String nextKey = theJpaPid.toString();
 			myMemoryCacheService.putAfterCommit(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, nextKey, lookup);
 		}
 	}
 
+	@Override
+	public void invalidateResourceLookup(JpaPid theJpaPid, String theResourceType, @Nullable String theForcedId) {
+		if (!useResourceLookupCache()) {
+			return;
+		}
+
+		List<String> keys = new ArrayList<>(2);
+		keys.add(theJpaPid.getId().toString());
+		if (theForcedId != null) {
+			keys.add(theResourceType + "/" + theForcedId);
+		}
+		myMemoryCacheService.invalidateAfterCommit(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, keys);
+	}
+
+	/**
+	 * Resource lookups include the deleted status of the resource, so they can only be cached if
+	 * resources can't be deleted, or if every node in the cluster is told when they are
+	 */
+	private boolean useResourceLookupCache() {
+		return !myStorageSettings.isDeleteEnabled() || myStorageSettings.isIdCacheInvalidationBroadcastEnabled();
+	}
+
+	private boolean useNotFoundCache() {
+		return myStorageSettings.isIdCacheInvalidationBroadcastEnabled();
+	}
+
 	@VisibleForTesting
 	void setPartitionSettingsForUnitTest(PartitionSettings thePartitionSettings) {
 		myPartitionSettings = thePartitionSettings;
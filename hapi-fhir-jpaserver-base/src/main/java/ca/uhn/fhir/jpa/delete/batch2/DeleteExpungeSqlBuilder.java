@@ -26,6 +26,7 @@ import ca.uhn.fhir.jpa.dao.data.IResourceLinkDao;
 import ca.uhn.fhir.jpa.dao.expunge.ResourceForeignKey;
 import ca.uhn.fhir.jpa.dao.expunge.ResourceTableFKProvider;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.dao.JpaPidSet;
 import ca.uhn.fhir.jpa.model.entity.ResourceLink;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import org.slf4j.Logger;
@@ -34,7 +35,6 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 
@@ -60,12 +60,15 @@ public class DeleteExpungeSqlBuilder {
 	DeleteExpungeSqlResult convertPidsToDeleteExpungeSql(
 			List<JpaPid> theJpaPids, boolean theCascade, Integer theCascadeMaxRounds) {
 
-		Set<Long> pids = JpaPid.toLongSet(theJpaPids);
+		JpaPidSet pids = new JpaPidSet(theJpaPids.size());
+		for (JpaPid next : theJpaPids) {
+			pids.addId(next.getId());
+		}
 		validateOkToDeleteAndExpunge(pids, theCascade, theCascadeMaxRounds);
 
 		List<String> rawSql = new ArrayList<>();
 
-		String pidListString = pids.toString().replace("[", "(").replace("]", ")");
+		String pidListString = pids.stream().map(t -> t.getId().toString()).collect(Collectors.joining(", ", "(", ")"));
 		List<ResourceForeignKey> resourceForeignKeys = myResourceTableFKProvider.getResourceForeignKeys();
 
 		for (ResourceForeignKey resourceForeignKey : resourceForeignKeys) {
@@ -78,13 +81,13 @@ public class DeleteExpungeSqlBuilder {
 		return new DeleteExpungeSqlResult(rawSql, pids.size());
 	}
 
-	public void validateOkToDeleteAndExpunge(Set<Long> thePids, boolean theCascade, Integer theCascadeMaxRounds) {
+	public void validateOkToDeleteAndExpunge(JpaPidSet thePids, boolean theCascade, Integer theCascadeMaxRounds) {
 		if (!myStorageSettings.isEnforceReferentialIntegrityOnDelete()) {
 			ourLog.info("Referential integrity on delete disabled.  Skipping referential integrity check.");
 			return;
 		}
 
-		List<JpaPid> targetPidsAsResourceIds = JpaPid.fromLongList(thePids);
+		List<JpaPid> targetPidsAsResourceIds = new ArrayList<>(thePids);
 		List<ResourceLink> conflictResourceLinks = Collections.synchronizedList(new ArrayList<>());
 		findResourceLinksWithTargetPidIn(targetPidsAsResourceIds, targetPidsAsResourceIds, conflictResourceLinks);
 
@@ -107,7 +110,7 @@ public class DeleteExpungeSqlBuilder {
 				List<JpaPid> addedThisRound = new ArrayList<>();
 				for (ResourceLink next : conflictResourceLinks) {
 					Long nextPid = next.getSourceResourcePid();
-					if (thePids.add(nextPid)) {
+					if (thePids.addId(nextPid)) {
 						addedThisRound.add(JpaPid.fromId(nextPid));
 					}
 				}
@@ -153,7 +156,7 @@ public class DeleteExpungeSqlBuilder {
 			List<JpaPid> theAllTargetPids,
 			List<JpaPid> theSomeTargetPids,
 			List<ResourceLink> theConflictResourceLinks) {
-		List<Long> allTargetPidsAsLongs = JpaPid.toLongList(theAllTargetPids);
+		JpaPidSet allTargetPids = new JpaPidSet(theAllTargetPids);
 		List<Long> someTargetPidsAsLongs = JpaPid.toLongList(theSomeTargetPids);
 		// We only need to find one conflict, so if we found one already in an earlier partition run, we can skip the
 		// rest of the searches
@@ -165,7 +168,7 @@ public class DeleteExpungeSqlBuilder {
 							// want
 							// to consider a link to be a conflict if the source of that link is not in
 							// theAllTargetPids.
-							.filter(link -> !allTargetPidsAsLongs.contains(link.getSourceResourcePid()))
+							.filter(link -> !allTargetPids.containsId(link.getSourceResourcePid()))
 							.collect(Collectors.toList());
 
 			// We do this in two steps to avoid lock contention on this synchronized list
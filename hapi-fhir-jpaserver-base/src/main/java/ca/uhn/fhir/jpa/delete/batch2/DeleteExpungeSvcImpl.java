@@ -23,6 +23,7 @@ import ca.uhn.fhir.jpa.api.svc.IDeleteExpungeSvc;
 import ca.uhn.fhir.jpa.dao.IFulltextSearchSvc;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.jpa.search.cache.ISearchFirstPageCacheSvc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,14 +38,17 @@ public class DeleteExpungeSvcImpl implements IDeleteExpungeSvc<JpaPid> {
 	private final EntityManager myEntityManager;
 	private final DeleteExpungeSqlBuilder myDeleteExpungeSqlBuilder;
 	private final IFulltextSearchSvc myFullTextSearchSvc;
+	private final ISearchFirstPageCacheSvc mySearchFirstPageCacheSvc;
 
 	public DeleteExpungeSvcImpl(
 			EntityManager theEntityManager,
 			DeleteExpungeSqlBuilder theDeleteExpungeSqlBuilder,
-			@Autowired(required = false) IFulltextSearchSvc theFullTextSearchSvc) {
+			@Autowired(required = false) IFulltextSearchSvc theFullTextSearchSvc,
+			ISearchFirstPageCacheSvc theSearchFirstPageCacheSvc) {
 		myEntityManager = theEntityManager;
 		myDeleteExpungeSqlBuilder = theDeleteExpungeSqlBuilder;
 		myFullTextSearchSvc = theFullTextSearchSvc;
+		mySearchFirstPageCacheSvc = theSearchFirstPageCacheSvc;
 	}
 
 	@Override
@@ -63,6 +67,9 @@ public class DeleteExpungeSvcImpl implements IDeleteExpungeSvc<JpaPid> {
 		ourLog.info("{} records deleted", totalDeleted);
 		clearHibernateSearchIndex(theJpaPids);
 
+		// The SQL above bypasses the DAOs, so the affected resource types aren't known here
+		mySearchFirstPageCacheSvc.recordWriteToAllResourceTypes();
+
 		// TODO KHS instead of logging progress, produce result chunks that get aggregated into a delete expunge report
 		return sqlResult.getRecordCount();
 	}
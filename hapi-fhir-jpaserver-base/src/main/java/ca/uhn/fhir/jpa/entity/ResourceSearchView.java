@@ -238,4 +238,56 @@ public class ResourceSearchView implements IBaseResourceEntity, Serializable {
 	public ResourceEncodingEnum getEncoding() {
 		return myEncoding;
 	}
+
+	public void setId(Long theId) {
+		myId = theId;
+	}
+
+	public void setResourceId(Long theResourceId) {
+		myResourceId = theResourceId;
+	}
+
+	public void setResourceType(String theResourceType) {
+		myResourceType = theResourceType;
+	}
+
+	public void setVersion(Long theResourceVersion) {
+		myResourceVersion = theResourceVersion;
+	}
+
+	public void setProvenanceRequestId(String theProvenanceRequestId) {
+		myProvenanceRequestId = theProvenanceRequestId;
+	}
+
+	public void setProvenanceSourceUri(String theProvenanceSourceUri) {
+		myProvenanceSourceUri = theProvenanceSourceUri;
+	}
+
+	public void setHasTags(boolean theHasTags) {
+		myHasTags = theHasTags;
+	}
+
+	public void setUpdated(Date theUpdated) {
+		myUpdated = theUpdated;
+	}
+
+	public void setResource(byte[] theResource) {
+		myResource = theResource;
+	}
+
+	public void setResourceTextVc(String theResourceTextVc) {
+		myResourceTextVc = theResourceTextVc;
+	}
+
+	public void setEncoding(ResourceEncodingEnum theEncoding) {
+		myEncoding = theEncoding;
+	}
+
+	public void setForcedId(String theForcedId) {
+		myForcedPid = theForcedId;
+	}
+
+	public void setPartitionId(Integer thePartitionId) {
+		myPartitionId = thePartitionId;
+	}
 }
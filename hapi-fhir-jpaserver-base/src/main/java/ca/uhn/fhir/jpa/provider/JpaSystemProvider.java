@@ -19,14 +19,19 @@
  */
 package ca.uhn.fhir.jpa.provider;
 
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
+import ca.uhn.fhir.jpa.dao.StreamingBatchProcessor;
 import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import ca.uhn.fhir.model.api.annotation.Description;
 import ca.uhn.fhir.rest.annotation.Operation;
 import ca.uhn.fhir.rest.annotation.OperationParam;
 import ca.uhn.fhir.rest.annotation.Transaction;
 import ca.uhn.fhir.rest.annotation.TransactionParam;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.provider.ProviderConstants;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhir.util.ParametersUtil;
@@ -35,9 +40,12 @@ import org.hl7.fhir.instance.model.api.IBaseParameters;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 import java.util.TreeMap;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -130,6 +138,52 @@ public final class JpaSystemProvider<T, MT> extends BaseJpaSystemProvider<T, MT>
 		return retVal;
 	}
 
+	@Description(
+			shortDefinition = "Processes a JSON batch Bundle which is streamed from the request body, returning the"
+					+ " batch-response Bundle as a stream. Only a window of entries is held in memory at any time.")
+	@Operation(
+			name = JpaConstants.OPERATION_STREAMING_BATCH,
+			idempotent = false,
+			manualRequest = true,
+			manualResponse = true)
+	public void streamingBatch(
+			@Description(
+							shortDefinition = "The number of entries to process together in each batch (default "
+									+ StreamingBatchProcessor.DEFAULT_WINDOW_SIZE + ", maximum "
+									+ StreamingBatchProcessor.MAX_WINDOW_SIZE + ")")
+					@OperationParam(name = "windowSize", typeName = "integer", min = 0, max = 1)
+					IPrimitiveType<Integer> theWindowSize,
+			ServletRequestDetails theRequestDetails,
+			HttpServletRequest theServletRequest,
+			HttpServletResponse theServletResponse)
+			throws IOException {
+		if (EncodingEnum.forContentType(theServletRequest.getContentType()) != EncodingEnum.JSON) {
+			throw new InvalidRequestException(
+					Msg.code(2449) + JpaConstants.OPERATION_STREAMING_BATCH + " only supports JSON request bodies");
+		}
+
+		int windowSize = StreamingBatchProcessor.DEFAULT_WINDOW_SIZE;
+		if (theWindowSize != null && theWindowSize.getValue() != null) {
+			windowSize = theWindowSize.getValue();
+			if (windowSize < 1 || windowSize > StreamingBatchProcessor.MAX_WINDOW_SIZE) {
+				throw new InvalidRequestException(
+						Msg.code(2450) + "windowSize must be between 1 and " + StreamingBatchProcessor.MAX_WINDOW_SIZE);
+			}
+		}
+
+		StreamingBatchProcessor processor = new StreamingBatchProcessor(getContext(), getDao(), windowSize);
+		startRequest(theServletRequest);
+		try {
+			theServletResponse.setStatus(Constants.STATUS_HTTP_200_OK);
+			theServletResponse.setContentType(Constants.CT_FHIR_JSON_NEW);
+			theServletResponse.setCharacterEncoding(Constants.CHARSET_NAME_UTF8);
+			processor.process(
+					theRequestDetails, theServletRequest.getInputStream(), theServletResponse.getOutputStream());
+		} finally {
+			endRequest(theServletRequest);
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	@Transaction
 	public IBaseBundle transaction(RequestDetails theRequestDetails, @TransactionParam IBaseBundle theResources) {
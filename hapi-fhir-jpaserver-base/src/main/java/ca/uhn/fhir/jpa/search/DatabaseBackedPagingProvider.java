@@ -19,14 +19,20 @@
  */
 package ca.uhn.fhir.jpa.search;
 
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.BasePagingProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 // Note: this class is not annotated with @Service because we want to
@@ -37,6 +43,15 @@ public class DatabaseBackedPagingProvider extends BasePagingProvider {
 	@Autowired
 	private DaoRegistry myDaoRegistry;
 
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Autowired
+	private MatchUrlService myMatchUrlService;
+
 	@Autowired
 	private SearchBuilderFactory mySearchBuilderFactory;
 
@@ -69,6 +84,30 @@ public class DatabaseBackedPagingProvider extends BasePagingProvider {
 		return validateAndReturnBundleProvider(provider);
 	}
 
+	/**
+	 * Page IDs are only used by keyset paged searches (see
+	 * {@link ca.uhn.fhir.jpa.api.config.JpaStorageSettings#isSearchKeysetPagingEnabled()}). The page ID
+	 * contains everything needed to load the page, so the search ID is not used. Page IDs which were not
+	 * signed by this server are ignored.
+	 */
+	@Override
+	public IBundleProvider retrieveResultList(
+			@Nullable RequestDetails theRequestDetails, @Nonnull String theSearchId, String thePageId) {
+		KeysetPageId pageId = KeysetPageId.decode(thePageId, myStorageSettings.getSearchKeysetPagingSecret());
+		if (pageId == null || !myDaoRegistry.isResourceTypeSupported(pageId.getResourceType())) {
+			return null;
+		}
+
+		IFhirResourceDao<?> dao = myDaoRegistry.getResourceDao(pageId.getResourceType());
+		SearchParameterMap params = myMatchUrlService.translateMatchUrl(
+				pageId.getResourceType() + pageId.getQueryString(),
+				myFhirContext.getResourceDefinition(pageId.getResourceType()),
+				MatchUrlService.processIncludes());
+		params.setKeysetPaging(true);
+		params.setKeysetPagingAfterPid(pageId.getAfterPid());
+		return dao.search(params, theRequestDetails);
+	}
+
 	/**
 	 * Subclasses may override in order to modify the bundle provider being returned
 	 */
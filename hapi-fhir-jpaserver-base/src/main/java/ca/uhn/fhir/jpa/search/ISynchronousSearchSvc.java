@@ -26,6 +26,8 @@ import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 
+import javax.annotation.Nullable;
+
 public interface ISynchronousSearchSvc extends ISearchSvc {
 
 	IBundleProvider executeQuery(
@@ -35,4 +37,38 @@ public interface ISynchronousSearchSvc extends ISearchSvc {
 			ISearchBuilder theSb,
 			Integer theLoadSynchronousUpTo,
 			RequestPartitionId theRequestPartitionId);
+
+	/**
+	 * Loads a single page of a keyset paged search (see {@link SearchParameterMap#isKeysetPaging()}).
+	 * The page size is taken from {@link SearchParameterMap#getCount()}, and the returned bundle
+	 * provider uses page IDs which can be resolved by {@link DatabaseBackedPagingProvider}.
+	 *
+	 * @since 7.0.0
+	 */
+	IBundleProvider executeKeysetPagedQuery(
+			String theResourceType,
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			RequestPartitionId theRequestPartitionId);
+
+	/**
+	 * Executes a search using the in-memory first page cache (see
+	 * {@link ca.uhn.fhir.jpa.search.cache.ISearchFirstPageCacheSvc}). If the complete results of
+	 * the search fit in a single page of the given size, they are returned in a bundle provider which
+	 * holds all of them. Otherwise <code>null</code> is returned and the caller should perform the
+	 * search normally.
+	 *
+	 * @since 7.0.0
+	 */
+	@Nullable
+	IBundleProvider executeFirstPageCachedQuery(
+			String theResourceType,
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			int thePageSize,
+			RequestPartitionId theRequestPartitionId);
 }
@@ -0,0 +1,174 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import org.apache.commons.lang3.Validate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * The page ID (<code>_pageId</code>) for a page of a keyset paged search. The ID
+ * is self contained: it carries the resource type, the normalized search query string
+ * and the last resource PID returned by the previous page, so that any node can load
+ * the page without any stored search state.
+ * <p>
+ * Because the query is used as-is to load the page, the encoded ID is signed with an
+ * HMAC and the signature is verified before the ID is decoded. This prevents clients
+ * from altering the query (for example to remove restrictions added by an interceptor
+ * to the original search).
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#isSearchKeysetPagingEnabled()
+ */
+class KeysetPageId {
+
+	private static final String PREFIX = "k1:";
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+	private static final char SIGNATURE_SEPARATOR = '.';
+	private static final byte[] ourGeneratedSecret = generateSecret();
+
+	private final String myResourceType;
+	private final String myQueryString;
+	private final Long myAfterPid;
+
+	KeysetPageId(@Nonnull String theResourceType, @Nonnull String theQueryString, @Nullable Long theAfterPid) {
+		Validate.notBlank(theResourceType);
+		Validate.notNull(theQueryString);
+		myResourceType = theResourceType;
+		myQueryString = theQueryString;
+		myAfterPid = theAfterPid;
+	}
+
+	String getResourceType() {
+		return myResourceType;
+	}
+
+	/**
+	 * The normalized query string, e.g. <code>?code=foo&amp;_count=20</code>
+	 */
+	String getQueryString() {
+		return myQueryString;
+	}
+
+	/**
+	 * The last PID returned by the previous page, or <code>null</code> for the first page
+	 */
+	@Nullable
+	Long getAfterPid() {
+		return myAfterPid;
+	}
+
+	/**
+	 * @param theSecret The signing secret, or <code>null</code> to use a secret generated for this JVM
+	 */
+	String encode(@Nullable String theSecret) {
+		String afterPid = myAfterPid != null ? myAfterPid.toString() : "";
+		String value = PREFIX + afterPid + ":" + myResourceType + myQueryString;
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		String payload = encoder.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+		return payload + SIGNATURE_SEPARATOR + encoder.encodeToString(sign(payload, theSecret));
+	}
+
+	/**
+	 * Decodes a page ID created by {@link #encode(String)}, or returns <code>null</code> if
+	 * the value is not a keyset page ID or was not signed with the given secret
+	 *
+	 * @param theSecret The signing secret, or <code>null</code> to use a secret generated for this JVM
+	 */
+	@Nullable
+	static KeysetPageId decode(@Nullable String thePageId, @Nullable String theSecret) {
+		if (isBlank(thePageId)) {
+			return null;
+		}
+
+		int separatorIndex = thePageId.lastIndexOf(SIGNATURE_SEPARATOR);
+		if (separatorIndex == -1) {
+			return null;
+		}
+		String payload = thePageId.substring(0, separatorIndex);
+
+		String value;
+		try {
+			byte[] signature = Base64.getUrlDecoder().decode(thePageId.substring(separatorIndex + 1));
+			if (!MessageDigest.isEqual(signature, sign(payload, theSecret))) {
+				return null;
+			}
+			value = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		if (!value.startsWith(PREFIX)) {
+			return null;
+		}
+
+		int afterPidEnd = value.indexOf(':', PREFIX.length());
+		int queryStart = value.indexOf('?', afterPidEnd);
+		if (afterPidEnd == -1 || queryStart == -1) {
+			return null;
+		}
+
+		String afterPidString = value.substring(PREFIX.length(), afterPidEnd);
+		String resourceType = value.substring(afterPidEnd + 1, queryStart);
+		if (isBlank(resourceType)) {
+			return null;
+		}
+
+		Long afterPid = null;
+		if (isNotBlank(afterPidString)) {
+			try {
+				afterPid = Long.parseLong(afterPidString);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		return new KeysetPageId(resourceType, value.substring(queryStart), afterPid);
+	}
+
+	private static byte[] sign(String thePayload, @Nullable String theSecret) {
+		byte[] secret = theSecret != null ? theSecret.getBytes(StandardCharsets.UTF_8) : ourGeneratedSecret;
+		try {
+			Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+			mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+			return mac.doFinal(thePayload.getBytes(StandardCharsets.US_ASCII));
+		} catch (GeneralSecurityException e) {
+			throw new InternalErrorException(Msg.code(2452) + "Failed to sign page ID: " + e.getMessage(), e);
+		}
+	}
+
+	private static byte[] generateSecret() {
+		byte[] retVal = new byte[32];
+		new SecureRandom().nextBytes(retVal);
+		return retVal;
+	}
+}
@@ -48,13 +48,23 @@ import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
 import ca.uhn.fhir.jpa.search.cache.SearchCacheStatusEnum;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.util.QueryParameterUtils;
+import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.rest.api.CacheControlDirective;
 import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
 import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.api.SearchContainedModeEnum;
 import ca.uhn.fhir.rest.api.SearchTotalModeEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.param.CompositeParam;
+import ca.uhn.fhir.rest.param.HasParam;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.param.TokenParamModifier;
+import ca.uhn.fhir.rest.server.IPagingProvider;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
@@ -88,6 +98,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import static ca.uhn.fhir.jpa.util.QueryParameterUtils.DEFAULT_SYNC_SIZE;
+import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
@@ -376,6 +387,13 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc<JpaPid> {
 		final Integer loadSynchronousUpTo = getLoadSynchronousUpToOrNull(theCacheControlDirective);
 		boolean isOffsetQuery = theParams.isOffsetQuery();
 
+		if (theParams.isKeysetPaging()
+				|| (loadSynchronousUpTo == null && isKeysetPagingCandidate(theParams, theRequestDetails))) {
+			ourLog.debug("Search {} is using keyset paging", searchUuid);
+			return mySynchronousSearchSvc.executeKeysetPagedQuery(
+					theResourceType, theParams, theRequestDetails, searchUuid, sb, theRequestPartitionId);
+		}
+
 		// todo someday - not today.
 		//		SearchStrategyFactory.ISearchStrategy searchStrategy = mySearchStrategyFactory.pickStrategy(theResourceType,
 		// theParams, theRequestDetails);
@@ -411,6 +429,25 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc<JpaPid> {
 			cacheStatus = SearchCacheStatusEnum.NOT_TRIED;
 		}
 
+		if (cacheStatus != SearchCacheStatusEnum.NOT_TRIED) {
+			Integer firstPageSize = getFirstPageMemoryCachePageSizeOrNull(theParams, theRequestDetails);
+			if (firstPageSize != null) {
+				ISearchBuilder<JpaPid> firstPageSb =
+						mySearchBuilderFactory.newSearchBuilder(theCallingDao, theResourceType, resourceTypeClass);
+				IBundleProvider firstPage = mySynchronousSearchSvc.executeFirstPageCachedQuery(
+						theResourceType,
+						theParams,
+						theRequestDetails,
+						searchUuid,
+						firstPageSb,
+						firstPageSize,
+						theRequestPartitionId);
+				if (firstPage != null) {
+					return firstPage;
+				}
+			}
+		}
+
 		if (cacheStatus != SearchCacheStatusEnum.NOT_TRIED) {
 			if (theParams.getEverythingMode() == null) {
 				if (myStorageSettings.getReuseCachedSearchResultsForMillis() != null) {
@@ -430,6 +467,129 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc<JpaPid> {
 		return retVal;
 	}
 
+	/**
+	 * Determines whether a search can be keyset paged (see
+	 * {@link JpaStorageSettings#isSearchKeysetPagingEnabled()}), and if so marks the
+	 * search parameters accordingly. Only searches made directly by a client are keyset paged,
+	 * since internal callers expect the bundle provider to give them access to every result.
+	 */
+	private boolean isKeysetPagingCandidate(SearchParameterMap theParams, RequestDetails theRequestDetails) {
+		if (!myStorageSettings.isSearchKeysetPagingEnabled()) {
+			return false;
+		}
+		if (theRequestDetails == null
+				|| theRequestDetails.isSubRequest()
+				|| theRequestDetails.getRestOperationType() != RestOperationTypeEnum.SEARCH_TYPE
+				|| theRequestDetails.getServer() == null
+				|| theRequestDetails.getServer().getPagingProvider() == null) {
+			return false;
+		}
+		if (theParams.isLoadSynchronous()
+				|| theParams.getLoadSynchronousUpTo() != null
+				|| theParams.getOffset() != null
+				|| theParams.getSort() != null
+				|| theParams.getEverythingMode() != null
+				|| theParams.isLastN()
+				|| theParams.getSearchTotalMode() != null
+				|| theParams.getSummaryMode() != null
+				|| theParams.getSearchContainedMode() != SearchContainedModeEnum.FALSE
+				|| theParams.containsKey(Constants.PARAM_TEXT)
+				|| theParams.containsKey(Constants.PARAM_CONTENT)) {
+			return false;
+		}
+
+		IPagingProvider pagingProvider = theRequestDetails.getServer().getPagingProvider();
+		int pageSize = defaultIfNull(theParams.getCount(), pagingProvider.getDefaultPageSize());
+		theParams.setCount(Math.min(pageSize, pagingProvider.getMaximumPageSize()));
+		theParams.setKeysetPaging(true);
+		return true;
+	}
+
+	/**
+	 * Determines whether a search can use the in-memory first page cache (see
+	 * {@link JpaStorageSettings#isSearchFirstPageMemoryCacheEnabled()}), and if so returns the page size
+	 * to use. Searches are only eligible if their results depend on nothing but the indexes of the
+	 * searched resource type, since writes to other types don't invalidate the cached results.
+	 */
+	@Nullable
+	private Integer getFirstPageMemoryCachePageSizeOrNull(
+			SearchParameterMap theParams, RequestDetails theRequestDetails) {
+		if (!myStorageSettings.isSearchFirstPageMemoryCacheEnabled() || myStorageSettings.isAdvancedHSearchIndexing()) {
+			return null;
+		}
+		if (theRequestDetails == null
+				|| theRequestDetails.isSubRequest()
+				|| theRequestDetails.getRestOperationType() != RestOperationTypeEnum.SEARCH_TYPE
+				|| theRequestDetails.getServer() == null
+				|| theRequestDetails.getServer().getPagingProvider() == null) {
+			return null;
+		}
+
+		// Uncommitted writes in the current transaction are visible to the search but haven't advanced
+		// the write watermark yet
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return null;
+		}
+
+		if (theParams.getEverythingMode() != null
+				|| theParams.isLastN()
+				|| theParams.getSearchTotalMode() != null
+				|| theParams.getSummaryMode() != null
+				|| theParams.getSearchContainedMode() != SearchContainedModeEnum.FALSE) {
+			return null;
+		}
+		for (String next : List.of(
+				Constants.PARAM_TEXT,
+				Constants.PARAM_CONTENT,
+				Constants.PARAM_HAS,
+				Constants.PARAM_LIST,
+				Constants.PARAM_FILTER)) {
+			if (theParams.containsKey(next)) {
+				return null;
+			}
+		}
+		for (SortSpec sort = theParams.getSort(); sort != null; sort = sort.getChain()) {
+			if (sort.getParamName().contains(".") || sort.getParamName().contains(":")) {
+				return null;
+			}
+		}
+		for (List<List<IQueryParameterType>> nextAndList : theParams.values()) {
+			for (List<IQueryParameterType> nextOrList : nextAndList) {
+				for (IQueryParameterType next : nextOrList) {
+					if (!isFirstPageMemoryCacheable(next)) {
+						return null;
+					}
+				}
+			}
+		}
+
+		IPagingProvider pagingProvider = theRequestDetails.getServer().getPagingProvider();
+		int pageSize = defaultIfNull(theParams.getCount(), pagingProvider.getDefaultPageSize());
+		return Math.min(pageSize, pagingProvider.getMaximumPageSize());
+	}
+
+	/**
+	 * Chains and terminology modifiers make a search depend on other resource types (or on the
+	 * terminology tables)
+	 */
+	private boolean isFirstPageMemoryCacheable(IQueryParameterType theParam) {
+		if (theParam instanceof ReferenceParam) {
+			ReferenceParam reference = (ReferenceParam) theParam;
+			return isBlank(reference.getChain())
+					&& !reference.isMdmExpand()
+					&& (isBlank(reference.getResourceType())
+							|| myContext.getResourceTypes().contains(reference.getResourceType()));
+		}
+		if (theParam instanceof TokenParam) {
+			TokenParamModifier modifier = ((TokenParam) theParam).getModifier();
+			return modifier != TokenParamModifier.IN
+					&& modifier != TokenParamModifier.NOT_IN
+					&& modifier != TokenParamModifier.ABOVE
+					&& modifier != TokenParamModifier.BELOW;
+		}
+		return !(theParam instanceof CompositeParam) && !(theParam instanceof HasParam);
+	}
+
 	private void validateSearch(SearchParameterMap theParams) {
 		validateIncludes(theParams.getIncludes(), Constants.PARAM_INCLUDE);
 		validateIncludes(theParams.getRevIncludes(), Constants.PARAM_REVINCLUDE);
@@ -36,25 +36,30 @@ import ca.uhn.fhir.jpa.interceptor.JpaPreResourceAccessDetails;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.search.cache.ISearchFirstPageCacheSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.IPreResourceAccessDetails;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.BundleProviderWithNamedPages;
 import ca.uhn.fhir.rest.server.SimpleBundleProvider;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.interceptor.ServerInterceptorUtil;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
+import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import javax.annotation.Nullable;
 import javax.persistence.EntityManager;
 
 import static ca.uhn.fhir.jpa.util.SearchParameterMapCalculator.isWantCount;
@@ -88,6 +93,9 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 	@Autowired
 	private IRequestPartitionHelperSvc myRequestPartitionHelperSvc;
 
+	@Autowired
+	private ISearchFirstPageCacheSvc mySearchFirstPageCacheSvc;
+
 	private int mySyncSize = 250;
 
 	@Override
@@ -98,6 +106,133 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 			ISearchBuilder theSb,
 			Integer theLoadSynchronousUpTo,
 			RequestPartitionId theRequestPartitionId) {
+		return doExecuteQuery(
+				theParams,
+				theRequestDetails,
+				theSearchUuid,
+				theSb,
+				theLoadSynchronousUpTo,
+				theRequestPartitionId,
+				null,
+				null);
+	}
+
+	@Override
+	public IBundleProvider executeKeysetPagedQuery(
+			String theResourceType,
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			RequestPartitionId theRequestPartitionId) {
+		Validate.isTrue(theParams.isKeysetPaging(), "Search is not keyset paged");
+		Validate.notNull(theParams.getCount(), "Keyset paged searches require a page size");
+		return doExecuteQuery(
+				theParams,
+				theRequestDetails,
+				theSearchUuid,
+				theSb,
+				theParams.getCount(),
+				theRequestPartitionId,
+				theResourceType,
+				null);
+	}
+
+	@Nullable
+	@Override
+	public IBundleProvider executeFirstPageCachedQuery(
+			String theResourceType,
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			int thePageSize,
+			RequestPartitionId theRequestPartitionId) {
+		String cacheKey = RequestPartitionId.stringifyForKey(theRequestPartitionId) + " " + thePageSize + " "
+				+ theParams.toNormalizedQueryString(myContext);
+
+		List<Long> matchedPids;
+		Optional<ISearchFirstPageCacheSvc.FirstPage> cached =
+				mySearchFirstPageCacheSvc.fetch(theResourceType, cacheKey);
+		if (cached.isPresent()) {
+			if (!cached.get().isComplete()) {
+				return null;
+			}
+			ourLog.debug("Search {} is using cached results", theSearchUuid);
+			matchedPids = cached.get().getPids();
+		} else {
+			long watermark = mySearchFirstPageCacheSvc.getWriteWatermark(theResourceType);
+			matchedPids = findFirstPagePids(
+					theParams, theRequestDetails, theSearchUuid, theSb, thePageSize, theRequestPartitionId);
+			if (matchedPids.size() > thePageSize) {
+				mySearchFirstPageCacheSvc.store(
+						theResourceType, cacheKey, watermark, ISearchFirstPageCacheSvc.FirstPage.overflowed());
+				return null;
+			}
+			mySearchFirstPageCacheSvc.store(
+					theResourceType, cacheKey, watermark, ISearchFirstPageCacheSvc.FirstPage.complete(matchedPids));
+		}
+
+		return doExecuteQuery(
+				theParams,
+				theRequestDetails,
+				theSearchUuid,
+				theSb,
+				null,
+				theRequestPartitionId,
+				null,
+				JpaPid.fromLongList(matchedPids));
+	}
+
+	/**
+	 * Loads up to one more PID than fits on a page, so that the caller can tell whether the
+	 * page holds the complete result
+	 */
+	private List<Long> findFirstPagePids(
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			int thePageSize,
+			RequestPartitionId theRequestPartitionId) {
+		SearchRuntimeDetails searchRuntimeDetails = new SearchRuntimeDetails(theRequestDetails, theSearchUuid);
+		searchRuntimeDetails.setLoadSynchronous(true);
+		theSb.setMaxResultsToFetch(thePageSize + 1);
+
+		return myTxService
+				.withRequest(theRequestDetails)
+				.withRequestPartitionId(theRequestPartitionId)
+				.readOnly()
+				.execute(() -> {
+					List<Long> retVal = new ArrayList<>();
+					try (IResultIterator<JpaPid> resultIter = theSb.createQuery(
+							theParams, searchRuntimeDetails, theRequestDetails, theRequestPartitionId)) {
+						while (resultIter.hasNext() && retVal.size() <= thePageSize) {
+							retVal.add(resultIter.next().getId());
+						}
+					} catch (IOException e) {
+						ourLog.error("IO failure during database access", e);
+						throw new InternalErrorException(Msg.code(2433) + e);
+					}
+					return retVal;
+				});
+	}
+
+	/**
+	 * @param theKeysetResourceType If not null, the search is keyset paged and a page ID based
+	 *                              bundle provider is returned
+	 * @param theMatchedPids        If not null, the complete (already known) results of the search,
+	 *                              in which case the search query isn't executed
+	 */
+	private IBundleProvider doExecuteQuery(
+			SearchParameterMap theParams,
+			RequestDetails theRequestDetails,
+			String theSearchUuid,
+			ISearchBuilder theSb,
+			Integer theLoadSynchronousUpTo,
+			RequestPartitionId theRequestPartitionId,
+			@Nullable String theKeysetResourceType,
+			@Nullable List<JpaPid> theMatchedPids) {
 		SearchRuntimeDetails searchRuntimeDetails = new SearchRuntimeDetails(theRequestDetails, theSearchUuid);
 		searchRuntimeDetails.setLoadSynchronous(true);
 
@@ -105,7 +240,7 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 		boolean theParamOrConfigWantCount = nonNull(theParams.getSearchTotalMode())
 				? isWantCount(theParams)
 				: isWantCount(myStorageSettings.getDefaultTotalMode());
-		boolean wantCount = theParamWantOnlyCount || theParamOrConfigWantCount;
+		boolean wantCount = theMatchedPids == null && (theParamWantOnlyCount || theParamOrConfigWantCount);
 
 		// Execute the query and make sure we return distinct results
 		return myTxService
@@ -139,27 +274,40 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 						ourLog.trace("Got count {}", count);
 					}
 
-					if (theParamWantOnlyCount) {
+					if (theParamWantOnlyCount && theMatchedPids == null) {
 						SimpleBundleProvider bundleProvider = new SimpleBundleProvider();
 						bundleProvider.setSize(count.intValue());
 						return bundleProvider;
 					}
 
-					try (IResultIterator<JpaPid> resultIter = theSb.createQuery(
-							theParams, searchRuntimeDetails, theRequestDetails, theRequestPartitionId)) {
-						while (resultIter.hasNext()) {
-							pids.add(resultIter.next());
-							if (theLoadSynchronousUpTo != null && pids.size() >= theLoadSynchronousUpTo) {
-								break;
-							}
-							if (theParams.getLoadSynchronousUpTo() != null
-									&& pids.size() >= theParams.getLoadSynchronousUpTo()) {
-								break;
+					if (theMatchedPids != null) {
+						pids.addAll(theMatchedPids);
+					} else {
+						try (IResultIterator<JpaPid> resultIter = theSb.createQuery(
+								theParams, searchRuntimeDetails, theRequestDetails, theRequestPartitionId)) {
+							while (resultIter.hasNext()) {
+								pids.add(resultIter.next());
+								if (theLoadSynchronousUpTo != null && pids.size() >= theLoadSynchronousUpTo) {
+									break;
+								}
+								if (theParams.getLoadSynchronousUpTo() != null
+										&& pids.size() >= theParams.getLoadSynchronousUpTo()) {
+									break;
+								}
 							}
+						} catch (IOException e) {
+							ourLog.error("IO failure during database access", e);
+							throw new InternalErrorException(Msg.code(1164) + e);
 						}
-					} catch (IOException e) {
-						ourLog.error("IO failure during database access", e);
-						throw new InternalErrorException(Msg.code(1164) + e);
+					}
+
+					// Keyset paged results are in PID order, so the next page starts after the last match. This
+					// needs to be captured before any matches are filtered out below.
+					Long keysetLastPid = null;
+					boolean keysetHaveNextPage = false;
+					if (theKeysetResourceType != null && !pids.isEmpty()) {
+						keysetLastPid = pids.get(pids.size() - 1).getId();
+						keysetHaveNextPage = pids.size() >= theLoadSynchronousUpTo;
 					}
 
 					JpaPreResourceAccessDetails accessDetails = new JpaPreResourceAccessDetails(pids, () -> theSb);
@@ -175,6 +323,7 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 							pids.remove(i);
 						}
 					}
+					int matchCount = pids.size();
 
 					/*
 					 * For synchronous queries, we load all the includes right away
@@ -227,6 +376,17 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 					resources = ServerInterceptorUtil.fireStoragePreshowResource(
 							resources, theRequestDetails, myInterceptorBroadcaster);
 
+					if (theKeysetResourceType != null) {
+						return newKeysetPage(
+								theKeysetResourceType,
+								theParams,
+								theSearchUuid,
+								resources,
+								wantCount ? count : null,
+								keysetLastPid,
+								keysetHaveNextPage);
+					}
+
 					SimpleBundleProvider bundleProvider = new SimpleBundleProvider(resources);
 					if (theParams.isOffsetQuery()) {
 						bundleProvider.setCurrentPageOffset(theParams.getOffset());
@@ -235,6 +395,8 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 
 					if (wantCount) {
 						bundleProvider.setSize(count.intValue());
+					} else if (theMatchedPids != null) {
+						bundleProvider.setSize(matchCount);
 					} else {
 						Integer queryCount = getQueryCount(theLoadSynchronousUpTo, theParams);
 						if (queryCount == null || queryCount > resources.size()) {
@@ -251,6 +413,36 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 				});
 	}
 
+	private IBundleProvider newKeysetPage(
+			String theResourceType,
+			SearchParameterMap theParams,
+			String theSearchUuid,
+			List<IBaseResource> theResources,
+			@Nullable Long theCount,
+			@Nullable Long theLastPid,
+			boolean theHaveNextPage) {
+		String queryString = theParams.toNormalizedQueryString(myContext);
+		String secret = myStorageSettings.getSearchKeysetPagingSecret();
+		String currentPageId =
+				new KeysetPageId(theResourceType, queryString, theParams.getKeysetPagingAfterPid()).encode(secret);
+
+		Integer size = null;
+		if (theCount != null) {
+			size = theCount.intValue();
+		} else if (theParams.getKeysetPagingAfterPid() == null && !theHaveNextPage) {
+			// The first page is also the last one
+			size = theResources.size();
+		}
+
+		BundleProviderWithNamedPages retVal =
+				new BundleProviderWithNamedPages(theResources, theSearchUuid, currentPageId, size);
+		if (theHaveNextPage) {
+			retVal.setNextPageId(new KeysetPageId(theResourceType, queryString, theLastPid).encode(secret));
+		}
+		retVal.setPreferredPageSize(theParams.getCount());
+		return retVal;
+	}
+
 	@Override
 	public IBundleProvider executeQuery(
 			String theResourceType,
@@ -0,0 +1,128 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.jpa.entity.ResourceSearchView;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceContextType;
+
+/**
+ * Loads the current version of a collection of resources as detached {@link ResourceSearchView}
+ * objects. The query is the same one that backs the <code>ResourceSearchView</code> entity, but it
+ * is run as a native query returning plain column values, so no entities are hydrated and nothing
+ * is added to the persistence context.
+ * <p>
+ * The columns are still read using Hibernate types (rather than plain JDBC) so that the
+ * <code>RES_TEXT</code> LOB is read correctly on every supported database, e.g. as an
+ * <code>oid</code> on Postgres.
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#isSearchResourceBulkLoadEnabled()
+ */
+public class ResourceSearchViewBulkLoader {
+
+	@SuppressWarnings("SqlDialectInspection")
+	private static final String SQL = "SELECT h.pid AS pid, r.res_id AS res_id, h.res_type AS res_type, "
+			+ "h.res_version AS res_version, h.res_ver AS res_ver, h.has_tags AS has_tags, "
+			+ "h.res_deleted_at AS res_deleted_at, h.res_published AS res_published, h.res_updated AS res_updated, "
+			+ "h.res_text AS res_text, h.res_text_vc AS res_text_vc, h.res_encoding AS res_encoding, "
+			+ "h.PARTITION_ID AS partition_id, p.SOURCE_URI AS prov_source_uri, p.REQUEST_ID AS prov_request_id, "
+			+ "f.forced_id AS forced_pid "
+			+ "FROM HFJ_RES_VER h "
+			+ "LEFT OUTER JOIN HFJ_FORCED_ID f ON f.resource_pid = h.res_id "
+			+ "LEFT OUTER JOIN HFJ_RES_VER_PROV p ON p.res_ver_pid = h.pid "
+			+ "INNER JOIN HFJ_RESOURCE r ON r.res_id = h.res_id AND r.res_ver = h.res_ver "
+			+ "WHERE r.res_id IN (:pids)";
+
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	private EntityManager myEntityManager;
+
+	/**
+	 * Returns the current version of the given resources. The order of the results is undefined,
+	 * and resources that don't exist are not returned.
+	 */
+	@Nonnull
+	public List<ResourceSearchView> loadByResourceIds(Collection<Long> theResourceIds) {
+		if (theResourceIds.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		@SuppressWarnings("unchecked")
+		NativeQuery<Object[]> query = myEntityManager.createNativeQuery(SQL).unwrap(NativeQuery.class);
+		query.addScalar("pid", StandardBasicTypes.LONG);
+		query.addScalar("res_id", StandardBasicTypes.LONG);
+		query.addScalar("res_type", StandardBasicTypes.STRING);
+		query.addScalar("res_version", StandardBasicTypes.STRING);
+		query.addScalar("res_ver", StandardBasicTypes.LONG);
+		query.addScalar("has_tags", StandardBasicTypes.BOOLEAN);
+		query.addScalar("res_deleted_at", StandardBasicTypes.TIMESTAMP);
+		query.addScalar("res_published", StandardBasicTypes.TIMESTAMP);
+		query.addScalar("res_updated", StandardBasicTypes.TIMESTAMP);
+		query.addScalar("res_text", StandardBasicTypes.MATERIALIZED_BLOB);
+		query.addScalar("res_text_vc", StandardBasicTypes.TEXT);
+		query.addScalar("res_encoding", StandardBasicTypes.STRING);
+		query.addScalar("partition_id", StandardBasicTypes.INTEGER);
+		query.addScalar("prov_source_uri", StandardBasicTypes.STRING);
+		query.addScalar("prov_request_id", StandardBasicTypes.STRING);
+		query.addScalar("forced_pid", StandardBasicTypes.STRING);
+		query.setParameterList("pids", theResourceIds);
+		query.setReadOnly(true);
+
+		List<Object[]> rows = query.getResultList();
+		List<ResourceSearchView> retVal = new ArrayList<>(rows.size());
+		for (Object[] next : rows) {
+			retVal.add(toView(next));
+		}
+		return retVal;
+	}
+
+	@Nonnull
+	private static ResourceSearchView toView(Object[] theRow) {
+		ResourceSearchView retVal = new ResourceSearchView();
+		retVal.setId((Long) theRow[0]);
+		retVal.setResourceId((Long) theRow[1]);
+		retVal.setResourceType((String) theRow[2]);
+		retVal.setFhirVersion(theRow[3] != null ? FhirVersionEnum.valueOf((String) theRow[3]) : null);
+		retVal.setVersion((Long) theRow[4]);
+		retVal.setHasTags(Boolean.TRUE.equals(theRow[5]));
+		retVal.setDeleted((Date) theRow[6]);
+		retVal.setPublished((Date) theRow[7]);
+		retVal.setUpdated((Date) theRow[8]);
+		retVal.setResource((byte[]) theRow[9]);
+		retVal.setResourceTextVc((String) theRow[10]);
+		retVal.setEncoding(theRow[11] != null ? ResourceEncodingEnum.valueOf((String) theRow[11]) : null);
+		retVal.setPartitionId((Integer) theRow[12]);
+		retVal.setProvenanceSourceUri((String) theRow[13]);
+		retVal.setProvenanceRequestId((String) theRow[14]);
+		retVal.setForcedId((String) theRow[15]);
+		return retVal;
+	}
+}
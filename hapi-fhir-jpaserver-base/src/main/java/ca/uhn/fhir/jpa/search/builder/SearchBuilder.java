@@ -36,6 +36,7 @@ import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.jpa.config.HapiFhirLocalContainerEntityManagerFactoryBean;
 import ca.uhn.fhir.jpa.config.HibernatePropertiesProvider;
+import ca.uhn.fhir.jpa.config.SearchConfig;
 import ca.uhn.fhir.jpa.dao.BaseStorageDao;
 import ca.uhn.fhir.jpa.dao.IFulltextSearchSvc;
 import ca.uhn.fhir.jpa.dao.IJpaStorageResourceParser;
@@ -44,10 +45,12 @@ import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.dao.data.IResourceSearchViewDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTagDao;
 import ca.uhn.fhir.jpa.dao.search.ResourceNotFoundInIndexException;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.entity.ResourceSearchView;
 import ca.uhn.fhir.jpa.interceptor.JpaPreResourceAccessDetails;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.dao.JpaPidSet;
 import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
 import ca.uhn.fhir.jpa.model.entity.IBaseResourceEntity;
 import ca.uhn.fhir.jpa.model.entity.ResourceTag;
@@ -85,6 +88,7 @@ import ca.uhn.fhir.rest.param.ParameterUtil;
 import ca.uhn.fhir.rest.param.ReferenceParam;
 import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
@@ -104,11 +108,16 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -118,6 +127,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -183,7 +195,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	private String mySearchUuid;
 	private int myFetchSize;
 	private Integer myMaxResultsToFetch;
-	private Set<JpaPid> myPidSet;
+	private JpaPidSet myPidSet;
 	private boolean myHasNextIteratorQuery = false;
 	private RequestPartitionId myRequestPartitionId;
 
@@ -196,6 +208,23 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	@Autowired
 	private IJpaStorageResourceParser myJpaStorageResourceParser;
 
+	@Autowired
+	private SearchParamCardinalitySvc mySearchParamCardinalitySvc;
+
+	@Autowired
+	private IHapiTransactionService myTxService;
+
+	@Autowired(required = false)
+	@Qualifier(SearchConfig.INCLUDE_TASK_EXECUTOR)
+	private AsyncTaskExecutor myIncludeTaskExecutor;
+
+	@Autowired
+	private ResourceSearchViewBulkLoader myResourceSearchViewBulkLoader;
+
+	@Autowired(required = false)
+	@Qualifier(SearchConfig.RESOURCE_PARSE_TASK_EXECUTOR)
+	private AsyncTaskExecutor myResourceParseTaskExecutor;
+
 	/**
 	 * Constructor
 	 */
@@ -265,6 +294,10 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				.filter(t -> !t.equals(IAnyResource.SP_RES_ID))
 				.filter(t -> !t.equals(Constants.PARAM_TAG))
 				.collect(Collectors.toList());
+		if (myStorageSettings.isSearchPredicateOrderingEnabled()) {
+			paramNames = mySearchParamCardinalitySvc.orderBySelectivity(
+					myResourceName, myParams, paramNames, myRequestPartitionId);
+		}
 		if (myParams.containsKey(IAnyResource.SP_RES_ID)) {
 			paramNames.add(IAnyResource.SP_RES_ID);
 		}
@@ -335,7 +368,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	 */
 	@Override
 	public void setPreviouslyAddedResourcePids(@Nonnull List<JpaPid> thePidSet) {
-		myPidSet = new HashSet<>(thePidSet);
+		myPidSet = new JpaPidSet(thePidSet);
 	}
 
 	@SuppressWarnings("ConstantConditions")
@@ -351,7 +384,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		init(theParams, theSearchRuntimeDetails.getSearchUuid(), theRequestPartitionId);
 
 		if (myPidSet == null) {
-			myPidSet = new HashSet<>();
+			myPidSet = new JpaPidSet();
 		}
 
 		return new QueryIterator(theSearchRuntimeDetails, theRequest);
@@ -701,6 +734,13 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			sqlBuilder.addPredicate(lastUpdatedPredicates);
 		}
 
+		/*
+		 * Keyset paging: order by PID and seek past the last PID returned by the previous page
+		 */
+		if (myParams.isKeysetPaging() && !theCountOnlyFlag) {
+			sqlBuilder.addResourceIdKeysetPredicateAndSort(myParams.getKeysetPagingAfterPid());
+		}
+
 		/*
 		 * Exclude the pids already in the previous iterator. This is an optimization, as opposed
 		 * to something needed to guarantee correct results.
@@ -1059,12 +1099,19 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		}
 
 		// -- get the resource from the searchView
-		Collection<ResourceSearchView> resourceSearchViewList =
-				myResourceSearchViewDao.findByResourceIds(versionlessPids);
+		Collection<ResourceSearchView> resourceSearchViewList;
+		if (myStorageSettings.isSearchResourceBulkLoadEnabled()) {
+			resourceSearchViewList = myResourceSearchViewBulkLoader.loadByResourceIds(versionlessPids);
+		} else {
+			resourceSearchViewList = myResourceSearchViewDao.findByResourceIds(versionlessPids);
+		}
 
 		// -- preload all tags with tag definition if any
 		Map<Long, Collection<ResourceTag>> tagMap = getResourceTagMap(resourceSearchViewList);
 
+		List<IBaseResourceEntity> entities = new ArrayList<>(resourceSearchViewList.size());
+		List<Class<? extends IBaseResource>> resourceTypes = new ArrayList<>(resourceSearchViewList.size());
+		List<JpaPid> resourceIds = new ArrayList<>(resourceSearchViewList.size());
 		for (IBaseResourceEntity next : resourceSearchViewList) {
 			if (next.getDeleted() != null) {
 				continue;
@@ -1092,11 +1139,17 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				}
 			}
 
-			IBaseResource resource = null;
-			if (next != null) {
-				resource = myJpaStorageResourceParser.toResource(
-						resourceType, next, tagMap.get(next.getId()), theForHistoryOperation);
-			}
+			entities.add(next);
+			resourceTypes.add(resourceType);
+			resourceIds.add(resourceId);
+		}
+
+		List<IBaseResource> resources = parseResources(entities, resourceTypes, tagMap, theForHistoryOperation);
+
+		for (int i = 0; i < entities.size(); i++) {
+			IBaseResourceEntity next = entities.get(i);
+			JpaPid resourceId = resourceIds.get(i);
+			IBaseResource resource = resources.get(i);
 			if (resource == null) {
 				ourLog.warn(
 						"Unable to find resource {}/{}/_history/{} in database",
@@ -1122,6 +1175,75 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		}
 	}
 
+	/**
+	 * Parses the loaded entities into resources, returning a list in the same order (with
+	 * <code>null</code> for any entity that couldn't be parsed). If parallel parsing is enabled
+	 * (see {@link JpaStorageSettings#getSearchResourceParsePoolSize()}), the entities are split
+	 * into slices that are parsed concurrently.
+	 */
+	private List<IBaseResource> parseResources(
+			List<IBaseResourceEntity> theEntities,
+			List<Class<? extends IBaseResource>> theResourceTypes,
+			Map<Long, Collection<ResourceTag>> theTagMap,
+			boolean theForHistoryOperation) {
+		IBaseResource[] retVal = new IBaseResource[theEntities.size()];
+		int poolSize = myStorageSettings.getSearchResourceParsePoolSize();
+		// Other entity types (e.g. a specific version requested by an include) may have lazy
+		// associations, which can only be loaded by this thread
+		if (theEntities.size() < 2
+				|| poolSize < 2
+				|| myResourceParseTaskExecutor == null
+				|| !theEntities.stream().allMatch(t -> t instanceof ResourceSearchView)) {
+			parseResourceSlice(
+					theEntities, theResourceTypes, theTagMap, theForHistoryOperation, retVal, 0, retVal.length);
+			return Arrays.asList(retVal);
+		}
+
+		int sliceSize = (theEntities.size() + poolSize - 1) / poolSize;
+		List<Future<?>> futures = new ArrayList<>(poolSize);
+		for (int from = sliceSize; from < theEntities.size(); from += sliceSize) {
+			int sliceFrom = from;
+			int sliceTo = Math.min(from + sliceSize, theEntities.size());
+			futures.add(myResourceParseTaskExecutor.submit(() -> parseResourceSlice(
+					theEntities, theResourceTypes, theTagMap, theForHistoryOperation, retVal, sliceFrom, sliceTo)));
+		}
+
+		// The first slice is parsed by this thread
+		parseResourceSlice(theEntities, theResourceTypes, theTagMap, theForHistoryOperation, retVal, 0, sliceSize);
+
+		for (Future<?> next : futures) {
+			try {
+				next.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InternalErrorException(Msg.code(2436) + e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new InternalErrorException(Msg.code(2437) + e.getCause());
+			}
+		}
+		return Arrays.asList(retVal);
+	}
+
+	private void parseResourceSlice(
+			List<IBaseResourceEntity> theEntities,
+			List<Class<? extends IBaseResource>> theResourceTypes,
+			Map<Long, Collection<ResourceTag>> theTagMap,
+			boolean theForHistoryOperation,
+			IBaseResource[] theTarget,
+			int theFrom,
+			int theTo) {
+		for (int i = theFrom; i < theTo; i++) {
+			IBaseResourceEntity next = theEntities.get(i);
+			if (next != null) {
+				theTarget[i] = myJpaStorageResourceParser.toResource(
+						theResourceTypes.get(i), next, theTagMap.get(next.getId()), theForHistoryOperation);
+			}
+		}
+	}
+
 	private Map<Long, Collection<ResourceTag>> getResourceTagMap(
 			Collection<? extends IBaseResourceEntity> theResourceSearchViewList) {
 
@@ -1300,14 +1422,13 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		String searchPidFieldName = reverseMode ? MY_TARGET_RESOURCE_PID : MY_SOURCE_RESOURCE_PID;
 		String findPidFieldName = reverseMode ? MY_SOURCE_RESOURCE_PID : MY_TARGET_RESOURCE_PID;
 		String findResourceTypeFieldName = reverseMode ? MY_SOURCE_RESOURCE_TYPE : MY_TARGET_RESOURCE_TYPE;
-		String findVersionFieldName = null;
-		if (!reverseMode && myStorageSettings.isRespectVersionsForSearchIncludes()) {
-			findVersionFieldName = MY_TARGET_RESOURCE_VERSION;
-		}
+		String findVersionFieldName = !reverseMode && myStorageSettings.isRespectVersionsForSearchIncludes()
+				? MY_TARGET_RESOURCE_VERSION
+				: null;
 
 		List<JpaPid> nextRoundMatches = new ArrayList<>(matches);
 		HashSet<JpaPid> allAdded = new HashSet<>();
-		HashSet<JpaPid> original = new HashSet<>(matches);
+		JpaPidSet original = new JpaPidSet(matches);
 		ArrayList<Include> includes = new ArrayList<>(currentIncludes);
 
 		int roundCounts = 0;
@@ -1318,6 +1439,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			roundCounts++;
 
 			HashSet<JpaPid> pidsToInclude = new HashSet<>();
+			List<Function<EntityManager, List<JpaPid>>> includeQueries = new ArrayList<>();
 
 			for (Iterator<Include> iter = includes.iterator(); iter.hasNext(); ) {
 				Include nextInclude = iter.next();
@@ -1387,40 +1509,47 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 					}
 
 					String sql = sqlBuilder.toString();
+					String wantResourceTypeParam = wantResourceType;
 					List<Collection<JpaPid>> partitions = partition(nextRoundMatches, getMaximumPageSize());
 					for (Collection<JpaPid> nextPartition : partitions) {
-						TypedQuery<?> q = entityManager.createQuery(sql, Object[].class);
-						q.setParameter("target_pids", JpaPid.toLongList(nextPartition));
-						if (wantResourceType != null) {
-							q.setParameter("want_resource_type", wantResourceType);
-						}
-						if (maxCount != null) {
-							q.setMaxResults(maxCount);
-						}
-						if (hasDesiredResourceTypes) {
-							q.setParameter("desired_target_resource_types", String.join(", ", desiredResourceTypes));
-						}
-						List<?> results = q.getResultList();
-						for (Object nextRow : results) {
-							if (nextRow == null) {
-								// This can happen if there are outgoing references which are canonical or point to
-								// other servers
-								continue;
+						List<Long> targetPids = JpaPid.toLongList(nextPartition);
+						includeQueries.add(em -> {
+							List<JpaPid> retVal = new ArrayList<>();
+							TypedQuery<?> q = em.createQuery(sql, Object[].class);
+							q.setParameter("target_pids", targetPids);
+							if (wantResourceTypeParam != null) {
+								q.setParameter("want_resource_type", wantResourceTypeParam);
 							}
-
-							Long version = null;
-							Long resourceLink = (Long) ((Object[]) nextRow)[0];
-							String resourceType = (String) ((Object[]) nextRow)[1];
-							if (findVersionFieldName != null) {
-								version = (Long) ((Object[]) nextRow)[2];
+							if (maxCount != null) {
+								q.setMaxResults(maxCount);
+							}
+							if (hasDesiredResourceTypes) {
+								q.setParameter(
+										"desired_target_resource_types", String.join(", ", desiredResourceTypes));
 							}
+							List<?> results = q.getResultList();
+							for (Object nextRow : results) {
+								if (nextRow == null) {
+									// This can happen if there are outgoing references which are canonical or point to
+									// other servers
+									continue;
+								}
 
-							if (resourceLink != null) {
-								JpaPid pid =
-										JpaPid.fromIdAndVersionAndResourceType(resourceLink, version, resourceType);
-								pidsToInclude.add(pid);
+								Long version = null;
+								Long resourceLink = (Long) ((Object[]) nextRow)[0];
+								String resourceType = (String) ((Object[]) nextRow)[1];
+								if (findVersionFieldName != null) {
+									version = (Long) ((Object[]) nextRow)[2];
+								}
+
+								if (resourceLink != null) {
+									JpaPid pid =
+											JpaPid.fromIdAndVersionAndResourceType(resourceLink, version, resourceType);
+									retVal.add(pid);
+								}
 							}
-						}
+							return retVal;
+						});
 					}
 				} else {
 					List<String> paths;
@@ -1503,33 +1632,43 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 						List<Collection<JpaPid>> partitions = partition(nextRoundMatches, getMaximumPageSize());
 						for (Collection<JpaPid> nextPartition : partitions) {
-							Query q = entityManager.createNativeQuery(sql, Tuple.class);
-							q.setParameter("target_pids", JpaPid.toLongList(nextPartition));
-							localReferenceQueryParams.forEach(q::setParameter);
-							canonicalQuery.getRight().forEach(q::setParameter);
-
-							if (maxCount != null) {
-								q.setMaxResults(maxCount);
-							}
-							@SuppressWarnings("unchecked")
-							List<Tuple> results = q.getResultList();
-							for (Tuple result : results) {
-								if (result != null) {
-									Long resourceId =
-											NumberUtils.createLong(String.valueOf(result.get(RESOURCE_ID_ALIAS)));
-									Long resourceVersion = null;
-									if (findVersionFieldName != null && result.get(RESOURCE_VERSION_ALIAS) != null) {
-										resourceVersion = NumberUtils.createLong(
-												String.valueOf(result.get(RESOURCE_VERSION_ALIAS)));
+							List<Long> targetPids = JpaPid.toLongList(nextPartition);
+							includeQueries.add(em -> {
+								List<JpaPid> retVal = new ArrayList<>();
+								Query q = em.createNativeQuery(sql, Tuple.class);
+								q.setParameter("target_pids", targetPids);
+								localReferenceQueryParams.forEach(q::setParameter);
+								canonicalQuery.getRight().forEach(q::setParameter);
+
+								if (maxCount != null) {
+									q.setMaxResults(maxCount);
+								}
+								@SuppressWarnings("unchecked")
+								List<Tuple> results = q.getResultList();
+								for (Tuple result : results) {
+									if (result != null) {
+										Long resourceId =
+												NumberUtils.createLong(String.valueOf(result.get(RESOURCE_ID_ALIAS)));
+										Long resourceVersion = null;
+										if (findVersionFieldName != null
+												&& result.get(RESOURCE_VERSION_ALIAS) != null) {
+											resourceVersion = NumberUtils.createLong(
+													String.valueOf(result.get(RESOURCE_VERSION_ALIAS)));
+										}
+										retVal.add(JpaPid.fromIdAndVersion(resourceId, resourceVersion));
 									}
-									pidsToInclude.add(JpaPid.fromIdAndVersion(resourceId, resourceVersion));
 								}
-							}
+								return retVal;
+							});
 						}
 					}
 				}
 			}
 
+			for (List<JpaPid> nextResults : executeIncludeQueries(includeQueries, entityManager, request)) {
+				pidsToInclude.addAll(nextResults);
+			}
+
 			nextRoundMatches.clear();
 			for (JpaPid next : pidsToInclude) {
 				if (!original.contains(next) && !allAdded.contains(next)) {
@@ -1590,6 +1729,66 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		return allAdded;
 	}
 
+	/**
+	 * Executes the include queries for a single round. If parallel include loading is enabled
+	 * (see {@link JpaStorageSettings#getIncludeLoadingPoolSize()}), the queries are run concurrently,
+	 * each in its own read-only transaction. Queries which can't be handed to an idle worker
+	 * are run on this thread in the calling transaction, so this thread never waits for a worker
+	 * to become available while holding its database connection (see
+	 * {@link SearchConfig#searchIncludeTaskExecutor()}).
+	 */
+	private List<List<JpaPid>> executeIncludeQueries(
+			List<Function<EntityManager, List<JpaPid>>> theQueries,
+			EntityManager theEntityManager,
+			RequestDetails theRequest) {
+		// Queries made on other threads can't see uncommitted writes from this one (which is only
+		// a concern for internal searches and transaction bundle entries), and aren't captured for
+		// the JPA_PERFTRACE_RAW_SQL hook
+		if (theQueries.size() < 2
+				|| myStorageSettings.getIncludeLoadingPoolSize() < 2
+				|| myIncludeTaskExecutor == null
+				|| theRequest == null
+				|| theRequest.isSubRequest()
+				|| CompositeInterceptorBroadcaster.hasHooks(
+						Pointcut.JPA_PERFTRACE_RAW_SQL, myInterceptorBroadcaster, theRequest)) {
+			return theQueries.stream().map(t -> t.apply(theEntityManager)).collect(Collectors.toList());
+		}
+
+		List<Future<List<JpaPid>>> futures = new ArrayList<>(theQueries.size());
+		List<Function<EntityManager, List<JpaPid>>> localQueries = new ArrayList<>();
+		for (Function<EntityManager, List<JpaPid>> next : theQueries) {
+			try {
+				futures.add(myIncludeTaskExecutor.submit(() -> myTxService
+						.withRequest(theRequest)
+						.withRequestPartitionId(myRequestPartitionId)
+						.withPropagation(Propagation.REQUIRES_NEW)
+						.readOnly()
+						.execute(() -> next.apply(myEntityManager))));
+			} catch (TaskRejectedException e) {
+				localQueries.add(next);
+			}
+		}
+
+		List<List<JpaPid>> retVal = new ArrayList<>(theQueries.size());
+		for (Function<EntityManager, List<JpaPid>> next : localQueries) {
+			retVal.add(next.apply(theEntityManager));
+		}
+		for (Future<List<JpaPid>> next : futures) {
+			try {
+				retVal.add(next.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InternalErrorException(Msg.code(2434) + e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new InternalErrorException(Msg.code(2435) + e.getCause());
+			}
+		}
+		return retVal;
+	}
+
 	/**
 	 * Given a
 	 * @param request
@@ -1849,7 +2048,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		private JpaPid myNext;
 
 		IncludesIterator(Set<JpaPid> thePidSet, RequestDetails theRequest) {
-			myCurrentPids = new HashSet<>(thePidSet);
+			myCurrentPids = new JpaPidSet(thePidSet);
 			myCurrentIterator = null;
 			myRequest = theRequest;
 		}
@@ -2024,9 +2223,8 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 						}
 
 						if (nextLong != null) {
-							JpaPid next = JpaPid.fromId(nextLong);
-							if (myPidSet.add(next)) {
-								myNext = next;
+							if (myPidSet.addId(nextLong)) {
+								myNext = JpaPid.fromId(nextLong);
 								myNonSkipCount++;
 								break;
 							} else {
@@ -0,0 +1,257 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceContextType;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Collects approximate cardinality statistics for search parameter values and uses them
+ * to order the parameters of a search so that the most selective ones are joined first.
+ * <p>
+ * Token cardinalities are sampled from <code>HFJ_SPIDX_TOKEN</code> using the same hashes that
+ * the search itself will use. Sampling is capped at {@link #SAMPLE_LIMIT} rows so that even a
+ * value present on hundreds of millions of rows only costs a short index range scan, and the
+ * results are cached for a few minutes.
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#isSearchPredicateOrderingEnabled()
+ */
+public class SearchParamCardinalitySvc {
+
+	/**
+	 * Sampled cardinalities are capped at this value. A value with at least this many index rows
+	 * is considered to be unselective.
+	 */
+	public static final int SAMPLE_LIMIT = 1000;
+
+	private final ISearchParamRegistry mySearchParamRegistry;
+	private final PartitionSettings myPartitionSettings;
+	private final Cache<String, Integer> myTokenCardinalityCache =
+			CacheFactory.build(TimeUnit.MINUTES.toMillis(10), 10000);
+
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	private EntityManager myEntityManager;
+
+	/**
+	 * Constructor
+	 */
+	public SearchParamCardinalitySvc(
+			ISearchParamRegistry theSearchParamRegistry, PartitionSettings thePartitionSettings) {
+		mySearchParamRegistry = theSearchParamRegistry;
+		myPartitionSettings = thePartitionSettings;
+	}
+
+	/**
+	 * Returns the given parameter names reordered by estimated selectivity. Parameters
+	 * known to be selective come first (most selective first), then parameters with no
+	 * estimate, and finally parameters known to be unselective. The original order is
+	 * otherwise preserved.
+	 */
+	@Nonnull
+	public List<String> orderBySelectivity(
+			String theResourceName,
+			SearchParameterMap theParams,
+			List<String> theParamNames,
+			RequestPartitionId theRequestPartitionId) {
+		if (theParamNames.size() < 2) {
+			return theParamNames;
+		}
+
+		// Hashes can't be computed for a multi-partition request if partitions are part of the hash
+		if (myPartitionSettings.isPartitioningEnabled()
+				&& myPartitionSettings.isIncludePartitionInSearchHashes()
+				&& theRequestPartitionId != null
+				&& theRequestPartitionId.getPartitionIds().size() > 1) {
+			return theParamNames;
+		}
+
+		Map<String, Integer> estimates = new HashMap<>();
+		for (String next : theParamNames) {
+			Integer estimate = estimateCardinality(theResourceName, next, theParams.get(next), theRequestPartitionId);
+			if (estimate != null) {
+				estimates.put(next, estimate);
+			}
+		}
+		if (estimates.isEmpty()) {
+			return theParamNames;
+		}
+
+		List<String> retVal = new ArrayList<>(theParamNames);
+		retVal.sort(Comparator.comparingInt(t -> toSortKey(estimates.get(t))));
+		return retVal;
+	}
+
+	private static int toSortKey(@Nullable Integer theEstimate) {
+		if (theEstimate == null) {
+			return SAMPLE_LIMIT;
+		} else if (theEstimate >= SAMPLE_LIMIT) {
+			return SAMPLE_LIMIT + 1;
+		}
+		return theEstimate;
+	}
+
+	/**
+	 * Estimates how many resources a single search parameter (with all of its AND/OR values)
+	 * will match, or returns <code>null</code> if no estimate can be made.
+	 */
+	@Nullable
+	public Integer estimateCardinality(
+			String theResourceName,
+			String theParamName,
+			List<List<IQueryParameterType>> theAndOrParams,
+			RequestPartitionId theRequestPartitionId) {
+		RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(theResourceName, theParamName);
+		if (searchParam == null || theAndOrParams == null) {
+			return null;
+		}
+
+		Integer retVal = null;
+		for (List<IQueryParameterType> nextOrList : theAndOrParams) {
+			Integer orEstimate = null;
+			switch (searchParam.getParamType()) {
+				case TOKEN:
+					orEstimate = estimateTokenOrList(theResourceName, theParamName, nextOrList, theRequestPartitionId);
+					break;
+				case REFERENCE:
+					orEstimate = estimateReferenceOrList(nextOrList);
+					break;
+				default:
+					break;
+			}
+
+			// An AND is at most as large as its smallest part
+			if (orEstimate != null && (retVal == null || orEstimate < retVal)) {
+				retVal = orEstimate;
+			}
+		}
+		return retVal;
+	}
+
+	@Nullable
+	private Integer estimateTokenOrList(
+			String theResourceName,
+			String theParamName,
+			List<IQueryParameterType> theOrList,
+			RequestPartitionId theRequestPartitionId) {
+		int retVal = 0;
+		for (IQueryParameterType next : theOrList) {
+			if (!(next instanceof TokenParam)) {
+				return null;
+			}
+			TokenParam token = (TokenParam) next;
+			if (token.getModifier() != null || token.getMissing() != null) {
+				return null;
+			}
+
+			String system = token.getSystem();
+			String code = token.getValue();
+			String column;
+			long hash;
+			if (system == null) {
+				if (isBlank(code)) {
+					return null;
+				}
+				column = "myHashValue";
+				hash = ResourceIndexedSearchParamToken.calculateHashValue(
+						myPartitionSettings, theRequestPartitionId, theResourceName, theParamName, code);
+			} else if (isBlank(code)) {
+				column = "myHashSystem";
+				hash = ResourceIndexedSearchParamToken.calculateHashSystem(
+						myPartitionSettings, theRequestPartitionId, theResourceName, theParamName, system);
+			} else {
+				column = "myHashSystemAndValue";
+				hash = ResourceIndexedSearchParamToken.calculateHashSystemAndValue(
+						myPartitionSettings, theRequestPartitionId, theResourceName, theParamName, system, code);
+			}
+
+			retVal += sampleTokenCardinality(column, hash);
+			if (retVal >= SAMPLE_LIMIT) {
+				return SAMPLE_LIMIT;
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * References to an explicit resource ID (e.g. <code>subject=Patient/123</code>) are assumed
+	 * to be highly selective, since they match only the resources pointing at one target.
+	 * Chains and modifiers aren't estimated.
+	 */
+	@Nullable
+	private Integer estimateReferenceOrList(List<IQueryParameterType> theOrList) {
+		for (IQueryParameterType next : theOrList) {
+			if (!(next instanceof ReferenceParam)) {
+				return null;
+			}
+			ReferenceParam reference = (ReferenceParam) next;
+			if (isNotBlank(reference.getChain())
+					|| reference.getMissing() != null
+					|| isBlank(reference.getIdPart())
+					|| reference.getValue().contains("://")) {
+				return null;
+			}
+			if (":identifier".equals(reference.getQueryParameterQualifier())) {
+				return null;
+			}
+		}
+		return theOrList.size();
+	}
+
+	private int sampleTokenCardinality(String theColumn, long theHash) {
+		Validate.isTrue(theColumn.startsWith("myHash"));
+		String key = theColumn + ":" + theHash;
+		return myTokenCardinalityCache.get(key, t -> {
+			String sql =
+					"SELECT t.myResourcePid FROM ResourceIndexedSearchParamToken t WHERE t." + theColumn + " = :hash";
+			return myEntityManager
+					.createQuery(sql, Long.class)
+					.setParameter("hash", theHash)
+					.setMaxResults(SAMPLE_LIMIT)
+					.getResultList()
+					.size();
+		});
+	}
+}
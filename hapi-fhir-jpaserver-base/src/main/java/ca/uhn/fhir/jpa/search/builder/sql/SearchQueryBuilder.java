@@ -750,6 +750,18 @@ public class SearchQueryBuilder {
 		addPredicate(predicate);
 	}
 
+	/**
+	 * Orders the results by ascending resource PID and, if a PID is supplied, only
+	 * returns resources with a PID greater than it. This is used for keyset paging.
+	 */
+	public void addResourceIdKeysetPredicateAndSort(@Nullable Long theAfterPid) {
+		DbColumn resourceIdColumn = getOrCreateFirstPredicateBuilder().getResourceIdColumn();
+		if (theAfterPid != null) {
+			addPredicate(BinaryCondition.greaterThan(resourceIdColumn, generatePlaceholder(theAfterPid)));
+		}
+		mySelect.addCustomOrderings(new OrderObject(OrderObject.Dir.ASCENDING, resourceIdColumn));
+	}
+
 	public void excludeResourceIdsPredicate(Set<JpaPid> theExistingPidSetToExclude) {
 
 		// Do  nothing if it's empty
@@ -0,0 +1,120 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An in-memory tier in front of the search cache tables which holds the complete matching
+ * PID lists of small searches (searches whose results fit on a single page). Entries are
+ * invalidated by per-resource-type write watermarks: every write to a resource type advances its
+ * watermark, and an entry is only returned if the watermark for its resource type is unchanged
+ * since the entry's query started.
+ * <p>
+ * Implementations decide how entries are stored and evicted, and must also bound how long an
+ * entry is kept, since watermarks only track writes made through this server.
+ * {@link MemorySearchFirstPageCacheSvcImpl} expires entries after
+ * {@link MemorySearchFirstPageCacheSvcImpl#DEFAULT_MAX_AGE_MILLIS} unless configured otherwise.
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#isSearchFirstPageMemoryCacheEnabled()
+ * @since 7.0.0
+ */
+public interface ISearchFirstPageCacheSvc {
+
+	/**
+	 * Returns the current write watermark for the given resource type. This must be read
+	 * <b>before</b> the query whose results will be stored is executed.
+	 */
+	long getWriteWatermark(String theResourceType);
+
+	/**
+	 * Records a write to the given resource type. If a database transaction is active, the
+	 * watermark advances when the transaction commits.
+	 */
+	void recordWrite(String theResourceType);
+
+	/**
+	 * Records a write which may affect any resource type (e.g. a bulk SQL delete). If a
+	 * database transaction is active, the watermarks advance when the transaction commits.
+	 */
+	void recordWriteToAllResourceTypes();
+
+	/**
+	 * Fetches a cached search. Entries whose watermark is no longer current are never returned.
+	 *
+	 * @param theResourceType The resource type of the search
+	 * @param theCacheKey     The normalized search, including the partition and page size
+	 */
+	Optional<FirstPage> fetch(String theResourceType, String theCacheKey);
+
+	/**
+	 * Stores a search
+	 *
+	 * @param theResourceType The resource type of the search
+	 * @param theCacheKey     The normalized search, including the partition and page size
+	 * @param theWatermark    The watermark obtained from {@link #getWriteWatermark(String)} before the query was executed
+	 * @param theFirstPage    The results
+	 */
+	void store(String theResourceType, String theCacheKey, long theWatermark, FirstPage theFirstPage);
+
+	/**
+	 * The cached results of a search. A search whose results did not fit on a single page
+	 * is also cached (without its PIDs) so that callers can skip straight to the regular
+	 * search path next time.
+	 */
+	class FirstPage {
+
+		private final List<Long> myPids;
+
+		private FirstPage(@Nullable List<Long> thePids) {
+			myPids = thePids;
+		}
+
+		/**
+		 * Returns <code>true</code> if the PIDs are the complete result of the search
+		 */
+		public boolean isComplete() {
+			return myPids != null;
+		}
+
+		/**
+		 * Returns the matching PIDs, or <code>null</code> if the search had more results
+		 * than fit on a single page
+		 */
+		@Nullable
+		public List<Long> getPids() {
+			return myPids;
+		}
+
+		@Nonnull
+		public static FirstPage complete(List<Long> thePids) {
+			return new FirstPage(List.copyOf(thePids));
+		}
+
+		@Nonnull
+		public static FirstPage overflowed() {
+			return new FirstPage(null);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import com.google.common.annotations.VisibleForTesting;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Default {@link ISearchFirstPageCacheSvc}, which keeps entries on the heap in a size bounded
+ * cache built by {@link CacheFactory} (the eviction policy is therefore that of the cache
+ * provider on the classpath).
+ * <p>
+ * Entries expire after {@link #DEFAULT_MAX_AGE_MILLIS} (or the max age passed to the constructor)
+ * even if no write invalidates them. Watermarks are local to this JVM, so in a clustered deployment
+ * this max age bounds how long a write made by another node can go unseen.
+ * </p>
+ */
+public class MemorySearchFirstPageCacheSvcImpl implements ISearchFirstPageCacheSvc {
+
+	public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	private final ConcurrentHashMap<String, AtomicLong> myResourceTypeWatermarks = new ConcurrentHashMap<>();
+	private final AtomicLong myGlobalWatermark = new AtomicLong();
+	private final Cache<String, Entry> myCache;
+
+	/**
+	 * Constructor
+	 */
+	public MemorySearchFirstPageCacheSvcImpl() {
+		this(DEFAULT_MAX_AGE_MILLIS, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theMaxAgeMillis The maximum age of an entry, which only matters for writes made by other nodes
+	 * @param theMaxSize      The maximum number of cached searches
+	 */
+	public MemorySearchFirstPageCacheSvcImpl(long theMaxAgeMillis, int theMaxSize) {
+		myCache = CacheFactory.build(theMaxAgeMillis, theMaxSize);
+	}
+
+	@Override
+	public long getWriteWatermark(String theResourceType) {
+		// Both counters only ever increase, so their sum changes whenever either one does
+		return myGlobalWatermark.get()
+				+ getResourceTypeWatermark(theResourceType).get();
+	}
+
+	@Override
+	public void recordWrite(String theResourceType) {
+		AtomicLong watermark = getResourceTypeWatermark(theResourceType);
+		runAfterCommit(watermark::incrementAndGet);
+	}
+
+	@Override
+	public void recordWriteToAllResourceTypes() {
+		runAfterCommit(() -> {
+			myGlobalWatermark.incrementAndGet();
+			myCache.invalidateAll();
+		});
+	}
+
+	@Override
+	public Optional<FirstPage> fetch(String theResourceType, String theCacheKey) {
+		Entry entry = myCache.getIfPresent(theResourceType + theCacheKey);
+		if (entry == null) {
+			return Optional.empty();
+		}
+		if (entry.myWatermark != getWriteWatermark(theResourceType)) {
+			myCache.invalidate(theResourceType + theCacheKey);
+			return Optional.empty();
+		}
+		return Optional.of(entry.myFirstPage);
+	}
+
+	@Override
+	public void store(String theResourceType, String theCacheKey, long theWatermark, FirstPage theFirstPage) {
+		// A write may already have committed while the query was running
+		if (theWatermark == getWriteWatermark(theResourceType)) {
+			myCache.put(theResourceType + theCacheKey, new Entry(theWatermark, theFirstPage));
+		}
+	}
+
+	@VisibleForTesting
+	public void clearAllForUnitTest() {
+		myCache.invalidateAll();
+	}
+
+	private AtomicLong getResourceTypeWatermark(String theResourceType) {
+		return myResourceTypeWatermarks.computeIfAbsent(theResourceType, t -> new AtomicLong());
+	}
+
+	/**
+	 * A search that runs while a write transaction is in flight can't see the write yet, so the
+	 * watermark is advanced only once the write is visible. Any search that started before that
+	 * point captured the older watermark and its results are discarded.
+	 */
+	private static void runAfterCommit(Runnable theRunnable) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					theRunnable.run();
+				}
+			});
+		} else {
+			theRunnable.run();
+		}
+	}
+
+	private static class Entry {
+		private final long myWatermark;
+		private final FirstPage myFirstPage;
+
+		private Entry(long theWatermark, FirstPage theFirstPage) {
+			myWatermark = theWatermark;
+			myFirstPage = theFirstPage;
+		}
+	}
+}
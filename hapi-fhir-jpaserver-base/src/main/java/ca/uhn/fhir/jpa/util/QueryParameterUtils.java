@@ -54,6 +54,7 @@ import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.From;
 import javax.persistence.criteria.Predicate;
 
@@ -175,6 +176,28 @@ public class QueryParameterUtils {
 		return thePredicates.toArray(new Predicate[0]);
 	}
 
+	/**
+	 * Creates a predicate restricting an entity with a <code>myPartitionIdValue</code> attribute
+	 * to the given partition(s), or returns <code>null</code> if all partitions are requested.
+	 */
+	@Nullable
+	public static Predicate toPartitionIdPredicate(
+			CriteriaBuilder theCriteriaBuilder, From<?, ?> theFrom, RequestPartitionId thePartitionId) {
+		if (thePartitionId.isAllPartitions()) {
+			return null;
+		}
+		Expression<Integer> partitionIdValue = theFrom.get("myPartitionIdValue").as(Integer.class);
+		if (thePartitionId.isDefaultPartition()) {
+			return theCriteriaBuilder.isNull(partitionIdValue);
+		} else if (thePartitionId.hasDefaultPartitionId()) {
+			return theCriteriaBuilder.or(
+					theCriteriaBuilder.isNull(partitionIdValue),
+					partitionIdValue.in(thePartitionId.getPartitionIdsWithoutDefault()));
+		} else {
+			return partitionIdValue.in(thePartitionId.getPartitionIds());
+		}
+	}
+
 	private static List<Predicate> createLastUpdatedPredicates(
 			final DateRangeParam theLastUpdated, CriteriaBuilder builder, From<?, ResourceTable> from) {
 		List<Predicate> lastUpdatedPredicates = new ArrayList<>();
@@ -0,0 +1,348 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.dao;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.Nonnull;
+
+/**
+ * A compact {@link Set} of {@link JpaPid} which stores unversioned PIDs as primitive longs in an
+ * open-addressed hash table, rather than as a hash set entry holding a boxed {@link JpaPid}
+ * holding a boxed {@link Long}. This makes a set of hundreds of thousands of PIDs (e.g. the
+ * PIDs seen so far in a large <code>$everything</code> operation) a single array instead of
+ * several objects per PID.
+ * <p>
+ * The set has the same equality semantics as a {@link HashSet} of {@link JpaPid}: PIDs with a
+ * version are kept as objects in a secondary set, since the version is part of their identity.
+ * Note that PIDs stored as primitives are returned by the iterator as new {@link JpaPid}
+ * instances, so any resource type set on the original instance is not retained.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+public class JpaPidSet extends AbstractSet<JpaPid> {
+
+	private static final long EMPTY = Long.MIN_VALUE;
+	private static final long REMOVED = Long.MIN_VALUE + 1;
+	private static final int MIN_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private long[] myTable;
+	private int mySize;
+	private int myUsedSlots;
+	private int myModCount;
+	private Set<JpaPid> myOtherPids;
+
+	/**
+	 * Constructor
+	 */
+	public JpaPidSet() {
+		this(MIN_CAPACITY / 2);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theExpectedSize The number of PIDs the set is expected to hold
+	 */
+	public JpaPidSet(int theExpectedSize) {
+		myTable = newTable(capacityFor(theExpectedSize));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param thePids The initial contents of the set
+	 */
+	public JpaPidSet(Collection<JpaPid> thePids) {
+		this(thePids.size());
+		addAll(thePids);
+	}
+
+	/**
+	 * Adds an unversioned PID. This is equivalent to <code>add(JpaPid.fromId(theId))</code> but
+	 * doesn't allocate anything.
+	 *
+	 * @return <code>true</code> if the PID was not already present
+	 */
+	public boolean addId(long theId) {
+		if (!isStoredAsPrimitive(theId)) {
+			return getOtherPids().add(JpaPid.fromId(theId));
+		}
+
+		int index = findSlot(theId);
+		long existing = myTable[index];
+		if (existing == theId) {
+			return false;
+		}
+
+		if (existing == EMPTY) {
+			myUsedSlots++;
+		}
+		myTable[index] = theId;
+		mySize++;
+		myModCount++;
+		if (myUsedSlots * 2 > myTable.length) {
+			rehash();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns <code>true</code> if the set contains the given unversioned PID.
+	 */
+	public boolean containsId(long theId) {
+		if (!isStoredAsPrimitive(theId)) {
+			return myOtherPids != null && myOtherPids.contains(JpaPid.fromId(theId));
+		}
+		return myTable[findSlot(theId)] == theId;
+	}
+
+	/**
+	 * Removes an unversioned PID.
+	 *
+	 * @return <code>true</code> if the PID was present
+	 */
+	public boolean removeId(long theId) {
+		if (!isStoredAsPrimitive(theId)) {
+			return myOtherPids != null && myOtherPids.remove(JpaPid.fromId(theId));
+		}
+
+		int index = findSlot(theId);
+		if (myTable[index] != theId) {
+			return false;
+		}
+		myTable[index] = REMOVED;
+		mySize--;
+		myModCount++;
+		return true;
+	}
+
+	@Override
+	public boolean add(JpaPid thePid) {
+		if (isUnversioned(thePid)) {
+			return addId(thePid.getId());
+		}
+		return getOtherPids().add(thePid);
+	}
+
+	@Override
+	public boolean contains(Object theObject) {
+		if (!(theObject instanceof JpaPid)) {
+			return false;
+		}
+		JpaPid pid = (JpaPid) theObject;
+		if (isUnversioned(pid)) {
+			return containsId(pid.getId());
+		}
+		return myOtherPids != null && myOtherPids.contains(pid);
+	}
+
+	@Override
+	public boolean remove(Object theObject) {
+		if (!(theObject instanceof JpaPid)) {
+			return false;
+		}
+		JpaPid pid = (JpaPid) theObject;
+		if (isUnversioned(pid)) {
+			return removeId(pid.getId());
+		}
+		return myOtherPids != null && myOtherPids.remove(pid);
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> theCollection) {
+		boolean retVal = false;
+		for (Object next : theCollection) {
+			retVal |= remove(next);
+		}
+		return retVal;
+	}
+
+	@Override
+	public void clear() {
+		myTable = newTable(MIN_CAPACITY);
+		mySize = 0;
+		myUsedSlots = 0;
+		myModCount++;
+		myOtherPids = null;
+	}
+
+	@Override
+	public int size() {
+		return mySize + (myOtherPids != null ? myOtherPids.size() : 0);
+	}
+
+	@Nonnull
+	@Override
+	public Iterator<JpaPid> iterator() {
+		return new PidIterator();
+	}
+
+	private Set<JpaPid> getOtherPids() {
+		if (myOtherPids == null) {
+			myOtherPids = new HashSet<>();
+		}
+		return myOtherPids;
+	}
+
+	/**
+	 * Returns the slot holding the given ID, or else the slot it should be inserted into
+	 */
+	private int findSlot(long theId) {
+		int mask = myTable.length - 1;
+		int index = hash(theId) & mask;
+		int firstRemoved = -1;
+		while (true) {
+			long existing = myTable[index];
+			if (existing == theId) {
+				return index;
+			}
+			if (existing == EMPTY) {
+				return firstRemoved != -1 ? firstRemoved : index;
+			}
+			if (existing == REMOVED && firstRemoved == -1) {
+				firstRemoved = index;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	private void rehash() {
+		long[] oldTable = myTable;
+		myTable = newTable(capacityFor(mySize));
+		myUsedSlots = 0;
+		for (long next : oldTable) {
+			if (next != EMPTY && next != REMOVED) {
+				myTable[findSlot(next)] = next;
+				myUsedSlots++;
+			}
+		}
+	}
+
+	private static boolean isUnversioned(JpaPid thePid) {
+		return thePid.getVersion() == null && thePid.getId() != null;
+	}
+
+	private static boolean isStoredAsPrimitive(long theId) {
+		return theId != EMPTY && theId != REMOVED;
+	}
+
+	private static int hash(long theId) {
+		long hash = theId * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	/**
+	 * Returns a power-of-2 capacity which keeps the table at most half full
+	 */
+	private static int capacityFor(int theSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < theSize * 2L + 2 && capacity < MAX_CAPACITY) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static long[] newTable(int theCapacity) {
+		long[] retVal = new long[theCapacity];
+		Arrays.fill(retVal, EMPTY);
+		return retVal;
+	}
+
+	private class PidIterator implements Iterator<JpaPid> {
+		private final long[] myIteratedTable = myTable;
+		private int myExpectedModCount = myModCount;
+		private int myNextIndex = -1;
+		private int myLastIndex = -1;
+		private Iterator<JpaPid> myOtherIterator;
+		private boolean myLastWasOther;
+
+		private PidIterator() {
+			advance();
+		}
+
+		private void advance() {
+			myNextIndex++;
+			while (myNextIndex < myIteratedTable.length
+					&& (myIteratedTable[myNextIndex] == EMPTY || myIteratedTable[myNextIndex] == REMOVED)) {
+				myNextIndex++;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (myNextIndex < myIteratedTable.length) {
+				return true;
+			}
+			return getOtherIterator().hasNext();
+		}
+
+		@Override
+		public JpaPid next() {
+			if (myModCount != myExpectedModCount || myTable != myIteratedTable) {
+				throw new ConcurrentModificationException();
+			}
+			if (myNextIndex < myIteratedTable.length) {
+				myLastIndex = myNextIndex;
+				myLastWasOther = false;
+				advance();
+				return JpaPid.fromId(myIteratedTable[myLastIndex]);
+			}
+			if (!getOtherIterator().hasNext()) {
+				throw new NoSuchElementException();
+			}
+			myLastWasOther = true;
+			return myOtherIterator.next();
+		}
+
+		@Override
+		public void remove() {
+			if (myLastWasOther) {
+				myOtherIterator.remove();
+				return;
+			}
+			if (myLastIndex == -1 || myIteratedTable[myLastIndex] == REMOVED) {
+				throw new IllegalStateException();
+			}
+			// Marking the slot as removed never moves other entries, so iteration can continue
+			myIteratedTable[myLastIndex] = REMOVED;
+			mySize--;
+			myModCount++;
+			myExpectedModCount = myModCount;
+		}
+
+		private Iterator<JpaPid> getOtherIterator() {
+			if (myOtherIterator == null) {
+				myOtherIterator = myOtherPids != null ? myOtherPids.iterator() : Collections.emptyIterator();
+			}
+			return myOtherIterator;
+		}
+	}
+}
@@ -71,6 +71,14 @@ public class StorageSettings {
 			"http://hl7.org/fhir/StructureDefinition/*")));
 
 	public static final String DEFAULT_WEBSOCKET_CONTEXT_PATH = "/websocket";
+	/**
+	 * @since 7.0.0
+	 */
+	public static final long DEFAULT_REST_HOOK_DELIVERY_BATCH_LINGER_MILLIS = 50;
+	/**
+	 * @since 7.0.0
+	 */
+	public static final int DEFAULT_REST_HOOK_DELIVERY_MAX_CONCURRENT_REQUESTS = 4;
 	/*
 	 * <p>
 	 * Note the following database documented limitations:
@@ -139,6 +147,26 @@ public class StorageSettings {
 	 */
 	private boolean myQualifySubscriptionMatchingChannelName = true;
 
+	/**
+	 * Since 7.0.0
+	 */
+	private int myRestHookDeliveryBatchSize = 1;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private long myRestHookDeliveryBatchLingerMillis = DEFAULT_REST_HOOK_DELIVERY_BATCH_LINGER_MILLIS;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private int myRestHookDeliveryMaxConcurrentRequests = DEFAULT_REST_HOOK_DELIVERY_MAX_CONCURRENT_REQUESTS;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private int myTransactionIndexingPoolSize = 1;
+
 	/**
 	 * If set to true, the server will prevent the creation of Subscriptions which cannot be evaluated IN-MEMORY. This can improve
 	 * overall server performance.
@@ -255,6 +283,41 @@ public class StorageSettings {
 		this.myBundleBatchMaxPoolSize = theBundleBatchMaxPoolSize;
 	}
 
+	/**
+	 * The number of threads used to extract search parameter index values for the resources in a
+	 * FHIR transaction. If this is greater than 1, the values for entries whose resources don't
+	 * contain any references to (or placeholder IDs of) other entries in the Bundle are extracted
+	 * concurrently, once all of the entries have been written and before they are indexed. Database
+	 * access is not affected, since the entries are still written and indexed one at a time on the
+	 * calling thread within the single database transaction.
+	 * <p>
+	 * Default is <code>1</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public int getTransactionIndexingPoolSize() {
+		return myTransactionIndexingPoolSize;
+	}
+
+	/**
+	 * The number of threads used to extract search parameter index values for the resources in a
+	 * FHIR transaction. If this is greater than 1, the values for entries whose resources don't
+	 * contain any references to (or placeholder IDs of) other entries in the Bundle are extracted
+	 * concurrently, once all of the entries have been written and before they are indexed. Database
+	 * access is not affected, since the entries are still written and indexed one at a time on the
+	 * calling thread within the single database transaction.
+	 * <p>
+	 * Default is <code>1</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setTransactionIndexingPoolSize(int theTransactionIndexingPoolSize) {
+		Validate.isTrue(theTransactionIndexingPoolSize >= 1, "Pool size must be at least 1");
+		myTransactionIndexingPoolSize = theTransactionIndexingPoolSize;
+	}
+
 	/**
 	 * If set to <code>false</code> (default is true) the server will not use
 	 * in-memory subscription searching and instead use the database matcher for all subscription
@@ -1295,6 +1358,113 @@ public class StorageSettings {
 		return myQualifySubscriptionMatchingChannelName;
 	}
 
+	/**
+	 * If this is set to a value greater than 1, REST-hook subscriptions which deliver a payload
+	 * will coalesce their deliveries into <code>transaction</code> Bundles of up to this many entries,
+	 * instead of making one HTTP request per matched resource. All changes to the same resource are
+	 * delivered in order.
+	 * <p>
+	 * A failed batch is retried by the delivery channel in the same way as a failed individual delivery.
+	 * Subscription delivery channels are given enough concurrent consumers to fill a batch for each of
+	 * the {@link #getRestHookDeliveryMaxConcurrentRequests() concurrent requests}.
+	 * </p>
+	 * <p>
+	 * Note that this changes what the receiving endpoint is sent, so it should only be enabled if
+	 * all REST-hook endpoints are able to process transactions. Subscriptions using a payload search
+	 * criteria, and subscription topic subscriptions, are not affected by this setting.
+	 * </p>
+	 * <p>
+	 * Default is <code>1</code> (batching disabled)
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public int getRestHookDeliveryBatchSize() {
+		return myRestHookDeliveryBatchSize;
+	}
+
+	/**
+	 * If this is set to a value greater than 1, REST-hook subscriptions which deliver a payload
+	 * will coalesce their deliveries into <code>transaction</code> Bundles of up to this many entries,
+	 * instead of making one HTTP request per matched resource. All changes to the same resource are
+	 * delivered in order.
+	 * <p>
+	 * A failed batch is retried by the delivery channel in the same way as a failed individual delivery.
+	 * Subscription delivery channels are given enough concurrent consumers to fill a batch for each of
+	 * the {@link #getRestHookDeliveryMaxConcurrentRequests() concurrent requests}.
+	 * </p>
+	 * <p>
+	 * Note that this changes what the receiving endpoint is sent, so it should only be enabled if
+	 * all REST-hook endpoints are able to process transactions. Subscriptions using a payload search
+	 * criteria, and subscription topic subscriptions, are not affected by this setting.
+	 * </p>
+	 * <p>
+	 * Default is <code>1</code> (batching disabled)
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setRestHookDeliveryBatchSize(int theRestHookDeliveryBatchSize) {
+		Validate.isTrue(theRestHookDeliveryBatchSize >= 1, "Batch size must be at least 1");
+		myRestHookDeliveryBatchSize = theRestHookDeliveryBatchSize;
+	}
+
+	/**
+	 * When REST-hook delivery batching is enabled (see {@link #setRestHookDeliveryBatchSize(int)}), this
+	 * is the maximum amount of time that a delivery will wait for other deliveries to join its batch.
+	 * <p>
+	 * Default is {@value #DEFAULT_REST_HOOK_DELIVERY_BATCH_LINGER_MILLIS}
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public long getRestHookDeliveryBatchLingerMillis() {
+		return myRestHookDeliveryBatchLingerMillis;
+	}
+
+	/**
+	 * When REST-hook delivery batching is enabled (see {@link #setRestHookDeliveryBatchSize(int)}), this
+	 * is the maximum amount of time that a delivery will wait for other deliveries to join its batch.
+	 * <p>
+	 * Default is {@value #DEFAULT_REST_HOOK_DELIVERY_BATCH_LINGER_MILLIS}
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setRestHookDeliveryBatchLingerMillis(long theRestHookDeliveryBatchLingerMillis) {
+		Validate.isTrue(theRestHookDeliveryBatchLingerMillis >= 0, "Linger time must not be negative");
+		myRestHookDeliveryBatchLingerMillis = theRestHookDeliveryBatchLingerMillis;
+	}
+
+	/**
+	 * When REST-hook delivery batching is enabled (see {@link #setRestHookDeliveryBatchSize(int)}), this
+	 * is the maximum number of batches that will be in flight to a single subscription endpoint at the
+	 * same time. It is also the number of threads which send batches, which are shared by all subscriptions.
+	 * <p>
+	 * Default is {@value #DEFAULT_REST_HOOK_DELIVERY_MAX_CONCURRENT_REQUESTS}
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public int getRestHookDeliveryMaxConcurrentRequests() {
+		return myRestHookDeliveryMaxConcurrentRequests;
+	}
+
+	/**
+	 * When REST-hook delivery batching is enabled (see {@link #setRestHookDeliveryBatchSize(int)}), this
+	 * is the maximum number of batches that will be in flight to a single subscription endpoint at the
+	 * same time. It is also the number of threads which send batches, which are shared by all subscriptions.
+	 * <p>
+	 * Default is {@value #DEFAULT_REST_HOOK_DELIVERY_MAX_CONCURRENT_REQUESTS}
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setRestHookDeliveryMaxConcurrentRequests(int theRestHookDeliveryMaxConcurrentRequests) {
+		Validate.isTrue(theRestHookDeliveryMaxConcurrentRequests >= 1, "Concurrent requests must be at least 1");
+		myRestHookDeliveryMaxConcurrentRequests = theRestHookDeliveryMaxConcurrentRequests;
+	}
+
 	private static void validateTreatBaseUrlsAsLocal(String theUrl) {
 		Validate.notBlank(theUrl, "Base URL must not be null or empty");
 
@@ -152,6 +152,10 @@ public class JpaConstants {
 	 * Operation name for the "$binary-access" operation
 	 */
 	public static final String OPERATION_BINARY_ACCESS_WRITE = "$binary-access-write";
+	/**
+	 * Operation name for the "$streaming-batch" operation
+	 */
+	public static final String OPERATION_STREAMING_BATCH = "$streaming-batch";
 	/**
 	 * Operation name for the "$upload-external-code-system" operation
 	 */
@@ -0,0 +1,99 @@
+package ca.uhn.fhir.jpa.model.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JpaPidSetTest {
+
+	@Test
+	public void testAddAndContains() {
+		JpaPidSet set = new JpaPidSet();
+		assertTrue(set.add(JpaPid.fromId(1L)));
+		assertFalse(set.add(JpaPid.fromIdAndResourceType(1L, "Patient")));
+		assertTrue(set.addId(2L));
+		assertFalse(set.addId(2L));
+		assertTrue(set.add(JpaPid.fromIdAndVersion(1L, 3L)));
+		assertFalse(set.add(JpaPid.fromIdAndVersion(1L, 3L)));
+
+		assertEquals(3, set.size());
+		assertTrue(set.contains(JpaPid.fromId(1L)));
+		assertTrue(set.containsId(2L));
+		assertTrue(set.contains(JpaPid.fromIdAndVersion(1L, 3L)));
+		assertFalse(set.contains(JpaPid.fromIdAndVersion(2L, 3L)));
+		assertFalse(set.contains("1"));
+		assertThat(set, containsInAnyOrder(JpaPid.fromId(1L), JpaPid.fromId(2L), JpaPid.fromIdAndVersion(1L, 3L)));
+	}
+
+	@Test
+	public void testSentinelValues() {
+		JpaPidSet set = new JpaPidSet();
+		assertTrue(set.addId(Long.MIN_VALUE));
+		assertTrue(set.addId(Long.MIN_VALUE + 1));
+		assertTrue(set.addId(0L));
+		assertFalse(set.addId(Long.MIN_VALUE));
+
+		assertEquals(3, set.size());
+		assertTrue(set.containsId(Long.MIN_VALUE));
+		assertTrue(set.removeId(Long.MIN_VALUE + 1));
+		assertFalse(set.containsId(Long.MIN_VALUE + 1));
+		assertThat(set, containsInAnyOrder(JpaPid.fromId(Long.MIN_VALUE), JpaPid.fromId(0L)));
+	}
+
+	@Test
+	public void testSameBehaviourAsHashSet() {
+		Random random = new Random(123);
+		JpaPidSet set = new JpaPidSet();
+		Set<JpaPid> expected = new HashSet<>();
+		for (int i = 0; i < 100000; i++) {
+			JpaPid pid = JpaPid.fromId((long) random.nextInt(20000));
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(pid), set.remove(pid));
+			} else {
+				assertEquals(expected.add(pid), set.add(pid));
+			}
+		}
+
+		assertEquals(expected.size(), set.size());
+		assertEquals(expected, set);
+		assertEquals(set, expected);
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		JpaPidSet set = new JpaPidSet(List.of(JpaPid.fromId(1L), JpaPid.fromId(2L), JpaPid.fromIdAndVersion(3L, 1L)));
+
+		for (Iterator<JpaPid> iter = set.iterator(); iter.hasNext(); ) {
+			JpaPid next = iter.next();
+			if (next.getId() != 2L) {
+				iter.remove();
+			}
+		}
+
+		assertThat(set, containsInAnyOrder(JpaPid.fromId(2L)));
+		assertTrue(set.addId(1L));
+		assertEquals(2, set.size());
+	}
+
+	@Test
+	public void testRemoveAll() {
+		JpaPidSet set = new JpaPidSet(List.of(JpaPid.fromId(1L), JpaPid.fromId(2L), JpaPid.fromId(3L)));
+		assertTrue(set.removeAll(List.of(JpaPid.fromId(1L), JpaPid.fromId(4L))));
+		assertFalse(set.removeAll(List.of(JpaPid.fromIdAndVersion(2L, 1L))));
+		assertThat(set, containsInAnyOrder(JpaPid.fromId(2L), JpaPid.fromId(3L)));
+
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertFalse(set.iterator().hasNext());
+	}
+}
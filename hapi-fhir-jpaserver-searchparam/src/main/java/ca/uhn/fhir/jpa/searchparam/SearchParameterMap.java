@@ -85,6 +85,8 @@ public class SearchParameterMap implements Serializable {
 	private Integer myLastNMax;
 	private boolean myDeleteExpunge;
 	private SearchContainedModeEnum mySearchContainedMode = SearchContainedModeEnum.FALSE;
+	private boolean myKeysetPaging;
+	private Long myKeysetPagingAfterPid;
 
 	/**
 	 * Constructor
@@ -123,6 +125,8 @@ public class SearchParameterMap implements Serializable {
 		map.setLoadSynchronousUpTo(getLoadSynchronousUpTo());
 		map.setOffset(getOffset());
 		map.setSearchContainedMode(getSearchContainedMode());
+		map.setKeysetPaging(isKeysetPaging());
+		map.setKeysetPagingAfterPid(getKeysetPagingAfterPid());
 
 		for (Map.Entry<String, List<List<IQueryParameterType>>> entry : mySearchParameterMap.entrySet()) {
 			List<List<IQueryParameterType>> andParams = entry.getValue();
@@ -793,6 +797,52 @@ public class SearchParameterMap implements Serializable {
 		return getOffset() != null && getCount() != null;
 	}
 
+	/**
+	 * If set, results are returned in ascending resource PID order and only resources with
+	 * a PID greater than {@link #getKeysetPagingAfterPid()} (if set) are returned. This is
+	 * used to load a single page of a keyset paged search.
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isKeysetPaging() {
+		return myKeysetPaging;
+	}
+
+	/**
+	 * If set, results are returned in ascending resource PID order and only resources with
+	 * a PID greater than {@link #getKeysetPagingAfterPid()} (if set) are returned. This is
+	 * used to load a single page of a keyset paged search.
+	 *
+	 * @since 7.0.0
+	 */
+	public SearchParameterMap setKeysetPaging(boolean theKeysetPaging) {
+		myKeysetPaging = theKeysetPaging;
+		return this;
+	}
+
+	/**
+	 * The last resource PID returned by the previous page of a keyset paged search, or
+	 * <code>null</code> if this is the first page.
+	 *
+	 * @see #isKeysetPaging()
+	 * @since 7.0.0
+	 */
+	public Long getKeysetPagingAfterPid() {
+		return myKeysetPagingAfterPid;
+	}
+
+	/**
+	 * The last resource PID returned by the previous page of a keyset paged search, or
+	 * <code>null</code> if this is the first page.
+	 *
+	 * @see #isKeysetPaging()
+	 * @since 7.0.0
+	 */
+	public SearchParameterMap setKeysetPagingAfterPid(Long theKeysetPagingAfterPid) {
+		myKeysetPagingAfterPid = theKeysetPagingAfterPid;
+		return this;
+	}
+
 	public enum EverythingModeEnum {
 		/*
 		 * Don't reorder! We rely on the ordinals
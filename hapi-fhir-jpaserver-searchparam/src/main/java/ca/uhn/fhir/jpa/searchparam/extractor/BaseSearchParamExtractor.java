@@ -41,6 +41,8 @@ import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
 import ca.uhn.fhir.util.BundleUtil;
 import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.HapiExtensions;
@@ -78,6 +80,8 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -161,6 +165,9 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 	private BaseRuntimeChildDefinition myPatientCommunicationLanguageValueChild;
 	private BaseRuntimeChildDefinition myCodeableReferenceConcept;
 	private BaseRuntimeChildDefinition myCodeableReferenceReference;
+	private final Cache<String, String[]> mySplitPathCache = CacheFactory.build(TimeUnit.MINUTES.toMillis(10));
+	private final ConcurrentHashMap<String, SearchParamExtractionPlan> myResourceTypeToExtractionPlan =
+			new ConcurrentHashMap<>();
 
 	/**
 	 * Constructor
@@ -903,7 +910,7 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 	public List<IBase> extractValues(String thePaths, IBase theResource) {
 		List<IBase> values = new ArrayList<>();
 		if (isNotBlank(thePaths)) {
-			String[] nextPathsSplit = split(thePaths);
+			String[] nextPathsSplit = splitAndTrim(thePaths);
 			for (String nextPath : nextPathsSplit) {
 				List<? extends IBase> allValues;
 
@@ -913,7 +920,6 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 					continue;
 				}
 
-				nextPath = trim(nextPath);
 				IValueExtractor allValuesFunc = getPathValueExtractor(theResource, nextPath);
 				try {
 					allValues = allValuesFunc.get();
@@ -947,6 +953,8 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 	@VisibleForTesting
 	public void setContext(FhirContext theContext) {
 		myContext = theContext;
+		mySplitPathCache.invalidateAll();
+		myResourceTypeToExtractionPlan.clear();
 	}
 
 	protected StorageSettings getStorageSettings() {
@@ -972,6 +980,21 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 		return retVal;
 	}
 
+	/**
+	 * Returns the extraction plan for the active search parameters of the given resource type,
+	 * building a new one if the active set has changed since the plan was last built.
+	 */
+	private SearchParamExtractionPlan getExtractionPlan(
+			IBaseResource theResource, Collection<RuntimeSearchParam> theSearchParams) {
+		String resourceType = getContext().getResourceType(theResource);
+		SearchParamExtractionPlan retVal = myResourceTypeToExtractionPlan.get(resourceType);
+		if (retVal == null || !retVal.isBuiltFrom(theSearchParams)) {
+			retVal = new SearchParamExtractionPlan(theSearchParams, this::splitAndTrim);
+			myResourceTypeToExtractionPlan.put(resourceType, retVal);
+		}
+		return retVal;
+	}
+
 	private void addQuantity_Quantity(
 			String theResourceType,
 			Set<ResourceIndexedSearchParamQuantity> theParams,
@@ -1595,6 +1618,16 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 		Collection<RuntimeSearchParam> filteredSearchParams = theSearchParamFilter.filterSearchParams(searchParams);
 		assert filteredSearchParams.size() == preFilterSize || searchParams != filteredSearchParams;
 
+		if (filteredSearchParams == searchParams) {
+			SearchParamExtractionPlan plan = getExtractionPlan(theResource, searchParams);
+			cleanUpContainedResourceReferences(theResource, plan.anySearchParameterUsesResolve(theSearchParamType));
+
+			for (SearchParamExtractionPlan.PathGroup nextGroup : plan.getPathGroups(theSearchParamType)) {
+				extractPathGroup(nextGroup, theResource, theExtractor, retVal, theWantLocalReferences);
+			}
+			return retVal;
+		}
+
 		cleanUpContainedResourceReferences(theResource, theSearchParamType, filteredSearchParams);
 
 		for (RuntimeSearchParam nextSpDef : filteredSearchParams) {
@@ -1637,8 +1670,14 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 			IBaseResource theResource,
 			RestSearchParameterTypeEnum theSearchParamType,
 			Collection<RuntimeSearchParam> searchParams) {
-		boolean havePathWithResolveExpression = myStorageSettings.isIndexOnContainedResources()
-				|| anySearchParameterUsesResolve(searchParams, theSearchParamType);
+		cleanUpContainedResourceReferences(
+				theResource, anySearchParameterUsesResolve(searchParams, theSearchParamType));
+	}
+
+	private void cleanUpContainedResourceReferences(
+			IBaseResource theResource, boolean theAnySearchParameterUsesResolve) {
+		boolean havePathWithResolveExpression =
+				myStorageSettings.isIndexOnContainedResources() || theAnySearchParameterUsesResolve;
 
 		if (havePathWithResolveExpression && myContext.getParserOptions().isAutoContainReferenceTargetsWithNoId()) {
 			// TODO GGG/JA: At this point, if the Task.basedOn.reference.resource does _not_ have an ID, we will attempt
@@ -1687,9 +1726,8 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 			return;
 		}
 
-		String[] splitPaths = split(thePathExpression);
+		String[] splitPaths = splitAndTrim(thePathExpression);
 		for (String nextPath : splitPaths) {
-			nextPath = trim(nextPath);
 			for (IBase nextObject : extractValues(nextPath, theResource)) {
 				if (nextObject != null) {
 					String typeName = toRootTypeName(nextObject);
@@ -1702,6 +1740,29 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 		}
 	}
 
+	/**
+	 * Evaluates a single path once and feeds the results to every search parameter
+	 * in the group, rather than evaluating it once per search parameter.
+	 */
+	private <T> void extractPathGroup(
+			SearchParamExtractionPlan.PathGroup theGroup,
+			IBase theResource,
+			IExtractor<T> theExtractor,
+			SearchParamSet<T> theSetToPopulate,
+			boolean theWantLocalReferences) {
+		String path = theGroup.getPath();
+		for (IBase nextObject : extractValues(path, theResource)) {
+			if (nextObject != null) {
+				String typeName = toRootTypeName(nextObject);
+				if (!myIgnoredForSearchDatatypes.contains(typeName)) {
+					for (RuntimeSearchParam nextSpDef : theGroup.getSearchParams()) {
+						theExtractor.extract(theSetToPopulate, nextSpDef, nextObject, path, theWantLocalReferences);
+					}
+				}
+			}
+		}
+	}
+
 	@Override
 	public String toRootTypeName(IBase nextObject) {
 		BaseRuntimeElementDefinition<?> elementDefinition = getContext().getElementDefinition(nextObject.getClass());
@@ -1794,6 +1855,21 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 		}
 	}
 
+	/**
+	 * Like {@link #split(String)} but also trims each part. Results are cached since
+	 * the same handful of search parameter expressions are split for every resource
+	 * that gets indexed. The returned array must not be modified.
+	 */
+	private String[] splitAndTrim(String thePaths) {
+		return mySplitPathCache.get(thePaths, paths -> {
+			String[] retVal = split(paths);
+			for (int i = 0; i < retVal.length; i++) {
+				retVal[i] = trim(retVal[i]);
+			}
+			return retVal;
+		});
+	}
+
 	public boolean shouldAttemptToSplitPath(String thePath) {
 		if (getContext().getVersion().getVersion().isEqualOrNewerThan(FhirVersionEnum.R4)) {
 			if (thePath.contains("|")) {
@@ -109,6 +109,27 @@ public final class ResourceIndexedSearchParams {
 		return myLinks;
 	}
 
+	/**
+	 * Adds all of the indexes from the given params to this object. This is intended for
+	 * combining indexes that were extracted separately for disjoint sets of search parameters.
+	 */
+	public void addAll(ResourceIndexedSearchParams theParams) {
+		myStringParams.addAll(theParams.myStringParams);
+		myTokenParams.addAll(theParams.myTokenParams);
+		myNumberParams.addAll(theParams.myNumberParams);
+		myQuantityParams.addAll(theParams.myQuantityParams);
+		myQuantityNormalizedParams.addAll(theParams.myQuantityNormalizedParams);
+		myDateParams.addAll(theParams.myDateParams);
+		myUriParams.addAll(theParams.myUriParams);
+		myCoordsParams.addAll(theParams.myCoordsParams);
+		myComboStringUniques.addAll(theParams.myComboStringUniques);
+		myComboTokenNonUnique.addAll(theParams.myComboTokenNonUnique);
+		myLinks.addAll(theParams.myLinks);
+		myPopulatedResourceLinkParameters.addAll(theParams.myPopulatedResourceLinkParameters);
+		mySearchParamPresentEntities.addAll(theParams.mySearchParamPresentEntities);
+		myCompositeParams.addAll(theParams.myCompositeParams);
+	}
+
 	public void populateResourceTableSearchParamsPresentFlags(ResourceTable theEntity) {
 		theEntity.setParamsStringPopulated(myStringParams.isEmpty() == false);
 		theEntity.setParamsTokenPopulated(myTokenParams.isEmpty() == false);
@@ -0,0 +1,157 @@
+/*
+ * #%L
+ * HAPI FHIR Search Parameters
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.searchparam.extractor;
+
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.searchparam.util.RuntimeSearchParamHelper;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * A precomputed indexing plan for a single resource type and a specific set of
+ * active search parameters. Building the plan does all of the work that only depends
+ * on the search parameter definitions (grouping by type, skipping resource-level
+ * parameters, splitting the path expressions) so that it isn't repeated for every
+ * resource that is written.
+ * <p>
+ * Search parameters of the same type which share an identical path (e.g.
+ * <code>Observation.subject</code> for both <code>subject</code> and <code>patient</code>)
+ * are grouped together so that the path is only evaluated once per resource.
+ * <p>
+ * Plans are immutable and may be shared across threads.
+ */
+class SearchParamExtractionPlan {
+
+	private final List<RuntimeSearchParam> mySourceSearchParams;
+	private final Map<RestSearchParameterTypeEnum, List<PathGroup>> myTypeToPathGroups;
+	private final Set<RestSearchParameterTypeEnum> myTypesUsingResolve;
+
+	SearchParamExtractionPlan(
+			Collection<RuntimeSearchParam> theSearchParams, Function<String, String[]> theSplitAndTrimFunction) {
+		mySourceSearchParams = new ArrayList<>(theSearchParams);
+
+		Map<RestSearchParameterTypeEnum, Map<String, List<RuntimeSearchParam>>> typeToPathToParams =
+				new EnumMap<>(RestSearchParameterTypeEnum.class);
+		Set<RestSearchParameterTypeEnum> typesUsingResolve = EnumSet.noneOf(RestSearchParameterTypeEnum.class);
+
+		for (RuntimeSearchParam next : mySourceSearchParams) {
+			String path = next.getPath();
+			if (path != null && path.contains("resolve")) {
+				typesUsingResolve.add(next.getParamType());
+			}
+
+			// See BaseSearchParamExtractor#extractSearchParams for an explanation of this
+			if (RuntimeSearchParamHelper.isResourceLevel(next) || isBlank(path)) {
+				continue;
+			}
+
+			Map<String, List<RuntimeSearchParam>> pathToParams =
+					typeToPathToParams.computeIfAbsent(next.getParamType(), t -> new LinkedHashMap<>());
+			for (String nextPath : theSplitAndTrimFunction.apply(path)) {
+				pathToParams.computeIfAbsent(nextPath, p -> new ArrayList<>()).add(next);
+			}
+		}
+
+		myTypeToPathGroups = new EnumMap<>(RestSearchParameterTypeEnum.class);
+		for (Map.Entry<RestSearchParameterTypeEnum, Map<String, List<RuntimeSearchParam>>> nextType :
+				typeToPathToParams.entrySet()) {
+			List<PathGroup> groups = new ArrayList<>(nextType.getValue().size());
+			for (Map.Entry<String, List<RuntimeSearchParam>> nextPath :
+					nextType.getValue().entrySet()) {
+				groups.add(new PathGroup(nextPath.getKey(), nextPath.getValue()));
+			}
+			myTypeToPathGroups.put(nextType.getKey(), Collections.unmodifiableList(groups));
+		}
+		myTypesUsingResolve = typesUsingResolve;
+	}
+
+	/**
+	 * Returns <code>true</code> if this plan was built from exactly the given search
+	 * parameters (compared by identity, in iteration order). The registries hand out the
+	 * same {@link RuntimeSearchParam} instances until they are refreshed, so this is a
+	 * cheap way of detecting that the active set has changed.
+	 */
+	boolean isBuiltFrom(Collection<RuntimeSearchParam> theSearchParams) {
+		if (theSearchParams.size() != mySourceSearchParams.size()) {
+			return false;
+		}
+		Iterator<RuntimeSearchParam> iter = theSearchParams.iterator();
+		for (RuntimeSearchParam next : mySourceSearchParams) {
+			if (iter.next() != next) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	List<PathGroup> getPathGroups(RestSearchParameterTypeEnum theSearchParamType) {
+		return myTypeToPathGroups.getOrDefault(theSearchParamType, Collections.emptyList());
+	}
+
+	/**
+	 * Equivalent to the check performed by
+	 * {@link BaseSearchParamExtractor#extractSearchParams} on the unfiltered search
+	 * parameter list: does any parameter not of the given type have a path that uses
+	 * <code>resolve()</code>.
+	 */
+	boolean anySearchParameterUsesResolve(RestSearchParameterTypeEnum theSearchParamType) {
+		for (RestSearchParameterTypeEnum next : myTypesUsingResolve) {
+			if (next != theSearchParamType) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A single (already split and trimmed) path along with every search parameter
+	 * of a given type that indexes it.
+	 */
+	static class PathGroup {
+		private final String myPath;
+		private final List<RuntimeSearchParam> mySearchParams;
+
+		PathGroup(String thePath, List<RuntimeSearchParam> theSearchParams) {
+			myPath = thePath;
+			mySearchParams = Collections.unmodifiableList(theSearchParams);
+		}
+
+		String getPath() {
+			return myPath;
+		}
+
+		List<RuntimeSearchParam> getSearchParams() {
+			return mySearchParams;
+		}
+	}
+}
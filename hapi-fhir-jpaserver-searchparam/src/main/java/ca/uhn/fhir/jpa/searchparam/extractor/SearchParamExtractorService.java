@@ -71,6 +71,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -84,6 +85,8 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class SearchParamExtractorService {
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(SearchParamExtractorService.class);
+	private static final String PRE_EXTRACTED_PARAMETERS_KEY =
+			SearchParamExtractorService.class.getName() + "_PRE_EXTRACTED_PARAMETERS";
 
 	@Autowired
 	private ISearchParamExtractor mySearchParamExtractor;
@@ -149,7 +152,15 @@ public class SearchParamExtractorService {
 			@Nonnull ISearchParamExtractor.ISearchParamFilter theSearchParamFilter) {
 		// All search parameter types except Reference
 		ResourceIndexedSearchParams normalParams = new ResourceIndexedSearchParams();
-		extractSearchIndexParameters(theRequestDetails, normalParams, theResource, theSearchParamFilter);
+		ExtractedSearchIndexParameters preExtracted = null;
+		if (theSearchParamFilter == ISearchParamExtractor.ALL_PARAMS) {
+			preExtracted = removePreExtractedSearchIndexParameters(theTransactionDetails, theResource);
+		}
+		if (preExtracted != null) {
+			addSearchIndexParameters(theRequestDetails, normalParams, preExtracted);
+		} else {
+			extractSearchIndexParameters(theRequestDetails, normalParams, theResource, theSearchParamFilter);
+		}
 		mergeParams(normalParams, theNewParams);
 
 		boolean indexOnContainedResources = myStorageSettings.isIndexOnContainedResources();
@@ -494,24 +505,72 @@ public class SearchParamExtractorService {
 			ResourceIndexedSearchParams theParams,
 			IBaseResource theResource,
 			@Nonnull ISearchParamExtractor.ISearchParamFilter theSearchParamFilter) {
+		ExtractedSearchIndexParameters extracted = extractSearchIndexParameterSets(theResource, theSearchParamFilter);
+		addSearchIndexParameters(theRequestDetails, theParams, extracted);
+	}
 
-		// Strings
-		ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamString> strings =
-				extractSearchParamStrings(theResource, theSearchParamFilter);
-		handleWarnings(theRequestDetails, myInterceptorBroadcaster, strings);
-		theParams.myStringParams.addAll(strings);
+	/**
+	 * Extracts the values for all of the non-reference search parameters of the given resource
+	 * ahead of time, so that they can be used by a later call to
+	 * {@link #extractFromResource(RequestPartitionId, RequestDetails, ResourceIndexedSearchParams, ResourceIndexedSearchParams, ResourceTable, IBaseResource, TransactionDetails, boolean, ISearchParamExtractor.ISearchParamFilter)}
+	 * for the same resource object (see {@link #addPreExtractedSearchIndexParameters(TransactionDetails, IBaseResource, ExtractedSearchIndexParameters)}).
+	 * <p>
+	 * This method doesn't touch the database or invoke any interceptors, so it is safe to call from
+	 * multiple threads as long as each resource is only processed by one thread. The caller is
+	 * responsible for making sure that the resource is not modified before it is indexed.
+	 * </p>
+	 *
+	 * @return The extracted values, or <code>null</code> if the search parameters for this resource type
+	 * 	can not be safely extracted ahead of time (e.g. because a search parameter indexes resource metadata,
+	 * 	which changes when the resource is stored)
+	 */
+	@Nullable
+	public ExtractedSearchIndexParameters preExtractSearchIndexParameters(IBaseResource theResource) {
+		String resourceType = myContext.getResourceType(theResource);
+		for (RuntimeSearchParam next :
+				mySearchParamRegistry.getActiveSearchParams(resourceType).values()) {
+			if (!next.getName().startsWith("_") && StringUtils.contains(next.getPath(), "meta.")) {
+				return null;
+			}
+		}
+		return extractSearchIndexParameterSets(theResource, ISearchParamExtractor.ALL_PARAMS);
+	}
 
-		// Numbers
-		ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamNumber> numbers =
-				extractSearchParamNumber(theResource, theSearchParamFilter);
-		handleWarnings(theRequestDetails, myInterceptorBroadcaster, numbers);
-		theParams.myNumberParams.addAll(numbers);
+	/**
+	 * Stores the values returned by {@link #preExtractSearchIndexParameters(IBaseResource)} in the
+	 * transaction details, where they will be used (instead of extracting the values again) the next
+	 * time the given resource object is indexed within the transaction.
+	 */
+	public static void addPreExtractedSearchIndexParameters(
+			TransactionDetails theTransactionDetails,
+			IBaseResource theResource,
+			@Nonnull ExtractedSearchIndexParameters theParameters) {
+		Map<IBaseResource, ExtractedSearchIndexParameters> map =
+				theTransactionDetails.getOrCreateUserData(PRE_EXTRACTED_PARAMETERS_KEY, IdentityHashMap::new);
+		map.put(theResource, theParameters);
+	}
 
-		// Quantities
-		ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamQuantity> quantities =
-				extractSearchParamQuantity(theResource, theSearchParamFilter);
-		handleWarnings(theRequestDetails, myInterceptorBroadcaster, quantities);
-		theParams.myQuantityParams.addAll(quantities);
+	@Nullable
+	private static ExtractedSearchIndexParameters removePreExtractedSearchIndexParameters(
+			@Nullable TransactionDetails theTransactionDetails, IBaseResource theResource) {
+		if (theTransactionDetails == null) {
+			return null;
+		}
+		Map<IBaseResource, ExtractedSearchIndexParameters> map =
+				theTransactionDetails.getUserData(PRE_EXTRACTED_PARAMETERS_KEY);
+		if (map == null) {
+			return null;
+		}
+		return map.remove(theResource);
+	}
+
+	@Nonnull
+	private ExtractedSearchIndexParameters extractSearchIndexParameterSets(
+			IBaseResource theResource, @Nonnull ISearchParamExtractor.ISearchParamFilter theSearchParamFilter) {
+		ExtractedSearchIndexParameters retVal = new ExtractedSearchIndexParameters();
+		retVal.myStrings = extractSearchParamStrings(theResource, theSearchParamFilter);
+		retVal.myNumbers = extractSearchParamNumber(theResource, theSearchParamFilter);
+		retVal.myQuantities = extractSearchParamQuantity(theResource, theSearchParamFilter);
 
 		if (myStorageSettings
 						.getNormalizedQuantitySearchLevel()
@@ -519,29 +578,55 @@ public class SearchParamExtractorService {
 				|| myStorageSettings
 						.getNormalizedQuantitySearchLevel()
 						.equals(NormalizedQuantitySearchLevel.NORMALIZED_QUANTITY_SEARCH_SUPPORTED)) {
-			ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamQuantityNormalized> quantitiesNormalized =
-					extractSearchParamQuantityNormalized(theResource, theSearchParamFilter);
-			handleWarnings(theRequestDetails, myInterceptorBroadcaster, quantitiesNormalized);
-			theParams.myQuantityNormalizedParams.addAll(quantitiesNormalized);
+			retVal.myQuantitiesNormalized = extractSearchParamQuantityNormalized(theResource, theSearchParamFilter);
+		}
+
+		retVal.myDates = extractSearchParamDates(theResource, theSearchParamFilter);
+		retVal.myUris = extractSearchParamUri(theResource, theSearchParamFilter);
+		retVal.myTokens = extractSearchParamTokens(theResource, theSearchParamFilter);
+
+		// dst2 composites use stuff like value[x] , and we don't support them.
+		if (myContext.getVersion().getVersion().isEqualOrNewerThan(FhirVersionEnum.DSTU3)) {
+			retVal.myComposites = extractSearchParamComposites(theResource, theSearchParamFilter);
+		}
+
+		retVal.mySpecials = extractSearchParamSpecial(theResource, theSearchParamFilter);
+		return retVal;
+	}
+
+	private void addSearchIndexParameters(
+			RequestDetails theRequestDetails,
+			ResourceIndexedSearchParams theParams,
+			ExtractedSearchIndexParameters theExtracted) {
+
+		// Strings
+		handleWarnings(theRequestDetails, myInterceptorBroadcaster, theExtracted.myStrings);
+		theParams.myStringParams.addAll(theExtracted.myStrings);
+
+		// Numbers
+		handleWarnings(theRequestDetails, myInterceptorBroadcaster, theExtracted.myNumbers);
+		theParams.myNumberParams.addAll(theExtracted.myNumbers);
+
+		// Quantities
+		handleWarnings(theRequestDetails, myInterceptorBroadcaster, theExtracted.myQuantities);
+		theParams.myQuantityParams.addAll(theExtracted.myQuantities);
+
+		if (theExtracted.myQuantitiesNormalized != null) {
+			handleWarnings(theRequestDetails, myInterceptorBroadcaster, theExtracted.myQuantitiesNormalized);
+			theParams.myQuantityNormalizedParams.addAll(theExtracted.myQuantitiesNormalized);
 		}
 
 		// Dates
-		ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamDate> dates =
-				extractSearchParamDates(theResource, theSearchParamFilter);
-		handleWarnings(theRequestDetails, myInterceptorBroadcaster, dates);
-		theParams.myDateParams.addAll(dates);
+		handleWarnings(theRequestDetails, myInterceptorBroadcaster, theExtracted.myDates);
+		theParams.myDateParams.addAll(theExtracted.myDates);
 
 		// URIs
-		ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamUri> uris =
-				extractSearchParamUri(theResource, theSearchParamFilter);
-		handleWarnings(theRequestDetails, myInterceptorBroadcaster, uris);
-		theParams.myUriParams.addAll(uris);
+		handleWarnings(theRequestDetails, myInterceptorBroadcaster, theExtracted.myUris);
+		theParams.myUriParams.addAll(theExtracted.myUris);
 
 		// Tokens (can result in both Token and String, as we index the display name for
 		// the types: Coding, CodeableConcept)
-		ISearchParamExtractor.SearchParamSet<BaseResourceIndexedSearchParam> tokens =
-				extractSearchParamTokens(theResource, theSearchParamFilter);
-		for (BaseResourceIndexedSearchParam next : tokens) {
+		for (BaseResourceIndexedSearchParam next : theExtracted.myTokens) {
 			if (next instanceof ResourceIndexedSearchParamToken) {
 				theParams.myTokenParams.add((ResourceIndexedSearchParamToken) next);
 			} else if (next instanceof ResourceIndexedSearchParamCoords) {
@@ -552,18 +637,13 @@ public class SearchParamExtractorService {
 		}
 
 		// Composites
-		// dst2 composites use stuff like value[x] , and we don't support them.
-		if (myContext.getVersion().getVersion().isEqualOrNewerThan(FhirVersionEnum.DSTU3)) {
-			ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamComposite> composites =
-					extractSearchParamComposites(theResource, theSearchParamFilter);
-			handleWarnings(theRequestDetails, myInterceptorBroadcaster, composites);
-			theParams.myCompositeParams.addAll(composites);
+		if (theExtracted.myComposites != null) {
+			handleWarnings(theRequestDetails, myInterceptorBroadcaster, theExtracted.myComposites);
+			theParams.myCompositeParams.addAll(theExtracted.myComposites);
 		}
 
 		// Specials
-		ISearchParamExtractor.SearchParamSet<BaseResourceIndexedSearchParam> specials =
-				extractSearchParamSpecial(theResource, theSearchParamFilter);
-		for (BaseResourceIndexedSearchParam next : specials) {
+		for (BaseResourceIndexedSearchParam next : theExtracted.mySpecials) {
 			if (next instanceof ResourceIndexedSearchParamCoords) {
 				theParams.myCoordsParams.add((ResourceIndexedSearchParamCoords) next);
 			}
@@ -1209,4 +1289,24 @@ public class SearchParamExtractorService {
 			}
 		}
 	}
+
+	/**
+	 * The values for the non-reference search parameters of a single resource, as returned by
+	 * {@link #preExtractSearchIndexParameters(IBaseResource)}.
+	 */
+	public static class ExtractedSearchIndexParameters {
+
+		private ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamString> myStrings;
+		private ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamNumber> myNumbers;
+		private ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamQuantity> myQuantities;
+		private ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamQuantityNormalized>
+				myQuantitiesNormalized;
+		private ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamDate> myDates;
+		private ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamUri> myUris;
+		private ISearchParamExtractor.SearchParamSet<BaseResourceIndexedSearchParam> myTokens;
+		private ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamComposite> myComposites;
+		private ISearchParamExtractor.SearchParamSet<BaseResourceIndexedSearchParam> mySpecials;
+
+		private ExtractedSearchIndexParameters() {}
+	}
 }
@@ -0,0 +1,92 @@
+/*-
+ * #%L
+ * HAPI FHIR Search Parameters
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.searchparam.matcher;
+
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+
+/**
+ * Holds the search parameter indexes extracted from a single resource while it is being
+ * matched against a number of different criteria (e.g. every active subscription and every
+ * subscription topic filter for one resource change).
+ * <p>
+ * Each search parameter is only extracted from the resource the first time a criteria
+ * references it, and the result is reused for every subsequent criteria. The resource must
+ * not be modified while the context is in use.
+ * </p>
+ */
+public class InMemoryMatchContext {
+
+	private final IBaseResource myResource;
+	private final Set<String> myExtractedParamNames = new HashSet<>();
+	private ResourceIndexedSearchParams myIndexedSearchParams = new ResourceIndexedSearchParams();
+
+	/**
+	 * Constructor
+	 */
+	public InMemoryMatchContext(@Nonnull IBaseResource theResource) {
+		Validate.notNull(theResource);
+		myResource = theResource;
+	}
+
+	@Nonnull
+	public IBaseResource getResource() {
+		return myResource;
+	}
+
+	/**
+	 * Returns the indexes for (at least) the given search parameter names, extracting any
+	 * which have not already been extracted using the given extractor.
+	 * <p>
+	 * The returned indexes are a snapshot which is never modified afterward: if more parameters
+	 * need to be extracted later, a new instance holding the previous and the newly extracted
+	 * indexes replaces it. This means callers on other threads can keep reading a snapshot while
+	 * it is being extended. Callers must not modify the returned indexes.
+	 * </p>
+	 */
+	@Nonnull
+	synchronized ResourceIndexedSearchParams getIndexedSearchParams(
+			Collection<String> theParamNames,
+			Function<ISearchParamExtractor.ISearchParamFilter, ResourceIndexedSearchParams> theExtractor) {
+		Set<String> missingParamNames = theParamNames.stream()
+				.filter(t -> !myExtractedParamNames.contains(t))
+				.collect(Collectors.toSet());
+		if (!missingParamNames.isEmpty()) {
+			ISearchParamExtractor.ISearchParamFilter filter = theSearchParams -> theSearchParams.stream()
+					.filter(t -> missingParamNames.contains(t.getName()))
+					.collect(Collectors.toList());
+			ResourceIndexedSearchParams indexedSearchParams = new ResourceIndexedSearchParams();
+			indexedSearchParams.addAll(myIndexedSearchParams);
+			indexedSearchParams.addAll(theExtractor.apply(filter));
+			myIndexedSearchParams = indexedSearchParams;
+			myExtractedParamNames.addAll(missingParamNames);
+		}
+		return myIndexedSearchParams;
+	}
+}
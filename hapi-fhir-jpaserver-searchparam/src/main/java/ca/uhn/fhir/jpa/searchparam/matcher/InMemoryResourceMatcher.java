@@ -193,6 +193,31 @@ public class InMemoryResourceMatcher {
 		return match(searchParameterMap, theResource, resourceDefinition, relevantSearchParams);
 	}
 
+	/**
+	 * Matches the resource held by the given context against the criteria. Any search parameter
+	 * indexes needed by the criteria are extracted once and kept in the context, so that they can
+	 * be reused when the same resource is matched against other criteria.
+	 */
+	public InMemoryMatchResult match(
+			String theCriteria, @Nonnull InMemoryMatchContext theMatchContext, RequestDetails theRequestDetails) {
+		IBaseResource resource = theMatchContext.getResource();
+		RuntimeResourceDefinition resourceDefinition = myFhirContext.getResourceDefinition(resource);
+		SearchParameterMap searchParameterMap;
+		try {
+			searchParameterMap = myMatchUrlService.translateMatchUrl(theCriteria, resourceDefinition);
+		} catch (UnsupportedOperationException e) {
+			return InMemoryMatchResult.unsupportedFromReason(InMemoryMatchResult.PARSE_FAIL);
+		}
+		searchParameterMap.clean();
+
+		ResourceIndexedSearchParams relevantSearchParams = theMatchContext.getIndexedSearchParams(
+				searchParameterMap.keySet(),
+				filter ->
+						myIndexedSearchParamExtractor.extractIndexedSearchParams(resource, theRequestDetails, filter));
+
+		return match(searchParameterMap, resource, resourceDefinition, relevantSearchParams);
+	}
+
 	/**
 	 * @param theCriteria
 	 * @return result.supported() will be true if theCriteria can be evaluated in-memory
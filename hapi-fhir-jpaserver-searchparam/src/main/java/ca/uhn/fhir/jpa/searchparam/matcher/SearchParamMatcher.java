@@ -43,6 +43,15 @@ public class SearchParamMatcher {
 		return myInMemoryResourceMatcher.match(theCriteria, theResource, null, theRequest);
 	}
 
+	/**
+	 * Matches the resource held by the given context, reusing any indexes already extracted
+	 * into the context by a previous match.
+	 */
+	public InMemoryMatchResult match(
+			String theCriteria, InMemoryMatchContext theMatchContext, RequestDetails theRequest) {
+		return myInMemoryResourceMatcher.match(theCriteria, theMatchContext, theRequest);
+	}
+
 	public InMemoryMatchResult match(SearchParameterMap theSearchParameterMap, IBaseResource theResource) {
 		if (theSearchParameterMap.isEmpty()) {
 			return InMemoryMatchResult.successfulMatch();
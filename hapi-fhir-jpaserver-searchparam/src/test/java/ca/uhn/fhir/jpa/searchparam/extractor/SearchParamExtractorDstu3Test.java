@@ -182,6 +182,29 @@ public class SearchParamExtractorDstu3Test {
 	}
 
 
+	@Test
+	public void testSearchParamsSharingPathAreAllIndexed() {
+
+		MySearchParamRegistry searchParamRegistry = new MySearchParamRegistry();
+		SearchParamExtractorDstu3 extractor = new SearchParamExtractorDstu3(new StorageSettings(), new PartitionSettings(), ourCtx, searchParamRegistry);
+		extractor.start();
+
+		Patient resource = new Patient();
+		resource.addName().setFamily("Simpson");
+
+		RuntimeSearchParam foo = new RuntimeSearchParam(null, null, "foo", "foo", "Patient.name.family", RestSearchParameterTypeEnum.STRING, Sets.newHashSet(), Sets.newHashSet(), RuntimeSearchParam.RuntimeSearchParamStatusEnum.ACTIVE, null, null, null);
+		RuntimeSearchParam bar = new RuntimeSearchParam(null, null, "bar", "bar", "Patient.name.given | Patient.name.family", RestSearchParameterTypeEnum.STRING, Sets.newHashSet(), Sets.newHashSet(), RuntimeSearchParam.RuntimeSearchParamStatusEnum.ACTIVE, null, null, null);
+		searchParamRegistry.addSearchParam(foo, bar);
+		Set<String> paramNames = extractor.extractSearchParamStrings(resource).stream().filter(t -> "SIMPSON".equals(t.getValueNormalized())).map(t -> t.getParamName()).collect(Collectors.toSet());
+		assertThat(paramNames, Matchers.hasItems("foo", "bar", "family"));
+
+		// Changing the active search parameters must invalidate the cached extraction plan
+		searchParamRegistry.addSearchParam(foo);
+		paramNames = extractor.extractSearchParamStrings(resource).stream().filter(t -> "SIMPSON".equals(t.getValueNormalized())).map(t -> t.getParamName()).collect(Collectors.toSet());
+		assertThat(paramNames, Matchers.hasItems("foo", "family"));
+		assertThat(paramNames, Matchers.not(Matchers.hasItem("bar")));
+	}
+
 	@Test
 	public void testInvalidType() {
 
@@ -5,10 +5,12 @@ import ca.uhn.fhir.context.RuntimeSearchParam;
 import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamDate;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamString;
 import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
 import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamUri;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
 import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorService;
 import ca.uhn.fhir.model.primitive.BaseDateTimeDt;
@@ -39,15 +41,20 @@ import javax.annotation.Nonnull;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
+import java.util.Set;
+import java.util.function.Function;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -121,6 +128,42 @@ public class InMemoryResourceMatcherR5Test {
 		}
 	}
 
+	@Test
+	public void testMatchWithContext_ReusesExtractedParams() {
+		when(myIndexedSearchParamExtractor.extractIndexedSearchParams(eq(myObservation), any(), any())).thenAnswer(t -> extractSearchParams(myObservation));
+		InMemoryMatchContext matchContext = new InMemoryMatchContext(myObservation);
+
+		assertTrue(myInMemoryResourceMatcher.match("code=" + OBSERVATION_CODE, matchContext, newRequest()).matched());
+		assertFalse(myInMemoryResourceMatcher.match("code=FOO", matchContext, newRequest()).matched());
+		verify(myIndexedSearchParamExtractor, times(1)).extractIndexedSearchParams(eq(myObservation), any(), any());
+
+		// Only the new parameter needs to be extracted
+		assertTrue(myInMemoryResourceMatcher.match("code=" + OBSERVATION_CODE + "&date=" + OBSERVATION_DATE, matchContext, newRequest()).matched());
+		verify(myIndexedSearchParamExtractor, times(2)).extractIndexedSearchParams(eq(myObservation), any(), any());
+		assertFalse(myInMemoryResourceMatcher.match("date=" + EARLY_DATE, matchContext, newRequest()).matched());
+		verify(myIndexedSearchParamExtractor, times(2)).extractIndexedSearchParams(eq(myObservation), any(), any());
+	}
+
+	@Test
+	public void testMatchContext_ReturnedIndexesAreNotModified() {
+		InMemoryMatchContext matchContext = new InMemoryMatchContext(myObservation);
+		Function<ISearchParamExtractor.ISearchParamFilter, ResourceIndexedSearchParams> extractor = t -> {
+			ResourceIndexedSearchParams retVal = new ResourceIndexedSearchParams();
+			retVal.myStringParams.add(new ResourceIndexedSearchParamString());
+			return retVal;
+		};
+
+		ResourceIndexedSearchParams first = matchContext.getIndexedSearchParams(Set.of("code"), extractor);
+		assertEquals(1, first.myStringParams.size());
+
+		// Extracting another parameter creates a new instance rather than modifying the one already handed out
+		ResourceIndexedSearchParams second = matchContext.getIndexedSearchParams(Set.of("code", "date"), extractor);
+		assertNotSame(first, second);
+		assertEquals(1, first.myStringParams.size());
+		assertEquals(2, second.myStringParams.size());
+		assertSame(second, matchContext.getIndexedSearchParams(Set.of("date"), extractor));
+	}
+
 	static RequestDetails newRequest() {
 		return new SystemRequestDetails();
 	}
@@ -21,6 +21,7 @@ package ca.uhn.fhir.jpa.subscription.match.config;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionChannelRegistry;
@@ -29,11 +30,13 @@ import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionDeliveryHan
 import ca.uhn.fhir.jpa.subscription.match.deliver.email.IEmailSender;
 import ca.uhn.fhir.jpa.subscription.match.deliver.email.SubscriptionDeliveringEmailSubscriber;
 import ca.uhn.fhir.jpa.subscription.match.deliver.message.SubscriptionDeliveringMessageSubscriber;
+import ca.uhn.fhir.jpa.subscription.match.deliver.resthook.RestHookDeliveryExecutor;
 import ca.uhn.fhir.jpa.subscription.match.deliver.resthook.SubscriptionDeliveringRestHookSubscriber;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.CompositeInMemoryDaoSubscriptionMatcher;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.DaoSubscriptionMatcher;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.ISubscriptionMatcher;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.InMemorySubscriptionMatcher;
+import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.ActiveSubscriptionIndex;
 import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.MatchingQueueSubscriberLoader;
 import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionActivatingSubscriber;
 import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionMatchDeliverer;
@@ -64,6 +67,11 @@ public class SubscriptionProcessorConfig {
 		return new SubscriptionMatchingSubscriber();
 	}
 
+	@Bean
+	public ActiveSubscriptionIndex activeSubscriptionIndex() {
+		return new ActiveSubscriptionIndex();
+	}
+
 	@Bean
 	public SubscriptionActivatingSubscriber subscriptionActivatingSubscriber() {
 		return new SubscriptionActivatingSubscriber();
@@ -114,6 +122,12 @@ public class SubscriptionProcessorConfig {
 				theFhirContext, theInterceptorBroadcaster, theSubscriptionChannelRegistry);
 	}
 
+	@Bean
+	@Lazy
+	public RestHookDeliveryExecutor restHookDeliveryExecutor(StorageSettings theStorageSettings) {
+		return new RestHookDeliveryExecutor(theStorageSettings.getRestHookDeliveryMaxConcurrentRequests());
+	}
+
 	@Bean
 	@Scope("prototype")
 	public SubscriptionDeliveringRestHookSubscriber subscriptionDeliveringRestHookSubscriber() {
@@ -0,0 +1,280 @@
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.match.deliver.resthook;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Coalesces deliveries into batches which are handed to a sender on a shared executor.
+ * <p>
+ * Each call to {@link #add(Object)} returns a future which completes once the batch containing
+ * the delivery has been sent, or completes exceptionally if sending the batch failed. Callers
+ * are expected to wait on it before acknowledging the message which produced the delivery, so
+ * that nothing is considered delivered until it actually has been. Since every caller waits,
+ * no further deliveries can arrive once there are as many pending deliveries as there are
+ * callers, so at that point every pending batch is sent without waiting for the linger time.
+ * </p>
+ * <p>
+ * Deliveries are spread across a fixed number of lanes by key (e.g. the resource ID), and each
+ * lane sends its batches one at a time. This bounds the number of batches in flight to the
+ * number of lanes, and guarantees that deliveries with the same key are sent in the order they
+ * were added. A batch never contains two deliveries with the same key.
+ * </p>
+ * <p>
+ * A batch is sent once it is full, once every caller is waiting, or once the first delivery in
+ * it has waited for the linger time. The batcher has no threads of its own: a lane only uses a
+ * thread of the executor while it is sending a batch.
+ * </p>
+ */
+class RestHookDeliveryBatcher<T> {
+	private static final Logger ourLog = LoggerFactory.getLogger(RestHookDeliveryBatcher.class);
+	private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+	private final ScheduledExecutorService myExecutor;
+	private final int myMaxBatchSize;
+	private final long myLingerMillis;
+	private final int myMaxPendingDeliveries;
+	private final Function<T, String> myKeyFunction;
+	private final Consumer<List<T>> myBatchSender;
+	private final List<Lane<T>> myLanes;
+	private int myPendingDeliveries;
+	private boolean myStopped;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theExecutor             The executor which batches are sent on, which may be shared with other batchers
+	 * @param theMaxBatchSize         The maximum number of deliveries in a batch
+	 * @param theLingerMillis         The maximum time to wait for a batch to fill
+	 * @param theLaneCount            The number of lanes, which is also the maximum number of batches in flight
+	 * @param theMaxPendingDeliveries The number of callers which can be waiting on a delivery at the same time
+	 * @param theKeyFunction          Provides the ordering key for a delivery
+	 * @param theBatchSender          Sends a batch. Any exception thrown fails the futures of every delivery in the batch.
+	 */
+	RestHookDeliveryBatcher(
+			ScheduledExecutorService theExecutor,
+			int theMaxBatchSize,
+			long theLingerMillis,
+			int theLaneCount,
+			int theMaxPendingDeliveries,
+			Function<T, String> theKeyFunction,
+			Consumer<List<T>> theBatchSender) {
+		Validate.isTrue(theMaxBatchSize >= 1, "Batch size must be at least 1");
+		Validate.isTrue(theLaneCount >= 1, "Lane count must be at least 1");
+		Validate.isTrue(theMaxPendingDeliveries >= 1, "Max pending deliveries must be at least 1");
+		myExecutor = theExecutor;
+		myMaxBatchSize = theMaxBatchSize;
+		myLingerMillis = theLingerMillis;
+		myMaxPendingDeliveries = theMaxPendingDeliveries;
+		myKeyFunction = theKeyFunction;
+		myBatchSender = theBatchSender;
+
+		myLanes = new ArrayList<>(theLaneCount);
+		for (int i = 0; i < theLaneCount; i++) {
+			myLanes.add(new Lane<>());
+		}
+	}
+
+	/**
+	 * Adds a delivery to its lane
+	 *
+	 * @return A future which completes once the batch containing this delivery has been sent
+	 */
+	synchronized CompletableFuture<Void> add(T theDelivery) {
+		Validate.isTrue(!myStopped, "Batcher has been stopped");
+		String key = myKeyFunction.apply(theDelivery);
+		Lane<T> lane = myLanes.get(Math.floorMod(key.hashCode(), myLanes.size()));
+		PendingEntry<T> entry = new PendingEntry<>(theDelivery, key);
+		lane.myQueue.add(entry);
+		myPendingDeliveries++;
+
+		if (myPendingDeliveries >= myMaxPendingDeliveries) {
+			// Every caller is now waiting, so nothing else will join a batch
+			myLanes.forEach(this::sendIfReady);
+		} else {
+			sendIfReady(lane);
+		}
+		return entry.myFuture;
+	}
+
+	/**
+	 * Sends any pending batches and waits for them to be sent
+	 */
+	synchronized void stop() {
+		myStopped = true;
+		myLanes.forEach(this::sendIfReady);
+
+		long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+		try {
+			long remaining;
+			while (myPendingDeliveries > 0 && (remaining = deadline - System.currentTimeMillis()) > 0) {
+				wait(remaining);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (myPendingDeliveries > 0) {
+			ourLog.warn("Timed out waiting for {} pending deliveries to be sent", myPendingDeliveries);
+			myLanes.forEach(this::failPending);
+		}
+	}
+
+	/**
+	 * Starts sending the next batch of the given lane if it is ready, or else makes sure that the
+	 * lane is checked again once its linger time has elapsed. Must be called while holding the lock.
+	 */
+	private void sendIfReady(Lane<T> theLane) {
+		if (theLane.mySending || theLane.myQueue.isEmpty()) {
+			return;
+		}
+
+		long lingerRemaining = theLane.myQueue.peekFirst().myAddedMillis + myLingerMillis - System.currentTimeMillis();
+		boolean ready = myStopped
+				|| myPendingDeliveries >= myMaxPendingDeliveries
+				|| lingerRemaining <= 0
+				|| isBatchClosed(theLane);
+
+		try {
+			if (ready) {
+				List<PendingEntry<T>> batch = takeBatch(theLane);
+				theLane.mySending = true;
+				myExecutor.execute(() -> sendBatch(theLane, batch));
+			} else if (!theLane.myLingerCheckScheduled) {
+				theLane.myLingerCheckScheduled = true;
+				myExecutor.schedule(() -> onLingerElapsed(theLane), lingerRemaining, TimeUnit.MILLISECONDS);
+			}
+		} catch (RejectedExecutionException e) {
+			ourLog.warn("Delivery executor has been shut down, failing {} pending deliveries", theLane.myQueue.size());
+			theLane.mySending = false;
+			failPending(theLane);
+		}
+	}
+
+	private synchronized void onLingerElapsed(Lane<T> theLane) {
+		theLane.myLingerCheckScheduled = false;
+		sendIfReady(theLane);
+	}
+
+	/**
+	 * A batch can't grow any further once it is full, or once a second delivery with the same
+	 * key as one in the batch is queued behind it
+	 */
+	private boolean isBatchClosed(Lane<T> theLane) {
+		if (theLane.myQueue.size() >= myMaxBatchSize) {
+			return true;
+		}
+		Set<String> keys = new HashSet<>();
+		for (PendingEntry<T> next : theLane.myQueue) {
+			if (!keys.add(next.myKey)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private List<PendingEntry<T>> takeBatch(Lane<T> theLane) {
+		List<PendingEntry<T>> batch = new ArrayList<>(Math.min(myMaxBatchSize, theLane.myQueue.size()));
+		Set<String> keys = new HashSet<>();
+		while (batch.size() < myMaxBatchSize
+				&& !theLane.myQueue.isEmpty()
+				&& keys.add(theLane.myQueue.peekFirst().myKey)) {
+			batch.add(theLane.myQueue.removeFirst());
+		}
+		return batch;
+	}
+
+	private void sendBatch(Lane<T> theLane, List<PendingEntry<T>> theBatch) {
+		List<T> deliveries = new ArrayList<>(theBatch.size());
+		for (PendingEntry<T> next : theBatch) {
+			deliveries.add(next.myDelivery);
+		}
+
+		Exception failure = null;
+		try {
+			myBatchSender.accept(deliveries);
+		} catch (Exception e) {
+			ourLog.error("Failed to send batch of {} deliveries", theBatch.size(), e);
+			failure = e;
+		}
+
+		synchronized (this) {
+			myPendingDeliveries -= theBatch.size();
+			theLane.mySending = false;
+			sendIfReady(theLane);
+			notifyAll();
+		}
+
+		for (PendingEntry<T> next : theBatch) {
+			if (failure != null) {
+				next.myFuture.completeExceptionally(failure);
+			} else {
+				next.myFuture.complete(null);
+			}
+		}
+	}
+
+	/**
+	 * Fails anything left in a lane which will never be sent. Must be called while holding the lock.
+	 */
+	private void failPending(Lane<T> theLane) {
+		for (PendingEntry<T> next : theLane.myQueue) {
+			next.myFuture.completeExceptionally(new InternalErrorException(
+					Msg.code(2453) + "Delivery batcher was stopped before the delivery was sent"));
+		}
+		myPendingDeliveries -= theLane.myQueue.size();
+		theLane.myQueue.clear();
+	}
+
+	private static class Lane<T> {
+		private final Deque<PendingEntry<T>> myQueue = new ArrayDeque<>();
+		private boolean mySending;
+		private boolean myLingerCheckScheduled;
+	}
+
+	private static class PendingEntry<T> {
+		private final T myDelivery;
+		private final String myKey;
+		private final long myAddedMillis = System.currentTimeMillis();
+		private final CompletableFuture<Void> myFuture = new CompletableFuture<>();
+
+		private PendingEntry(T theDelivery, String theKey) {
+			myDelivery = theDelivery;
+			myKey = theKey;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.match.deliver.resthook;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the threads which batched REST-hook deliveries are sent on. A single instance is shared
+ * by the {@link SubscriptionDeliveringRestHookSubscriber} of every subscription, so the number of
+ * threads doesn't grow with the number of subscriptions.
+ *
+ * @see ca.uhn.fhir.jpa.model.entity.StorageSettings#getRestHookDeliveryMaxConcurrentRequests()
+ * @since 7.0.0
+ */
+public class RestHookDeliveryExecutor implements DisposableBean {
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+	private final ScheduledExecutorService myExecutor;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theThreadCount The maximum number of batches sent at the same time, across all subscriptions
+	 */
+	public RestHookDeliveryExecutor(int theThreadCount) {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+				theThreadCount, new CustomizableThreadFactory("rest-hook-batch-delivery-"));
+		// Pending linger checks are pointless once the batchers have been stopped
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		myExecutor = executor;
+	}
+
+	ScheduledExecutorService getExecutor() {
+		return myExecutor;
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		myExecutor.shutdown();
+		myExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+}
@@ -26,6 +26,8 @@ import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionChannelFactory;
 import ca.uhn.fhir.jpa.subscription.match.deliver.BaseSubscriptionDeliverySubscriber;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceDeliveryMessage;
@@ -40,17 +42,21 @@ import ca.uhn.fhir.rest.client.api.IHttpResponse;
 import ca.uhn.fhir.rest.client.api.ServerValidationModeEnum;
 import ca.uhn.fhir.rest.client.interceptor.SimpleRequestHeaderInterceptor;
 import ca.uhn.fhir.rest.gclient.IClientExecutable;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.messaging.BaseResourceModifiedMessage;
+import ca.uhn.fhir.util.BundleBuilder;
 import ca.uhn.fhir.util.BundleUtil;
 import ca.uhn.fhir.util.Logs;
 import ca.uhn.fhir.util.StopWatch;
+import com.google.common.annotations.VisibleForTesting;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.messaging.MessagingException;
@@ -61,17 +67,31 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 @Scope("prototype")
-public class SubscriptionDeliveringRestHookSubscriber extends BaseSubscriptionDeliverySubscriber {
+public class SubscriptionDeliveringRestHookSubscriber extends BaseSubscriptionDeliverySubscriber
+		implements DisposableBean {
 	private static final Logger ourLog = LoggerFactory.getLogger(SubscriptionDeliveringRestHookSubscriber.class);
 
 	@Autowired
 	private DaoRegistry myDaoRegistry;
 
+	@Autowired
+	private StorageSettings myStorageSettings;
+
+	@Autowired
+	private SubscriptionChannelFactory mySubscriptionChannelFactory;
+
+	@Autowired
+	private RestHookDeliveryExecutor myDeliveryExecutor;
+
+	private RestHookDeliveryBatcher<PendingDelivery> myDeliveryBatcher;
+
 	/**
 	 * Constructor
 	 */
@@ -282,7 +302,14 @@ public class SubscriptionDeliveringRestHookSubscriber extends BaseSubscriptionDe
 			}
 		}
 
-		deliverPayload(theMessage, subscription, payloadType, client);
+		if (isBatchable(theMessage, subscription, payloadType, client)) {
+			IBaseResource payloadResource = getAndMassagePayload(theMessage, subscription);
+			Future<Void> delivered =
+					getDeliveryBatcher().add(new PendingDelivery(theMessage, payloadType, client, payloadResource));
+			awaitBatchDelivery(delivered);
+		} else {
+			deliverPayload(theMessage, subscription, payloadType, client);
+		}
 
 		// Interceptor call: SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY
 		params = new HookParams()
@@ -294,6 +321,133 @@ public class SubscriptionDeliveringRestHookSubscriber extends BaseSubscriptionDe
 		}
 	}
 
+	/**
+	 * Plain create/update/delete deliveries of the resource itself can be coalesced into transaction
+	 * Bundles if batching is enabled. Anything that is already delivered as a Bundle, or that is only
+	 * a notification, is always delivered immediately.
+	 */
+	private boolean isBatchable(
+			ResourceDeliveryMessage theMessage,
+			CanonicalSubscription theSubscription,
+			EncodingEnum thePayloadType,
+			IGenericClient theClient) {
+		if (myStorageSettings.getRestHookDeliveryBatchSize() <= 1
+				|| theClient == null
+				|| thePayloadType == null
+				|| theSubscription.isTopicSubscription()
+				|| isNotBlank(theSubscription.getPayloadSearchCriteria())) {
+			return false;
+		}
+		switch (theMessage.getOperationType()) {
+			case CREATE:
+			case UPDATE:
+			case DELETE:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * The message is not acknowledged until the batch containing it has been sent, so a failed
+	 * batch is retried by the channel and nothing is lost if the server stops while it is pending.
+	 * The delivery channel has enough consumers to fill a batch for every lane (see
+	 * {@link SubscriptionChannelFactory#getDeliveryChannelConcurrentConsumers()}), and the batcher
+	 * sends its batches as soon as all of them are waiting here.
+	 */
+	private void awaitBatchDelivery(Future<Void> theDelivered) {
+		try {
+			theDelivered.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(Msg.code(2454) + "Interrupted while waiting for batch delivery", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new InternalErrorException(Msg.code(2455) + "Failed to deliver batch: " + e.getCause(), e.getCause());
+		}
+	}
+
+	private synchronized RestHookDeliveryBatcher<PendingDelivery> getDeliveryBatcher() {
+		if (myDeliveryBatcher == null) {
+			myDeliveryBatcher = new RestHookDeliveryBatcher<>(
+					myDeliveryExecutor.getExecutor(),
+					myStorageSettings.getRestHookDeliveryBatchSize(),
+					myStorageSettings.getRestHookDeliveryBatchLingerMillis(),
+					myStorageSettings.getRestHookDeliveryMaxConcurrentRequests(),
+					mySubscriptionChannelFactory.getDeliveryChannelConcurrentConsumers(),
+					PendingDelivery::getResourceKey,
+					this::deliverBatch);
+		}
+		return myDeliveryBatcher;
+	}
+
+	/**
+	 * Delivers a batch of changes as a single transaction. The client and encoding from the most
+	 * recent delivery are used, in case the subscription was changed while the batch was filling.
+	 * Any failure is thrown back to the threads waiting on the deliveries in the batch.
+	 */
+	private void deliverBatch(List<PendingDelivery> theBatch) {
+		PendingDelivery last = theBatch.get(theBatch.size() - 1);
+		BundleBuilder builder = new BundleBuilder(myFhirContext);
+		List<PendingDelivery> delivered = new ArrayList<>(theBatch.size());
+		for (PendingDelivery next : theBatch) {
+			if (next.myMessage.getOperationType() == BaseResourceModifiedMessage.OperationTypeEnum.DELETE) {
+				builder.addTransactionDeleteEntry(next.myMessage.getPayloadId(myFhirContext));
+			} else if (next.myPayloadResource != null) {
+				builder.addTransactionUpdateEntry(next.myPayloadResource);
+			} else {
+				continue;
+			}
+			delivered.add(next);
+		}
+		if (delivered.isEmpty()) {
+			return;
+		}
+
+		StopWatch sw = new StopWatch();
+		last.myClient
+				.transaction()
+				.withBundle(builder.getBundle())
+				.encoded(last.myPayloadType)
+				.execute();
+
+		Logs.getSubscriptionTroubleshootingLog()
+				.debug(
+						"Delivered batch of {} rest-hook payloads for {} in {}",
+						delivered.size(),
+						last.myMessage
+								.getSubscription()
+								.getIdElement(myFhirContext)
+								.toUnqualifiedVersionless()
+								.getValue(),
+						sw);
+	}
+
+	@VisibleForTesting
+	public void setStorageSettingsForUnitTest(StorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
+	@VisibleForTesting
+	public void setSubscriptionChannelFactoryForUnitTest(SubscriptionChannelFactory theSubscriptionChannelFactory) {
+		mySubscriptionChannelFactory = theSubscriptionChannelFactory;
+	}
+
+	@VisibleForTesting
+	public void setDeliveryExecutorForUnitTest(RestHookDeliveryExecutor theDeliveryExecutor) {
+		myDeliveryExecutor = theDeliveryExecutor;
+	}
+
+	@Override
+	public synchronized void destroy() {
+		if (myDeliveryBatcher != null) {
+			myDeliveryBatcher.stop();
+			myDeliveryBatcher = null;
+		}
+	}
+
 	/**
 	 * Sends a POST notification without a payload
 	 */
@@ -317,6 +471,31 @@ public class SubscriptionDeliveringRestHookSubscriber extends BaseSubscriptionDe
 		}
 	}
 
+	private class PendingDelivery {
+		private final ResourceDeliveryMessage myMessage;
+		private final EncodingEnum myPayloadType;
+		private final IGenericClient myClient;
+		private final IBaseResource myPayloadResource;
+
+		private PendingDelivery(
+				ResourceDeliveryMessage theMessage,
+				EncodingEnum thePayloadType,
+				IGenericClient theClient,
+				@Nullable IBaseResource thePayloadResource) {
+			myMessage = theMessage;
+			myPayloadType = thePayloadType;
+			myClient = theClient;
+			myPayloadResource = thePayloadResource;
+		}
+
+		private String getResourceKey() {
+			return myMessage
+					.getPayloadId(myFhirContext)
+					.toUnqualifiedVersionless()
+					.getValue();
+		}
+	}
+
 	public static List<Header> parseHeadersFromSubscription(CanonicalSubscription subscription) {
 		List<Header> headers = null;
 		if (subscription != null) {
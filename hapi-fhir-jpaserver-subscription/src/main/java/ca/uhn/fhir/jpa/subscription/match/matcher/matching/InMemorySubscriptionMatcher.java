@@ -21,6 +21,7 @@ package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchContext;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
@@ -42,6 +43,10 @@ public class InMemorySubscriptionMatcher implements ISubscriptionMatcher {
 	@Override
 	public InMemoryMatchResult match(CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg) {
 		try {
+			InMemoryMatchContext matchContext = theMsg.getNewPayloadMatchContext(myContext);
+			if (matchContext != null) {
+				return mySearchParamMatcher.match(theSubscription.getCriteriaString(), matchContext, null);
+			}
 			return mySearchParamMatcher.match(
 					theSubscription.getCriteriaString(), theMsg.getNewPayload(myContext), null);
 		} catch (Exception e) {
@@ -0,0 +1,393 @@
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.match.matcher.subscriber;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.model.entity.ResourceLink;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.searchparam.matcher.IndexedSearchParamExtractor;
+import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
+import ca.uhn.fhir.jpa.subscription.match.registry.SubscriptionRegistry;
+import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * An index over the active (non-topic) subscriptions which is used to find the subscriptions that
+ * could possibly match a given resource change, so that only those need to be tested by the
+ * {@link ca.uhn.fhir.jpa.subscription.match.matcher.matching.ISubscriptionMatcher}.
+ * <p>
+ * Subscriptions are grouped by the resource type(s) they apply to. Within a resource type, a
+ * subscription whose criteria contains a plain equality test on a reference or token parameter
+ * (e.g. <code>Observation?subject=Patient/123</code> or <code>Observation?code=http://loinc.org|1234-5</code>)
+ * is additionally keyed by the value of that one parameter, and is only returned as a candidate if the
+ * changed resource has that value. All other subscriptions for the type are always returned.
+ * </p>
+ * <p>
+ * The keys are deliberately loose (token values are compared ignoring case and system, and references by
+ * ID only), so the candidates are always a superset of the subscriptions that will actually match. The
+ * index is rebuilt lazily after the {@link SubscriptionRegistry} changes.
+ * </p>
+ */
+public class ActiveSubscriptionIndex {
+	private static final Logger ourLog = LoggerFactory.getLogger(ActiveSubscriptionIndex.class);
+
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Autowired
+	private SubscriptionRegistry mySubscriptionRegistry;
+
+	@Autowired
+	private MatchUrlService myMatchUrlService;
+
+	@Autowired
+	private ISearchParamRegistry mySearchParamRegistry;
+
+	@Autowired
+	private IndexedSearchParamExtractor myIndexedSearchParamExtractor;
+
+	private volatile Snapshot mySnapshot;
+
+	/**
+	 * Constructor
+	 */
+	public ActiveSubscriptionIndex() {
+		super();
+	}
+
+	/**
+	 * Returns the active non-topic subscriptions that could match the resource in the given message.
+	 * If the message targets a specific subscription, only that subscription is returned.
+	 */
+	@Nonnull
+	public Collection<ActiveSubscription> getCandidateSubscriptions(ResourceModifiedMessage theMsg) {
+		if (isNotBlank(theMsg.getSubscriptionId())) {
+			ActiveSubscription subscription = mySubscriptionRegistry.get(theMsg.getSubscriptionId());
+			if (subscription == null || subscription.getSubscription().isTopicSubscription()) {
+				return Collections.emptyList();
+			}
+			return Collections.singletonList(subscription);
+		}
+
+		IIdType resourceId = theMsg.getPayloadId(myFhirContext);
+		if (resourceId == null || isBlank(resourceId.getResourceType())) {
+			return mySubscriptionRegistry.getAllNonTopicSubscriptions();
+		}
+		String resourceType = resourceId.getResourceType();
+
+		Snapshot snapshot = getSnapshot();
+		List<ActiveSubscription> retVal = new ArrayList<>();
+		if (!"Subscription".equals(resourceType)) {
+			retVal.addAll(snapshot.myAllTypeSubscriptions);
+		}
+
+		TypeIndex typeIndex = snapshot.myTypeIndexes.get(resourceType);
+		if (typeIndex != null) {
+			retVal.addAll(typeIndex.myUnkeyedSubscriptions);
+			if (!typeIndex.myKeyedParams.isEmpty()) {
+				typeIndex.addKeyedCandidates(theMsg.getNewPayload(myFhirContext), retVal);
+			}
+		}
+		return retVal;
+	}
+
+	private Snapshot getSnapshot() {
+		long modificationCount = mySubscriptionRegistry.getModificationCount();
+		Snapshot retVal = mySnapshot;
+		if (retVal == null || retVal.myModificationCount != modificationCount) {
+			synchronized (this) {
+				retVal = mySnapshot;
+				if (retVal == null || retVal.myModificationCount != modificationCount) {
+					retVal = buildSnapshot(modificationCount);
+					mySnapshot = retVal;
+				}
+			}
+		}
+		return retVal;
+	}
+
+	private Snapshot buildSnapshot(long theModificationCount) {
+		Snapshot retVal = new Snapshot(theModificationCount);
+		for (ActiveSubscription next : mySubscriptionRegistry.getAllNonTopicSubscriptions()) {
+			SubscriptionCriteriaParser.SubscriptionCriteria criteria = next.getCriteria();
+			if (criteria == null) {
+				continue;
+			}
+			switch (criteria.getType()) {
+				case STARTYPE_EXPRESSION:
+					retVal.myAllTypeSubscriptions.add(next);
+					break;
+				case MULTITYPE_EXPRESSION:
+					for (String nextType : criteria.getApplicableResourceTypes()) {
+						retVal.getTypeIndex(nextType).myUnkeyedSubscriptions.add(next);
+					}
+					break;
+				case SEARCH_EXPRESSION:
+				default:
+					for (String nextType : criteria.getApplicableResourceTypes()) {
+						TypeIndex typeIndex = retVal.getTypeIndex(nextType);
+						IndexKey key = findIndexKey(nextType, criteria.getCriteria());
+						if (key != null) {
+							typeIndex.add(key, next);
+						} else {
+							typeIndex.myUnkeyedSubscriptions.add(next);
+						}
+					}
+					break;
+			}
+		}
+
+		ourLog.debug("Rebuilt active subscription index with {} resource types", retVal.myTypeIndexes.size());
+		return retVal;
+	}
+
+	/**
+	 * Picks a single parameter from the criteria which can be used as an index key. A reference
+	 * parameter is preferred over a token parameter, since it is usually more selective.
+	 */
+	@Nullable
+	private IndexKey findIndexKey(String theResourceType, String theCriteria) {
+		SearchParameterMap map;
+		try {
+			RuntimeResourceDefinition resourceDefinition = myFhirContext.getResourceDefinition(theResourceType);
+			map = myMatchUrlService.translateMatchUrl(theCriteria, resourceDefinition);
+		} catch (Exception e) {
+			ourLog.debug("Unable to index subscription criteria {}: {}", theCriteria, e.toString());
+			return null;
+		}
+
+		IndexKey retVal = null;
+		for (Map.Entry<String, List<List<IQueryParameterType>>> nextEntry : map.entrySet()) {
+			String paramName = nextEntry.getKey();
+			if (paramName.startsWith("_")) {
+				continue;
+			}
+			RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(theResourceType, paramName);
+			if (searchParam == null) {
+				continue;
+			}
+
+			for (List<IQueryParameterType> nextOrList : nextEntry.getValue()) {
+				if (searchParam.getParamType() == RestSearchParameterTypeEnum.REFERENCE) {
+					Set<String> values = toReferenceKeyValues(nextOrList);
+					if (values != null) {
+						return new IndexKey(RestSearchParameterTypeEnum.REFERENCE, paramName, values);
+					}
+				} else if (searchParam.getParamType() == RestSearchParameterTypeEnum.TOKEN && retVal == null) {
+					Set<String> values = toTokenKeyValues(nextOrList);
+					if (values != null) {
+						retVal = new IndexKey(RestSearchParameterTypeEnum.TOKEN, paramName, values);
+					}
+				}
+			}
+		}
+		return retVal;
+	}
+
+	@Nullable
+	private static Set<String> toReferenceKeyValues(List<IQueryParameterType> theOrList) {
+		Set<String> retVal = new HashSet<>();
+		for (IQueryParameterType next : theOrList) {
+			if (!(next instanceof ReferenceParam)) {
+				return null;
+			}
+			ReferenceParam param = (ReferenceParam) next;
+			if (isNotBlank(param.getChain())
+					|| param.getMissing() != null
+					|| param.getQueryParameterQualifier() != null
+					|| isBlank(param.getValue())
+					|| param.getValue().startsWith("#")
+					|| param.getValue().contains("://")
+					|| isBlank(param.getIdPart())) {
+				return null;
+			}
+			retVal.add(param.getIdPart());
+		}
+		return retVal.isEmpty() ? null : retVal;
+	}
+
+	@Nullable
+	private static Set<String> toTokenKeyValues(List<IQueryParameterType> theOrList) {
+		Set<String> retVal = new HashSet<>();
+		for (IQueryParameterType next : theOrList) {
+			if (!(next instanceof TokenParam)) {
+				return null;
+			}
+			TokenParam param = (TokenParam) next;
+			if (param.getModifier() != null || param.getMissing() != null || isBlank(param.getValue())) {
+				return null;
+			}
+			retVal.add(normalizeTokenValue(param.getValue()));
+		}
+		return retVal.isEmpty() ? null : retVal;
+	}
+
+	/**
+	 * Token values are matched using {@link String#equalsIgnoreCase(String)}, so keys are
+	 * normalized the same way
+	 */
+	private static String normalizeTokenValue(String theValue) {
+		StringBuilder b = new StringBuilder(theValue.length());
+		for (int i = 0; i < theValue.length(); i++) {
+			b.append(Character.toLowerCase(Character.toUpperCase(theValue.charAt(i))));
+		}
+		return b.toString();
+	}
+
+	private static class IndexKey {
+		private final RestSearchParameterTypeEnum myParamType;
+		private final String myParamName;
+		private final Set<String> myValues;
+
+		private IndexKey(RestSearchParameterTypeEnum theParamType, String theParamName, Set<String> theValues) {
+			myParamType = theParamType;
+			myParamName = theParamName;
+			myValues = theValues;
+		}
+	}
+
+	private class Snapshot {
+		private final long myModificationCount;
+		private final List<ActiveSubscription> myAllTypeSubscriptions = new ArrayList<>();
+		private final Map<String, TypeIndex> myTypeIndexes = new HashMap<>();
+
+		private Snapshot(long theModificationCount) {
+			myModificationCount = theModificationCount;
+		}
+
+		private TypeIndex getTypeIndex(String theResourceType) {
+			return myTypeIndexes.computeIfAbsent(theResourceType, t -> new TypeIndex());
+		}
+	}
+
+	private class TypeIndex {
+		private final List<ActiveSubscription> myUnkeyedSubscriptions = new ArrayList<>();
+		/**
+		 * Parameter name to the parameter type
+		 */
+		private final Map<String, RestSearchParameterTypeEnum> myKeyedParams = new HashMap<>();
+		/**
+		 * Reference target ID to subscriptions
+		 */
+		private final Map<String, List<ActiveSubscription>> myReferenceKeys = new HashMap<>();
+		/**
+		 * Normalized token value to subscriptions
+		 */
+		private final Map<String, List<ActiveSubscription>> myTokenKeys = new HashMap<>();
+
+		private void add(IndexKey theKey, ActiveSubscription theSubscription) {
+			myKeyedParams.put(theKey.myParamName, theKey.myParamType);
+			Map<String, List<ActiveSubscription>> keys =
+					theKey.myParamType == RestSearchParameterTypeEnum.REFERENCE ? myReferenceKeys : myTokenKeys;
+			for (String next : theKey.myValues) {
+				keys.computeIfAbsent(next, t -> new ArrayList<>()).add(theSubscription);
+			}
+		}
+
+		private Collection<ActiveSubscription> getAllKeyedSubscriptions() {
+			Map<ActiveSubscription, Boolean> retVal = new IdentityHashMap<>();
+			myReferenceKeys.values().forEach(t -> t.forEach(s -> retVal.put(s, Boolean.TRUE)));
+			myTokenKeys.values().forEach(t -> t.forEach(s -> retVal.put(s, Boolean.TRUE)));
+			return retVal.keySet();
+		}
+
+		/**
+		 * Extracts the indexed parameters from the resource and adds any subscriptions keyed by
+		 * one of the extracted values. If the resource isn't available, all keyed subscriptions
+		 * are added.
+		 */
+		private void addKeyedCandidates(@Nullable IBaseResource theResource, List<ActiveSubscription> theCandidates) {
+			if (theResource == null) {
+				theCandidates.addAll(getAllKeyedSubscriptions());
+				return;
+			}
+
+			ResourceIndexedSearchParams params;
+			try {
+				ISearchParamExtractor.ISearchParamFilter filter = theSearchParams -> theSearchParams.stream()
+						.filter(t -> myKeyedParams.containsKey(t.getName()))
+						.collect(Collectors.toList());
+				params = myIndexedSearchParamExtractor.extractIndexedSearchParams(theResource, null, filter);
+			} catch (Exception e) {
+				ourLog.debug("Unable to extract indexed subscription parameters: {}", e.toString());
+				theCandidates.addAll(getAllKeyedSubscriptions());
+				return;
+			}
+
+			Map<ActiveSubscription, Boolean> candidates = new IdentityHashMap<>();
+			if (!myReferenceKeys.isEmpty()) {
+				for (ResourceLink next : params.myLinks) {
+					String targetId = next.getTargetResourceId();
+					if (targetId != null) {
+						addAll(myReferenceKeys.get(targetId), candidates);
+					}
+				}
+			}
+			if (!myTokenKeys.isEmpty()) {
+				for (ResourceIndexedSearchParamToken next : params.myTokenParams) {
+					if (next.getValue() != null && myKeyedParams.containsKey(next.getParamName())) {
+						addAll(myTokenKeys.get(normalizeTokenValue(next.getValue())), candidates);
+					}
+				}
+			}
+			theCandidates.addAll(candidates.keySet());
+		}
+
+		private void addAll(
+				@Nullable List<ActiveSubscription> theSubscriptions, Map<ActiveSubscription, Boolean> theTarget) {
+			if (theSubscriptions != null) {
+				for (ActiveSubscription next : theSubscriptions) {
+					theTarget.put(next, Boolean.TRUE);
+				}
+			}
+		}
+	}
+}
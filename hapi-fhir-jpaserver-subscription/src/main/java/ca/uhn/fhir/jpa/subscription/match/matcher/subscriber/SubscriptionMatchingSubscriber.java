@@ -26,7 +26,6 @@ import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.ISubscriptionMatcher;
 import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
-import ca.uhn.fhir.jpa.subscription.match.registry.SubscriptionRegistry;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedJsonMessage;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
@@ -55,15 +54,15 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 	@Autowired
 	private FhirContext myFhirContext;
 
-	@Autowired
-	private SubscriptionRegistry mySubscriptionRegistry;
-
 	@Autowired
 	private IInterceptorBroadcaster myInterceptorBroadcaster;
 
 	@Autowired
 	private SubscriptionMatchDeliverer mySubscriptionMatchDeliverer;
 
+	@Autowired
+	private ActiveSubscriptionIndex myActiveSubscriptionIndex;
+
 	/**
 	 * Constructor
 	 */
@@ -114,9 +113,9 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 	private void doMatchActiveSubscriptionsAndDeliver(ResourceModifiedMessage theMsg) {
 		IIdType resourceId = theMsg.getPayloadId(myFhirContext);
 
-		Collection<ActiveSubscription> subscriptions = mySubscriptionRegistry.getAllNonTopicSubscriptions();
+		Collection<ActiveSubscription> subscriptions = myActiveSubscriptionIndex.getCandidateSubscriptions(theMsg);
 
-		ourLog.trace("Testing {} subscriptions for applicability", subscriptions.size());
+		ourLog.trace("Testing {} candidate subscriptions for applicability", subscriptions.size());
 		boolean anySubscriptionsMatchedResource = false;
 
 		for (ActiveSubscription nextActiveSubscription : subscriptions) {
@@ -149,7 +148,6 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 
 		if (isNotBlank(theMsg.getSubscriptionId())) {
 			if (!theMsg.getSubscriptionId().equals(nextSubscriptionId)) {
-				// TODO KHS we should use a hash to look it up instead of this full table scan
 				ourLog.debug(
 						"Ignoring subscription {} because it is not {}",
 						nextSubscriptionId,
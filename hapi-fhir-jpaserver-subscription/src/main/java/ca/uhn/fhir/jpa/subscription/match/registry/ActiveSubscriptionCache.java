@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -37,6 +38,7 @@ class ActiveSubscriptionCache {
 	private static final Logger ourLog = LoggerFactory.getLogger(ActiveSubscriptionCache.class);
 
 	private final Map<String, ActiveSubscription> myCache = new ConcurrentHashMap<>();
+	private final AtomicLong myModificationCount = new AtomicLong();
 
 	public ActiveSubscription get(String theIdPart) {
 		return myCache.get(theIdPart);
@@ -52,6 +54,18 @@ class ActiveSubscriptionCache {
 
 	public void put(String theSubscriptionId, ActiveSubscription theActiveSubscription) {
 		myCache.put(theSubscriptionId, theActiveSubscription);
+		markModified();
+	}
+
+	/**
+	 * Incremented every time a subscription is added, removed or changed
+	 */
+	public long getModificationCount() {
+		return myModificationCount.get();
+	}
+
+	public void markModified() {
+		myModificationCount.incrementAndGet();
 	}
 
 	public synchronized ActiveSubscription remove(String theSubscriptionId) {
@@ -63,6 +77,7 @@ class ActiveSubscriptionCache {
 		}
 
 		myCache.remove(theSubscriptionId);
+		markModified();
 		return activeSubscription;
 	}
 
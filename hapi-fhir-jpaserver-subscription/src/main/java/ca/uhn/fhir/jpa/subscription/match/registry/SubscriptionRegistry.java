@@ -214,6 +214,7 @@ public class SubscriptionRegistry {
 		Validate.notNull(activeSubscription);
 		CanonicalSubscription canonicalized = mySubscriptionCanonicalizer.canonicalize(theSubscription);
 		activeSubscription.setSubscription(canonicalized);
+		myActiveSubscriptionCache.markModified();
 
 		// Interceptor call: SUBSCRIPTION_AFTER_ACTIVE_SUBSCRIPTION_REGISTERED
 		HookParams params = new HookParams().add(CanonicalSubscription.class, canonicalized);
@@ -232,4 +233,13 @@ public class SubscriptionRegistry {
 	public synchronized List<ActiveSubscription> getAllNonTopicSubscriptions() {
 		return myActiveSubscriptionCache.getAllNonTopicSubscriptions();
 	}
+
+	/**
+	 * Returns a counter which is incremented every time a subscription is registered,
+	 * updated or unregistered. This can be used to invalidate anything derived from
+	 * the registered subscriptions.
+	 */
+	public long getModificationCount() {
+		return myActiveSubscriptionCache.getModificationCount();
+	}
 }
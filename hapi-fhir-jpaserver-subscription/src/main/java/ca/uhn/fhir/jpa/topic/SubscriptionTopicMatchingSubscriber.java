@@ -131,7 +131,7 @@ public class SubscriptionTopicMatchingSubscriber implements MessageHandler {
 		return mySubscriptionTopicDispatcher.dispatch(new SubscriptionTopicDispatchRequest(
 				topicUrl,
 				matchedResourceList,
-				myInMemoryTopicFilterMatcher,
+				myInMemoryTopicFilterMatcher.withMatchContext(theMsg.getNewPayloadMatchContext(myFhirContext)),
 				restOperationType,
 				theInMemoryMatchResult,
 				theMsg.getPartitionId(),
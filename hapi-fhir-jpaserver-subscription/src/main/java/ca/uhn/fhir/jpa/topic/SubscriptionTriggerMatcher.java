@@ -20,6 +20,7 @@
 package ca.uhn.fhir.jpa.topic;
 
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchContext;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
@@ -45,6 +46,7 @@ public class SubscriptionTriggerMatcher {
 	private final IFhirResourceDao myDao;
 	private final PreviousVersionReader myPreviousVersionReader;
 	private final SystemRequestDetails mySrd;
+	private final InMemoryMatchContext myMatchContext;
 
 	public SubscriptionTriggerMatcher(
 			SubscriptionTopicSupport theSubscriptionTopicSupport,
@@ -58,6 +60,7 @@ public class SubscriptionTriggerMatcher {
 		myTrigger = theTrigger;
 		myPreviousVersionReader = new PreviousVersionReader(myDao);
 		mySrd = new SystemRequestDetails();
+		myMatchContext = theMsg.getNewPayloadMatchContext(theSubscriptionTopicSupport.getFhirContext());
 	}
 
 	public InMemoryMatchResult match() {
@@ -112,8 +115,12 @@ public class SubscriptionTriggerMatcher {
 	}
 
 	private InMemoryMatchResult matchResource(IBaseResource theResource, String theCriteria) {
-		InMemoryMatchResult result =
-				mySubscriptionTopicSupport.getSearchParamMatcher().match(theCriteria, theResource, mySrd);
+		InMemoryMatchResult result;
+		if (myMatchContext != null && theResource == myMatchContext.getResource()) {
+			result = mySubscriptionTopicSupport.getSearchParamMatcher().match(theCriteria, myMatchContext, mySrd);
+		} else {
+			result = mySubscriptionTopicSupport.getSearchParamMatcher().match(theCriteria, theResource, mySrd);
+		}
 		if (!result.supported()) {
 			ourLog.warn(
 					"Subscription topic {} has a query criteria that is not supported in-memory: {}",
@@ -19,12 +19,15 @@
  */
 package ca.uhn.fhir.jpa.topic.filter;
 
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchContext;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalTopicSubscriptionFilter;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
+import javax.annotation.Nullable;
+
 public class InMemoryTopicFilterMatcher implements ISubscriptionTopicFilterMatcher {
 	private final SearchParamMatcher mySearchParamMatcher;
 
@@ -38,4 +41,21 @@ public class InMemoryTopicFilterMatcher implements ISubscriptionTopicFilterMatch
 		return mySearchParamMatcher.match(
 				theCanonicalTopicSubscriptionFilter.asCriteriaString(), theResource, new SystemRequestDetails());
 	}
+
+	/**
+	 * Returns a matcher which reuses the search parameters already extracted into the given context
+	 * whenever it is asked to match the context's resource.
+	 */
+	public ISubscriptionTopicFilterMatcher withMatchContext(@Nullable InMemoryMatchContext theMatchContext) {
+		if (theMatchContext == null) {
+			return this;
+		}
+		return (theFilter, theResource) -> {
+			if (theResource != theMatchContext.getResource()) {
+				return match(theFilter, theResource);
+			}
+			return mySearchParamMatcher.match(
+					theFilter.asCriteriaString(), theMatchContext, new SystemRequestDetails());
+		};
+	}
 }
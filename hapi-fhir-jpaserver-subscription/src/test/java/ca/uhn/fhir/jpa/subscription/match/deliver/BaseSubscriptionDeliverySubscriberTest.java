@@ -7,12 +7,15 @@ import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory;
 import ca.uhn.fhir.jpa.subscription.channel.api.IChannelProducer;
+import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionChannelFactory;
 import ca.uhn.fhir.jpa.subscription.match.deliver.message.SubscriptionDeliveringMessageSubscriber;
+import ca.uhn.fhir.jpa.subscription.match.deliver.resthook.RestHookDeliveryExecutor;
 import ca.uhn.fhir.jpa.subscription.match.deliver.resthook.SubscriptionDeliveringRestHookSubscriber;
 import ca.uhn.fhir.jpa.subscription.match.registry.SubscriptionRegistry;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
@@ -24,18 +27,21 @@ import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.rest.client.api.IRestfulClientFactory;
+import ca.uhn.fhir.rest.gclient.ITransactionTyped;
 import ca.uhn.fhir.rest.server.SimpleBundleProvider;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
@@ -47,8 +53,13 @@ import org.springframework.messaging.support.GenericMessage;
 import javax.annotation.Nonnull;
 import java.net.URISyntaxException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -61,6 +72,9 @@ import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -72,6 +86,7 @@ public class BaseSubscriptionDeliverySubscriberTest {
 	private SubscriptionDeliveringRestHookSubscriber mySubscriber;
 	private SubscriptionDeliveringMessageSubscriber myMessageSubscriber;
 	private final FhirContext myCtx = FhirContext.forR4();
+	private RestHookDeliveryExecutor myDeliveryExecutor;
 
 	@Mock
 	private IInterceptorBroadcaster myInterceptorBroadcaster;
@@ -102,6 +117,7 @@ public class BaseSubscriptionDeliverySubscriberTest {
 		mySubscriber.setFhirContextForUnitTest(myCtx);
 		mySubscriber.setInterceptorBroadcasterForUnitTest(myInterceptorBroadcaster);
 		mySubscriber.setSubscriptionRegistryForUnitTest(mySubscriptionRegistry);
+		mySubscriber.setStorageSettingsForUnitTest(new StorageSettings());
 
 		myMessageSubscriber = new SubscriptionDeliveringMessageSubscriber(myChannelFactory);
 		myMessageSubscriber.setFhirContextForUnitTest(myCtx);
@@ -113,6 +129,14 @@ public class BaseSubscriptionDeliverySubscriberTest {
 		when(myRestfulClientFactory.newGenericClient(any())).thenReturn(myGenericClient);
 	}
 
+	@AfterEach
+	public void after() throws InterruptedException {
+		mySubscriber.destroy();
+		if (myDeliveryExecutor != null) {
+			myDeliveryExecutor.destroy();
+		}
+	}
+
 	@Test
 	public void testWrongTypeIgnored() {
 		Message<String> message = new GenericMessage<>("HELLO");
@@ -172,6 +196,103 @@ public class BaseSubscriptionDeliverySubscriberTest {
 		verify(myGenericClient, times(1)).update();
 	}
 
+	@Test
+	public void testRestHookBatchedDeliverySuccessful_HooksCalledAfterSend() {
+		ITransactionTyped<Bundle> transaction = enableBatching(10, 1, 0);
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+
+		ResourceDeliveryMessage payload = new ResourceDeliveryMessage();
+		Patient patient = generatePatient();
+		patient.setId("Patient/P1");
+		payload.setSubscription(generateSubscription());
+		payload.setPayload(myCtx, patient, EncodingEnum.JSON);
+		payload.setOperationType(ResourceModifiedMessage.OperationTypeEnum.CREATE);
+
+		mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(payload));
+
+		InOrder inOrder = inOrder(transaction, myInterceptorBroadcaster);
+		inOrder.verify(transaction, times(1)).execute();
+		inOrder.verify(myInterceptorBroadcaster, times(1)).callHooks(eq(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY), any());
+		inOrder.verify(myInterceptorBroadcaster, times(1)).callHooks(eq(Pointcut.SUBSCRIPTION_AFTER_DELIVERY), any());
+	}
+
+	@Test
+	public void testRestHookBatchedDeliveryFails_ShouldRollBack() {
+		ITransactionTyped<Bundle> transaction = enableBatching(10, 1, 0);
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+		when(transaction.execute()).thenThrow(new InternalErrorException("FOO"));
+
+		ResourceDeliveryMessage payload = new ResourceDeliveryMessage();
+		Patient patient = generatePatient();
+		patient.setId("Patient/P1");
+		payload.setSubscription(generateSubscription());
+		payload.setPayload(myCtx, patient, EncodingEnum.JSON);
+		payload.setOperationType(ResourceModifiedMessage.OperationTypeEnum.CREATE);
+
+		try {
+			mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(payload));
+			fail();
+		} catch (MessagingException e) {
+			assertEquals(Msg.code(2) + "Failure handling subscription payload for subscription: Subscription/123; nested exception is ca.uhn.fhir.rest.server.exceptions.InternalErrorException: FOO", e.getMessage());
+		}
+
+		verify(myInterceptorBroadcaster, times(1)).callHooks(eq(Pointcut.SUBSCRIPTION_AFTER_DELIVERY_FAILED), any());
+		verify(myInterceptorBroadcaster, never()).callHooks(eq(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY), any());
+		verify(myInterceptorBroadcaster, never()).callHooks(eq(Pointcut.SUBSCRIPTION_AFTER_DELIVERY), any());
+	}
+
+	@Test
+	public void testRestHookBatchedDelivery_MultipleResourcesSentInOnePost() throws Exception {
+		// The linger time is long enough that the batch can only be sent because every consumer is waiting
+		ITransactionTyped<Bundle> transaction = enableBatching(5, 1, 60000);
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+		CanonicalSubscription subscription = generateSubscription();
+
+		ExecutorService executor = Executors.newFixedThreadPool(5);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 5; i++) {
+				ResourceDeliveryMessage payload = new ResourceDeliveryMessage();
+				Patient patient = generatePatient();
+				patient.setId("Patient/P" + i);
+				payload.setSubscription(subscription);
+				payload.setPayload(myCtx, patient, EncodingEnum.JSON);
+				payload.setOperationType(ResourceModifiedMessage.OperationTypeEnum.CREATE);
+				futures.add(executor.submit(() -> mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(payload))));
+			}
+			for (Future<?> next : futures) {
+				next.get(10, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		verify(transaction, times(1)).execute();
+		ArgumentCaptor<Bundle> bundleCaptor = ArgumentCaptor.forClass(Bundle.class);
+		verify(myGenericClient.transaction(), times(1)).withBundle(bundleCaptor.capture());
+		assertEquals(5, bundleCaptor.getValue().getEntry().size());
+	}
+
+	@SuppressWarnings("unchecked")
+	private ITransactionTyped<Bundle> enableBatching(int theBatchSize, int theMaxConcurrentRequests, long theLingerMillis) {
+		StorageSettings storageSettings = new StorageSettings();
+		storageSettings.setRestHookDeliveryBatchSize(theBatchSize);
+		storageSettings.setRestHookDeliveryMaxConcurrentRequests(theMaxConcurrentRequests);
+		storageSettings.setRestHookDeliveryBatchLingerMillis(theLingerMillis);
+		mySubscriber.setStorageSettingsForUnitTest(storageSettings);
+
+		SubscriptionChannelFactory subscriptionChannelFactory = new SubscriptionChannelFactory(myChannelFactory);
+		subscriptionChannelFactory.setStorageSettingsForUnitTest(storageSettings);
+		mySubscriber.setSubscriptionChannelFactoryForUnitTest(subscriptionChannelFactory);
+		myDeliveryExecutor = new RestHookDeliveryExecutor(theMaxConcurrentRequests);
+		mySubscriber.setDeliveryExecutorForUnitTest(myDeliveryExecutor);
+
+		ITransactionTyped<Bundle> transaction = mock(ITransactionTyped.class);
+		when(myGenericClient.transaction().withBundle(any(Bundle.class))).thenReturn(transaction);
+		when(transaction.encoded(any())).thenReturn(transaction);
+		return transaction;
+	}
+
 	@Test
 	public void testRestHookDeliveryFails_InterceptorDealsWithIt() {
 		when(myInterceptorBroadcaster.callHooks(eq(Pointcut.SUBSCRIPTION_BEFORE_DELIVERY), any())).thenReturn(true);
@@ -0,0 +1,142 @@
+package ca.uhn.fhir.jpa.subscription.match.deliver.resthook;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RestHookDeliveryBatcherTest {
+
+	private final List<List<String>> myBatches = Collections.synchronizedList(new ArrayList<>());
+	private final ScheduledExecutorService myExecutor = Executors.newScheduledThreadPool(2);
+	private RestHookDeliveryBatcher<String> mySvc;
+
+	@AfterEach
+	public void after() {
+		if (mySvc != null) {
+			mySvc.stop();
+		}
+		myExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testBatchSentWhenFull() {
+		mySvc = new RestHookDeliveryBatcher<>(myExecutor, 3, 60000, 1, 100, t -> t, myBatches::add);
+
+		mySvc.add("A");
+		mySvc.add("B");
+		mySvc.add("C");
+
+		await().until(() -> myBatches.size() == 1);
+		assertThat(myBatches.get(0), contains("A", "B", "C"));
+	}
+
+	@Test
+	public void testFutureCompletesOnlyOnceBatchIsSent() throws Exception {
+		mySvc = new RestHookDeliveryBatcher<>(myExecutor, 2, 60000, 1, 100, t -> t, myBatches::add);
+
+		CompletableFuture<Void> first = mySvc.add("A");
+		Thread.sleep(100);
+		assertFalse(first.isDone());
+
+		CompletableFuture<Void> second = mySvc.add("B");
+		first.get();
+		second.get();
+		assertThat(myBatches.get(0), contains("A", "B"));
+	}
+
+	@Test
+	public void testBatchSentAfterLinger() {
+		mySvc = new RestHookDeliveryBatcher<>(myExecutor, 100, 50, 1, 100, t -> t, myBatches::add);
+
+		mySvc.add("A");
+		mySvc.add("B");
+
+		await().until(() -> myBatches.size() == 1);
+		assertThat(myBatches.get(0), contains("A", "B"));
+	}
+
+	@Test
+	public void testBatchSentOnceEveryCallerIsWaiting() {
+		mySvc = new RestHookDeliveryBatcher<>(myExecutor, 100, 60000, 2, 3, t -> t, myBatches::add);
+
+		mySvc.add("A");
+		mySvc.add("B");
+		mySvc.add("C");
+
+		// The linger time is a minute, but no 4th delivery can arrive while 3 callers are waiting
+		await().until(() -> myBatches.stream().mapToInt(List::size).sum() == 3);
+	}
+
+	@Test
+	public void testSameKeyStartsNewBatchInOrder() {
+		mySvc = new RestHookDeliveryBatcher<>(myExecutor, 10, 60000, 1, 100, t -> t.substring(0, 1), myBatches::add);
+
+		mySvc.add("A1");
+		mySvc.add("B1");
+		mySvc.add("A2");
+		mySvc.stop();
+		mySvc = null;
+
+		assertThat(myBatches, hasSize(2));
+		assertThat(myBatches.get(0), contains("A1", "B1"));
+		assertThat(myBatches.get(1), contains("A2"));
+	}
+
+	@Test
+	public void testStopFlushesPendingAcrossLanes() {
+		mySvc = new RestHookDeliveryBatcher<>(myExecutor, 1000, 60000, 4, 1000, t -> t.substring(0, 1), myBatches::add);
+
+		for (int i = 0; i < 100; i++) {
+			mySvc.add("ABCDEFGH".charAt(i % 8) + "" + i);
+		}
+		mySvc.stop();
+		mySvc = null;
+
+		List<String> delivered =
+				myBatches.stream().flatMap(List::stream).collect(Collectors.toList());
+		assertEquals(100, delivered.size());
+
+		// Deliveries with the same key keep their relative order
+		List<String> forA = delivered.stream().filter(t -> t.startsWith("A")).collect(Collectors.toList());
+		for (int i = 1; i < forA.size(); i++) {
+			int previous = Integer.parseInt(forA.get(i - 1).substring(1));
+			int current = Integer.parseInt(forA.get(i).substring(1));
+			assertTrue(previous < current);
+		}
+	}
+
+	@Test
+	public void testSenderFailureFailsFuturesAndDoesNotStopLane() throws Exception {
+		mySvc = new RestHookDeliveryBatcher<>(myExecutor, 1, 0, 1, 100, t -> t, t -> {
+			if (t.contains("A")) {
+				throw new IllegalStateException("FAIL");
+			}
+			myBatches.add(t);
+		});
+
+		CompletableFuture<Void> failed = mySvc.add("A");
+		CompletableFuture<Void> succeeded = mySvc.add("B");
+
+		ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+		assertEquals("FAIL", e.getCause().getMessage());
+		succeeded.get();
+		assertThat(myBatches.get(0), contains("B"));
+	}
+}
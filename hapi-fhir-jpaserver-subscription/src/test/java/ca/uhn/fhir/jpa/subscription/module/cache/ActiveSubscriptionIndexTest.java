@@ -0,0 +1,123 @@
+package ca.uhn.fhir.jpa.subscription.module.cache;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.ActiveSubscriptionIndex;
+import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
+import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
+import ca.uhn.fhir.rest.server.messaging.BaseResourceMessage;
+import org.hl7.fhir.dstu3.model.Observation;
+import org.hl7.fhir.dstu3.model.Patient;
+import org.hl7.fhir.dstu3.model.Reference;
+import org.hl7.fhir.dstu3.model.Subscription;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ActiveSubscriptionIndexTest extends BaseSubscriptionRegistryTest {
+
+	@Autowired
+	private ActiveSubscriptionIndex myActiveSubscriptionIndex;
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Test
+	public void testCandidatesKeyedByReference() {
+		register("1", "Observation?subject=Patient/123");
+		register("2", "Observation?subject=Patient/456");
+		register("3", "Observation?value-quantity=gt5");
+		register("4", "Patient?");
+
+		Observation obs = new Observation();
+		obs.setId("Observation/O1");
+		obs.setSubject(new Reference("Patient/123"));
+
+		assertThat(getCandidateIds(obs), containsInAnyOrder("1", "3"));
+	}
+
+	@Test
+	public void testCandidatesKeyedByToken() {
+		register("1", "Observation?code=http://loinc.org|1234-5");
+		register("2", "Observation?code=9999-9,1234-5");
+		register("3", "Observation?code=7777-7");
+		register("4", "Observation?code:not=7777-7");
+
+		Observation obs = new Observation();
+		obs.setId("Observation/O1");
+		obs.getCode().addCoding().setSystem("http://loinc.org").setCode("1234-5");
+
+		assertThat(getCandidateIds(obs), containsInAnyOrder("1", "2", "4"));
+	}
+
+	@Test
+	public void testCandidatesForStarAndMultiType() {
+		register("1", "[*]");
+		register("2", "[Observation,Patient]");
+		register("3", "[Encounter]");
+
+		Patient patient = new Patient();
+		patient.setId("Patient/P1");
+		assertThat(getCandidateIds(patient), containsInAnyOrder("1", "2"));
+
+		// Star subscriptions never apply to subscriptions
+		Subscription subscription = new Subscription();
+		subscription.setId("Subscription/S1");
+		assertThat(getCandidateIds(subscription), empty());
+	}
+
+	@Test
+	public void testCandidatesForTargetedSubscription() {
+		register("1", "Observation?subject=Patient/123");
+		register("2", "Observation?");
+
+		Observation obs = new Observation();
+		obs.setId("Observation/O1");
+		ResourceModifiedMessage msg =
+				new ResourceModifiedMessage(myFhirContext, obs, BaseResourceMessage.OperationTypeEnum.CREATE);
+		msg.setSubscriptionId("1");
+
+		Set<String> ids = myActiveSubscriptionIndex.getCandidateSubscriptions(msg).stream()
+				.map(ActiveSubscription::getId)
+				.collect(Collectors.toSet());
+		assertThat(ids, containsInAnyOrder("1"));
+	}
+
+	@Test
+	public void testIndexRebuiltWhenRegistryChanges() {
+		register("1", "Observation?subject=Patient/123");
+
+		Observation obs = new Observation();
+		obs.setId("Observation/O1");
+		obs.setSubject(new Reference("Patient/456"));
+		assertThat(getCandidateIds(obs), empty());
+
+		register("2", "Observation?subject=Patient/456");
+		assertThat(getCandidateIds(obs), containsInAnyOrder("2"));
+
+		mySubscriptionRegistry.unregisterSubscriptionIfRegistered("2");
+		assertThat(getCandidateIds(obs), empty());
+		assertEquals(1, mySubscriptionRegistry.size());
+	}
+
+	private void register(String theId, String theCriteria) {
+		Subscription subscription = createSubscription();
+		subscription.setId(theId);
+		subscription.setCriteria(theCriteria);
+		mySubscriptionRegistry.registerSubscriptionUnlessAlreadyRegistered(subscription);
+	}
+
+	private Set<String> getCandidateIds(IBaseResource theResource) {
+		ResourceModifiedMessage msg =
+				new ResourceModifiedMessage(myFhirContext, theResource, BaseResourceMessage.OperationTypeEnum.CREATE);
+		return myActiveSubscriptionIndex.getCandidateSubscriptions(msg).stream()
+				.map(ActiveSubscription::getId)
+				.collect(Collectors.toSet());
+	}
+}
@@ -7,6 +7,7 @@ import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r5.model.Encounter;
 import org.hl7.fhir.r5.model.IdType;
 import org.hl7.fhir.r5.model.SubscriptionTopic;
@@ -122,7 +123,7 @@ class SubscriptionTriggerMatcherTest {
 		when(myDaoRegistry.getResourceDao("Encounter")).thenReturn(mockEncounterDao);
 		Encounter encounterPreviousVersion = new Encounter();
 		when(mockEncounterDao.read(any(), any(), eq(false))).thenReturn(encounterPreviousVersion);
-		when(mySearchParamMatcher.match(any(), any(), any())).thenReturn(InMemoryMatchResult.successfulMatch());
+		when(mySearchParamMatcher.match(any(), any(IBaseResource.class), any())).thenReturn(InMemoryMatchResult.successfulMatch());
 
 		// run
 		SubscriptionTriggerMatcher svc = new SubscriptionTriggerMatcher(mySubscriptionTopicSupport, msg, trigger);
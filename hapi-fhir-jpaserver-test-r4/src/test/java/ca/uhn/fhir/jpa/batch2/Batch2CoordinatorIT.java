@@ -21,6 +21,7 @@ import ca.uhn.fhir.batch2.model.JobInstanceStartRequest;
 import ca.uhn.fhir.batch2.model.JobWorkNotificationJsonMessage;
 import ca.uhn.fhir.batch2.model.StatusEnum;
 import ca.uhn.fhir.batch2.models.JobInstanceFetchRequest;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.batch.models.Batch2JobStartResponse;
 import ca.uhn.fhir.jpa.subscription.channel.api.ChannelConsumerSettings;
 import ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory;
@@ -52,6 +53,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static ca.uhn.fhir.batch2.config.BaseBatch2Config.CHANNEL_NAME;
 import static ca.uhn.fhir.batch2.coordinator.WorkChunkProcessor.MAX_CHUNK_ERROR_COUNT;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -102,6 +105,7 @@ public class Batch2CoordinatorIT extends BaseJpaR4Test {
 	@AfterEach
 	public void after() {
 		myWorkChannel.clearInterceptorsForUnitTest();
+		myStorageSettings.setJobEventDrivenAdvancementEnabled(new JpaStorageSettings().isJobEventDrivenAdvancementEnabled());
 	}
 
 	@Test
@@ -411,6 +415,36 @@ public class Batch2CoordinatorIT extends BaseJpaR4Test {
 	}
 
 
+	@Test
+	public void testFirstStepToSecondStep_doubleChunk_eventDrivenAdvancement() throws InterruptedException {
+		myStorageSettings.setJobFastTrackingEnabled(false);
+		myStorageSettings.setJobEventDrivenAdvancementEnabled(true);
+
+		IJobStepWorker<TestJobParameters, VoidModel, FirstStepOutput> firstStep = (step, sink) -> {
+			sink.accept(new FirstStepOutput());
+			sink.accept(new FirstStepOutput());
+			return callLatch(myFirstStepLatch, step);
+		};
+		IJobStepWorker<TestJobParameters, FirstStepOutput, VoidModel> lastStep = (step, sink) -> callLatch(myLastStepLatch, step);
+
+		String jobDefId = new Exception().getStackTrace()[0].getMethodName();
+		JobDefinition<? extends IModelJson> definition = buildGatedJobDefinition(jobDefId, firstStep, lastStep);
+
+		myJobDefinitionRegistry.addJobDefinition(definition);
+
+		JobInstanceStartRequest request = buildRequest(jobDefId);
+
+		myFirstStepLatch.setExpectedCount(1);
+		myLastStepLatch.setExpectedCount(2);
+		Batch2JobStartResponse startResponse = myJobCoordinator.startInstance(request);
+		String instanceId = startResponse.getInstanceId();
+		myFirstStepLatch.awaitExpected();
+
+		// No maintenance pass is run here, the completion of the first step chunk advances the job
+		myLastStepLatch.awaitExpected();
+		await().until(() -> myJobPersistence.fetchInstance(instanceId).orElseThrow().getStatus(), equalTo(StatusEnum.COMPLETED));
+	}
+
 	@Test
 	public void JobExecutionFailedException_CausesInstanceFailure() {
 		// setup
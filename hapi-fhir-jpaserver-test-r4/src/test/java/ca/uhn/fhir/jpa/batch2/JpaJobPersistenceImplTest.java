@@ -11,6 +11,8 @@ import ca.uhn.fhir.batch2.model.WorkChunkCreateEvent;
 import ca.uhn.fhir.batch2.model.WorkChunkErrorEvent;
 import ca.uhn.fhir.batch2.model.WorkChunkStatusEnum;
 import ca.uhn.fhir.batch2.models.JobInstanceFetchRequest;
+import ca.uhn.fhir.batch2.util.WorkChunkDataCodec;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.data.IBatch2JobInstanceRepository;
 import ca.uhn.fhir.jpa.dao.data.IBatch2WorkChunkRepository;
 import ca.uhn.fhir.jpa.entity.Batch2JobInstanceEntity;
@@ -20,6 +22,7 @@ import ca.uhn.fhir.util.JsonUtil;
 import ca.uhn.hapi.fhir.batch2.test.AbstractIJobPersistenceSpecificationTest;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -50,6 +53,8 @@ import java.util.stream.Collectors;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -451,6 +456,29 @@ public class JpaJobPersistenceImplTest extends BaseJpaR4Test {
 		runInTransaction(() -> assertEquals(WorkChunkStatusEnum.IN_PROGRESS, myWorkChunkRepository.findById(id).orElseThrow(IllegalArgumentException::new).getStatus()));
 	}
 
+	@Test
+	public void testStoreAndFetchWorkChunk_WithCompressedData() {
+		myStorageSettings.setJobWorkChunkDataCompressionEnabled(true);
+		try {
+			JobInstance instance = createInstance();
+			String instanceId = mySvc.storeNewInstance(instance);
+
+			String data = JsonUtil.serialize(new NdJsonFileJson().setNdJsonText(StringUtils.repeat("{\"resourceType\":\"Patient\"}\n", 100)));
+			String id = storeWorkChunk(JOB_DEFINITION_ID, TARGET_STEP_ID, instanceId, 0, data);
+
+			runInTransaction(() -> {
+				String storedData = myWorkChunkRepository.findById(id).orElseThrow(IllegalArgumentException::new).getSerializedData();
+				assertThat(storedData, startsWith(WorkChunkDataCodec.GZIP_PREFIX));
+				assertThat(storedData.length(), lessThan(data.length()));
+			});
+
+			WorkChunk chunk = mySvc.onWorkChunkDequeue(id).orElseThrow(IllegalArgumentException::new);
+			assertEquals(data, chunk.getData());
+		} finally {
+			myStorageSettings.setJobWorkChunkDataCompressionEnabled(new JpaStorageSettings().isJobWorkChunkDataCompressionEnabled());
+		}
+	}
+
 	@Test
 	public void testMarkChunkAsCompleted_Success() {
 		JobInstance instance = createInstance();
@@ -31,6 +31,7 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.Basic;
 import org.hl7.fhir.r4.model.Binary;
+import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.CarePlan;
 import org.hl7.fhir.r4.model.Device;
 import org.hl7.fhir.r4.model.DocumentReference;
@@ -79,9 +80,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import static ca.uhn.fhir.jpa.dao.r4.FhirResourceDaoR4TagsInlineTest.createSearchParameterForInlineSecurity;
+import static ca.uhn.fhir.util.TestUtil.sleepAtLeast;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.matchesPattern;
@@ -103,6 +106,8 @@ public class BulkDataExportTest extends BaseResourceProviderR4Test {
 		myStorageSettings.setIndexMissingFields(JpaStorageSettings.IndexEnabledEnum.DISABLED);
 		myStorageSettings.setTagStorageMode(new JpaStorageSettings().getTagStorageMode());
 		myStorageSettings.setResourceClientIdStrategy(new JpaStorageSettings().getResourceClientIdStrategy());
+		myStorageSettings.setBulkExportFetchRangeCount(new JpaStorageSettings().getBulkExportFetchRangeCount());
+		myStorageSettings.setBulkExportIncrementalModeEnabled(new JpaStorageSettings().isBulkExportIncrementalModeEnabled());
 	}
 
 	@BeforeEach
@@ -803,6 +808,81 @@ public class BulkDataExportTest extends BaseResourceProviderR4Test {
 		assertEquals(40, finalJobInstance.getCombinedRecordsProcessed());
 	}
 
+	@Test
+	public void testSystemBulkExport_SplitIntoFetchRanges() {
+		myStorageSettings.setBulkExportFetchRangeCount(4);
+
+		List<String> expectedIds = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			expectedIds.add(createPatient(withActiveTrue()).getValue());
+			expectedIds.add(createObservation(withStatus("final")).getValue());
+		}
+
+		final BulkExportJobParameters options = new BulkExportJobParameters();
+		options.setResourceTypes(Set.of("Patient", "Observation"));
+		options.setExportStyle(BulkExportJobParameters.ExportStyle.SYSTEM);
+		options.setOutputFormat(Constants.CT_FHIR_NDJSON);
+
+		JobInstance finalJobInstance = verifyBulkExportResults(options, expectedIds, List.of());
+		assertEquals(40, finalJobInstance.getCombinedRecordsProcessed());
+	}
+
+	@Test
+	public void testSystemBulkExport_IncrementalMode() throws IOException {
+		myStorageSettings.setBulkExportIncrementalModeEnabled(true);
+
+		String unchangedId = createPatient(withActiveTrue()).getValue();
+		IIdType updatedId = createPatient(withActiveTrue()).toUnqualifiedVersionless();
+		IIdType deletedId = createPatient(withId("DELETED"), withActiveTrue()).toUnqualifiedVersionless();
+		IIdType deletedBeforeSinceId = createPatient(withActiveTrue()).toUnqualifiedVersionless();
+		myPatientDao.delete(deletedBeforeSinceId, mySrd);
+
+		sleepAtLeast(10);
+		Date since = new Date();
+		sleepAtLeast(10);
+
+		String createdId = createPatient(withActiveTrue()).getValue();
+		Patient patient = myPatientDao.read(updatedId, mySrd);
+		patient.setActive(false);
+		myPatientDao.update(patient, mySrd);
+		myPatientDao.delete(deletedId, mySrd);
+
+		BulkExportJobParameters options = new BulkExportJobParameters();
+		options.setResourceTypes(Set.of("Patient"));
+		options.setExportStyle(BulkExportJobParameters.ExportStyle.SYSTEM);
+		options.setOutputFormat(Constants.CT_FHIR_NDJSON);
+		options.setSince(since);
+
+		Batch2JobStartResponse startResponse = startNewJob(options);
+		JobInstance jobInstance = myBatch2JobHelper.awaitJobCompletion(startResponse.getInstanceId(), 120);
+		BulkExportJobResults results = JsonUtil.deserialize(jobInstance.getReport(), BulkExportJobResults.class);
+
+		// The changed resources are exported
+		Set<String> exportedIds = new HashSet<>();
+		for (String binaryId : results.getResourceTypeToBinaryIds().get("Patient")) {
+			Binary binary = myBinaryDao.read(new IdType(binaryId), mySrd);
+			String contents = new String(binary.getContent(), Constants.CHARSET_UTF8);
+			try (var iter = new LineIterator(new StringReader(contents))) {
+				iter.forEachRemaining(t -> {
+					IBaseResource next = myFhirContext.newJsonParser().parseResource(t);
+					exportedIds.add(next.getIdElement().toUnqualifiedVersionless().getValue());
+				});
+			}
+		}
+		assertThat(exportedIds, containsInAnyOrder(createdId, updatedId.getValue()));
+		assertThat(exportedIds, not(hasItem(unchangedId)));
+
+		// ..and the resources deleted since then are listed in a transaction Bundle
+		assertEquals(1, results.getDeletedBinaryIds().size());
+		Binary binary = myBinaryDao.read(new IdType(results.getDeletedBinaryIds().get(0)), mySrd);
+		String contents = new String(binary.getContent(), Constants.CHARSET_UTF8);
+		Bundle deletedBundle = myFhirContext.newJsonParser().parseResource(Bundle.class, contents.trim());
+		assertEquals(Bundle.BundleType.TRANSACTION, deletedBundle.getType());
+		assertEquals(1, deletedBundle.getEntry().size());
+		assertEquals(Bundle.HTTPVerb.DELETE, deletedBundle.getEntry().get(0).getRequest().getMethod());
+		assertEquals(deletedId.getValue(), deletedBundle.getEntry().get(0).getRequest().getUrl());
+	}
+
 	@Test
 	public void testSystemBulkExport_ClientIdModeNone() {
 		myStorageSettings.setResourceClientIdStrategy(JpaStorageSettings.ClientIdStrategyEnum.NOT_ALLOWED);
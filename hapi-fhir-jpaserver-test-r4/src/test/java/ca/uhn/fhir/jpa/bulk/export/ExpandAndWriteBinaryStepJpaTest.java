@@ -0,0 +1,189 @@
+package ca.uhn.fhir.jpa.bulk.export;
+
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.api.RunOutcome;
+import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.batch2.jobs.export.ExpandAndWriteBinaryStep;
+import ca.uhn.fhir.batch2.jobs.export.models.BulkExportBinaryFileId;
+import ca.uhn.fhir.batch2.jobs.export.models.ResourceIdList;
+import ca.uhn.fhir.batch2.jobs.models.BatchResourceId;
+import ca.uhn.fhir.batch2.model.JobInstance;
+import ca.uhn.fhir.interceptor.api.IAnonymousInterceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.binstore.MemoryBinaryStorageSvcImpl;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.util.HapiExtensions;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Binary;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ExpandAndWriteBinaryStepJpaTest extends BaseJpaR4Test {
+
+	@Autowired
+	private ExpandAndWriteBinaryStep myExpandAndWriteBinaryStep;
+	@Autowired
+	private MemoryBinaryStorageSvcImpl myMemoryBinaryStorageSvc;
+
+	@Mock
+	private IJobDataSink<BulkExportBinaryFileId> mySink;
+	@Captor
+	private ArgumentCaptor<BulkExportBinaryFileId> myBinaryFileIdCaptor;
+
+	@Override
+	public void afterCleanupDao() {
+		super.afterCleanupDao();
+
+		myStorageSettings.setBulkExportFileMaximumSize(new JpaStorageSettings().getBulkExportFileMaximumSize());
+		myMemoryBinaryStorageSvc.setMinimumBinarySize(0);
+		myMemoryBinaryStorageSvc.clear();
+	}
+
+	@Test
+	public void testWriteInline() {
+		// Setup
+		StepExecutionDetails<BulkExportJobParameters, ResourceIdList> details = createPatientsAndStepDetails(10);
+
+		// Test
+		RunOutcome outcome = myExpandAndWriteBinaryStep.run(details, mySink);
+
+		// Verify
+		assertEquals(10, outcome.getRecordsProcessed());
+		verify(mySink, times(1)).accept(myBinaryFileIdCaptor.capture());
+		BulkExportBinaryFileId fileId = myBinaryFileIdCaptor.getValue();
+		assertEquals("Patient", fileId.getResourceType());
+
+		Binary binary = myBinaryDao.read(new IdType(fileId.getBinaryId()), mySrd);
+		assertEquals(Constants.CT_FHIR_NDJSON, binary.getContentType());
+		String contents = new String(binary.getContent(), StandardCharsets.UTF_8);
+		assertEquals(10, contents.split("\n").length);
+		assertThat(contents, containsString("\"resourceType\":\"Patient\""));
+	}
+
+	@Test
+	public void testWriteWithRollover() {
+		// Setup
+		myStorageSettings.setBulkExportFileMaximumSize(1);
+		StepExecutionDetails<BulkExportJobParameters, ResourceIdList> details = createPatientsAndStepDetails(5);
+
+		// Test
+		RunOutcome outcome = myExpandAndWriteBinaryStep.run(details, mySink);
+
+		// Verify
+		assertEquals(5, outcome.getRecordsProcessed());
+		verify(mySink, times(5)).accept(myBinaryFileIdCaptor.capture());
+		for (BulkExportBinaryFileId next : myBinaryFileIdCaptor.getAllValues()) {
+			Binary binary = myBinaryDao.read(new IdType(next.getBinaryId()), mySrd);
+			String contents = new String(binary.getContent(), StandardCharsets.UTF_8);
+			assertEquals(1, contents.split("\n").length);
+		}
+	}
+
+	@Test
+	public void testFailurePartwayThroughChunk_DeletesStoredBinaries() {
+		// Setup
+		myStorageSettings.setBulkExportFileMaximumSize(1);
+		StepExecutionDetails<BulkExportJobParameters, ResourceIdList> details = createPatientsAndStepDetails(5);
+
+		// Fail while storing the third file
+		AtomicInteger binaryCount = new AtomicInteger();
+		IAnonymousInterceptor interceptor = (thePointcut, theArgs) -> {
+			IBaseResource resource = theArgs.get(IBaseResource.class);
+			if (resource instanceof Binary && binaryCount.incrementAndGet() == 3) {
+				throw new InternalErrorException("Failed to store Binary");
+			}
+		};
+		myInterceptorRegistry.registerAnonymousInterceptor(Pointcut.STORAGE_PRESTORAGE_RESOURCE_CREATED, interceptor);
+		try {
+
+			// Test
+			InternalErrorException e = assertThrows(InternalErrorException.class, () -> myExpandAndWriteBinaryStep.run(details, mySink));
+
+			// Verify
+			assertEquals("Failed to store Binary", e.getMessage());
+			assertEquals(3, binaryCount.get());
+			verify(mySink, never()).accept(any(BulkExportBinaryFileId.class));
+			assertEquals(0, myBinaryDao.search(SearchParameterMap.newSynchronous(), mySrd).size());
+		} finally {
+			myInterceptorRegistry.unregisterInterceptor(interceptor);
+		}
+	}
+
+	@Test
+	public void testWriteToBinaryStorage() {
+		// Setup
+		myInterceptorRegistry.registerInterceptor(myBinaryStorageInterceptor);
+		try {
+			StepExecutionDetails<BulkExportJobParameters, ResourceIdList> details = createPatientsAndStepDetails(10);
+
+			// Test
+			myExpandAndWriteBinaryStep.run(details, mySink);
+
+			// Verify
+			verify(mySink, times(1)).accept(myBinaryFileIdCaptor.capture());
+			IdType binaryId = new IdType(myBinaryFileIdCaptor.getValue().getBinaryId());
+
+			// The stored Binary only references the externalized contents
+			myInterceptorRegistry.unregisterInterceptor(myBinaryStorageInterceptor);
+			Binary binary = myBinaryDao.read(binaryId, mySrd);
+			assertNotNull(binary.getContentElement().getExtensionByUrl(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID));
+			assertNull(binary.getContent());
+
+			// ..but reading it with the interceptor registered inflates them
+			myInterceptorRegistry.registerInterceptor(myBinaryStorageInterceptor);
+			binary = myBinaryDao.read(binaryId, mySrd);
+			String contents = new String(binary.getContent(), StandardCharsets.UTF_8);
+			assertEquals(10, contents.split("\n").length);
+			assertTrue(contents.startsWith("{\"resourceType\":\"Patient\""));
+		} finally {
+			myInterceptorRegistry.unregisterInterceptor(myBinaryStorageInterceptor);
+		}
+	}
+
+	private StepExecutionDetails<BulkExportJobParameters, ResourceIdList> createPatientsAndStepDetails(int theCount) {
+		List<Long> ids = IntStream.range(0, theCount)
+			.boxed()
+			.map(t -> {
+				Patient p = new Patient();
+				p.addName().setFamily("FAMILY" + t);
+				return myPatientDao.create(p, mySrd).getId().getIdPartAsLong();
+			}).toList();
+
+		ResourceIdList resourceList = new ResourceIdList();
+		resourceList.setResourceType("Patient");
+		resourceList.setIds(ids.stream().map(t -> new BatchResourceId().setResourceType("Patient").setId(Long.toString(t))).toList());
+
+		BulkExportJobParameters params = new BulkExportJobParameters();
+		JobInstance jobInstance = new JobInstance();
+		jobInstance.setInstanceId("INSTANCE-ID");
+		return new StepExecutionDetails<>(params, resourceList, jobInstance, "ABC");
+	}
+
+}
@@ -5,8 +5,10 @@ import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.data.IForcedIdDao;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
+import ca.uhn.fhir.jpa.model.cross.JpaResourceLookup;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,14 +26,17 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -102,8 +107,7 @@ public class IdHelperServiceTest {
 			.thenReturn(true);
 		when(myForcedIdDao.findAndResolveByForcedIdWithNoType(Mockito.anyString(),
 			Mockito.anyList(), Mockito.anyBoolean()))
-			.thenReturn(Collections.singletonList(redView))
-			.thenReturn(Collections.singletonList(blueView));
+			.thenReturn(Arrays.asList(redView, blueView));
 
 		// test
 		Map<String, JpaPid> map = myHelperService.resolveResourcePersistentIds(
@@ -117,6 +121,33 @@ public class IdHelperServiceTest {
 		}
 	}
 
+	@Test
+	public void resolveResourcePersistentIds_withForcedIdsAndDeleteEnabled_oneMissing_throws() {
+		RequestPartitionId partitionId = RequestPartitionId.allPartitions();
+		List<String> patientIdsToResolve = List.of("RED", "BLUE");
+
+		Object[] redView = new Object[] {
+			"Patient",
+			123l,
+			"RED",
+			null
+		};
+
+		// when
+		when(myStorageSettings.isDeleteEnabled())
+			.thenReturn(true);
+		when(myForcedIdDao.findAndResolveByForcedIdWithNoType(Mockito.anyString(),
+			Mockito.anyList(), Mockito.anyBoolean()))
+			.thenReturn(Collections.singletonList(redView));
+
+		// test
+		ResourceNotFoundException e = assertThrows(ResourceNotFoundException.class, () -> myHelperService.resolveResourcePersistentIds(
+			partitionId,
+			"Patient",
+			patientIdsToResolve));
+		assertEquals("HAPI-2456: Resource Patient/BLUE is not known", e.getMessage());
+	}
+
 	@Test
 	public void resolveResourcePersistenIds_withForcedIdAndDeleteDisabled_returnsMap() {
 		RequestPartitionId partitionId = RequestPartitionId.allPartitions();
@@ -129,9 +160,7 @@ public class IdHelperServiceTest {
 		JpaPid blue = JpaPid.fromIdAndVersion(456L, 456L);
 
 		// we will pretend the lookup value is in the cache
-		when(myMemoryCacheService.getThenPutAfterCommit(any(MemoryCacheService.CacheEnum.class),
-			Mockito.anyString(),
-			any(Function.class)))
+		when(myMemoryCacheService.getIfPresent(any(MemoryCacheService.CacheEnum.class), Mockito.anyString()))
 			.thenReturn(red)
 			.thenReturn(blue);
 
@@ -181,7 +210,7 @@ public class IdHelperServiceTest {
 		JpaPid resourcePersistentId1 = JpaPid.fromId(1L);
 		JpaPid resourcePersistentId2 = JpaPid.fromId(2L);
 		JpaPid resourcePersistentId3 = JpaPid.fromId(3L);
-		when(myMemoryCacheService.getThenPutAfterCommit(any(), any(), any()))
+		when(myMemoryCacheService.getIfPresent(any(), any()))
 			.thenReturn(resourcePersistentId1)
 			.thenReturn(resourcePersistentId2)
 			.thenReturn(resourcePersistentId3);
@@ -201,8 +230,53 @@ public class IdHelperServiceTest {
 
 		JpaPid jpaPid1 = JpaPid.fromId(id);
 		when(myStorageSettings.getResourceClientIdStrategy()).thenReturn(JpaStorageSettings.ClientIdStrategyEnum.ANY);
-		when(myMemoryCacheService.getThenPutAfterCommit(any(), any(), any())).thenReturn(jpaPid1);
+		when(myMemoryCacheService.getIfPresent(any(), any())).thenReturn(jpaPid1);
 		JpaPid result = myHelperService.resolveResourcePersistentIds(partitionId, resourceType, id.toString());
 		assertEquals(id, result.getId());
 	}
+
+	@Test
+	public void resolveResourcePersistentIds_withForcedIdsAndDeleteEnabled_resolvesInOneQuery() {
+		RequestPartitionId partitionId = RequestPartitionId.allPartitions();
+		Object[] redView = new Object[] {"Patient", 123L, "RED", null};
+		Object[] blueView = new Object[] {"Patient", 456L, "BLUE", null};
+		when(myStorageSettings.isDeleteEnabled()).thenReturn(true);
+		when(myForcedIdDao.findAndResolveByForcedIdWithNoType(Mockito.anyString(), Mockito.anyList(), Mockito.anyBoolean()))
+			.thenReturn(Arrays.asList(redView, blueView));
+
+		Map<String, JpaPid> map = myHelperService.resolveResourcePersistentIds(partitionId, "Patient", Arrays.asList("RED", "BLUE"));
+
+		assertEquals(123L, map.get("RED").getId());
+		assertEquals(456L, map.get("BLUE").getId());
+		verify(myForcedIdDao, times(1)).findAndResolveByForcedIdWithNoType(Mockito.anyString(), Mockito.anyList(), Mockito.anyBoolean());
+	}
+
+	@Test
+	public void testResolveResourceIdentity_deleteEnabledWithBroadcast_usesLookupCache() {
+		RequestPartitionId partitionId = RequestPartitionId.allPartitions();
+		JpaResourceLookup deleted = new JpaResourceLookup("Patient", 1L, new Date());
+		when(myStorageSettings.isDeleteEnabled()).thenReturn(true);
+		when(myStorageSettings.isIdCacheInvalidationBroadcastEnabled()).thenReturn(true);
+		when(myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, "Patient/AAA")).thenReturn(deleted);
+
+		IResourceLookup<JpaPid> result = myHelperService.resolveResourceIdentity(partitionId, "Patient", "AAA");
+		assertEquals(1L, result.getPersistentId().getId());
+
+		// A cached deleted resource is not returned when deleted resources are excluded
+		assertThrows(ResourceNotFoundException.class, () -> myHelperService.resolveResourceIdentity(partitionId, "Patient", "AAA", true));
+		verifyNoInteractions(myForcedIdDao);
+	}
+
+	@Test
+	public void testResolveResourceIdentity_withBroadcast_usesNotFoundCache() {
+		RequestPartitionId partitionId = RequestPartitionId.allPartitions();
+		when(myStorageSettings.isDeleteEnabled()).thenReturn(true);
+		when(myStorageSettings.isIdCacheInvalidationBroadcastEnabled()).thenReturn(true);
+		when(myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, "Patient/AAA")).thenReturn(null);
+		when(myMemoryCacheService.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_NOT_FOUND, "Patient/AAA"))
+			.thenReturn(RequestPartitionId.stringifyForKey(partitionId));
+
+		assertThrows(ResourceNotFoundException.class, () -> myHelperService.resolveResourceIdentity(partitionId, "Patient", "AAA"));
+		verifyNoInteractions(myForcedIdDao);
+	}
 }
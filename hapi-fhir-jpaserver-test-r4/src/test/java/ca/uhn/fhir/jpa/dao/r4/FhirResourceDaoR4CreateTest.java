@@ -74,7 +74,9 @@ import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -121,6 +123,55 @@ public class FhirResourceDaoR4CreateTest extends BaseJpaR4Test {
 
 
 
+	@Test
+	public void testCreateAll() {
+		Patient p = new Patient();
+		p.setId("Patient/A");
+		p.setActive(true);
+		myPatientDao.update(p, mySrd);
+		IIdType patientId2 = myPatientDao.create(new Patient(), mySrd).getId().toUnqualifiedVersionless();
+
+		List<Observation> observations = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Observation obs = new Observation();
+			obs.setId("Observation/IGNORED" + i);
+			obs.setStatus(Observation.ObservationStatus.FINAL);
+			obs.setSubject(new Reference(i % 2 == 0 ? "Patient/A" : patientId2.getValue()));
+			observations.add(obs);
+		}
+
+		List<DaoMethodOutcome> outcomes = myObservationDao.createAll(observations, mySrd);
+		assertEquals(10, outcomes.size());
+		for (DaoMethodOutcome next : outcomes) {
+			assertTrue(next.getCreated());
+			assertThat(next.getId().getIdPart(), not(startsWith("IGNORED")));
+		}
+
+		assertEquals(5, myObservationDao.search(SearchParameterMap.newSynchronous("patient", new ReferenceParam("Patient/A")), mySrd).sizeOrThrowNpe());
+		assertEquals(5, myObservationDao.search(SearchParameterMap.newSynchronous("patient", new ReferenceParam(patientId2.getValue())), mySrd).sizeOrThrowNpe());
+	}
+
+	@Test
+	public void testCreateAll_InvalidReferenceRollsBackAll() {
+		Patient p = new Patient();
+		p.setId("Patient/A");
+		myPatientDao.update(p, mySrd);
+
+		Observation valid = new Observation();
+		valid.setSubject(new Reference("Patient/A"));
+		Observation invalid = new Observation();
+		invalid.setSubject(new Reference("Patient/DOES-NOT-EXIST"));
+
+		try {
+			myObservationDao.createAll(List.of(valid, invalid), mySrd);
+			fail();
+		} catch (InvalidRequestException e) {
+			assertThat(e.getMessage(), containsString("Resource Patient/DOES-NOT-EXIST not found"));
+		}
+
+		assertEquals(0, myObservationDao.search(SearchParameterMap.newSynchronous(), mySrd).sizeOrThrowNpe());
+	}
+
 	@Test
 	public void testCreateLinkCreatesAppropriatePaths() {
 		Patient p = new Patient();
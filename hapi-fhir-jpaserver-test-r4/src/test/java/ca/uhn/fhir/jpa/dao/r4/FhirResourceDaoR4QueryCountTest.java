@@ -2155,7 +2155,7 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 		myCaptureQueriesListener.clear();
 		mySystemDao.transaction(mySrd, input);
 		myCaptureQueriesListener.logSelectQueriesForCurrentThread();
-		assertEquals(2, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
+		assertEquals(1, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
 		assertEquals(7, runInTransaction(() -> myResourceTableDao.count()));
 
 		// Second identical pass
@@ -2646,10 +2646,10 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 		Bundle output = mySystemDao.transaction(mySrd, input);
 		ourLog.debug(myFhirContext.newJsonParser().setPrettyPrint(true).encodeResourceToString(output));
 
-		// Lookup the two existing IDs to make sure they are legit
+		// Lookup the two existing IDs to make sure they are legit (in a single query)
 		myCaptureQueriesListener.logInsertQueriesForCurrentThread();
 		myCaptureQueriesListener.logUpdateQueriesForCurrentThread();
-		assertEquals(2, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
+		assertEquals(1, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
 		assertEquals(10, myCaptureQueriesListener.countInsertQueriesForCurrentThread());
 		assertEquals(0, myCaptureQueriesListener.countUpdateQueriesForCurrentThread());
 		assertEquals(0, myCaptureQueriesListener.countDeleteQueriesForCurrentThread());
@@ -2675,15 +2675,77 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 		output = mySystemDao.transaction(mySrd, input);
 		ourLog.debug(myFhirContext.newJsonParser().setPrettyPrint(true).encodeResourceToString(output));
 
-		// Lookup the two existing IDs to make sure they are legit
+		// Lookup the two existing IDs to make sure they are legit (in a single query)
 		myCaptureQueriesListener.logSelectQueriesForCurrentThread();
-		assertEquals(2, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
+		assertEquals(1, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
 		assertEquals(10, myCaptureQueriesListener.countInsertQueriesForCurrentThread());
 		assertEquals(0, myCaptureQueriesListener.countUpdateQueriesForCurrentThread());
 		assertEquals(0, myCaptureQueriesListener.countDeleteQueriesForCurrentThread());
 
 	}
 
+	/**
+	 * See the class javadoc before changing the counts in this test!
+	 */
+	@Test
+	public void testTransactionWithManyReferencesToSameTargets_ForcedId() {
+		for (int i = 0; i < 4; i++) {
+			Patient patient = new Patient();
+			patient.setId("Patient/P" + i);
+			patient.setActive(true);
+			myPatientDao.update(patient, mySrd);
+
+			Encounter encounter = new Encounter();
+			encounter.setId("Encounter/E" + i);
+			encounter.setStatus(Encounter.EncounterStatus.FINISHED);
+			myEncounterDao.update(encounter, mySrd);
+		}
+		myMemoryCacheService.invalidateAllCaches();
+
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		for (int i = 0; i < 20; i++) {
+			Observation obs = new Observation();
+			obs.setStatus(Observation.ObservationStatus.FINAL);
+			obs.setSubject(new Reference("Patient/P" + (i % 4)));
+			obs.setEncounter(new Reference("Encounter/E" + (i % 4)));
+			bb.addTransactionCreateEntry(obs);
+		}
+		Bundle input = (Bundle) bb.getBundle();
+
+		myCaptureQueriesListener.clear();
+		mySystemDao.transaction(mySrd, input);
+
+		// One query per target resource type resolves all of the references
+		myCaptureQueriesListener.logSelectQueriesForCurrentThread();
+		assertEquals(2, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
+		assertEquals(28, runInTransaction(() -> myResourceTableDao.count()));
+	}
+
+	/**
+	 * See the class javadoc before changing the counts in this test!
+	 */
+	@Test
+	public void testTransactionWithReferencesToMissingTargets_AutoCreatePlaceholders() {
+		myStorageSettings.setAutoCreatePlaceholderReferenceTargets(true);
+
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		for (int i = 0; i < 10; i++) {
+			Observation obs = new Observation();
+			obs.setStatus(Observation.ObservationStatus.FINAL);
+			obs.setSubject(new Reference("Patient/P" + (i % 2)));
+			bb.addTransactionCreateEntry(obs);
+		}
+		Bundle input = (Bundle) bb.getBundle();
+
+		myCaptureQueriesListener.clear();
+		mySystemDao.transaction(mySrd, input);
+
+		// The missing targets are looked up once, and not again when the placeholders are created
+		myCaptureQueriesListener.logSelectQueriesForCurrentThread();
+		assertEquals(1, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
+		assertEquals(12, runInTransaction(() -> myResourceTableDao.count()));
+	}
+
 	/**
 	 * See the class javadoc before changing the counts in this test!
 	 */
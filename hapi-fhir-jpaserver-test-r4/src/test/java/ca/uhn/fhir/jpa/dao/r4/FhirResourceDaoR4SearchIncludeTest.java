@@ -4,6 +4,7 @@ import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.search.PersistedJpaSearchFirstPageBundleProvider;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.jpa.util.SqlQuery;
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateParam;
@@ -39,6 +40,8 @@ import java.util.stream.IntStream;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -49,6 +52,45 @@ public class FhirResourceDaoR4SearchIncludeTest extends BaseJpaR4Test {
 	@AfterEach
 	public void afterEach() {
 		myStorageSettings.setMaximumIncludesToLoadPerPage(JpaStorageSettings.DEFAULT_MAXIMUM_INCLUDES_TO_LOAD_PER_PAGE);
+		myStorageSettings.setIncludeLoadingPoolSize(new JpaStorageSettings().getIncludeLoadingPoolSize());
+	}
+
+	@Test
+	public void testRevIncludesLoadedInParallel() {
+		myStorageSettings.setIncludeLoadingPoolSize(4);
+
+		Patient patient = new Patient();
+		patient.setId("P");
+		myPatientDao.update(patient, mySrd);
+		CarePlan carePlan = new CarePlan();
+		carePlan.setId("CP");
+		carePlan.setSubject(new Reference("Patient/P"));
+		myCarePlanDao.update(carePlan, mySrd);
+		Procedure procedure = new Procedure();
+		procedure.setId("PROC");
+		procedure.setSubject(new Reference("Patient/P"));
+		myProcedureDao.update(procedure, mySrd);
+
+		myCaptureQueriesListener.clear();
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add("_id", new TokenParam("P"))
+			.addRevInclude(CarePlan.INCLUDE_SUBJECT)
+			.addRevInclude(Procedure.INCLUDE_SUBJECT);
+		IBundleProvider results = myPatientDao.search(map, mySrd);
+		List<String> ids = toUnqualifiedVersionlessIdValues(results);
+		assertThat(ids.toString(), ids, containsInAnyOrder("Patient/P", "CarePlan/CP", "Procedure/PROC"));
+
+		// The include pool only has one thread in this context (it is sized when the context starts), so a query
+		// which finds no idle worker is run by the searching thread rather than waiting while holding a connection
+		List<SqlQuery> revIncludeQueries = myCaptureQueriesListener
+			.getSelectQueries()
+			.stream()
+			.filter(t -> t.getSql(false, false).contains("src_path"))
+			.collect(Collectors.toList());
+		assertEquals(2, revIncludeQueries.size());
+		List<String> threadNames = revIncludeQueries.stream().map(SqlQuery::getThreadName).collect(Collectors.toList());
+		assertThat(threadNames, hasItem(startsWith("search-include-")));
+		assertThat(threadNames, hasItem(Thread.currentThread().getName()));
 	}
 
 	@Test
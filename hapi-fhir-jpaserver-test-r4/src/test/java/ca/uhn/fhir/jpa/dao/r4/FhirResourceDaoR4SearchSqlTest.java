@@ -9,7 +9,9 @@ import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenParam;
 import ca.uhn.fhir.rest.param.UriParam;
 import org.hamcrest.Matchers;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Enumerations;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.SearchParameter;
 import org.junit.jupiter.api.AfterEach;
@@ -26,7 +28,9 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class FhirResourceDaoR4SearchSqlTest extends BaseJpaR4Test {
@@ -43,6 +47,9 @@ public class FhirResourceDaoR4SearchSqlTest extends BaseJpaR4Test {
 	@AfterEach
 	public void after() {
 		myStorageSettings.setTagStorageMode(JpaStorageSettings.DEFAULT_TAG_STORAGE_MODE);
+		myStorageSettings.setSearchPredicateOrderingEnabled(new JpaStorageSettings().isSearchPredicateOrderingEnabled());
+		myStorageSettings.setSearchResourceBulkLoadEnabled(new JpaStorageSettings().isSearchResourceBulkLoadEnabled());
+		myStorageSettings.setSearchResourceParsePoolSize(new JpaStorageSettings().getSearchResourceParsePoolSize());
 	}
 
 	/**
@@ -78,6 +85,40 @@ public class FhirResourceDaoR4SearchSqlTest extends BaseJpaR4Test {
 
 	}
 
+	/**
+	 * With predicate ordering enabled, the most selective parameter should be joined first
+	 * regardless of the order the parameters were supplied in
+	 */
+	@Test
+	public void testTwoRegularSearchParams_PredicateOrdering() {
+		myStorageSettings.setSearchPredicateOrderingEnabled(true);
+		for (int i = 0; i < 10; i++) {
+			Patient p = new Patient();
+			p.setGender(Enumerations.AdministrativeGender.MALE);
+			p.addIdentifier().setSystem("http://foo").setValue("common");
+			myPatientDao.create(p, mySrd);
+		}
+		Patient p = new Patient();
+		p.setGender(Enumerations.AdministrativeGender.MALE);
+		p.addIdentifier().setSystem("http://foo").setValue("rare");
+		IIdType id = myPatientDao.create(p, mySrd).getId().toUnqualifiedVersionless();
+
+		myCaptureQueriesListener.clear();
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add(Patient.SP_GENDER, new TokenParam("male"))
+			.add(Patient.SP_IDENTIFIER, new TokenParam("http://foo", "rare"));
+		IBundleProvider outcome = myPatientDao.search(map, mySrd);
+		assertThat(toUnqualifiedVersionlessIdValues(outcome), contains(id.getValue()));
+
+		// The first queries are the cardinality samples, the search itself is rooted at HFJ_RESOURCE
+		String sql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().stream()
+			.map(t -> t.getSql(false, false))
+			.filter(t -> t.startsWith("SELECT t1.RES_ID FROM HFJ_RESOURCE t1"))
+			.findFirst()
+			.orElseThrow();
+		assertThat(sql, sql.indexOf(".HASH_SYS_AND_VALUE = ?"), lessThan(sql.indexOf(".HASH_VALUE = ?")));
+	}
+
 	@Test
 	public void testSearchByProfile_VersionedMode() {
 
@@ -108,6 +149,60 @@ public class FhirResourceDaoR4SearchSqlTest extends BaseJpaR4Test {
 
 	}
 
+	/**
+	 * The bulk loader should return exactly the same resources as the ResourceSearchView entity
+	 */
+	@Test
+	public void testSearchByProfile_BulkLoad() {
+		String code = "http://" + UUID.randomUUID();
+		for (int i = 0; i < 5; i++) {
+			Patient p = new Patient();
+			p.getMeta().addProfile(code);
+			p.getMeta().addTag("http://tags", "tag" + i, null);
+			p.getMeta().setSource("http://source#request" + i);
+			p.addName().setFamily("Family " + i);
+			if (i == 0) {
+				p.setId("Patient/FORCED");
+				myPatientDao.update(p, mySrd);
+			} else {
+				myPatientDao.create(p, mySrd);
+			}
+		}
+		Patient p = new Patient();
+		p.setId("Patient/FORCED");
+		p.getMeta().addProfile(code);
+		p.addName().setFamily("Updated");
+		myPatientDao.update(p, mySrd);
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add(Constants.PARAM_PROFILE, new TokenParam(code));
+		List<String> expected = encodeAll(myPatientDao.search(map, mySrd).getAllResources());
+		assertEquals(5, expected.size());
+
+		myStorageSettings.setSearchResourceBulkLoadEnabled(true);
+		myStorageSettings.setSearchResourceParsePoolSize(4);
+		myCaptureQueriesListener.clear();
+		map = SearchParameterMap.newSynchronous()
+			.add(Constants.PARAM_PROFILE, new TokenParam(code));
+		List<String> actual = encodeAll(myPatientDao.search(map, mySrd).getAllResources());
+
+		assertEquals(expected, actual);
+		assertThat(actual.get(0), containsString("Updated"));
+		// The page of bodies is loaded by a single bulk load query
+		List<String> bodyQueries = myCaptureQueriesListener.getSelectQueriesForCurrentThread()
+			.stream()
+			.map(t -> t.getSql(false, false))
+			.filter(t -> t.contains("SELECT h.pid AS pid"))
+			.collect(Collectors.toList());
+		assertEquals(1, bodyQueries.size(), bodyQueries.toString());
+	}
+
+	private List<String> encodeAll(List<IBaseResource> theResources) {
+		return theResources.stream()
+			.map(t -> myFhirContext.newJsonParser().encodeResourceToString(t))
+			.collect(Collectors.toList());
+	}
+
 	@Test
 	public void testSearchByProfile_InlineMode() {
 		myStorageSettings.setTagStorageMode(JpaStorageSettings.TagStorageModeEnum.INLINE);
@@ -5,6 +5,7 @@ import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.dao.BaseHapiFhirDao;
+import ca.uhn.fhir.jpa.dao.TransactionProcessor;
 import ca.uhn.fhir.jpa.model.entity.NormalizedQuantitySearchLevel;
 import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
@@ -14,6 +15,7 @@ import ca.uhn.fhir.jpa.model.entity.ResourceTag;
 import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
 import ca.uhn.fhir.jpa.provider.r4.SystemProviderR4Test;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorService;
 import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
@@ -83,7 +85,9 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallback;
@@ -103,6 +107,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -115,6 +120,7 @@ import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.matchesPattern;
 import static org.hamcrest.Matchers.not;
@@ -128,6 +134,9 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 public class FhirSystemDaoR4Test extends BaseJpaR4SystemTest {
@@ -135,6 +144,9 @@ public class FhirSystemDaoR4Test extends BaseJpaR4SystemTest {
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(FhirSystemDaoR4Test.class);
 	private static final String TEST_IDENTIFIER_SYSTEM = "http://some-system.com";
 
+	@Autowired
+	private TransactionProcessor myTransactionProcessor;
+
 	@AfterEach
 	public void after() {
 		JpaStorageSettings defaults = new JpaStorageSettings();
@@ -147,6 +159,7 @@ public class FhirSystemDaoR4Test extends BaseJpaR4SystemTest {
 		myStorageSettings.setPopulateIdentifierInAutoCreatedPlaceholderReferenceTargets(defaults.isPopulateIdentifierInAutoCreatedPlaceholderReferenceTargets());
 		myStorageSettings.setAutoVersionReferenceAtPaths(defaults.getAutoVersionReferenceAtPaths());
 		myStorageSettings.setAutoCreatePlaceholderReferenceTargets(defaults.isAutoCreatePlaceholderReferenceTargets());
+		myStorageSettings.setTransactionIndexingPoolSize(defaults.getTransactionIndexingPoolSize());
 
 		myFhirContext.getParserOptions().setAutoContainReferenceTargetsWithNoId(true);
 	}
@@ -1622,6 +1635,76 @@ public class FhirSystemDaoR4Test extends BaseJpaR4SystemTest {
 
 	}
 
+	@Test
+	public void testTransactionWithParallelIndexing() {
+		myStorageSettings.setTransactionIndexingPoolSize(4);
+
+		Patient existing = new Patient();
+		existing.setId("Patient/EXISTING");
+		existing.setActive(true);
+		myPatientDao.update(existing, mySrd);
+
+		// Patients and the Observations about EXISTING are independent, the rest reference a placeholder
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		for (int i = 0; i < 10; i++) {
+			Patient patient = new Patient();
+			patient.setId(IdType.newRandomUuid());
+			patient.addIdentifier().setSystem("http://foo").setValue("pt" + i);
+			patient.addName().setFamily("Family" + i);
+			bb.addTransactionCreateEntry(patient);
+
+			Observation dependent = new Observation();
+			dependent.getCode().addCoding().setSystem("http://loinc").setCode("dependent" + i);
+			dependent.setSubject(new Reference(patient.getIdElement()));
+			dependent.setValue(new Quantity(i));
+			bb.addTransactionCreateEntry(dependent);
+
+			Observation independent = new Observation();
+			independent.getCode().addCoding().setSystem("http://loinc").setCode("independent" + i);
+			independent.setSubject(new Reference("Patient/EXISTING"));
+			bb.addTransactionCreateEntry(independent);
+		}
+
+		// Record which threads the search parameters are pre-extracted on
+		Set<String> extractionThreadNames = ConcurrentHashMap.newKeySet();
+		SearchParamExtractorService extractorService = (SearchParamExtractorService) ReflectionTestUtils.getField(myTransactionProcessor, "mySearchParamExtractorService");
+		SearchParamExtractorService extractorServiceSpy = spy(extractorService);
+		doAnswer(t -> {
+			extractionThreadNames.add(Thread.currentThread().getName());
+			return t.callRealMethod();
+		}).when(extractorServiceSpy).preExtractSearchIndexParameters(any());
+
+		Bundle output;
+		ReflectionTestUtils.setField(myTransactionProcessor, "mySearchParamExtractorService", extractorServiceSpy);
+		try {
+			output = mySystemDao.transaction(mySrd, (Bundle) bb.getBundle());
+		} finally {
+			ReflectionTestUtils.setField(myTransactionProcessor, "mySearchParamExtractorService", extractorService);
+		}
+		assertEquals(30, output.getEntry().size());
+
+		// The first slice is extracted by the calling thread and the rest by the pool
+		ourLog.info("Search parameters were pre-extracted on threads: {}", extractionThreadNames);
+		assertThat(extractionThreadNames, hasItem(Thread.currentThread().getName()));
+		assertThat(extractionThreadNames, hasItem(startsWith("transaction-index-")));
+
+		for (int i = 0; i < 10; i++) {
+			String patientId = new IdType(output.getEntry().get(i * 3).getResponse().getLocation()).toUnqualifiedVersionless().getValue();
+
+			SearchParameterMap map = SearchParameterMap.newSynchronous("identifier", new TokenParam("http://foo", "pt" + i));
+			map.add("family", new StringParam("Family" + i));
+			assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd)), contains(patientId));
+
+			map = SearchParameterMap.newSynchronous("code", new TokenParam("http://loinc", "dependent" + i));
+			map.add("subject", new ReferenceParam(patientId));
+			assertEquals(1, myObservationDao.search(map, mySrd).size());
+
+			map = SearchParameterMap.newSynchronous("code", new TokenParam("http://loinc", "independent" + i));
+			map.add("subject", new ReferenceParam("Patient/EXISTING"));
+			assertEquals(1, myObservationDao.search(map, mySrd).size());
+		}
+	}
+
 	@Test
 	public void testTransactionWithDuplicateConditionalCreates() {
 		Bundle request = new Bundle();
@@ -13,8 +13,11 @@ import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.batch.models.Batch2JobStartResponse;
+import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
+import ca.uhn.fhir.jpa.bulk.export.model.ExportPIDIteratorParameters;
 import ca.uhn.fhir.jpa.dao.BaseHapiFhirDao;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.ForcedId;
 import ca.uhn.fhir.jpa.model.entity.PartitionablePartitionId;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
@@ -32,6 +35,7 @@ import ca.uhn.fhir.jpa.util.SqlQuery;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
 import ca.uhn.fhir.rest.param.DateAndListParam;
 import ca.uhn.fhir.rest.param.DateOrListParam;
 import ca.uhn.fhir.rest.param.DateParam;
@@ -50,6 +54,7 @@ import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import ca.uhn.fhir.util.BundleBuilder;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.hamcrest.Matchers;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IIdType;
@@ -77,6 +82,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -113,6 +119,8 @@ public class PartitioningSqlR4Test extends BasePartitioningR4Test {
 
 	@Autowired
 	private IJobCoordinator myJobCoordinator;
+	@Autowired
+	private IBulkExportProcessor<JpaPid> myBulkExportProcessor;
 
 	@BeforeEach
 	public void disableAdvanceIndexing() {
@@ -132,6 +140,7 @@ public class PartitioningSqlR4Test extends BasePartitioningR4Test {
 		JpaStorageSettings defaults = new JpaStorageSettings();
 		myStorageSettings.setMarkResourcesForReindexingUponSearchParameterChange(defaults.isMarkResourcesForReindexingUponSearchParameterChange());
 		myStorageSettings.setMatchUrlCacheEnabled(defaults.isMatchUrlCacheEnabled());
+		myStorageSettings.setBulkExportIncrementalModeEnabled(defaults.isBulkExportIncrementalModeEnabled());
 	}
 
 	@Test
@@ -238,6 +247,36 @@ public class PartitioningSqlR4Test extends BasePartitioningR4Test {
 		});
 	}
 
+	@Test
+	public void testTransaction_CrossPartitionReference_ByForcedId_Allowed() {
+		myPartitionSettings.setAllowReferencesAcrossPartitions(PartitionSettings.CrossPartitionReferenceMode.ALLOWED_UNQUALIFIED);
+
+		// Create patient in partition 1
+		addCreatePartition(myPartitionId, myPartitionDate);
+		Patient patient = new Patient();
+		patient.setId("ONE");
+		patient.setActive(true);
+		IIdType patientId = myPatientDao.update(patient, mySrd).getId().toUnqualifiedVersionless();
+
+		// Create observation in partition 2, in a transaction so that the reference is pre-resolved
+		addCreatePartition(myPartitionId2, myPartitionDate2);
+		addCreatePartition(myPartitionId2, myPartitionDate2);
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		Observation obs = new Observation();
+		obs.getSubject().setReference(patientId.getValue());
+		bb.addTransactionCreateEntry(obs);
+		Bundle outcome = mySystemDao.transaction(mySrd, (Bundle) bb.getBundle());
+		IIdType obsId = new IdType(outcome.getEntry().get(0).getResponse().getLocation()).toUnqualifiedVersionless();
+
+		runInTransaction(() -> {
+			List<ResourceLink> resLinks = myResourceLinkDao.findAll();
+			ourLog.info("Resource links:\n{}", resLinks.toString());
+			assertEquals(2, resLinks.size());
+			assertEquals(obsId.getIdPartAsLong(), resLinks.get(0).getSourceResourcePid());
+			assertEquals(patientId.getIdPart(), resLinks.get(0).getTargetResourceId());
+		});
+	}
+
 	@Test
 	public void testCreate_CrossPartitionReference_ByForcedId_NotAllowed() {
 
@@ -861,6 +900,47 @@ public class PartitioningSqlR4Test extends BasePartitioningR4Test {
 
 	}
 
+	@Test
+	public void testBulkExportResourcePidRange() {
+		IIdType patientIdNull = createPatient(withPartition(null), withActiveTrue());
+		IIdType patientId1a = createPatient(withPartition(1), withActiveTrue());
+		IIdType patientId2 = createPatient(withPartition(2), withActiveTrue());
+		IIdType patientId1b = createPatient(withPartition(1), withActiveTrue());
+		IIdType patientId1c = createPatient(withPartition(1), withActiveTrue());
+		myPatientDao.delete(patientId1c, new SystemRequestDetails().setRequestPartitionId(RequestPartitionId.fromPartitionId(1)));
+
+		Pair<Long, Long> range = myBulkExportProcessor.getResourcePidRange("Patient", RequestPartitionId.fromPartitionId(1));
+		assertEquals(Pair.of(patientId1a.getIdPartAsLong(), patientId1b.getIdPartAsLong()), range);
+
+		range = myBulkExportProcessor.getResourcePidRange("Patient", RequestPartitionId.defaultPartition());
+		assertEquals(Pair.of(patientIdNull.getIdPartAsLong(), patientIdNull.getIdPartAsLong()), range);
+
+		range = myBulkExportProcessor.getResourcePidRange("Patient", RequestPartitionId.allPartitions());
+		assertEquals(Pair.of(patientIdNull.getIdPartAsLong(), patientId1b.getIdPartAsLong()), range);
+
+		assertNull(myBulkExportProcessor.getResourcePidRange("Observation", RequestPartitionId.fromPartitionId(2)));
+		assertNotNull(patientId2);
+	}
+
+	@Test
+	public void testBulkExportIncrementalMode_ResourceTablePidsAreInPartition() {
+		myStorageSettings.setBulkExportIncrementalModeEnabled(true);
+		IIdType patientId1a = createPatient(withPartition(1), withActiveTrue());
+		createPatient(withPartition(2), withActiveTrue());
+		createPatient(withPartition(null), withActiveTrue());
+		IIdType patientId1b = createPatient(withPartition(1), withActiveTrue());
+
+		ExportPIDIteratorParameters params = new ExportPIDIteratorParameters();
+		params.setResourceType("Patient");
+		params.setExportStyle(BulkExportJobParameters.ExportStyle.SYSTEM);
+		params.setFilters(List.of());
+		params.setPartitionId(RequestPartitionId.fromPartitionId(1));
+
+		List<Long> pids = new ArrayList<>();
+		myBulkExportProcessor.getResourcePidIterator(params).forEachRemaining(t -> pids.add(t.getId()));
+		assertEquals(List.of(patientId1a.getIdPartAsLong(), patientId1b.getIdPartAsLong()), pids);
+	}
+
 	@Test
 	public void testRead_PidId_AllPartitions() {
 		IIdType patientId1 = createPatient(withPartition(1), withActiveTrue());
@@ -31,6 +31,7 @@ import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.IsNot.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -47,6 +48,7 @@ public class ResourceProviderR4CacheTest extends BaseResourceProviderR4Test {
 		super.after();
 		myStorageSettings.setReuseCachedSearchResultsForMillis(new JpaStorageSettings().getReuseCachedSearchResultsForMillis());
 		myStorageSettings.setCacheControlNoStoreMaxResultsUpperLimit(new JpaStorageSettings().getCacheControlNoStoreMaxResultsUpperLimit());
+		myStorageSettings.setSearchFirstPageMemoryCacheEnabled(new JpaStorageSettings().isSearchFirstPageMemoryCacheEnabled());
 
 		myClient.unregisterInterceptor(myCapturingInterceptor);
 	}
@@ -135,6 +137,71 @@ public class ResourceProviderR4CacheTest extends BaseResourceProviderR4Test {
 		}
 	}
 
+	@Test
+	public void testFirstPageMemoryCache() {
+		myStorageSettings.setSearchFirstPageMemoryCacheEnabled(true);
+
+		Patient pt1 = new Patient();
+		pt1.addName().setFamily("FAM");
+		myClient.create().resource(pt1).execute();
+
+		Bundle results = searchForFamily("FAM", 10);
+		assertEquals(1, results.getEntry().size());
+		assertEquals(1, results.getTotal());
+
+		// Second search should be served from memory
+		myCaptureQueriesListener.clear();
+		results = searchForFamily("FAM", 10);
+		assertEquals(1, results.getEntry().size());
+		assertEquals(0, countStringIndexQueries());
+		runInTransaction(() -> assertEquals(0, mySearchEntityDao.count()));
+
+		// A write to the resource type invalidates the cached results
+		Patient pt2 = new Patient();
+		pt2.addName().setFamily("FAM");
+		myClient.create().resource(pt2).execute();
+
+		myCaptureQueriesListener.clear();
+		results = searchForFamily("FAM", 10);
+		assertEquals(2, results.getEntry().size());
+		assertEquals(1, countStringIndexQueries());
+		runInTransaction(() -> assertEquals(0, mySearchEntityDao.count()));
+	}
+
+	@Test
+	public void testFirstPageMemoryCache_ResultsDontFitOnOnePage() {
+		myStorageSettings.setSearchFirstPageMemoryCacheEnabled(true);
+
+		for (int i = 0; i < 3; i++) {
+			Patient pt = new Patient();
+			pt.addName().setFamily("FAM");
+			myClient.create().resource(pt).execute();
+		}
+
+		Bundle results = searchForFamily("FAM", 2);
+		assertEquals(2, results.getEntry().size());
+		assertNotNull(results.getLink(Bundle.LINK_NEXT));
+		runInTransaction(() -> assertEquals(1, mySearchEntityDao.count()));
+	}
+
+	private Bundle searchForFamily(String theFamily, int theCount) {
+		return myClient
+			.search()
+			.forResource("Patient")
+			.where(Patient.FAMILY.matches().value(theFamily))
+			.count(theCount)
+			.returnBundle(Bundle.class)
+			.execute();
+	}
+
+	private long countStringIndexQueries() {
+		return myCaptureQueriesListener
+			.getSelectQueries()
+			.stream()
+			.filter(t -> t.getSql(false, false).contains("HFJ_SPIDX_STRING"))
+			.count();
+	}
+
 	@Test
 	public void testCacheSuppressed() {
 
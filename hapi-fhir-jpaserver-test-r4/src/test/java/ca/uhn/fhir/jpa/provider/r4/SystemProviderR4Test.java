@@ -18,6 +18,7 @@ import ca.uhn.fhir.jpa.rp.r4.PatientResourceProvider;
 import ca.uhn.fhir.jpa.rp.r4.PractitionerResourceProvider;
 import ca.uhn.fhir.jpa.rp.r4.PractitionerRoleResourceProvider;
 import ca.uhn.fhir.jpa.rp.r4.ServiceRequestResourceProvider;
+import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
 import ca.uhn.fhir.rest.api.CacheControlDirective;
@@ -334,6 +335,58 @@ public class SystemProviderR4Test extends BaseJpaR4Test {
 
 	}
 
+	@Test
+	public void testStreamingBatch() throws Exception {
+		StringBuilder input = new StringBuilder("{\"resourceType\":\"Bundle\",\"type\":\"batch\",\"entry\":[");
+		for (int i = 0; i < 5; i++) {
+			if (i > 0) {
+				input.append(",");
+			}
+			// The third entry can't be parsed
+			String resourceType = i == 2 ? "Foo" : "Patient";
+			input.append("{\"resource\":{\"resourceType\":\"").append(resourceType).append("\",\"active\":true},");
+			input.append("\"request\":{\"method\":\"POST\",\"url\":\"Patient\"}}");
+		}
+		input.append("]}");
+
+		HttpPost post = new HttpPost(ourServerBase + "/" + JpaConstants.OPERATION_STREAMING_BATCH + "?windowSize=2");
+		post.setEntity(new StringEntity(input.toString(), ContentType.create(Constants.CT_FHIR_JSON_NEW, StandardCharsets.UTF_8)));
+		try (CloseableHttpResponse http = ourHttpClient.execute(post)) {
+			String output = IOUtils.toString(http.getEntity().getContent(), StandardCharsets.UTF_8);
+			ourLog.info(output);
+			assertEquals(200, http.getStatusLine().getStatusCode());
+
+			Bundle response = myFhirContext.newJsonParser().parseResource(Bundle.class, output);
+			assertEquals(BundleType.BATCHRESPONSE, response.getType());
+			assertEquals(5, response.getEntry().size());
+			for (int i = 0; i < 5; i++) {
+				if (i == 2) {
+					assertThat(response.getEntry().get(i).getResponse().getStatus(), startsWith("400"));
+					OperationOutcome oo = (OperationOutcome) response.getEntry().get(i).getResponse().getOutcome();
+					assertThat(oo.getIssueFirstRep().getDiagnostics(), containsString("Foo"));
+				} else {
+					assertThat(response.getEntry().get(i).getResponse().getStatus(), startsWith("201"));
+				}
+			}
+		}
+
+		assertEquals(4, myPatientDao.search(SearchParameterMap.newSynchronous(), mySrd).size());
+	}
+
+	@Test
+	public void testStreamingBatchRejectsTransaction() throws Exception {
+		String input = "{\"resourceType\":\"Bundle\",\"type\":\"transaction\",\"entry\":[]}";
+
+		HttpPost post = new HttpPost(ourServerBase + "/" + JpaConstants.OPERATION_STREAMING_BATCH);
+		post.setEntity(new StringEntity(input, ContentType.create(Constants.CT_FHIR_JSON_NEW, StandardCharsets.UTF_8)));
+		try (CloseableHttpResponse http = ourHttpClient.execute(post)) {
+			String output = IOUtils.toString(http.getEntity().getContent(), StandardCharsets.UTF_8);
+			ourLog.info(output);
+			assertEquals(400, http.getStatusLine().getStatusCode());
+			assertThat(output, containsString(Msg.code(2446) + "Only Bundles of type"));
+		}
+	}
+
 	@SuppressWarnings("deprecation")
 	@Test
 	public void testResponseUsesCorrectContentType() throws Exception {
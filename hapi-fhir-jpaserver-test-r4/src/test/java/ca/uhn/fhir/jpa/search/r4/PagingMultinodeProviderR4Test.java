@@ -6,18 +6,30 @@ import ca.uhn.fhir.jpa.search.SearchCoordinatorSvcImpl;
 import ca.uhn.fhir.jpa.util.QueryParameterUtils;
 import ca.uhn.fhir.parser.StrictErrorHandler;
 import ca.uhn.fhir.rest.api.CacheControlDirective;
+import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.SearchTotalModeEnum;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
+import ca.uhn.fhir.util.UrlUtil;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.test.util.AopTestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 import static org.apache.commons.lang3.StringUtils.leftPad;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
 
 public class PagingMultinodeProviderR4Test extends BaseResourceProviderR4Test {
 
@@ -30,6 +42,7 @@ public class PagingMultinodeProviderR4Test extends BaseResourceProviderR4Test {
 
 		myStorageSettings.setAllowMultipleDelete(new JpaStorageSettings().isAllowMultipleDelete());
 		myStorageSettings.setAllowExternalReferences(new JpaStorageSettings().isAllowExternalReferences());
+		myStorageSettings.setSearchKeysetPagingEnabled(new JpaStorageSettings().isSearchKeysetPagingEnabled());
 		
 		mySearchCoordinatorSvcRaw.setLoadingThrottleForUnitTests(null);
 		mySearchCoordinatorSvcRaw.setSyncSizeForUnitTests(QueryParameterUtils.DEFAULT_SYNC_SIZE);
@@ -129,5 +142,82 @@ public class PagingMultinodeProviderR4Test extends BaseResourceProviderR4Test {
 		}
 	}
 
+	@Test
+	public void testSearchWithKeysetPaging() {
+		myStorageSettings.setSearchKeysetPagingEnabled(true);
+		for (int i = 0; i < 25; i++) {
+			Patient patient = new Patient();
+			String id = "A" + leftPad(Integer.toString(i), 3, '0');
+			patient.setId(id);
+			patient.setActive(true);
+			patient.addName().setFamily(id);
+			myPatientDao.update(patient, mySrd);
+		}
+		long searchCount = mySearchEntityDao.count();
+
+		Bundle found = myClient
+			.search()
+			.forResource(Patient.class)
+			.where(Patient.ACTIVE.exactly().code("true"))
+			.count(10)
+			.returnBundle(Bundle.class)
+			.execute();
+		assertThat(toUnqualifiedVersionlessIdValues(found), contains("Patient/A000", "Patient/A001", "Patient/A002", "Patient/A003", "Patient/A004", "Patient/A005", "Patient/A006", "Patient/A007", "Patient/A008", "Patient/A009"));
+		assertThat(found.getLink(Bundle.LINK_NEXT).getUrl(), containsString(Constants.PARAM_PAGEID + "="));
+		assertNull(found.getLink(Bundle.LINK_PREV));
+
+		found = myClient.loadPage().next(found).execute();
+		assertThat(toUnqualifiedVersionlessIdValues(found), contains("Patient/A010", "Patient/A011", "Patient/A012", "Patient/A013", "Patient/A014", "Patient/A015", "Patient/A016", "Patient/A017", "Patient/A018", "Patient/A019"));
+
+		found = myClient.loadPage().next(found).execute();
+		assertThat(toUnqualifiedVersionlessIdValues(found), contains("Patient/A020", "Patient/A021", "Patient/A022", "Patient/A023", "Patient/A024"));
+		assertNull(found.getLink(Bundle.LINK_NEXT));
+
+		// Nothing is stored in the search cache
+		assertEquals(searchCount, mySearchEntityDao.count());
+	}
+
+	@Test
+	public void testSearchWithKeysetPaging_TamperedPageIdIsRejected() {
+		myStorageSettings.setSearchKeysetPagingEnabled(true);
+		for (int i = 0; i < 5; i++) {
+			Patient patient = new Patient();
+			patient.setId("A" + i);
+			patient.setActive(i % 2 == 0);
+			myPatientDao.update(patient, mySrd);
+		}
+
+		Bundle found = myClient
+			.search()
+			.forResource(Patient.class)
+			.where(Patient.ACTIVE.exactly().code("true"))
+			.count(1)
+			.returnBundle(Bundle.class)
+			.execute();
+		assertThat(toUnqualifiedVersionlessIdValues(found), contains("Patient/A0"));
+		String nextUrl = found.getLink(Bundle.LINK_NEXT).getUrl();
+		String pageId = UrlUtil.parseQueryString(nextUrl.substring(nextUrl.indexOf('?') + 1)).get(Constants.PARAM_PAGEID)[0];
+
+		// Swap the query in the payload but keep the original signature
+		String payload = pageId.substring(0, pageId.lastIndexOf('.'));
+		String signature = pageId.substring(pageId.lastIndexOf('.') + 1);
+		String decoded = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
+		String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.replace("active=true", "active=false").getBytes(StandardCharsets.UTF_8));
+		assertNotEquals(payload, forged);
+
+		for (String nextPageId : new String[]{forged + "." + signature, forged}) {
+			String forgedUrl = nextUrl.replace(UrlUtil.escapeUrlParam(pageId), UrlUtil.escapeUrlParam(nextPageId)).replace(pageId, nextPageId);
+			try {
+				myClient.loadPage().byUrl(forgedUrl).andReturnBundle(Bundle.class).execute();
+				fail();
+			} catch (ResourceGoneException e) {
+				// good
+			}
+		}
+
+		// The untouched page ID still works
+		found = myClient.loadPage().byUrl(nextUrl).andReturnBundle(Bundle.class).execute();
+		assertThat(toUnqualifiedVersionlessIdValues(found), contains("Patient/A2"));
+	}
 
 }
@@ -43,6 +43,12 @@ public class BulkExportJobParameters implements IModelJson {
 	/**
 	 * The start date from when we should start
 	 * doing the export. (end date is assumed to be "now")
+	 * <p>
+	 * If the JPA server's incremental bulk export mode is enabled, resources deleted since this
+	 * date are also reported. A deletion can only be reported while the deleted resource has not
+	 * yet been expunged, so deletions of resources which were expunged before the export runs
+	 * are lost.
+	 * </p>
 	 */
 	@JsonSerialize(using = JsonDateSerializer.class)
 	@JsonDeserialize(using = JsonDateDeserializer.class)
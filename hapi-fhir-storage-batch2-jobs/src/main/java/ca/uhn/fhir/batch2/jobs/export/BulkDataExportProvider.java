@@ -466,7 +466,13 @@ public class BulkDataExportProvider {
 
 					// Create a JSON response
 					BulkExportResponseJson bulkResponseDocument = new BulkExportResponseJson();
-					bulkResponseDocument.setTransactionTime(info.getEndTime()); // completed
+					if (myStorageSettings.isBulkExportIncrementalModeEnabled() && info.getStartTime() != null) {
+						// Clients pass the transaction time as the _since of their next export, so
+						// it must not be later than the time at which the resource IDs were fetched
+						bulkResponseDocument.setTransactionTime(info.getStartTime());
+					} else {
+						bulkResponseDocument.setTransactionTime(info.getEndTime()); // completed
+					}
 
 					bulkResponseDocument.setRequiresAccessToken(true);
 
@@ -496,6 +502,12 @@ public class BulkDataExportProvider {
 										.setUrl(nextUrl);
 							}
 						}
+						for (String binaryId : results.getDeletedBinaryIds()) {
+							IIdType iId = new IdType(binaryId);
+							String nextUrl = serverBase + "/"
+									+ iId.toUnqualifiedVersionless().getValue();
+							bulkResponseDocument.addDeleted().setType("Bundle").setUrl(nextUrl);
+						}
 						JsonUtil.serialize(bulkResponseDocument, response.getWriter());
 						response.getWriter().close();
 					}
@@ -21,6 +21,7 @@ package ca.uhn.fhir.batch2.jobs.export;
 
 import ca.uhn.fhir.batch2.api.VoidModel;
 import ca.uhn.fhir.batch2.jobs.export.models.BulkExportBinaryFileId;
+import ca.uhn.fhir.batch2.jobs.export.models.BulkExportFetchRange;
 import ca.uhn.fhir.batch2.jobs.export.models.ExpandedResourcesList;
 import ca.uhn.fhir.batch2.jobs.export.models.ResourceIdList;
 import ca.uhn.fhir.batch2.model.JobDefinition;
@@ -36,6 +37,7 @@ import org.springframework.context.annotation.Scope;
 public class BulkExportAppCtx {
 
 	public static final String WRITE_TO_BINARIES = "write-to-binaries";
+	public static final String EXPAND_AND_WRITE_TO_BINARIES = "expand-and-write-to-binaries";
 
 	@Bean
 	public JobDefinition bulkExportJobDefinition() {
@@ -74,6 +76,53 @@ public class BulkExportAppCtx {
 		return def;
 	}
 
+	/**
+	 * Version 2 of the bulk export job splits the fetching of resource IDs into ranges
+	 * which are fetched in parallel, and expands the resources and writes them to binaries
+	 * in a single step instead of passing the serialized resources between steps as
+	 * work chunks. Version 1 is still registered so that any jobs started before an
+	 * upgrade can complete.
+	 */
+	@Bean
+	public JobDefinition bulkExportJobV2Definition() {
+		JobDefinition.Builder<IModelJson, VoidModel> builder = JobDefinition.newBuilder();
+		builder.setJobDefinitionId(Batch2JobDefinitionConstants.BULK_EXPORT);
+		builder.setJobDescription("FHIR Bulk Export");
+		builder.setJobDefinitionVersion(2);
+
+		JobDefinition def = builder.setParametersType(BulkExportJobParameters.class)
+				// validator
+				.setParametersValidator(bulkExportJobParametersValidator())
+				.gatedExecution()
+				// first step - split the resources to export into ranges
+				.addFirstStep(
+						"generate-ranges",
+						"Generates the ranges of resources to export",
+						BulkExportFetchRange.class,
+						bulkExportGenerateRangeChunksStep())
+				// load in the ids for each range and create id chunks of 1000 each
+				.addIntermediateStep(
+						"fetch-resources",
+						"Fetches resource PIDs for exporting",
+						ResourceIdList.class,
+						fetchResourceIdsForRangeStep())
+				// fetch resources, write binaries and save to db
+				.addIntermediateStep(
+						EXPAND_AND_WRITE_TO_BINARIES,
+						"Expands out resources and writes them to the binaries and saves",
+						BulkExportBinaryFileId.class,
+						expandAndWriteBinaryStep())
+				// finalize the job (set to complete)
+				.addFinalReducerStep(
+						"create-report-step",
+						"Creates the output report from a bulk export job",
+						BulkExportJobResults.class,
+						createReportStep())
+				.build();
+
+		return def;
+	}
+
 	@Bean
 	public BulkExportJobParametersValidator bulkExportJobParametersValidator() {
 		return new BulkExportJobParametersValidator();
@@ -84,6 +133,16 @@ public class BulkExportAppCtx {
 		return new FetchResourceIdsStep();
 	}
 
+	@Bean
+	public BulkExportGenerateRangeChunksStep bulkExportGenerateRangeChunksStep() {
+		return new BulkExportGenerateRangeChunksStep();
+	}
+
+	@Bean
+	public FetchResourceIdsForRangeStep fetchResourceIdsForRangeStep() {
+		return new FetchResourceIdsForRangeStep();
+	}
+
 	@Bean
 	public ExpandResourcesStep expandResourcesStep() {
 		return new ExpandResourcesStep();
@@ -94,6 +153,11 @@ public class BulkExportAppCtx {
 		return new WriteBinaryStep();
 	}
 
+	@Bean
+	public ExpandAndWriteBinaryStep expandAndWriteBinaryStep() {
+		return new ExpandAndWriteBinaryStep();
+	}
+
 	@Bean
 	@Scope("prototype")
 	public BulkExportCreateReportStep createReportStep() {
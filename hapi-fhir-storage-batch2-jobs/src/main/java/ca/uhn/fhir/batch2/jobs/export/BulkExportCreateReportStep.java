@@ -47,6 +47,8 @@ public class BulkExportCreateReportStep
 
 	private Map<String, List<String>> myResourceToBinaryIds;
 
+	private List<String> myDeletedBinaryIds;
+
 	@Nonnull
 	@Override
 	public RunOutcome run(
@@ -58,14 +60,16 @@ public class BulkExportCreateReportStep
 		String requestUrl = getOriginatingRequestUrl(theStepExecutionDetails, results);
 		results.setOriginalRequestUrl(requestUrl);
 
-		if (myResourceToBinaryIds != null) {
+		if (myResourceToBinaryIds != null || myDeletedBinaryIds != null) {
 			ourLog.info(
 					"Bulk Export Report creation step for instance: {}",
 					theStepExecutionDetails.getInstance().getInstanceId());
 
 			results.setResourceTypeToBinaryIds(myResourceToBinaryIds);
+			results.setDeletedBinaryIds(myDeletedBinaryIds);
 
 			myResourceToBinaryIds = null;
+			myDeletedBinaryIds = null;
 		} else {
 			String msg = "Export complete, but no data to generate report for job instance: "
 					+ theStepExecutionDetails.getInstance().getInstanceId();
@@ -84,6 +88,14 @@ public class BulkExportCreateReportStep
 	public ChunkOutcome consume(
 			ChunkExecutionDetails<BulkExportJobParameters, BulkExportBinaryFileId> theChunkDetails) {
 		BulkExportBinaryFileId fileId = theChunkDetails.getData();
+		if (fileId.isDeleted()) {
+			if (myDeletedBinaryIds == null) {
+				myDeletedBinaryIds = new ArrayList<>();
+			}
+			myDeletedBinaryIds.add(fileId.getBinaryId());
+			return ChunkOutcome.SUCCESS();
+		}
+
 		if (myResourceToBinaryIds == null) {
 			myResourceToBinaryIds = new HashMap<>();
 		}
@@ -0,0 +1,142 @@
+/*-
+ * #%L
+ * hapi-fhir-storage-batch2-jobs
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.jobs.export;
+
+import ca.uhn.fhir.batch2.api.IFirstJobStepWorker;
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.api.JobExecutionFailedException;
+import ca.uhn.fhir.batch2.api.RunOutcome;
+import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.batch2.api.VoidModel;
+import ca.uhn.fhir.batch2.jobs.export.models.BulkExportFetchRange;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
+import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * First step of a bulk export job, which splits the work of fetching the resource IDs
+ * to export into ranges that can be processed in parallel by {@link FetchResourceIdsForRangeStep}.
+ * <p>
+ * For a system level export, each resource type gets its own range(s), and if
+ * {@link JpaStorageSettings#getBulkExportFetchRangeCount()} is greater than 1 the resources of
+ * each type without a <code>_typeFilter</code> are further split into that many ranges of PIDs
+ * (between the lowest and highest PID of the type in the job's partition). For patient and group
+ * level exports, the resources of one type can include references to other types which are exported
+ * too, so all types are fetched in a single range in order to avoid exporting anything twice.
+ * </p>
+ */
+public class BulkExportGenerateRangeChunksStep
+		implements IFirstJobStepWorker<BulkExportJobParameters, BulkExportFetchRange> {
+	private static final Logger ourLog = LoggerFactory.getLogger(BulkExportGenerateRangeChunksStep.class);
+
+	@Autowired
+	private IBulkExportProcessor<?> myBulkExportProcessor;
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Nonnull
+	@Override
+	public RunOutcome run(
+			@Nonnull StepExecutionDetails<BulkExportJobParameters, VoidModel> theStepExecutionDetails,
+			@Nonnull IJobDataSink<BulkExportFetchRange> theDataSink)
+			throws JobExecutionFailedException {
+		BulkExportJobParameters params = theStepExecutionDetails.getParameters();
+
+		List<BulkExportFetchRange> ranges = new ArrayList<>();
+		if (params.getExportStyle() == BulkExportJobParameters.ExportStyle.SYSTEM) {
+			int rangeCount = myStorageSettings.getBulkExportFetchRangeCount();
+			for (String resourceType : params.getResourceTypes()) {
+				if (rangeCount > 1 && !hasTypeFilter(params, resourceType)) {
+					ranges.addAll(generateRanges(resourceType, params.getPartitionId(), rangeCount));
+				} else {
+					ranges.add(new BulkExportFetchRange().setResourceTypes(List.of(resourceType)));
+				}
+			}
+		} else {
+			ranges.add(new BulkExportFetchRange().setResourceTypes(params.getResourceTypes()));
+		}
+
+		for (BulkExportFetchRange next : ranges) {
+			theDataSink.accept(next);
+		}
+
+		ourLog.info(
+				"Bulk export job instance[{}] - Generated {} ranges to fetch resource IDs from",
+				theStepExecutionDetails.getInstance().getInstanceId(),
+				ranges.size());
+		return RunOutcome.SUCCESS;
+	}
+
+	/**
+	 * Splits the PIDs between the lowest and highest PID of the given type into equally
+	 * sized ranges. The first range has no lower bound and the last range has no upper
+	 * bound, so that no resources (including deleted resources, and resources created after
+	 * this step runs) are missed.
+	 */
+	private List<BulkExportFetchRange> generateRanges(
+			String theResourceType, RequestPartitionId thePartitionId, int theRangeCount) {
+		List<BulkExportFetchRange> retVal = new ArrayList<>();
+
+		RequestPartitionId partitionId = thePartitionId != null ? thePartitionId : RequestPartitionId.allPartitions();
+		Pair<Long, Long> pidRange = myBulkExportProcessor.getResourcePidRange(theResourceType, partitionId);
+
+		long rangeWidth = 0;
+		if (pidRange != null) {
+			rangeWidth = (pidRange.getRight() - pidRange.getLeft() + 1) / theRangeCount;
+		}
+
+		if (rangeWidth <= 0) {
+			retVal.add(new BulkExportFetchRange().setResourceTypes(List.of(theResourceType)));
+			return retVal;
+		}
+
+		Long rangeStart = null;
+		for (int i = 1; i <= theRangeCount; i++) {
+			Long rangeEnd = i < theRangeCount ? pidRange.getLeft() + (rangeWidth * i) : null;
+			retVal.add(new BulkExportFetchRange()
+					.setResourceTypes(List.of(theResourceType))
+					.setStartPid(rangeStart)
+					.setEndPid(rangeEnd));
+			rangeStart = rangeEnd;
+		}
+
+		ourLog.debug("Split resource type {} into {} ranges of {} PIDs", theResourceType, theRangeCount, rangeWidth);
+		return retVal;
+	}
+
+	/**
+	 * Resource types with a <code>_typeFilter</code> are fetched by performing a search, which
+	 * can't be restricted to a range of PIDs
+	 */
+	private static boolean hasTypeFilter(BulkExportJobParameters theParams, String theResourceType) {
+		String prefix = theResourceType + "?";
+		return theParams.getFilters().stream().anyMatch(t -> t.startsWith(prefix));
+	}
+}
@@ -0,0 +1,471 @@
+/*-
+ * #%L
+ * hapi-fhir-storage-batch2-jobs
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.jobs.export;
+
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.api.IJobStepWorker;
+import ca.uhn.fhir.batch2.api.JobExecutionFailedException;
+import ca.uhn.fhir.batch2.api.RunOutcome;
+import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.batch2.jobs.export.models.BulkExportBinaryFileId;
+import ca.uhn.fhir.batch2.jobs.export.models.ResourceIdList;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.binary.api.IBinaryStorageSvc;
+import ca.uhn.fhir.jpa.binary.api.StoredDetails;
+import ca.uhn.fhir.jpa.binary.interceptor.BinaryStorageInterceptor;
+import ca.uhn.fhir.jpa.model.util.JpaConstants;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
+import ca.uhn.fhir.util.BinaryUtil;
+import ca.uhn.fhir.util.BundleBuilder;
+import ca.uhn.fhir.util.HapiExtensions;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.hl7.fhir.instance.model.api.IBaseBinary;
+import org.hl7.fhir.instance.model.api.IBaseExtension;
+import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.instance.model.api.IPrimitiveType;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * This step combines the work of {@link ExpandResourcesStep} and {@link WriteBinaryStep}. The
+ * resources for a chunk of IDs are loaded in batches and each batch is serialized directly
+ * into an NDJSON file for each resource type as soon as it has been loaded, so the serialized
+ * resources are never stored as an intermediate work chunk and are never held in memory all at
+ * once (files which grow beyond a small threshold are buffered in a temporary file on disk).
+ * <p>
+ * A file is stored as soon as it reaches {@link JpaStorageSettings#getBulkExportFileMaximumSize()},
+ * and any remaining resources of the same type are written to a new file. If the
+ * {@link BinaryStorageInterceptor} is registered and the {@link IBinaryStorageSvc} accepts the
+ * file, its contents are streamed directly into the binary storage service and the Binary resource
+ * only holds a reference to them. Otherwise the contents are stored inline in the Binary resource,
+ * exactly as {@link WriteBinaryStep} does.
+ * </p>
+ * <p>
+ * Chunks of IDs which are {@link ResourceIdList#isDeleted() flagged as deleted} are not loaded.
+ * Instead, a file containing a transaction Bundle which lists them is written.
+ * </p>
+ * <p>
+ * The IDs of the stored files are only passed to the data sink once the whole chunk has been
+ * written. If the chunk fails partway through, the files already stored for it are deleted so
+ * that a retry of the chunk doesn't leave duplicate files behind.
+ * </p>
+ */
+public class ExpandAndWriteBinaryStep
+		implements IJobStepWorker<BulkExportJobParameters, ResourceIdList, BulkExportBinaryFileId> {
+	private static final Logger ourLog = getLogger(ExpandAndWriteBinaryStep.class);
+
+	/**
+	 * Files smaller than this are buffered in memory, larger ones are buffered in a temporary file
+	 */
+	static final int IN_MEMORY_THRESHOLD = 1024 * 1024;
+
+	private static final String BUNDLE = "Bundle";
+
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Autowired
+	private IInterceptorService myInterceptorService;
+
+	@Autowired
+	private ExpandResourcesStep myExpandResourcesStep;
+
+	@Autowired
+	private WriteBinaryStep myWriteBinaryStep;
+
+	@Autowired(required = false)
+	private IBinaryStorageSvc myBinaryStorageSvc;
+
+	@Nonnull
+	@Override
+	public RunOutcome run(
+			@Nonnull StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails,
+			@Nonnull IJobDataSink<BulkExportBinaryFileId> theDataSink)
+			throws JobExecutionFailedException {
+		String instanceId = theStepExecutionDetails.getInstance().getInstanceId();
+		String chunkId = theStepExecutionDetails.getChunkId();
+		ResourceIdList idList = theStepExecutionDetails.getData();
+		BulkExportJobParameters parameters = theStepExecutionDetails.getParameters();
+
+		if (idList.isDeleted()) {
+			return writeDeletedResources(idList, parameters, instanceId, chunkId, theDataSink);
+		}
+
+		ourLog.info(
+				"Bulk export instance[{}] chunk[{}] - About to expand and write {} resources.",
+				instanceId,
+				chunkId,
+				idList.getIds().size());
+
+		IParser parser = myExpandResourcesStep.getParser(parameters);
+		long maximumFileSize = myStorageSettings.getBulkExportFileMaximumSize();
+		Map<String, NdJsonFile> openFiles = new HashMap<>();
+		List<StoredFile> storedFiles = new ArrayList<>();
+
+		try {
+			myExpandResourcesStep.fetchResourcesInBatches(idList, parameters.getPartitionId(), batch -> {
+				List<IBaseResource> resources = myExpandResourcesStep.processResources(
+						batch, idList.getResourceType(), parameters, instanceId, chunkId);
+
+				for (IBaseResource nextResource : resources) {
+					String resourceType = myFhirContext.getResourceType(nextResource);
+					NdJsonFile file = openFiles.computeIfAbsent(resourceType, NdJsonFile::new);
+					try {
+						file.append(parser, nextResource);
+						if (file.getByteCount() >= maximumFileSize) {
+							openFiles.remove(resourceType);
+							storedFiles.add(storeFile(file, parameters, instanceId, false));
+						}
+					} catch (IOException e) {
+						throw newFailureException(resourceType, e);
+					}
+				}
+			});
+
+			for (NdJsonFile next : new ArrayList<>(openFiles.values())) {
+				openFiles.remove(next.getResourceType());
+				try {
+					storedFiles.add(storeFile(next, parameters, instanceId, false));
+				} catch (IOException e) {
+					throw newFailureException(next.getResourceType(), e);
+				}
+			}
+		} catch (RuntimeException e) {
+			deleteStoredFiles(storedFiles, parameters);
+			throw e;
+		} finally {
+			openFiles.values().forEach(NdJsonFile::discard);
+		}
+
+		storedFiles.forEach(t -> theDataSink.accept(t.getBinaryFileId()));
+
+		int numResourcesProcessed =
+				storedFiles.stream().mapToInt(StoredFile::getResourceCount).sum();
+		ourLog.info(
+				"Bulk export instance[{}] chunk[{}] - Wrote {} resources to {} binary files.",
+				instanceId,
+				chunkId,
+				numResourcesProcessed,
+				storedFiles.size());
+
+		return new RunOutcome(numResourcesProcessed);
+	}
+
+	/**
+	 * Writes a file containing a single transaction Bundle with a DELETE entry for each of the
+	 * given deleted resources. This is the format required for the <code>deleted</code> section
+	 * of the export manifest by the FHIR Bulk Data Access specification.
+	 */
+	private RunOutcome writeDeletedResources(
+			ResourceIdList theIdList,
+			BulkExportJobParameters theParameters,
+			String theInstanceId,
+			String theChunkId,
+			IJobDataSink<BulkExportBinaryFileId> theDataSink) {
+		BundleBuilder bundleBuilder = new BundleBuilder(myFhirContext);
+		for (String nextIdPart : myExpandResourcesStep.translateToResourceIdParts(theIdList)) {
+			bundleBuilder.addTransactionDeleteEntry(theIdList.getResourceType(), nextIdPart);
+		}
+
+		NdJsonFile file = new NdJsonFile(BUNDLE);
+		try {
+			file.append(myExpandResourcesStep.getParser(theParameters), bundleBuilder.getBundle());
+			theDataSink.accept(
+					storeFile(file, theParameters, theInstanceId, true).getBinaryFileId());
+		} catch (IOException e) {
+			throw newFailureException(BUNDLE, e);
+		} finally {
+			file.discard();
+		}
+
+		ourLog.info(
+				"Bulk export instance[{}] chunk[{}] - Wrote {} deleted resources of type {}.",
+				theInstanceId,
+				theChunkId,
+				theIdList.getIds().size(),
+				theIdList.getResourceType());
+
+		return new RunOutcome(theIdList.getIds().size());
+	}
+
+	/**
+	 * Stores the given file as a Binary resource
+	 *
+	 * @param theDeleted Does the file contain Bundles listing deleted resources
+	 */
+	private StoredFile storeFile(
+			NdJsonFile theFile, BulkExportJobParameters theParameters, String theInstanceId, boolean theDeleted)
+			throws IOException {
+		try {
+			theFile.finish();
+
+			IFhirResourceDao<IBaseBinary> binaryDao = myWriteBinaryStep.getBinaryDao();
+			IBaseBinary binary = myWriteBinaryStep.newBinary(theParameters, theInstanceId, theFile.getResourceType());
+			IIdType binaryId = myWriteBinaryStep.assignUniqueBinaryId(binaryDao, binary);
+
+			String blobId = null;
+			if (shouldStoreExternally(theFile.getByteCount(), binary, binaryId)) {
+				try (InputStream inputStream = theFile.toInputStream()) {
+					StoredDetails storedDetails = myBinaryStorageSvc.storeBlob(
+							binaryId, null, Constants.CT_FHIR_NDJSON, inputStream, new SystemRequestDetails());
+					blobId = storedDetails.getBlobId();
+				}
+				addExternalizedBinaryIdExtension(binary, blobId);
+			} else {
+				try (InputStream inputStream = theFile.toInputStream()) {
+					binary.setContent(IOUtils.toByteArray(inputStream));
+				}
+			}
+
+			IIdType id;
+			try {
+				id = myWriteBinaryStep.saveBinary(binaryDao, binary, theParameters);
+			} catch (RuntimeException e) {
+				if (blobId != null) {
+					expungeBlob(binaryId, blobId);
+				}
+				throw e;
+			}
+
+			BulkExportBinaryFileId bulkExportBinaryFileId = new BulkExportBinaryFileId();
+			bulkExportBinaryFileId.setBinaryId(id.getValueAsString());
+			bulkExportBinaryFileId.setResourceType(theFile.getResourceType());
+			bulkExportBinaryFileId.setDeleted(theDeleted);
+
+			ourLog.info(
+					"Binary writing complete for {} resources of type {} ({} bytes).",
+					theFile.getResourceCount(),
+					theFile.getResourceType(),
+					theFile.getByteCount());
+
+			return new StoredFile(bulkExportBinaryFileId, binaryId, blobId, theFile.getResourceCount());
+		} finally {
+			theFile.discard();
+		}
+	}
+
+	/**
+	 * Deletes the files stored by a chunk which then failed. Failures here are only logged so
+	 * that they don't hide the failure of the chunk itself.
+	 */
+	private void deleteStoredFiles(List<StoredFile> theStoredFiles, BulkExportJobParameters theParameters) {
+		if (theStoredFiles.isEmpty()) {
+			return;
+		}
+
+		IFhirResourceDao<IBaseBinary> binaryDao = myWriteBinaryStep.getBinaryDao();
+		for (StoredFile next : theStoredFiles) {
+			ourLog.info("Deleting bulk export binary {} written by failed chunk", next.getBinaryId());
+			try {
+				myWriteBinaryStep.deleteBinary(binaryDao, next.getBinaryId(), theParameters);
+			} catch (RuntimeException e) {
+				ourLog.warn("Failed to delete bulk export binary {}: {}", next.getBinaryId(), e.toString());
+			}
+			if (next.getBlobId() != null) {
+				expungeBlob(next.getBinaryId(), next.getBlobId());
+			}
+		}
+	}
+
+	private void expungeBlob(IIdType theBinaryId, String theBlobId) {
+		try {
+			myBinaryStorageSvc.expungeBlob(theBinaryId, theBlobId);
+		} catch (RuntimeException e) {
+			ourLog.warn("Failed to expunge blob {} of bulk export binary {}: {}", theBlobId, theBinaryId, e.toString());
+		}
+	}
+
+	/**
+	 * Externalized binary content is only ever read back by the {@link BinaryStorageInterceptor},
+	 * so we only store the file contents in the binary storage service if that interceptor is
+	 * registered and the service wants to store a file of this size.
+	 */
+	private boolean shouldStoreExternally(long theSize, IBaseBinary theBinary, IIdType theBinaryId) {
+		if (myBinaryStorageSvc == null) {
+			return false;
+		}
+		boolean interceptorRegistered = myInterceptorService.getAllRegisteredInterceptors().stream()
+				.anyMatch(t -> t instanceof BinaryStorageInterceptor);
+		if (!interceptorRegistered) {
+			return false;
+		}
+		if (!(BinaryUtil.getOrCreateData(myFhirContext, theBinary) instanceof IBaseHasExtensions)) {
+			return false;
+		}
+		return myBinaryStorageSvc.shouldStoreBlob(theSize, theBinaryId, Constants.CT_FHIR_NDJSON);
+	}
+
+	/**
+	 * Adds a reference to externally stored content to the data element of the
+	 * given binary, in the same way as the {@link BinaryStorageInterceptor} does
+	 */
+	@SuppressWarnings("unchecked")
+	private void addExternalizedBinaryIdExtension(IBaseBinary theBinary, String theBlobId) {
+		IBaseHasExtensions data = (IBaseHasExtensions) BinaryUtil.getOrCreateData(myFhirContext, theBinary);
+		IBaseExtension<?, ?> ext = data.addExtension();
+		ext.setUrl(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID);
+		ext.setUserData(JpaConstants.EXTENSION_EXT_SYSTEMDEFINED, Boolean.TRUE);
+		IPrimitiveType<String> blobIdString = (IPrimitiveType<String>)
+				myFhirContext.getElementDefinition("string").newInstance();
+		blobIdString.setValueAsString(theBlobId);
+		ext.setValue(blobIdString);
+	}
+
+	private JobExecutionFailedException newFailureException(String theResourceType, IOException theException) {
+		String errorMsg = String.format(
+				"Failure to process resource of type %s : %s", theResourceType, theException.getMessage());
+		ourLog.error(errorMsg);
+		return new JobExecutionFailedException(Msg.code(2451) + errorMsg);
+	}
+
+	/**
+	 * A file which has been stored as a Binary resource
+	 */
+	private static class StoredFile {
+
+		private final BulkExportBinaryFileId myBinaryFileId;
+		private final IIdType myBinaryId;
+		private final String myBlobId;
+		private final int myResourceCount;
+
+		StoredFile(
+				BulkExportBinaryFileId theBinaryFileId, IIdType theBinaryId, String theBlobId, int theResourceCount) {
+			myBinaryFileId = theBinaryFileId;
+			myBinaryId = theBinaryId;
+			myBlobId = theBlobId;
+			myResourceCount = theResourceCount;
+		}
+
+		BulkExportBinaryFileId getBinaryFileId() {
+			return myBinaryFileId;
+		}
+
+		IIdType getBinaryId() {
+			return myBinaryId;
+		}
+
+		/**
+		 * Returns the ID of the externally stored contents, or <code>null</code> if the contents are inline
+		 */
+		String getBlobId() {
+			return myBlobId;
+		}
+
+		int getResourceCount() {
+			return myResourceCount;
+		}
+	}
+
+	/**
+	 * An NDJSON file being written for a single resource type. The contents are held
+	 * in memory until they exceed {@link #IN_MEMORY_THRESHOLD} bytes, at which point
+	 * they are moved into a temporary file.
+	 */
+	private static class NdJsonFile {
+
+		private final String myResourceType;
+		private final DeferredFileOutputStream myOutputStream;
+		private final Writer myWriter;
+		private int myResourceCount;
+
+		NdJsonFile(String theResourceType) {
+			myResourceType = theResourceType;
+			myOutputStream = new DeferredFileOutputStream(IN_MEMORY_THRESHOLD, "bulk-export-", ".ndjson", null);
+			myWriter = new OutputStreamWriter(myOutputStream, Constants.CHARSET_UTF8);
+		}
+
+		String getResourceType() {
+			return myResourceType;
+		}
+
+		int getResourceCount() {
+			return myResourceCount;
+		}
+
+		/**
+		 * Returns the number of bytes written so far. Note that up to a few KB of the
+		 * most recently written content may still be buffered in the writer until
+		 * {@link #finish()} is called.
+		 */
+		long getByteCount() {
+			return myOutputStream.getByteCount();
+		}
+
+		void append(IParser theParser, IBaseResource theResource) throws IOException {
+			theParser.encodeResourceToWriter(theResource, myWriter);
+			myWriter.append('\n');
+			myResourceCount++;
+		}
+
+		void finish() throws IOException {
+			myWriter.close();
+		}
+
+		InputStream toInputStream() throws IOException {
+			return myOutputStream.toInputStream();
+		}
+
+		/**
+		 * Closes the file and deletes any temporary file backing it
+		 */
+		void discard() {
+			try {
+				myWriter.close();
+			} catch (IOException e) {
+				ourLog.warn("Failed to close bulk export file: {}", e.toString());
+			}
+			File file = myOutputStream.getFile();
+			if (file != null && !myOutputStream.isInMemory()) {
+				try {
+					Files.deleteIfExists(file.toPath());
+				} catch (IOException e) {
+					ourLog.warn("Failed to delete temporary bulk export file {}: {}", file, e.toString());
+				}
+			}
+		}
+	}
+}
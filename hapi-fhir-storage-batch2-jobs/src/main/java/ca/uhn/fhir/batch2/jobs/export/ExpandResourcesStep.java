@@ -57,9 +57,11 @@ import org.springframework.context.ApplicationContext;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 
@@ -119,19 +121,55 @@ public class ExpandResourcesStep
 		// search the resources
 		List<IBaseResource> allResources = fetchAllResources(idList, parameters.getPartitionId());
 
+		// filter and transform them
+		allResources = processResources(allResources, idList.getResourceType(), parameters, instanceId, chunkId);
+
+		// encode them - Key is resource type, Value is a collection of serialized resources of that type
+		ListMultimap<String, String> resources = encodeToString(allResources, parameters);
+
+		// set to datasink
+		for (String nextResourceType : resources.keySet()) {
+
+			ExpandedResourcesList output = new ExpandedResourcesList();
+			output.setStringifiedResources(resources.get(nextResourceType));
+			output.setResourceType(nextResourceType);
+			theDataSink.accept(output);
+
+			ourLog.info(
+					"Expanding of {} resources of type {} completed",
+					idList.getIds().size(),
+					idList.getResourceType());
+		}
+
+		// and return
+		return RunOutcome.SUCCESS;
+	}
+
+	/**
+	 * Applies the post-fetch filtering, MDM expansion, terminology normalization and
+	 * {@link Pointcut#STORAGE_BULK_EXPORT_RESOURCE_INCLUSION} interceptor processing to
+	 * a collection of fetched resources.
+	 *
+	 * @return The resources which should be included in the export
+	 */
+	List<IBaseResource> processResources(
+			List<IBaseResource> theResources,
+			String theResourceType,
+			BulkExportJobParameters theParameters,
+			String theInstanceId,
+			String theChunkId) {
 		// Apply post-fetch filtering
-		String resourceType = idList.getResourceType();
-		List<String> postFetchFilterUrls = parameters.getPostFetchFilterUrls().stream()
-				.filter(t -> t.substring(0, t.indexOf('?')).equals(resourceType))
+		List<String> postFetchFilterUrls = theParameters.getPostFetchFilterUrls().stream()
+				.filter(t -> t.substring(0, t.indexOf('?')).equals(theResourceType))
 				.collect(Collectors.toList());
 
 		if (!postFetchFilterUrls.isEmpty()) {
-			applyPostFetchFiltering(allResources, postFetchFilterUrls, instanceId, chunkId);
+			applyPostFetchFiltering(theResources, postFetchFilterUrls, theInstanceId, theChunkId);
 		}
 
 		// if necessary, expand resources
-		if (parameters.isExpandMdm()) {
-			myBulkExportProcessor.expandMdmResources(allResources);
+		if (theParameters.isExpandMdm()) {
+			myBulkExportProcessor.expandMdmResources(theResources);
 		}
 
 		// Normalize terminology
@@ -141,14 +179,14 @@ public class ExpandResourcesStep
 				terminologyTranslationSvc = myApplicationContext.getBean(ResponseTerminologyTranslationSvc.class);
 				myResponseTerminologyTranslationSvc = terminologyTranslationSvc;
 			}
-			terminologyTranslationSvc.processResourcesForTerminologyTranslation(allResources);
+			terminologyTranslationSvc.processResourcesForTerminologyTranslation(theResources);
 		}
 
 		// Interceptor call
 		if (myInterceptorService.hasHooks(Pointcut.STORAGE_BULK_EXPORT_RESOURCE_INCLUSION)) {
-			for (Iterator<IBaseResource> iter = allResources.iterator(); iter.hasNext(); ) {
+			for (Iterator<IBaseResource> iter = theResources.iterator(); iter.hasNext(); ) {
 				HookParams params = new HookParams()
-						.add(BulkExportJobParameters.class, theStepExecutionDetails.getParameters())
+						.add(BulkExportJobParameters.class, theParameters)
 						.add(IBaseResource.class, iter.next());
 				boolean outcome =
 						myInterceptorService.callHooks(Pointcut.STORAGE_BULK_EXPORT_RESOURCE_INCLUSION, params);
@@ -158,25 +196,7 @@ public class ExpandResourcesStep
 			}
 		}
 
-		// encode them - Key is resource type, Value is a collection of serialized resources of that type
-		ListMultimap<String, String> resources = encodeToString(allResources, parameters);
-
-		// set to datasink
-		for (String nextResourceType : resources.keySet()) {
-
-			ExpandedResourcesList output = new ExpandedResourcesList();
-			output.setStringifiedResources(resources.get(nextResourceType));
-			output.setResourceType(nextResourceType);
-			theDataSink.accept(output);
-
-			ourLog.info(
-					"Expanding of {} resources of type {} completed",
-					idList.getIds().size(),
-					idList.getResourceType());
-		}
-
-		// and return
-		return RunOutcome.SUCCESS;
+		return theResources;
 	}
 
 	private void applyPostFetchFiltering(
@@ -224,11 +244,23 @@ public class ExpandResourcesStep
 	}
 
 	private List<IBaseResource> fetchAllResources(ResourceIdList theIds, RequestPartitionId theRequestPartitionId) {
+		List<IBaseResource> resources = new ArrayList<>(theIds.getIds().size());
+		fetchResourcesInBatches(theIds, theRequestPartitionId, resources::addAll);
+		return resources;
+	}
+
+	/**
+	 * Loads the resources for the given IDs in batches, passing each batch to the given
+	 * consumer as soon as it has been loaded. The lists passed to the consumer are mutable
+	 * and may be modified by it.
+	 */
+	void fetchResourcesInBatches(
+			ResourceIdList theIds,
+			RequestPartitionId theRequestPartitionId,
+			Consumer<List<IBaseResource>> theBatchConsumer) {
 		ArrayListMultimap<String, String> typeToIds = ArrayListMultimap.create();
 		theIds.getIds().forEach(t -> typeToIds.put(t.getResourceType(), t.getId()));
 
-		List<IBaseResource> resources = new ArrayList<>(theIds.getIds().size());
-
 		for (String resourceType : typeToIds.keySet()) {
 
 			IFhirResourceDao<?> dao = myDaoRegistry.getResourceDao(resourceType);
@@ -257,11 +289,29 @@ public class ExpandResourcesStep
 				SearchParameterMap spMap = SearchParameterMap.newSynchronous().add(PARAM_ID, idListParam);
 				IBundleProvider outcome =
 						dao.search(spMap, new SystemRequestDetails().setRequestPartitionId(theRequestPartitionId));
-				resources.addAll(outcome.getAllResources());
+				theBatchConsumer.accept(new ArrayList<>(outcome.getAllResources()));
 			}
 		}
+	}
 
-		return resources;
+	/**
+	 * Translates the PIDs in the given list into the ID parts of the resources they belong to
+	 * (i.e. the client assigned ID if the resource has one). This works for deleted resources too.
+	 */
+	List<String> translateToResourceIdParts(ResourceIdList theIds) {
+		Set<IResourcePersistentId> pids = theIds.getIds().stream()
+				.map(t -> myIdHelperService.newPidFromStringIdAndResourceName(t.getId(), t.getResourceType()))
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+
+		PersistentIdToForcedIdMap resourceIds =
+				myTransactionService.withRequest(null).execute(() -> myIdHelperService.translatePidsToForcedIds(pids));
+
+		List<String> retVal = new ArrayList<>(pids.size());
+		for (IResourcePersistentId nextPid : pids) {
+			Optional<String> resourceId = resourceIds.get(nextPid);
+			retVal.add(resourceId.orElse(nextPid.getId().toString()));
+		}
+		return retVal;
 	}
 
 	/**
@@ -280,7 +330,7 @@ public class ExpandResourcesStep
 		return retVal;
 	}
 
-	private IParser getParser(BulkExportJobParameters theParameters) {
+	IParser getParser(BulkExportJobParameters theParameters) {
 		// The parser depends on the
 		// output format
 		// (but for now, only ndjson is supported
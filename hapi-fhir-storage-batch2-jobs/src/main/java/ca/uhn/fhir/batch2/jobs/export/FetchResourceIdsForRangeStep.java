@@ -0,0 +1,74 @@
+/*-
+ * #%L
+ * hapi-fhir-storage-batch2-jobs
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.jobs.export;
+
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.api.IJobStepWorker;
+import ca.uhn.fhir.batch2.api.JobExecutionFailedException;
+import ca.uhn.fhir.batch2.api.RunOutcome;
+import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.batch2.jobs.export.models.BulkExportFetchRange;
+import ca.uhn.fhir.batch2.jobs.export.models.ResourceIdList;
+import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Fetches the IDs of the resources to export within a single range produced by
+ * {@link BulkExportGenerateRangeChunksStep}. Each range is a separate work chunk,
+ * so ranges are fetched in parallel.
+ */
+public class FetchResourceIdsForRangeStep
+		implements IJobStepWorker<BulkExportJobParameters, BulkExportFetchRange, ResourceIdList> {
+	private static final Logger ourLog = LoggerFactory.getLogger(FetchResourceIdsForRangeStep.class);
+
+	@Autowired
+	private FetchResourceIdsStep myFetchResourceIdsStep;
+
+	@Nonnull
+	@Override
+	public RunOutcome run(
+			@Nonnull StepExecutionDetails<BulkExportJobParameters, BulkExportFetchRange> theStepExecutionDetails,
+			@Nonnull IJobDataSink<ResourceIdList> theDataSink)
+			throws JobExecutionFailedException {
+		BulkExportFetchRange range = theStepExecutionDetails.getData();
+		ourLog.info(
+				"Fetching resource IDs for bulk export job instance[{}] chunk[{}] - Types {} from PID {} to {}",
+				theStepExecutionDetails.getInstance().getInstanceId(),
+				theStepExecutionDetails.getChunkId(),
+				range.getResourceTypes(),
+				range.getStartPid(),
+				range.getEndPid());
+
+		myFetchResourceIdsStep.fetchResourceIds(
+				theStepExecutionDetails.getParameters(),
+				theStepExecutionDetails.getInstance().getInstanceId(),
+				theStepExecutionDetails.getChunkId(),
+				range.getResourceTypes(),
+				range.getStartPid(),
+				range.getEndPid(),
+				true,
+				theDataSink);
+		return RunOutcome.SUCCESS;
+	}
+}
@@ -43,6 +43,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public class FetchResourceIdsStep implements IFirstJobStepWorker<BulkExportJobParameters, ResourceIdList> {
 	private static final Logger ourLog = LoggerFactory.getLogger(FetchResourceIdsStep.class);
@@ -64,23 +65,66 @@ public class FetchResourceIdsStep implements IFirstJobStepWorker<BulkExportJobPa
 				"Fetching resource IDs for bulk export job instance[{}]",
 				theStepExecutionDetails.getInstance().getInstanceId());
 
+		fetchResourceIds(
+				params,
+				theStepExecutionDetails.getInstance().getInstanceId(),
+				theStepExecutionDetails.getChunkId(),
+				params.getResourceTypes(),
+				null,
+				null,
+				false,
+				theDataSink);
+		return RunOutcome.SUCCESS;
+	}
+
+	/**
+	 * Fetches the IDs of the resources of the given types which should be exported, and
+	 * passes them to the data sink in chunks of at most
+	 * {@link JpaStorageSettings#getBulkExportFileMaximumCapacity()} IDs.
+	 *
+	 * @param theStartPid If not <code>null</code>, only resources with a PID greater than or equal to this are fetched
+	 * @param theEndPid   If not <code>null</code>, only resources with a PID less than this are fetched
+	 * @param theIncludeDeletedResources If <code>true</code>, exports with a <code>_since</code> parameter also fetch
+	 *        the IDs of resources deleted since then when
+	 *        {@link JpaStorageSettings#isBulkExportIncrementalModeEnabled() incremental mode} is enabled. These are
+	 *        passed to the data sink in chunks which are {@link ResourceIdList#isDeleted() flagged as deleted}.
+	 */
+	void fetchResourceIds(
+			BulkExportJobParameters theParams,
+			String theInstanceId,
+			String theChunkId,
+			List<String> theResourceTypes,
+			@Nullable Long theStartPid,
+			@Nullable Long theEndPid,
+			boolean theIncludeDeletedResources,
+			IJobDataSink<ResourceIdList> theDataSink) {
 		ExportPIDIteratorParameters providerParams = new ExportPIDIteratorParameters();
-		providerParams.setInstanceId(theStepExecutionDetails.getInstance().getInstanceId());
-		providerParams.setChunkId(theStepExecutionDetails.getChunkId());
-		providerParams.setFilters(params.getFilters());
-		providerParams.setStartDate(params.getSince());
-		providerParams.setExportStyle(params.getExportStyle());
-		providerParams.setGroupId(params.getGroupId());
-		providerParams.setPatientIds(params.getPatientIds());
-		providerParams.setExpandMdm(params.isExpandMdm());
-		providerParams.setPartitionId(params.getPartitionId());
+		providerParams.setInstanceId(theInstanceId);
+		providerParams.setChunkId(theChunkId);
+		providerParams.setFilters(theParams.getFilters());
+		providerParams.setStartDate(theParams.getSince());
+		providerParams.setStartPid(theStartPid);
+		providerParams.setEndPid(theEndPid);
+		providerParams.setExportStyle(theParams.getExportStyle());
+		providerParams.setGroupId(theParams.getGroupId());
+		providerParams.setPatientIds(theParams.getPatientIds());
+		providerParams.setExpandMdm(theParams.isExpandMdm());
+		providerParams.setPartitionId(theParams.getPartitionId());
 
 		/*
 		 * we set all the requested resource types here so that
 		 * when we recursively fetch resource types for a given patient/group
 		 * we don't recurse for types that they did not request
 		 */
-		providerParams.setRequestedResourceTypes(params.getResourceTypes());
+		providerParams.setRequestedResourceTypes(theParams.getResourceTypes());
+
+		/*
+		 * Deleted resources are only reported to clients which are fetching the changes since
+		 * a previous export
+		 */
+		boolean includeDeletedResources = theIncludeDeletedResources
+				&& theParams.getSince() != null
+				&& myStorageSettings.isBulkExportIncrementalModeEnabled();
 
 		int submissionCount = 0;
 		try {
@@ -89,7 +133,7 @@ public class FetchResourceIdsStep implements IFirstJobStepWorker<BulkExportJobPa
 			/*
 			 * We will fetch ids for each resource type in the ResourceTypes (_type filter).
 			 */
-			for (String resourceType : params.getResourceTypes()) {
+			for (String resourceType : theResourceTypes) {
 				providerParams.setResourceType(resourceType);
 
 				// filters are the filters for searching
@@ -122,7 +166,7 @@ public class FetchResourceIdsStep implements IFirstJobStepWorker<BulkExportJobPa
 
 					// Make sure resources stored in each batch does not go over the max capacity
 					if (idsToSubmit.size() >= myStorageSettings.getBulkExportFileMaximumCapacity()) {
-						submitWorkChunk(idsToSubmit, resourceType, params, theDataSink);
+						submitWorkChunk(idsToSubmit, resourceType, theParams, theDataSink);
 						submissionCount++;
 						idsToSubmit = new ArrayList<>();
 					}
@@ -130,9 +174,13 @@ public class FetchResourceIdsStep implements IFirstJobStepWorker<BulkExportJobPa
 
 				// if we have any other Ids left, submit them now
 				if (!idsToSubmit.isEmpty()) {
-					submitWorkChunk(idsToSubmit, resourceType, params, theDataSink);
+					submitWorkChunk(idsToSubmit, resourceType, theParams, theDataSink);
 					submissionCount++;
 				}
+
+				if (includeDeletedResources && !hasPostFetchFilter(theParams, resourceType)) {
+					submissionCount += submitDeletedResourceIds(providerParams, resourceType, theDataSink);
+				}
 			}
 		} catch (Exception ex) {
 			ourLog.error(ex.getMessage(), ex);
@@ -143,7 +191,58 @@ public class FetchResourceIdsStep implements IFirstJobStepWorker<BulkExportJobPa
 		}
 
 		ourLog.info("Submitted {} groups of ids for processing", submissionCount);
-		return RunOutcome.SUCCESS;
+	}
+
+	/**
+	 * Submits the IDs of the resources of the given type which were deleted within the requested
+	 * date range
+	 *
+	 * @return The number of work chunks submitted
+	 */
+	private int submitDeletedResourceIds(
+			ExportPIDIteratorParameters theProviderParams,
+			String theResourceType,
+			IJobDataSink<ResourceIdList> theDataSink) {
+		Iterator<IResourcePersistentId> pidIterator =
+				myBulkExportProcessor.getDeletedResourcePidIterator(theProviderParams);
+
+		int submissionCount = 0;
+		List<BatchResourceId> idsToSubmit = new ArrayList<>();
+		while (pidIterator.hasNext()) {
+			idsToSubmit.add(BatchResourceId.getIdFromPID(pidIterator.next(), theResourceType));
+
+			if (idsToSubmit.size() >= myStorageSettings.getBulkExportFileMaximumCapacity()) {
+				submitDeletedWorkChunk(idsToSubmit, theResourceType, theDataSink);
+				submissionCount++;
+				idsToSubmit = new ArrayList<>();
+			}
+		}
+
+		if (!idsToSubmit.isEmpty()) {
+			submitDeletedWorkChunk(idsToSubmit, theResourceType, theDataSink);
+			submissionCount++;
+		}
+		return submissionCount;
+	}
+
+	/**
+	 * We can't tell whether a deleted resource would have matched a post-fetch filter,
+	 * so deleted resources are not reported for types which have one
+	 */
+	private static boolean hasPostFetchFilter(BulkExportJobParameters theParams, String theResourceType) {
+		String prefix = theResourceType + "?";
+		return theParams.getPostFetchFilterUrls().stream().anyMatch(t -> t.startsWith(prefix));
+	}
+
+	private void submitDeletedWorkChunk(
+			List<BatchResourceId> theBatchResourceIds,
+			String theResourceType,
+			IJobDataSink<ResourceIdList> theDataSink) {
+		ResourceIdList idList = new ResourceIdList();
+		idList.setIds(theBatchResourceIds);
+		idList.setResourceType(theResourceType);
+		idList.setDeleted(true);
+		theDataSink.accept(idList);
 	}
 
 	private void submitWorkChunk(
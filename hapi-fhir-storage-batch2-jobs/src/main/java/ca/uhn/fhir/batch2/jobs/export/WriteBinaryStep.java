@@ -81,18 +81,13 @@ public class WriteBinaryStep
 		ourLog.info("Write binary step of Job Export");
 		ourLog.info("Writing {} resources to binary file", numResourcesProcessed);
 
-		@SuppressWarnings("unchecked")
-		IFhirResourceDao<IBaseBinary> binaryDao = myDaoRegistry.getResourceDao("Binary");
+		IFhirResourceDao<IBaseBinary> binaryDao = getBinaryDao();
 
-		IBaseBinary binary = BinaryUtil.newBinary(myFhirContext);
-
-		addMetadataExtensionsToBinary(theStepExecutionDetails, expandedResources, binary);
-
-		// TODO
-		// should be dependent on the
-		// output format in parameters
-		// but for now, only NDJSON is supported
-		binary.setContentType(Constants.CT_FHIR_NDJSON);
+		BulkExportJobParameters jobParameters = theStepExecutionDetails.getParameters();
+		IBaseBinary binary = newBinary(
+				jobParameters,
+				theStepExecutionDetails.getInstance().getInstanceId(),
+				expandedResources.getResourceType());
 
 		int processedRecordsCount = 0;
 		try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
@@ -115,27 +110,57 @@ public class WriteBinaryStep
 			throw new JobExecutionFailedException(Msg.code(2238) + errorMsg);
 		}
 
-		SystemRequestDetails srd = new SystemRequestDetails();
-		BulkExportJobParameters jobParameters = theStepExecutionDetails.getParameters();
-		RequestPartitionId partitionId = jobParameters.getPartitionId();
-		if (partitionId == null) {
-			srd.setRequestPartitionId(RequestPartitionId.defaultPartition());
-		} else {
-			srd.setRequestPartitionId(partitionId);
-		}
+		assignUniqueBinaryId(binaryDao, binary);
+		IIdType id = saveBinary(binaryDao, binary, jobParameters);
 
+		BulkExportBinaryFileId bulkExportBinaryFileId = new BulkExportBinaryFileId();
+		bulkExportBinaryFileId.setBinaryId(id.getValueAsString());
+		bulkExportBinaryFileId.setResourceType(expandedResources.getResourceType());
+		theDataSink.accept(bulkExportBinaryFileId);
+
+		ourLog.info(
+				"Binary writing complete for {} resources of type {}.",
+				processedRecordsCount,
+				expandedResources.getResourceType());
+
+		return new RunOutcome(numResourcesProcessed);
+	}
+
+	/**
+	 * Creates a new Binary for holding an exported NDJSON file, including
+	 * the metadata extensions (see {@link #addMetadataExtensionsToBinary}).
+	 */
+	IBaseBinary newBinary(BulkExportJobParameters theParameters, String theInstanceId, String theResourceType) {
+		IBaseBinary binary = BinaryUtil.newBinary(myFhirContext);
+
+		addMetadataExtensionsToBinary(theParameters, theInstanceId, theResourceType, binary);
+
+		// TODO
+		// should be dependent on the
+		// output format in parameters
+		// but for now, only NDJSON is supported
+		binary.setContentType(Constants.CT_FHIR_NDJSON);
+		return binary;
+	}
+
+	/**
+	 * Assigns a new random ID to the given Binary
+	 *
+	 * @return The assigned ID, qualified with the <code>Binary</code> resource type
+	 */
+	IIdType assignUniqueBinaryId(IFhirResourceDao<IBaseBinary> theBinaryDao, IBaseBinary theBinary) {
 		// Pick a unique ID and retry until we get one that isn't already used. This is just to
 		// avoid any possibility of people guessing the IDs of these Binaries and fishing for them.
 		while (true) {
 			// Use a random ID to make it harder to guess IDs - 32 characters of a-zA-Z0-9
 			// has 190 bts of entropy according to https://www.omnicalculator.com/other/password-entropy
 			String proposedId = RandomTextUtils.newSecureRandomAlphaNumericString(32);
-			binary.setId(proposedId);
+			theBinary.setId(proposedId);
 
 			// Make sure we don't accidentally reuse an ID. This should be impossible given the
 			// amount of entropy in the IDs but might as well be sure.
 			try {
-				IBaseBinary output = binaryDao.read(binary.getIdElement(), new SystemRequestDetails(), true);
+				IBaseBinary output = theBinaryDao.read(theBinary.getIdElement(), new SystemRequestDetails(), true);
 				if (output != null) {
 					continue;
 				}
@@ -143,38 +168,64 @@ public class WriteBinaryStep
 				// good
 			}
 
-			break;
+			return myFhirContext.getVersion().newIdType().setParts(null, "Binary", proposedId, null);
 		}
+	}
+
+	/**
+	 * Applies the security context (if any) from the job parameters to the given Binary
+	 * and stores it in the partition the export is running against.
+	 *
+	 * @return The ID of the stored Binary
+	 */
+	IIdType saveBinary(
+			IFhirResourceDao<IBaseBinary> theBinaryDao, IBaseBinary theBinary, BulkExportJobParameters theParameters) {
+		SystemRequestDetails srd = newRequestDetails(theParameters);
 
 		if (myFhirContext.getVersion().getVersion().isNewerThan(FhirVersionEnum.DSTU2)) {
-			if (isNotBlank(jobParameters.getBinarySecurityContextIdentifierSystem())
-					|| isNotBlank(jobParameters.getBinarySecurityContextIdentifierValue())) {
+			if (isNotBlank(theParameters.getBinarySecurityContextIdentifierSystem())
+					|| isNotBlank(theParameters.getBinarySecurityContextIdentifierValue())) {
 				FhirTerser terser = myFhirContext.newTerser();
 				terser.setElement(
-						binary,
+						theBinary,
 						"securityContext.identifier.system",
-						jobParameters.getBinarySecurityContextIdentifierSystem());
+						theParameters.getBinarySecurityContextIdentifierSystem());
 				terser.setElement(
-						binary,
+						theBinary,
 						"securityContext.identifier.value",
-						jobParameters.getBinarySecurityContextIdentifierValue());
+						theParameters.getBinarySecurityContextIdentifierValue());
 			}
 		}
 
-		DaoMethodOutcome outcome = binaryDao.update(binary, srd);
-		IIdType id = outcome.getId();
+		DaoMethodOutcome outcome = theBinaryDao.update(theBinary, srd);
+		return outcome.getId();
+	}
 
-		BulkExportBinaryFileId bulkExportBinaryFileId = new BulkExportBinaryFileId();
-		bulkExportBinaryFileId.setBinaryId(id.getValueAsString());
-		bulkExportBinaryFileId.setResourceType(expandedResources.getResourceType());
-		theDataSink.accept(bulkExportBinaryFileId);
+	/**
+	 * Deletes a Binary stored by {@link #saveBinary(IFhirResourceDao, IBaseBinary, BulkExportJobParameters)}
+	 */
+	void deleteBinary(
+			IFhirResourceDao<IBaseBinary> theBinaryDao, IIdType theBinaryId, BulkExportJobParameters theParameters) {
+		theBinaryDao.delete(theBinaryId, newRequestDetails(theParameters));
+	}
 
-		ourLog.info(
-				"Binary writing complete for {} resources of type {}.",
-				processedRecordsCount,
-				expandedResources.getResourceType());
+	/**
+	 * Creates request details for the partition the export is running against
+	 */
+	private SystemRequestDetails newRequestDetails(BulkExportJobParameters theParameters) {
+		SystemRequestDetails srd = new SystemRequestDetails();
+		RequestPartitionId partitionId = theParameters.getPartitionId();
+		if (partitionId == null) {
+			srd.setRequestPartitionId(RequestPartitionId.defaultPartition());
+		} else {
+			srd.setRequestPartitionId(partitionId);
+		}
+		return srd;
+	}
 
-		return new RunOutcome(numResourcesProcessed);
+	@SuppressWarnings("unchecked")
+	IFhirResourceDao<IBaseBinary> getBinaryDao() {
+		return myDaoRegistry.getResourceDao("Binary");
 	}
 
 	/**
@@ -185,16 +236,14 @@ public class WriteBinaryStep
 	 * 3. the resource type of the resources contained in the binary
 	 */
 	private void addMetadataExtensionsToBinary(
-			@Nonnull StepExecutionDetails<BulkExportJobParameters, ExpandedResourcesList> theStepExecutionDetails,
-			ExpandedResourcesList expandedResources,
-			IBaseBinary binary) {
+			BulkExportJobParameters theParameters, String theInstanceId, String theResourceType, IBaseBinary binary) {
 		// Note that this applies only to hl7.org structures, so these extensions will not be added
 		// to DSTU2 structures
 		if (binary.getMeta() instanceof IBaseHasExtensions) {
 			IBaseHasExtensions meta = (IBaseHasExtensions) binary.getMeta();
 
 			// export identifier, potentially null.
-			String exportIdentifier = theStepExecutionDetails.getParameters().getExportIdentifier();
+			String exportIdentifier = theParameters.getExportIdentifier();
 			if (!StringUtils.isBlank(exportIdentifier)) {
 				IBaseExtension<?, ?> exportIdentifierExtension = meta.addExtension();
 				exportIdentifierExtension.setUrl(JpaConstants.BULK_META_EXTENSION_EXPORT_IDENTIFIER);
@@ -204,13 +253,12 @@ public class WriteBinaryStep
 			// job id
 			IBaseExtension<?, ?> jobExtension = meta.addExtension();
 			jobExtension.setUrl(JpaConstants.BULK_META_EXTENSION_JOB_ID);
-			jobExtension.setValue(myFhirContext.newPrimitiveString(
-					theStepExecutionDetails.getInstance().getInstanceId()));
+			jobExtension.setValue(myFhirContext.newPrimitiveString(theInstanceId));
 
 			// resource type
 			IBaseExtension<?, ?> typeExtension = meta.addExtension();
 			typeExtension.setUrl(JpaConstants.BULK_META_EXTENSION_RESOURCE_TYPE);
-			typeExtension.setValue(myFhirContext.newPrimitiveString(expandedResources.getResourceType()));
+			typeExtension.setValue(myFhirContext.newPrimitiveString(theResourceType));
 		} else {
 			ourLog.warn(
 					"Could not attach metadata extensions to binary resource, as this binary metadata does not support extensions");
@@ -29,6 +29,12 @@ public class BulkExportBinaryFileId extends BulkExportJobBase {
 	@JsonProperty("resourceType")
 	private String myResourceType;
 
+	/**
+	 * If true, the binary contains Bundles listing deleted resources
+	 */
+	@JsonProperty("deleted")
+	private boolean myDeleted;
+
 	public BulkExportBinaryFileId() {}
 
 	public String getBinaryId() {
@@ -46,4 +52,12 @@ public class BulkExportBinaryFileId extends BulkExportJobBase {
 	public void setResourceType(String theResourceType) {
 		myResourceType = theResourceType;
 	}
+
+	public boolean isDeleted() {
+		return myDeleted;
+	}
+
+	public void setDeleted(boolean theDeleted) {
+		myDeleted = theDeleted;
+	}
 }
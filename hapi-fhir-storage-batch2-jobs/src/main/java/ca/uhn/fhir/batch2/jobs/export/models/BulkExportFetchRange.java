@@ -0,0 +1,74 @@
+/*-
+ * #%L
+ * hapi-fhir-storage-batch2-jobs
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.jobs.export.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * A range of resources to fetch the IDs of for a bulk export. The range covers one or
+ * more resource types and is based on the PIDs of the resources. Either bound may be
+ * <code>null</code>, in which case the range is unbounded on that side.
+ */
+public class BulkExportFetchRange extends BulkExportJobBase {
+
+	@JsonProperty("resourceTypes")
+	private List<String> myResourceTypes;
+
+	@JsonProperty("startPid")
+	private Long myStartPid;
+
+	@JsonProperty("endPid")
+	private Long myEndPid;
+
+	public List<String> getResourceTypes() {
+		return myResourceTypes;
+	}
+
+	public BulkExportFetchRange setResourceTypes(List<String> theResourceTypes) {
+		myResourceTypes = theResourceTypes;
+		return this;
+	}
+
+	/**
+	 * The (inclusive) start of the range
+	 */
+	public Long getStartPid() {
+		return myStartPid;
+	}
+
+	public BulkExportFetchRange setStartPid(Long theStartPid) {
+		myStartPid = theStartPid;
+		return this;
+	}
+
+	/**
+	 * The (exclusive) end of the range
+	 */
+	public Long getEndPid() {
+		return myEndPid;
+	}
+
+	public BulkExportFetchRange setEndPid(Long theEndPid) {
+		myEndPid = theEndPid;
+		return this;
+	}
+}
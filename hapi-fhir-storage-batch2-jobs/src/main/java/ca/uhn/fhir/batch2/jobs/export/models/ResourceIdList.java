@@ -35,6 +35,13 @@ public class ResourceIdList extends BulkExportJobBase {
 	@JsonProperty("resourceType")
 	private String myResourceType;
 
+	/**
+	 * If true, the IDs are of resources which have been deleted, and which
+	 * should be reported as deleted instead of being exported
+	 */
+	@JsonProperty("deleted")
+	private boolean myDeleted;
+
 	public List<BatchResourceId> getIds() {
 		return myBatchResourceIds;
 	}
@@ -50,4 +57,12 @@ public class ResourceIdList extends BulkExportJobBase {
 	public void setResourceType(String theResourceType) {
 		myResourceType = theResourceType;
 	}
+
+	public boolean isDeleted() {
+		return myDeleted;
+	}
+
+	public void setDeleted(boolean theDeleted) {
+		myDeleted = theDeleted;
+	}
 }
@@ -0,0 +1,152 @@
+package ca.uhn.fhir.batch2.jobs.export;
+
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.batch2.api.VoidModel;
+import ca.uhn.fhir.batch2.jobs.export.models.BulkExportFetchRange;
+import ca.uhn.fhir.batch2.model.JobInstance;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkExportGenerateRangeChunksStepTest {
+
+	@Mock
+	private IBulkExportProcessor<JpaPid> myBulkExportProcessor;
+	@Mock
+	private JpaStorageSettings myStorageSettings;
+	@Mock
+	private IJobDataSink<BulkExportFetchRange> mySink;
+	@Captor
+	private ArgumentCaptor<BulkExportFetchRange> myRangeCaptor;
+
+	@InjectMocks
+	private BulkExportGenerateRangeChunksStep mySvc;
+
+	@Test
+	public void testSystemExport_NoSplitting() {
+		// setup
+		when(myStorageSettings.getBulkExportFetchRangeCount()).thenReturn(1);
+		BulkExportJobParameters parameters = createParameters(BulkExportJobParameters.ExportStyle.SYSTEM);
+
+		// test
+		mySvc.run(createInput(parameters), mySink);
+
+		// verify
+		verify(mySink, times(2)).accept(myRangeCaptor.capture());
+		List<BulkExportFetchRange> ranges = myRangeCaptor.getAllValues();
+		assertEquals(List.of("Patient"), ranges.get(0).getResourceTypes());
+		assertNull(ranges.get(0).getStartPid());
+		assertNull(ranges.get(0).getEndPid());
+		assertEquals(List.of("Observation"), ranges.get(1).getResourceTypes());
+		verify(myBulkExportProcessor, never()).getResourcePidRange(any(), any());
+	}
+
+	@Test
+	public void testSystemExport_SplitIntoRanges() {
+		// setup
+		RequestPartitionId partitionId = RequestPartitionId.fromPartitionId(1);
+		when(myStorageSettings.getBulkExportFetchRangeCount()).thenReturn(4);
+		when(myBulkExportProcessor.getResourcePidRange("Patient", partitionId)).thenReturn(Pair.of(101L, 200L));
+		when(myBulkExportProcessor.getResourcePidRange("Observation", partitionId)).thenReturn(null);
+		BulkExportJobParameters parameters = createParameters(BulkExportJobParameters.ExportStyle.SYSTEM);
+		parameters.setPartitionId(partitionId);
+
+		// test
+		mySvc.run(createInput(parameters), mySink);
+
+		// verify
+		verify(mySink, times(5)).accept(myRangeCaptor.capture());
+		List<BulkExportFetchRange> ranges = myRangeCaptor.getAllValues();
+
+		// The Patient ranges are contiguous, starting unbounded and ending unbounded
+		for (int i = 0; i < 4; i++) {
+			assertEquals(List.of("Patient"), ranges.get(i).getResourceTypes());
+		}
+		assertNull(ranges.get(0).getStartPid());
+		assertEquals(126L, ranges.get(0).getEndPid());
+		assertEquals(126L, ranges.get(1).getStartPid());
+		assertEquals(151L, ranges.get(1).getEndPid());
+		assertEquals(151L, ranges.get(2).getStartPid());
+		assertEquals(176L, ranges.get(2).getEndPid());
+		assertEquals(176L, ranges.get(3).getStartPid());
+		assertNull(ranges.get(3).getEndPid());
+
+		// There are no Observations so there is nothing to split
+		assertEquals(List.of("Observation"), ranges.get(4).getResourceTypes());
+		assertNull(ranges.get(4).getStartPid());
+		assertNull(ranges.get(4).getEndPid());
+	}
+
+	@Test
+	public void testSystemExport_TypeWithTypeFilterIsNotSplit() {
+		// setup
+		when(myStorageSettings.getBulkExportFetchRangeCount()).thenReturn(4);
+		when(myBulkExportProcessor.getResourcePidRange(eq("Patient"), any())).thenReturn(Pair.of(1L, 2L));
+		BulkExportJobParameters parameters = createParameters(BulkExportJobParameters.ExportStyle.SYSTEM);
+		parameters.setFilters(List.of("Observation?status=final"));
+
+		// test
+		mySvc.run(createInput(parameters), mySink);
+
+		// verify
+		verify(mySink, times(2)).accept(myRangeCaptor.capture());
+		List<BulkExportFetchRange> ranges = myRangeCaptor.getAllValues();
+		assertEquals(List.of("Patient"), ranges.get(0).getResourceTypes());
+		assertEquals(List.of("Observation"), ranges.get(1).getResourceTypes());
+		assertNull(ranges.get(1).getStartPid());
+		assertNull(ranges.get(1).getEndPid());
+		verify(myBulkExportProcessor, never()).getResourcePidRange(eq("Observation"), any());
+	}
+
+	@Test
+	public void testPatientExport_SingleRange() {
+		// setup
+		BulkExportJobParameters parameters = createParameters(BulkExportJobParameters.ExportStyle.PATIENT);
+
+		// test
+		mySvc.run(createInput(parameters), mySink);
+
+		// verify
+		verify(mySink, times(1)).accept(myRangeCaptor.capture());
+		BulkExportFetchRange range = myRangeCaptor.getValue();
+		assertEquals(List.of("Patient", "Observation"), range.getResourceTypes());
+		assertNull(range.getStartPid());
+		assertNull(range.getEndPid());
+	}
+
+	private BulkExportJobParameters createParameters(BulkExportJobParameters.ExportStyle theExportStyle) {
+		BulkExportJobParameters jobParameters = new BulkExportJobParameters();
+		jobParameters.setExportStyle(theExportStyle);
+		jobParameters.setResourceTypes(List.of("Patient", "Observation"));
+		return jobParameters;
+	}
+	private StepExecutionDetails<BulkExportJobParameters, VoidModel> createInput(BulkExportJobParameters theParameters) {
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId("1");
+		return new StepExecutionDetails<>(theParameters, null, instance, "1");
+	}
+
+}
@@ -37,11 +37,13 @@ import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -226,4 +228,54 @@ public class FetchResourceIdsStepTest {
 			found = false;
 		}
 	}
+
+	@Test
+	public void fetchResourceIds_incrementalMode_submitsDeletedIds() {
+		// setup
+		IJobDataSink<ResourceIdList> sink = mock(IJobDataSink.class);
+		BulkExportJobParameters parameters = createParameters(false);
+		parameters.setExportStyle(BulkExportJobParameters.ExportStyle.SYSTEM);
+		when(myStorageSettings.isBulkExportIncrementalModeEnabled()).thenReturn(true);
+		when(myStorageSettings.getBulkExportFileMaximumCapacity()).thenReturn(1000);
+		when(myBulkExportProcessor.getResourcePidIterator(any(ExportPIDIteratorParameters.class)))
+			.thenReturn(List.of(JpaPid.fromId(1L)).iterator());
+		when(myBulkExportProcessor.getDeletedResourcePidIterator(any(ExportPIDIteratorParameters.class)))
+			.thenReturn(List.of(JpaPid.fromId(2L), JpaPid.fromId(3L)).iterator());
+
+		// test
+		myFirstStep.fetchResourceIds(parameters, "1", "1", List.of("Patient"), null, null, true, sink);
+
+		// verify
+		ArgumentCaptor<ResourceIdList> captor = ArgumentCaptor.forClass(ResourceIdList.class);
+		verify(sink, times(2)).accept(captor.capture());
+		List<ResourceIdList> idLists = captor.getAllValues();
+
+		assertFalse(idLists.get(0).isDeleted());
+		assertEquals(List.of(BatchResourceId.getIdFromPID(JpaPid.fromId(1L), "Patient")), idLists.get(0).getIds());
+
+		assertTrue(idLists.get(1).isDeleted());
+		assertEquals("Patient", idLists.get(1).getResourceType());
+		assertEquals(List.of(
+			BatchResourceId.getIdFromPID(JpaPid.fromId(2L), "Patient"),
+			BatchResourceId.getIdFromPID(JpaPid.fromId(3L), "Patient")
+		), idLists.get(1).getIds());
+	}
+
+	@Test
+	public void fetchResourceIds_incrementalModeWithoutSince_doesNotSubmitDeletedIds() {
+		// setup
+		IJobDataSink<ResourceIdList> sink = mock(IJobDataSink.class);
+		BulkExportJobParameters parameters = createParameters(false);
+		parameters.setExportStyle(BulkExportJobParameters.ExportStyle.SYSTEM);
+		parameters.setSince(null);
+		when(myBulkExportProcessor.getResourcePidIterator(any(ExportPIDIteratorParameters.class)))
+			.thenReturn(List.of(JpaPid.fromId(1L)).iterator());
+
+		// test
+		myFirstStep.fetchResourceIds(parameters, "1", "1", List.of("Patient"), null, null, true, sink);
+
+		// verify
+		verify(sink, times(1)).accept(any(ResourceIdList.class));
+		verify(myBulkExportProcessor, never()).getDeletedResourcePidIterator(any());
+	}
 }
@@ -28,6 +28,23 @@ public interface IJobMaintenanceService {
 	 */
 	boolean triggerMaintenancePass();
 
+	/**
+	 * Notifies the maintenance service that a work chunk belonging to the given gated job instance has
+	 * completed. If event driven advancement is enabled and all of the work chunks for the current step
+	 * of the instance are complete, the instance is queued for immediate maintenance (i.e. advancing it
+	 * to the next step) instead of waiting for the next scheduled maintenance pass.
+	 * <p>
+	 * The default implementation does nothing, so the instance simply advances on the next
+	 * scheduled maintenance pass.
+	 * </p>
+	 *
+	 * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#isJobEventDrivenAdvancementEnabled()
+	 * @since 7.0.0
+	 */
+	default void onGatedWorkChunkCompletion(String theInstanceId) {
+		// nothing
+	}
+
 	void runMaintenancePass();
 
 	/**
@@ -0,0 +1,48 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Batch2 Task Processor
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.api;
+
+import javax.annotation.Nullable;
+
+/**
+ * Converts the serialized (JSON) data of a work chunk to and from the form in which it is stored
+ * by the {@link IJobPersistence job persistence} implementation. This can be used to store chunk
+ * data in a more compact form than plain JSON.
+ * <p>
+ * Implementations must be able to decode plain JSON as well as anything they have previously
+ * encoded, since chunks may have been stored before the codec (or its configuration) was changed.
+ * </p>
+ *
+ * @since 7.0.0
+ */
+public interface IWorkChunkDataCodec {
+
+	/**
+	 * Converts serialized chunk data into the form that will be stored
+	 */
+	@Nullable
+	String encode(@Nullable String theSerializedData);
+
+	/**
+	 * Converts stored chunk data back into serialized (JSON) chunk data
+	 */
+	@Nullable
+	String decode(@Nullable String theStoredData);
+}
@@ -23,6 +23,7 @@ import ca.uhn.fhir.batch2.api.IJobCoordinator;
 import ca.uhn.fhir.batch2.api.IJobMaintenanceService;
 import ca.uhn.fhir.batch2.api.IJobPersistence;
 import ca.uhn.fhir.batch2.api.IReductionStepExecutorService;
+import ca.uhn.fhir.batch2.api.IWorkChunkDataCodec;
 import ca.uhn.fhir.batch2.channel.BatchJobSender;
 import ca.uhn.fhir.batch2.coordinator.JobCoordinatorImpl;
 import ca.uhn.fhir.batch2.coordinator.JobDefinitionRegistry;
@@ -30,6 +31,7 @@ import ca.uhn.fhir.batch2.coordinator.ReductionStepExecutorServiceImpl;
 import ca.uhn.fhir.batch2.coordinator.WorkChunkProcessor;
 import ca.uhn.fhir.batch2.maintenance.JobMaintenanceServiceImpl;
 import ca.uhn.fhir.batch2.model.JobWorkNotificationJsonMessage;
+import ca.uhn.fhir.batch2.util.WorkChunkDataCodec;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
@@ -58,6 +60,11 @@ public abstract class BaseBatch2Config {
 		return new JobDefinitionRegistry();
 	}
 
+	@Bean
+	public IWorkChunkDataCodec batch2WorkChunkDataCodec(JpaStorageSettings theStorageSettings) {
+		return new WorkChunkDataCodec(theStorageSettings);
+	}
+
 	@Bean
 	public WorkChunkProcessor jobStepExecutorService(BatchJobSender theBatchJobSender) {
 		return new WorkChunkProcessor(myPersistence, theBatchJobSender);
@@ -39,10 +39,18 @@ import org.apache.commons.lang3.time.DateUtils;
 import org.quartz.JobExecutionContext;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
@@ -75,6 +83,13 @@ import javax.annotation.Nonnull;
  *    The maintenance pass is run once per minute.  However if a gated job is fast-tracking (i.e. every step produced
  *    exactly one chunk, then the maintenance task will be triggered earlier than scheduled by the step executor.
  * </p>
+ *
+ * <p>
+ *    If {@link JpaStorageSettings#isJobEventDrivenAdvancementEnabled() event driven advancement} is enabled, gated
+ *    job instances are also maintained individually as soon as the last work chunk of their current step completes,
+ *    so that they don't sit idle until the next scheduled pass. When clustered scheduling is enabled this triggers
+ *    the clustered maintenance job rather than maintaining the instance on the local node.
+ * </p>
  */
 public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasScheduledJobs {
 	static final Logger ourLog = Logs.getBatchTroubleshootingLog();
@@ -91,6 +106,8 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 	private final WorkChunkProcessor myJobExecutorSvc;
 
 	private final Semaphore myRunMaintenanceSemaphore = new Semaphore(1);
+	private final Set<String> myInstanceIdsPendingMaintenance = ConcurrentHashMap.newKeySet();
+	private final ExecutorService myInstanceMaintenanceExecutor;
 
 	private long myScheduledJobFrequencyMillis = DateUtils.MILLIS_PER_MINUTE;
 	private Runnable myMaintenanceJobStartedCallback = () -> {};
@@ -120,6 +137,14 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 		myJobDefinitionRegistry = theJobDefinitionRegistry;
 		myBatchJobSender = theBatchJobSender;
 		myJobExecutorSvc = theExecutor;
+
+		myInstanceMaintenanceExecutor =
+				Executors.newSingleThreadExecutor(new CustomizableThreadFactory("batch2-instance-maintenance"));
+	}
+
+	@EventListener(ContextClosedEvent.class)
+	public void shutdown() {
+		myInstanceMaintenanceExecutor.shutdownNow();
 	}
 
 	@Override
@@ -196,6 +221,100 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 		doMaintenancePass();
 	}
 
+	@Override
+	public void onGatedWorkChunkCompletion(String theInstanceId) {
+		if (!myStorageSettings.isJobEventDrivenAdvancementEnabled()) {
+			return;
+		}
+		if (myInstanceIdsPendingMaintenance.add(theInstanceId)) {
+			myInstanceMaintenanceExecutor.submit(this::runPendingInstanceMaintenance);
+		}
+	}
+
+	/**
+	 * Maintains the instances queued by {@link #onGatedWorkChunkCompletion(String)}. Chunk completions
+	 * for the same instance are coalesced while it is waiting in the queue, and only instances whose current
+	 * step has no remaining incomplete work chunks are actually processed. If clustered scheduling is enabled,
+	 * the maintenance job is triggered through the scheduler instead so that it still only runs on one node.
+	 */
+	@VisibleForTesting
+	void runPendingInstanceMaintenance() {
+		if (myInstanceIdsPendingMaintenance.isEmpty()) {
+			return;
+		}
+
+		if (mySchedulerService.isClusteredSchedulingEnabled()) {
+			triggerClusteredMaintenanceForPendingInstances();
+			return;
+		}
+
+		try {
+			if (!myRunMaintenanceSemaphore.tryAcquire(
+					MAINTENANCE_TRIGGER_RUN_WITHOUT_SCHEDULER_TIMEOUT, TimeUnit.MINUTES)) {
+				ourLog.warn("Timed out waiting to run instance maintenance, leaving it for the next scheduled pass");
+				return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		try {
+			JobChunkProgressAccumulator progressAccumulator = new JobChunkProgressAccumulator();
+			for (Iterator<String> iter = myInstanceIdsPendingMaintenance.iterator(); iter.hasNext(); ) {
+				String instanceId = iter.next();
+				iter.remove();
+
+				Optional<JobInstance> instance = fetchInstanceIfReadyToAdvance(instanceId);
+				if (instance.isPresent()) {
+					processInstance(instance.get(), progressAccumulator);
+				}
+			}
+		} catch (Exception e) {
+			ourLog.error("Instance maintenance failed", e);
+		} finally {
+			myRunMaintenanceSemaphore.release();
+		}
+	}
+
+	private void triggerClusteredMaintenanceForPendingInstances() {
+		boolean trigger = false;
+		try {
+			for (Iterator<String> iter = myInstanceIdsPendingMaintenance.iterator(); iter.hasNext(); ) {
+				String instanceId = iter.next();
+				iter.remove();
+
+				if (fetchInstanceIfReadyToAdvance(instanceId).isPresent()) {
+					trigger = true;
+				}
+			}
+		} catch (Exception e) {
+			ourLog.error("Instance maintenance failed", e);
+		}
+
+		if (trigger) {
+			ourLog.debug("Triggering clustered maintenance pass for completed gated steps");
+			mySchedulerService.triggerClusteredJobImmediately(buildJobDefinition());
+		}
+	}
+
+	private Optional<JobInstance> fetchInstanceIfReadyToAdvance(String theInstanceId) {
+		Optional<JobInstance> instance = myJobPersistence.fetchInstance(theInstanceId);
+		if (instance.isEmpty() || !instance.get().isRunning() || !instance.get().hasGatedStep()) {
+			return Optional.empty();
+		}
+		String currentStepId = instance.get().getCurrentGatedStepId();
+		if (!myJobPersistence.canAdvanceInstanceToNextStep(theInstanceId, currentStepId)) {
+			return Optional.empty();
+		}
+
+		ourLog.debug(
+				"All work chunks for instance {} step {} are complete.  Instance is ready to advance.",
+				theInstanceId,
+				currentStepId);
+		return instance;
+	}
+
 	@Override
 	public void runMaintenancePass() {
 		if (!myRunMaintenanceSemaphore.tryAcquire()) {
@@ -220,30 +339,8 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 			List<JobInstance> instances = myJobPersistence.fetchInstances(INSTANCES_PER_PASS, page);
 
 			for (JobInstance instance : instances) {
-				String instanceId = instance.getInstanceId();
-				if (myJobDefinitionRegistry
-						.getJobDefinition(instance.getJobDefinitionId(), instance.getJobDefinitionVersion())
-						.isPresent()) {
-					if (processedInstanceIds.add(instanceId)) {
-						myJobDefinitionRegistry.setJobDefinition(instance);
-						JobInstanceProcessor jobInstanceProcessor = new JobInstanceProcessor(
-								myJobPersistence,
-								myBatchJobSender,
-								instanceId,
-								progressAccumulator,
-								myReductionStepExecutorService,
-								myJobDefinitionRegistry);
-						ourLog.debug(
-								"Triggering maintenance process for instance {} in status {}",
-								instanceId,
-								instance.getStatus());
-						jobInstanceProcessor.process();
-					}
-				} else {
-					ourLog.warn(
-							"Job definition {} for instance {} is currently unavailable",
-							instance.getJobDefinitionId(),
-							instanceId);
+				if (processedInstanceIds.add(instance.getInstanceId())) {
+					processInstance(instance, progressAccumulator);
 				}
 			}
 
@@ -254,6 +351,30 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 		myMaintenanceJobFinishedCallback.run();
 	}
 
+	private void processInstance(JobInstance theInstance, JobChunkProgressAccumulator theProgressAccumulator) {
+		String instanceId = theInstance.getInstanceId();
+		if (myJobDefinitionRegistry
+				.getJobDefinition(theInstance.getJobDefinitionId(), theInstance.getJobDefinitionVersion())
+				.isPresent()) {
+			myJobDefinitionRegistry.setJobDefinition(theInstance);
+			JobInstanceProcessor jobInstanceProcessor = new JobInstanceProcessor(
+					myJobPersistence,
+					myBatchJobSender,
+					instanceId,
+					theProgressAccumulator,
+					myReductionStepExecutorService,
+					myJobDefinitionRegistry);
+			ourLog.debug(
+					"Triggering maintenance process for instance {} in status {}", instanceId, theInstance.getStatus());
+			jobInstanceProcessor.process();
+		} else {
+			ourLog.warn(
+					"Job definition {} for instance {} is currently unavailable",
+					theInstance.getJobDefinitionId(),
+					instanceId);
+		}
+	}
+
 	public void setMaintenanceJobStartedCallback(Runnable theMaintenanceJobStartedCallback) {
 		myMaintenanceJobStartedCallback = theMaintenanceJobStartedCallback;
 	}
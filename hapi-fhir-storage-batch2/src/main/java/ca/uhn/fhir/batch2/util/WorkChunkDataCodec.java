@@ -0,0 +1,73 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Batch2 Task Processor
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.util;
+
+import ca.uhn.fhir.batch2.api.IWorkChunkDataCodec;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.GZipUtil;
+
+import java.util.Base64;
+import javax.annotation.Nullable;
+
+/**
+ * Default {@link IWorkChunkDataCodec}. If {@link JpaStorageSettings#isJobWorkChunkDataCompressionEnabled()
+ * compression is enabled}, chunk data larger than {@link #MIN_COMPRESSION_LENGTH} characters is GZip
+ * compressed and stored as Base64 text with a {@link #GZIP_PREFIX prefix}. Chunk data without the
+ * prefix is assumed to be plain JSON, so data is always decoded correctly regardless of the setting.
+ */
+public class WorkChunkDataCodec implements IWorkChunkDataCodec {
+
+	/**
+	 * Serialized chunk data is always a JSON object, so this can never be the start of uncompressed data
+	 */
+	public static final String GZIP_PREFIX = "gz:";
+
+	public static final int MIN_COMPRESSION_LENGTH = 512;
+
+	private final JpaStorageSettings myStorageSettings;
+
+	/**
+	 * Constructor
+	 */
+	public WorkChunkDataCodec(JpaStorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
+	@Nullable
+	@Override
+	public String encode(@Nullable String theSerializedData) {
+		if (theSerializedData == null
+				|| theSerializedData.length() < MIN_COMPRESSION_LENGTH
+				|| !myStorageSettings.isJobWorkChunkDataCompressionEnabled()) {
+			return theSerializedData;
+		}
+		return GZIP_PREFIX + Base64.getEncoder().encodeToString(GZipUtil.compress(theSerializedData));
+	}
+
+	@Nullable
+	@Override
+	public String decode(@Nullable String theStoredData) {
+		if (theStoredData == null || !theStoredData.startsWith(GZIP_PREFIX)) {
+			return theStoredData;
+		}
+		byte[] compressed = Base64.getDecoder().decode(theStoredData.substring(GZIP_PREFIX.length()));
+		return GZipUtil.decompress(compressed);
+	}
+}
@@ -229,6 +229,7 @@ public class JobCoordinatorImplTest extends BaseBatch2Test {
 
 		verify(myJobInstancePersister, times(1)).onWorkChunkCompletion(new WorkChunkCompletionEvent(CHUNK_ID, 50, 0));
 		verify(myBatchJobSender, times(0)).sendWorkChannelMessage(any());
+		verify(myJobMaintenanceService, times(1)).onGatedWorkChunkCompletion(eq(INSTANCE_ID));
 	}
 
 	@Test
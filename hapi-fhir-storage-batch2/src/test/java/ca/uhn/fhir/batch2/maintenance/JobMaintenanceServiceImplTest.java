@@ -60,6 +60,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -256,6 +257,77 @@ public class JobMaintenanceServiceImplTest extends BaseBatch2Test {
 		assertEquals(CHUNK_ID_2, payload1.getChunkId());
 	}
 
+	@Test
+	public void testGatedWorkChunkCompletion_LastChunkInStep_AdvancesImmediately() {
+		// Setup
+		myStorageSettings.setJobEventDrivenAdvancementEnabled(true);
+		List<WorkChunk> chunks = Arrays.asList(
+			JobCoordinatorImplTest.createWorkChunkStep1().setStatus(WorkChunkStatusEnum.COMPLETED).setId(CHUNK_ID + "abc"),
+			JobCoordinatorImplTest.createWorkChunkStep2().setStatus(WorkChunkStatusEnum.QUEUED).setId(CHUNK_ID)
+		);
+		when(myJobPersistence.canAdvanceInstanceToNextStep(eq(INSTANCE_ID), eq(STEP_1))).thenReturn(true);
+		myJobDefinitionRegistry.addJobDefinition(createJobDefinition(JobDefinition.Builder::gatedExecution));
+
+		when(myJobPersistence.fetchAllWorkChunksIterator(eq(INSTANCE_ID), eq(false)))
+			.thenReturn(chunks.iterator());
+		when(myJobPersistence.fetchAllChunkIdsForStepWithStatus(eq(INSTANCE_ID), eq(STEP_2), eq(WorkChunkStatusEnum.QUEUED)))
+			.thenReturn(List.of(CHUNK_ID));
+
+		JobInstance instance1 = createInstance();
+		instance1.setCurrentGatedStepId(STEP_1);
+		when(myJobPersistence.fetchInstance(INSTANCE_ID)).thenReturn(Optional.of(instance1));
+		stubUpdateInstanceCallback(instance1);
+
+		// Execute
+		mySvc.onGatedWorkChunkCompletion(INSTANCE_ID);
+
+		// Verify
+		verify(myWorkChannelProducer, timeout(10000).times(1)).send(myMessageCaptor.capture());
+		JobWorkNotification payload = myMessageCaptor.getValue().getPayload();
+		assertEquals(STEP_2, payload.getTargetStepId());
+		assertEquals(CHUNK_ID, payload.getChunkId());
+		verify(myJobPersistence, never()).fetchInstances(anyInt(), anyInt());
+	}
+
+	@Test
+	public void testGatedWorkChunkCompletion_StepNotComplete_DoesNotAdvance() {
+		myStorageSettings.setJobEventDrivenAdvancementEnabled(true);
+		JobInstance instance1 = createInstance();
+		instance1.setCurrentGatedStepId(STEP_1);
+		when(myJobPersistence.fetchInstance(INSTANCE_ID)).thenReturn(Optional.of(instance1));
+		when(myJobPersistence.canAdvanceInstanceToNextStep(eq(INSTANCE_ID), eq(STEP_1))).thenReturn(false);
+
+		mySvc.onGatedWorkChunkCompletion(INSTANCE_ID);
+
+		verify(myJobPersistence, timeout(10000).times(1)).canAdvanceInstanceToNextStep(eq(INSTANCE_ID), eq(STEP_1));
+		verify(myJobPersistence, never()).updateInstance(any(), any());
+		verify(myWorkChannelProducer, never()).send(any());
+	}
+
+	@Test
+	public void testGatedWorkChunkCompletion_ClusteredScheduling_TriggersClusteredJob() {
+		myStorageSettings.setJobEventDrivenAdvancementEnabled(true);
+		when(mySchedulerService.isClusteredSchedulingEnabled()).thenReturn(true);
+		JobInstance instance1 = createInstance();
+		instance1.setCurrentGatedStepId(STEP_1);
+		when(myJobPersistence.fetchInstance(INSTANCE_ID)).thenReturn(Optional.of(instance1));
+		when(myJobPersistence.canAdvanceInstanceToNextStep(eq(INSTANCE_ID), eq(STEP_1))).thenReturn(true);
+
+		mySvc.onGatedWorkChunkCompletion(INSTANCE_ID);
+
+		verify(mySchedulerService, timeout(10000).times(1)).triggerClusteredJobImmediately(any());
+		verify(myJobPersistence, never()).updateInstance(any(), any());
+		verify(myWorkChannelProducer, never()).send(any());
+	}
+
+	@Test
+	public void testGatedWorkChunkCompletion_Disabled_DoesNothing() {
+		mySvc.onGatedWorkChunkCompletion(INSTANCE_ID);
+		mySvc.runPendingInstanceMaintenance();
+
+		verifyNoMoreInteractions(myJobPersistence);
+	}
+
 	@Test
 	public void testFailed_PurgeOldInstance() {
 		myJobDefinitionRegistry.addJobDefinition(createJobDefinition());
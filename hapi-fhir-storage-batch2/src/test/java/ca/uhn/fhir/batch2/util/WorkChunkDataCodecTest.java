@@ -0,0 +1,67 @@
+package ca.uhn.fhir.batch2.util;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkChunkDataCodecTest {
+
+	private final JpaStorageSettings myStorageSettings = new JpaStorageSettings();
+	private final WorkChunkDataCodec mySvc = new WorkChunkDataCodec(myStorageSettings);
+
+	@Test
+	void testEncode_CompressionDisabled_Unchanged() {
+		String data = createResourceIdListJson(100);
+
+		assertEquals(data, mySvc.encode(data));
+		assertEquals(data, mySvc.decode(data));
+	}
+
+	@Test
+	void testEncode_CompressionEnabled_RoundTrips() {
+		myStorageSettings.setJobWorkChunkDataCompressionEnabled(true);
+		String data = createResourceIdListJson(100);
+
+		String encoded = mySvc.encode(data);
+		assertTrue(encoded.startsWith(WorkChunkDataCodec.GZIP_PREFIX));
+		assertTrue(encoded.length() < data.length() / 4, encoded);
+		assertEquals(data, mySvc.decode(encoded));
+
+		// Data stored with compression enabled can still be read once it is disabled
+		myStorageSettings.setJobWorkChunkDataCompressionEnabled(false);
+		assertEquals(data, mySvc.decode(encoded));
+	}
+
+	@Test
+	void testEncode_CompressionEnabled_SmallDataNotCompressed() {
+		myStorageSettings.setJobWorkChunkDataCompressionEnabled(true);
+		String data = createResourceIdListJson(1);
+
+		String encoded = mySvc.encode(data);
+		assertFalse(encoded.startsWith(WorkChunkDataCodec.GZIP_PREFIX));
+		assertEquals(data, mySvc.decode(encoded));
+	}
+
+	@Test
+	void testNull() {
+		myStorageSettings.setJobWorkChunkDataCompressionEnabled(true);
+
+		assertNull(mySvc.encode(null));
+		assertNull(mySvc.decode(null));
+	}
+
+	private static String createResourceIdListJson(int theCount) {
+		StringBuilder b = new StringBuilder("{\"ids\":[");
+		for (int i = 0; i < theCount; i++) {
+			if (i > 0) {
+				b.append(',');
+			}
+			b.append("{\"type\":\"Observation\",\"id\":\"").append(100000 + i).append("\"}");
+		}
+		return b.append("]}").toString();
+	}
+}
@@ -93,6 +93,10 @@ public class JpaStorageSettings extends StorageSettings {
 	public static final int DEFAULT_BUNDLE_BATCH_QUEUE_CAPACITY = 200;
 
 	public static final int DEFAULT_BULK_EXPORT_FILE_MAXIMUM_CAPACITY = 1_000;
+	/**
+	 * Default value for {@link #setBulkExportFileMaximumSize(long)}
+	 */
+	public static final long DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE = 100L * 1024 * 1024;
 	/**
 	 * Default value for {@link #setMaximumSearchResultCountInTransaction(Integer)}
 	 *
@@ -327,6 +331,71 @@ public class JpaStorageSettings extends StorageSettings {
 	 */
 	private boolean myNonResourceDbHistoryEnabled = true;
 
+	/**
+	 * Since 7.0.0
+	 */
+	private boolean mySearchKeysetPagingEnabled = false;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private String mySearchKeysetPagingSecret;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private boolean mySearchPredicateOrderingEnabled = false;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private boolean mySearchFirstPageMemoryCacheEnabled = false;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private int myIncludeLoadingPoolSize = 1;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private boolean mySearchResourceBulkLoadEnabled = false;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private int mySearchResourceParsePoolSize = 1;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private boolean myIdCacheInvalidationBroadcastEnabled = false;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private boolean myJobEventDrivenAdvancementEnabled = false;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private boolean myJobWorkChunkDataCompressionEnabled = false;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private long myBulkExportFileMaximumSize = DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private int myBulkExportFetchRangeCount = 1;
+
+	/**
+	 * Since 7.0.0
+	 */
+	private boolean myBulkExportIncrementalModeEnabled = false;
+
 	/**
 	 * Constructor
 	 */
@@ -2319,6 +2388,534 @@ public class JpaStorageSettings extends StorageSettings {
 		myNonResourceDbHistoryEnabled = theNonResourceDbHistoryEnabled;
 	}
 
+	/**
+	 * If enabled, client searches which do not specify a sort order (<code>_sort</code>), an offset
+	 * (<code>_offset</code>) or a total (<code>_total</code>) are paged using keyset (seek) paging
+	 * instead of being stored in the search result cache. Results are returned in ascending resource
+	 * PID order, and each page is loaded with a query of the form <code>RES_ID &gt; [last PID]</code>
+	 * so that every page costs the same regardless of how deep into the result set it is.
+	 * <p>
+	 * The continuation token in the <code>next</code> link is self contained, so any node in a
+	 * cluster can serve any page and nothing is written to the search result tables. The token is
+	 * signed (see {@link #setSearchKeysetPagingSecret(String)}) so that clients can not alter the
+	 * search it contains. Keyset paged searches do not provide a <code>previous</code> link.
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isSearchKeysetPagingEnabled() {
+		return mySearchKeysetPagingEnabled;
+	}
+
+	/**
+	 * If enabled, client searches which do not specify a sort order (<code>_sort</code>), an offset
+	 * (<code>_offset</code>) or a total (<code>_total</code>) are paged using keyset (seek) paging
+	 * instead of being stored in the search result cache. Results are returned in ascending resource
+	 * PID order, and each page is loaded with a query of the form <code>RES_ID &gt; [last PID]</code>
+	 * so that every page costs the same regardless of how deep into the result set it is.
+	 * <p>
+	 * The continuation token in the <code>next</code> link is self contained, so any node in a
+	 * cluster can serve any page and nothing is written to the search result tables. The token is
+	 * signed (see {@link #setSearchKeysetPagingSecret(String)}) so that clients can not alter the
+	 * search it contains. Keyset paged searches do not provide a <code>previous</code> link.
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setSearchKeysetPagingEnabled(boolean theSearchKeysetPagingEnabled) {
+		mySearchKeysetPagingEnabled = theSearchKeysetPagingEnabled;
+	}
+
+	/**
+	 * The secret used to sign (HMAC-SHA256) the continuation tokens of keyset paged searches (see
+	 * {@link #setSearchKeysetPagingEnabled(boolean)}). Tokens which were not signed with this secret
+	 * are rejected, so a client can not alter the search query carried in a token in order to
+	 * bypass restrictions which were applied to the original search.
+	 * <p>
+	 * If this is not set, a random secret is generated when the server starts. This is fine for a
+	 * single node, but in a cluster every node must be configured with the same secret or tokens
+	 * created by one node will not be accepted by the others.
+	 * </p>
+	 * <p>
+	 * Default is <code>null</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public String getSearchKeysetPagingSecret() {
+		return mySearchKeysetPagingSecret;
+	}
+
+	/**
+	 * The secret used to sign (HMAC-SHA256) the continuation tokens of keyset paged searches (see
+	 * {@link #setSearchKeysetPagingEnabled(boolean)}). Tokens which were not signed with this secret
+	 * are rejected, so a client can not alter the search query carried in a token in order to
+	 * bypass restrictions which were applied to the original search.
+	 * <p>
+	 * If this is not set, a random secret is generated when the server starts. This is fine for a
+	 * single node, but in a cluster every node must be configured with the same secret or tokens
+	 * created by one node will not be accepted by the others.
+	 * </p>
+	 * <p>
+	 * Default is <code>null</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setSearchKeysetPagingSecret(String theSearchKeysetPagingSecret) {
+		mySearchKeysetPagingSecret = theSearchKeysetPagingSecret;
+	}
+
+	/**
+	 * If enabled, the parameters of a multi-parameter search are joined in order of their
+	 * estimated selectivity instead of the order they appear in the request. Token cardinalities
+	 * are sampled (with a small cap) from the token index table and cached for a few minutes,
+	 * and references to an explicit resource ID are assumed to be selective. This avoids query
+	 * plans where a low selectivity parameter such as <code>status=final</code> drives a search
+	 * that also contains a highly selective one such as <code>subject=Patient/123</code>.
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isSearchPredicateOrderingEnabled() {
+		return mySearchPredicateOrderingEnabled;
+	}
+
+	/**
+	 * If enabled, the parameters of a multi-parameter search are joined in order of their
+	 * estimated selectivity instead of the order they appear in the request. Token cardinalities
+	 * are sampled (with a small cap) from the token index table and cached for a few minutes,
+	 * and references to an explicit resource ID are assumed to be selective. This avoids query
+	 * plans where a low selectivity parameter such as <code>status=final</code> drives a search
+	 * that also contains a highly selective one such as <code>subject=Patient/123</code>.
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setSearchPredicateOrderingEnabled(boolean theSearchPredicateOrderingEnabled) {
+		mySearchPredicateOrderingEnabled = theSearchPredicateOrderingEnabled;
+	}
+
+	/**
+	 * If enabled, client searches whose complete results fit on a single page are cached in
+	 * memory and reused without touching the search cache tables (<code>HFJ_SEARCH</code> and
+	 * <code>HFJ_SEARCH_RESULT</code>). Cached entries are invalidated as soon as a write to the
+	 * searched resource type commits, instead of after a fixed time as with
+	 * {@link #setReuseCachedSearchResultsForMillis(Long)}. Only searches that depend on nothing but
+	 * the indexes of their own resource type are cached (e.g. no chains, <code>_has</code>,
+	 * <code>_list</code> or terminology modifiers). Includes are loaded, and access checks are
+	 * applied, on every request.
+	 * <p>
+	 * Write watermarks are tracked by each node separately, so in a clustered deployment an entry
+	 * may stay in use for up to a minute after a write made on another node.
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isSearchFirstPageMemoryCacheEnabled() {
+		return mySearchFirstPageMemoryCacheEnabled;
+	}
+
+	/**
+	 * If enabled, client searches whose complete results fit on a single page are cached in
+	 * memory and reused without touching the search cache tables (<code>HFJ_SEARCH</code> and
+	 * <code>HFJ_SEARCH_RESULT</code>). Cached entries are invalidated as soon as a write to the
+	 * searched resource type commits, instead of after a fixed time as with
+	 * {@link #setReuseCachedSearchResultsForMillis(Long)}. Only searches that depend on nothing but
+	 * the indexes of their own resource type are cached (e.g. no chains, <code>_has</code>,
+	 * <code>_list</code> or terminology modifiers). Includes are loaded, and access checks are
+	 * applied, on every request.
+	 * <p>
+	 * Write watermarks are tracked by each node separately, so in a clustered deployment an entry
+	 * may stay in use for up to a minute after a write made on another node.
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setSearchFirstPageMemoryCacheEnabled(boolean theSearchFirstPageMemoryCacheEnabled) {
+		mySearchFirstPageMemoryCacheEnabled = theSearchFirstPageMemoryCacheEnabled;
+	}
+
+	/**
+	 * The number of threads used to load <code>_include</code> and <code>_revinclude</code> results.
+	 * If this is greater than 1, the independent include queries of each include round (one per
+	 * include path and block of source PIDs) are run concurrently, each in its own read-only database
+	 * transaction, and their results are merged. If this is 1, include queries are run one after another
+	 * in the calling transaction.
+	 * <p>
+	 * The thread pool is created when the server starts, so changes to this value made afterward only
+	 * switch parallel loading on or off. Because every worker needs a database connection while the
+	 * searching thread holds its own, the pool is limited to half of the database connection pool
+	 * size (when it can be determined), and queries which find no idle worker are run by the
+	 * searching thread itself.
+	 * </p>
+	 * <p>
+	 * Default is <code>1</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public int getIncludeLoadingPoolSize() {
+		return myIncludeLoadingPoolSize;
+	}
+
+	/**
+	 * The number of threads used to load <code>_include</code> and <code>_revinclude</code> results.
+	 * If this is greater than 1, the independent include queries of each include round (one per
+	 * include path and block of source PIDs) are run concurrently, each in its own read-only database
+	 * transaction, and their results are merged. If this is 1, include queries are run one after another
+	 * in the calling transaction.
+	 * <p>
+	 * The thread pool is created when the server starts, so changes to this value made afterward only
+	 * switch parallel loading on or off. Because every worker needs a database connection while the
+	 * searching thread holds its own, the pool is limited to half of the database connection pool
+	 * size (when it can be determined), and queries which find no idle worker are run by the
+	 * searching thread itself.
+	 * </p>
+	 * <p>
+	 * Default is <code>1</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setIncludeLoadingPoolSize(int theIncludeLoadingPoolSize) {
+		Validate.isTrue(theIncludeLoadingPoolSize >= 1, "Pool size must be at least 1");
+		myIncludeLoadingPoolSize = theIncludeLoadingPoolSize;
+	}
+
+	/**
+	 * If enabled, the resource bodies for a page of search results are fetched with a single
+	 * read-only native query that returns plain column values, instead of being loaded as
+	 * <code>ResourceSearchView</code> entities. This skips entity hydration and keeps the
+	 * loaded rows out of the Hibernate persistence context, which reduces memory use and CPU time
+	 * for large pages. The query and the returned resources are otherwise identical.
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isSearchResourceBulkLoadEnabled() {
+		return mySearchResourceBulkLoadEnabled;
+	}
+
+	/**
+	 * If enabled, the resource bodies for a page of search results are fetched with a single
+	 * read-only native query that returns plain column values, instead of being loaded as
+	 * <code>ResourceSearchView</code> entities. This skips entity hydration and keeps the
+	 * loaded rows out of the Hibernate persistence context, which reduces memory use and CPU time
+	 * for large pages. The query and the returned resources are otherwise identical.
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setSearchResourceBulkLoadEnabled(boolean theSearchResourceBulkLoadEnabled) {
+		mySearchResourceBulkLoadEnabled = theSearchResourceBulkLoadEnabled;
+	}
+
+	/**
+	 * The number of threads used to decompress and parse the resource bodies for a page of
+	 * search results. If this is greater than 1, pages with more than one resource are split into
+	 * slices that are parsed concurrently. Database access is not affected, since all of the bodies
+	 * are fetched before parsing starts.
+	 * <p>
+	 * The thread pool is created when the server starts, so changes to this value made afterward only
+	 * switch parallel parsing on or off.
+	 * </p>
+	 * <p>
+	 * Default is <code>1</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public int getSearchResourceParsePoolSize() {
+		return mySearchResourceParsePoolSize;
+	}
+
+	/**
+	 * The number of threads used to decompress and parse the resource bodies for a page of
+	 * search results. If this is greater than 1, pages with more than one resource are split into
+	 * slices that are parsed concurrently. Database access is not affected, since all of the bodies
+	 * are fetched before parsing starts.
+	 * <p>
+	 * The thread pool is created when the server starts, so changes to this value made afterward only
+	 * switch parallel parsing on or off.
+	 * </p>
+	 * <p>
+	 * Default is <code>1</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setSearchResourceParsePoolSize(int theSearchResourceParsePoolSize) {
+		Validate.isTrue(theSearchResourceParsePoolSize >= 1, "Pool size must be at least 1");
+		mySearchResourceParsePoolSize = theSearchResourceParsePoolSize;
+	}
+
+	/**
+	 * If enabled, invalidations of the in-memory caches (e.g. when a resource is deleted, un-deleted or
+	 * expunged) are broadcast to every other server node over the
+	 * {@link ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory channel factory}. This keeps
+	 * the caches consistent across a cluster, which allows the resource ID lookup cache to be used even
+	 * when {@link #isDeleteEnabled() deletes are enabled}, and allows lookups of client-assigned IDs
+	 * which don't exist to be cached too.
+	 * <p>
+	 * The channel factory must deliver every message on the invalidation channel to every node. The
+	 * broadcast channel is created when the server starts, so this should be set before startup.
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isIdCacheInvalidationBroadcastEnabled() {
+		return myIdCacheInvalidationBroadcastEnabled;
+	}
+
+	/**
+	 * If enabled, invalidations of the in-memory caches (e.g. when a resource is deleted, un-deleted or
+	 * expunged) are broadcast to every other server node over the
+	 * {@link ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory channel factory}. This keeps
+	 * the caches consistent across a cluster, which allows the resource ID lookup cache to be used even
+	 * when {@link #isDeleteEnabled() deletes are enabled}, and allows lookups of client-assigned IDs
+	 * which don't exist to be cached too.
+	 * <p>
+	 * The channel factory must deliver every message on the invalidation channel to every node. The
+	 * broadcast channel is created when the server starts, so this should be set before startup.
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setIdCacheInvalidationBroadcastEnabled(boolean theIdCacheInvalidationBroadcastEnabled) {
+		myIdCacheInvalidationBroadcastEnabled = theIdCacheInvalidationBroadcastEnabled;
+	}
+
+	/**
+	 * If enabled, the batch2 framework will check whether all work chunks for the current step of a gated
+	 * job instance are complete each time one of its work chunks completes. If they are, the instance is
+	 * queued for an immediate maintenance pass (advancing it to the next step, triggering its reduction
+	 * step or marking it as complete) instead of waiting for the next scheduled maintenance pass, which
+	 * runs once per minute. The scheduled maintenance pass still runs as a safety net.
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isJobEventDrivenAdvancementEnabled() {
+		return myJobEventDrivenAdvancementEnabled;
+	}
+
+	/**
+	 * If enabled, the batch2 framework will check whether all work chunks for the current step of a gated
+	 * job instance are complete each time one of its work chunks completes. If they are, the instance is
+	 * queued for an immediate maintenance pass (advancing it to the next step, triggering its reduction
+	 * step or marking it as complete) instead of waiting for the next scheduled maintenance pass, which
+	 * runs once per minute. The scheduled maintenance pass still runs as a safety net.
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setJobEventDrivenAdvancementEnabled(boolean theJobEventDrivenAdvancementEnabled) {
+		myJobEventDrivenAdvancementEnabled = theJobEventDrivenAdvancementEnabled;
+	}
+
+	/**
+	 * If enabled, the data for new batch2 work chunks (e.g. the lists of resource IDs passed between the
+	 * steps of a reindex or bulk export job) is GZip compressed before it is stored in the database. This
+	 * can substantially reduce the volume of data written for large jobs. Chunk data is always read
+	 * correctly regardless of this setting, but servers running an older version can not read compressed
+	 * chunk data, so this should not be enabled until every server in a cluster has been upgraded.
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isJobWorkChunkDataCompressionEnabled() {
+		return myJobWorkChunkDataCompressionEnabled;
+	}
+
+	/**
+	 * If enabled, the data for new batch2 work chunks (e.g. the lists of resource IDs passed between the
+	 * steps of a reindex or bulk export job) is GZip compressed before it is stored in the database. This
+	 * can substantially reduce the volume of data written for large jobs. Chunk data is always read
+	 * correctly regardless of this setting, but servers running an older version can not read compressed
+	 * chunk data, so this should not be enabled until every server in a cluster has been upgraded.
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setJobWorkChunkDataCompressionEnabled(boolean theJobWorkChunkDataCompressionEnabled) {
+		myJobWorkChunkDataCompressionEnabled = theJobWorkChunkDataCompressionEnabled;
+	}
+
+	/**
+	 * This setting controls the maximum size (in bytes) of each NDJSON file created by a bulk export.
+	 * Once a file being written reaches this size it is closed and stored, and any remaining resources
+	 * of the same type are written to a new file. Note that each file will also never contain more
+	 * than {@link #getBulkExportFileMaximumCapacity()} resources.
+	 * <p>
+	 * Default is 100MB
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public long getBulkExportFileMaximumSize() {
+		return myBulkExportFileMaximumSize;
+	}
+
+	/**
+	 * This setting controls the maximum size (in bytes) of each NDJSON file created by a bulk export.
+	 * Once a file being written reaches this size it is closed and stored, and any remaining resources
+	 * of the same type are written to a new file. Note that each file will also never contain more
+	 * than {@link #getBulkExportFileMaximumCapacity()} resources.
+	 * <p>
+	 * Default is 100MB
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setBulkExportFileMaximumSize(long theBulkExportFileMaximumSize) {
+		Validate.isTrue(theBulkExportFileMaximumSize > 0, "theBulkExportFileMaximumSize must be > 0");
+		myBulkExportFileMaximumSize = theBulkExportFileMaximumSize;
+	}
+
+	/**
+	 * For system level bulk exports, the resources of each exported type are split into this many
+	 * ranges of resource PIDs, and the resource IDs in each range are fetched as a separate work chunk
+	 * (read directly from the resource table instead of by performing a search). This allows the first
+	 * step of a large export to be spread across all of the servers in a cluster instead of running on
+	 * a single thread. Resource types with a <code>_typeFilter</code> are not split. Note that each range
+	 * produces its own output files, so a larger number of ranges can also increase the number of
+	 * (smaller) files in the export.
+	 * <p>
+	 * Default is <code>1</code>, meaning that the resources of each type are not split.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public int getBulkExportFetchRangeCount() {
+		return myBulkExportFetchRangeCount;
+	}
+
+	/**
+	 * For system level bulk exports, the resources of each exported type are split into this many
+	 * ranges of resource PIDs, and the resource IDs in each range are fetched as a separate work chunk
+	 * (read directly from the resource table instead of by performing a search). This allows the first
+	 * step of a large export to be spread across all of the servers in a cluster instead of running on
+	 * a single thread. Resource types with a <code>_typeFilter</code> are not split. Note that each range
+	 * produces its own output files, so a larger number of ranges can also increase the number of
+	 * (smaller) files in the export.
+	 * <p>
+	 * Default is <code>1</code>, meaning that the resources of each type are not split.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setBulkExportFetchRangeCount(int theBulkExportFetchRangeCount) {
+		Validate.isTrue(theBulkExportFetchRangeCount > 0, "theBulkExportFetchRangeCount must be > 0");
+		myBulkExportFetchRangeCount = theBulkExportFetchRangeCount;
+	}
+
+	/**
+	 * If enabled, system level bulk exports are optimized for clients which repeatedly export the
+	 * resources which have changed since their previous export (i.e. clients which pass the
+	 * <code>transactionTime</code> of their previous export as the <code>_since</code> parameter).
+	 * <ul>
+	 *    <li>
+	 *       The IDs of the changed resources are read directly from the resource table (using the
+	 *       index on resource type, deletion time and last updated time) instead of by performing
+	 *       a search. Resource types with a <code>_typeFilter</code> are still fetched by search.
+	 *    </li>
+	 *    <li>
+	 *       If a <code>_since</code> parameter is supplied, any resources which were deleted since
+	 *       then are reported in the <code>deleted</code> section of the export manifest, as
+	 *       described in the FHIR Bulk Data Access specification. Deletions are found using the
+	 *       deleted resources which remain in the database, so <b>a deletion is lost once the deleted
+	 *       resource has been expunged</b>. Clients will not be told about resources which were deleted
+	 *       and then expunged between two of their exports, so if deleted resources are expunged
+	 *       regularly, clients should perform their incremental exports more often than that (or
+	 *       periodically perform a full export).
+	 *    </li>
+	 *    <li>
+	 *       The <code>transactionTime</code> reported for a completed export is the time that the
+	 *       export started rather than the time it finished, so that resources which are modified
+	 *       while the export is running are not missed by the next export.
+	 *    </li>
+	 * </ul>
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isBulkExportIncrementalModeEnabled() {
+		return myBulkExportIncrementalModeEnabled;
+	}
+
+	/**
+	 * If enabled, system level bulk exports are optimized for clients which repeatedly export the
+	 * resources which have changed since their previous export (i.e. clients which pass the
+	 * <code>transactionTime</code> of their previous export as the <code>_since</code> parameter).
+	 * <ul>
+	 *    <li>
+	 *       The IDs of the changed resources are read directly from the resource table (using the
+	 *       index on resource type, deletion time and last updated time) instead of by performing
+	 *       a search. Resource types with a <code>_typeFilter</code> are still fetched by search.
+	 *    </li>
+	 *    <li>
+	 *       If a <code>_since</code> parameter is supplied, any resources which were deleted since
+	 *       then are reported in the <code>deleted</code> section of the export manifest, as
+	 *       described in the FHIR Bulk Data Access specification. Deletions are found using the
+	 *       deleted resources which remain in the database, so <b>a deletion is lost once the deleted
+	 *       resource has been expunged</b>. Clients will not be told about resources which were deleted
+	 *       and then expunged between two of their exports, so if deleted resources are expunged
+	 *       regularly, clients should perform their incremental exports more often than that (or
+	 *       periodically perform a full export).
+	 *    </li>
+	 *    <li>
+	 *       The <code>transactionTime</code> reported for a completed export is the time that the
+	 *       export started rather than the time it finished, so that resources which are modified
+	 *       while the export is running are not missed by the next export.
+	 *    </li>
+	 * </ul>
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setBulkExportIncrementalModeEnabled(boolean theBulkExportIncrementalModeEnabled) {
+		myBulkExportIncrementalModeEnabled = theBulkExportIncrementalModeEnabled;
+	}
+
 	public enum StoreMetaSourceInformationEnum {
 		NONE(false, false),
 		SOURCE_URI(true, false),
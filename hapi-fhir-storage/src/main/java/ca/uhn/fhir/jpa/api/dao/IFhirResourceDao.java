@@ -47,6 +47,7 @@ import org.hl7.fhir.instance.model.api.IBaseParameters;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -94,6 +95,34 @@ public interface IFhirResourceDao<T extends IBaseResource> extends IDao {
 
 	DaoMethodOutcome create(T theResource, String theIfNoneExist, RequestDetails theRequestDetails);
 
+	/**
+	 * Create a batch of resources of this type within a single database transaction. This is equivalent
+	 * to calling {@link #create(IBaseResource, RequestDetails)} for each resource, but is much more efficient
+	 * for bulk ingestion since the targets of references from all of the resources are resolved up front in
+	 * a single lookup, and the resulting inserts are flushed together so that they can be batched by the
+	 * JDBC driver.
+	 * <p>
+	 * Either all of the resources are created or none of them are.
+	 * </p>
+	 * <p>
+	 * The default implementation simply calls {@link #create(IBaseResource, RequestDetails)} for each resource,
+	 * so it is only atomic if the caller provides the surrounding transaction.
+	 * </p>
+	 *
+	 * @param theResources      The resources to create. Any IDs present in the resource bodies are ignored,
+	 *                          as they would be for a FHIR create.
+	 * @param theRequestDetails The request details including permissions and partitioning information
+	 * @return An outcome for each resource, in the same order as the resources were supplied
+	 * @since 7.0.0
+	 */
+	default List<DaoMethodOutcome> createAll(List<T> theResources, RequestDetails theRequestDetails) {
+		List<DaoMethodOutcome> retVal = new ArrayList<>(theResources.size());
+		for (T next : theResources) {
+			retVal.add(create(next, theRequestDetails));
+		}
+		return retVal;
+	}
+
 	/**
 	 * Delete a resource - Note that this variant of the method does not take in a {@link RequestDetails} and
 	 * therefore can not fire any interceptors.
@@ -22,6 +22,7 @@ package ca.uhn.fhir.jpa.api.model;
 import ca.uhn.fhir.model.api.IModelJson;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +32,12 @@ public class BulkExportJobResults implements IModelJson {
 	@JsonProperty("resourceType2BinaryIds")
 	private Map<String, List<String>> myResourceTypeToBinaryIds;
 
+	/**
+	 * IDs of the Binary resources containing the Bundles which list the deleted resources
+	 */
+	@JsonProperty("deletedBinaryIds")
+	private List<String> myDeletedBinaryIds;
+
 	@JsonProperty("reportMessage")
 	private String myReportMsg;
 
@@ -46,6 +53,17 @@ public class BulkExportJobResults implements IModelJson {
 		return myResourceTypeToBinaryIds;
 	}
 
+	public List<String> getDeletedBinaryIds() {
+		if (myDeletedBinaryIds == null) {
+			myDeletedBinaryIds = new ArrayList<>();
+		}
+		return myDeletedBinaryIds;
+	}
+
+	public void setDeletedBinaryIds(List<String> theDeletedBinaryIds) {
+		myDeletedBinaryIds = theDeletedBinaryIds;
+	}
+
 	public String getOriginalRequestUrl() {
 		return myOriginalRequestUrl;
 	}
@@ -30,7 +30,9 @@ import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -131,6 +133,43 @@ public interface IIdHelperService<T extends IResourcePersistentId> {
 			boolean theExcludeDeleted)
 			throws ResourceNotFoundException;
 
+	/**
+	 * Given a collection of resource IDs, resolves the identity (persistent ID, resource type and
+	 * deleted status) of each one using as few database lookups as possible. This is the bulk
+	 * equivalent of {@link #resolveResourceIdentity(RequestPartitionId, String, String, boolean)},
+	 * except that IDs which can not be found (or which resolve to a resource of a different type)
+	 * are simply absent from the returned map instead of causing an exception.
+	 *
+	 * <p>
+	 * The default implementation resolves each ID individually.
+	 * </p>
+	 *
+	 * @return A map where the key is the unqualified versionless resource ID (e.g. <code>Patient/123</code>)
+	 * @since 7.0.0
+	 */
+	@SuppressWarnings("unchecked")
+	@Nonnull
+	default Map<String, IResourceLookup<T>> resolveResourceIdentities(
+			@Nonnull RequestPartitionId theRequestPartitionId, Collection<IIdType> theIds, boolean theExcludeDeleted) {
+		Map<String, IResourceLookup<T>> retVal = new HashMap<>();
+		for (IIdType next : theIds) {
+			if (!next.hasResourceType() || !next.hasIdPart()) {
+				continue;
+			}
+			IIdType id = next.toUnqualifiedVersionless();
+			try {
+				IResourceLookup<T> lookup = resolveResourceIdentity(
+						theRequestPartitionId, id.getResourceType(), id.getIdPart(), theExcludeDeleted);
+				if (id.getResourceType().equals(lookup.getResourceType())) {
+					retVal.put(id.getValue(), lookup);
+				}
+			} catch (ResourceNotFoundException e) {
+				// IDs which can not be found are left out of the map
+			}
+		}
+		return retVal;
+	}
+
 	/**
 	 * Returns true if the given resource ID should be stored in a forced ID. Under default config
 	 * (meaning client ID strategy is {@link JpaStorageSettings.ClientIdStrategyEnum#ALPHANUMERIC})
@@ -163,6 +202,14 @@ public interface IIdHelperService<T extends IResourcePersistentId> {
 			@Nullable String theForcedId,
 			@Nullable Date theDeletedAt);
 
+	/**
+	 * Invalidates any cached lookups for the given resource once the current transaction commits. This
+	 * must be called when a resource is deleted or un-deleted, since cached lookups include the deleted status.
+	 *
+	 * @param theForcedId The client-assigned ID for the resource, or <code>null</code> if it doesn't have one
+	 */
+	void invalidateResourceLookup(T theResourcePersistentId, String theResourceType, @Nullable String theForcedId);
+
 	@Nonnull
 	List<T> getPidsOrThrowException(RequestPartitionId theRequestPartitionId, List<IIdType> theIds);
 
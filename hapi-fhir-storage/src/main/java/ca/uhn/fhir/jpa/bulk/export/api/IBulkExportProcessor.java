@@ -19,12 +19,16 @@
  */
 package ca.uhn.fhir.jpa.bulk.export.api;
 
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.bulk.export.model.ExportPIDIteratorParameters;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import org.apache.commons.lang3.tuple.Pair;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import javax.annotation.Nullable;
 
 public interface IBulkExportProcessor<T extends IResourcePersistentId> {
 
@@ -40,4 +44,31 @@ public interface IBulkExportProcessor<T extends IResourcePersistentId> {
 	 * @param theResources - the list of resources to expand
 	 */
 	void expandMdmResources(List<IBaseResource> theResources);
+
+	/**
+	 * Returns the lowest and highest PIDs of the (non-deleted) resources of the given type in the given
+	 * partition(s), or <code>null</code> if there are no such resources or the range can not be determined.
+	 * This is used to split the resources of a type into ranges of PIDs which can be exported in parallel.
+	 *
+	 * @since 7.0.0
+	 */
+	@Nullable
+	default Pair<Long, Long> getResourcePidRange(String theResourceType, RequestPartitionId thePartitionId) {
+		return null;
+	}
+
+	/**
+	 * For fetching the PIDs of resources of the type given by {@link ExportPIDIteratorParameters#getResourceType()}
+	 * which were deleted since {@link ExportPIDIteratorParameters#getStartDate() the start date}, within the
+	 * PID range given by the parameters (if any). These are reported in the <code>deleted</code> section of the
+	 * export manifest.
+	 * <p>
+	 * The default implementation returns an empty iterator, meaning that deleted resources are never reported.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	default Iterator<T> getDeletedResourcePidIterator(ExportPIDIteratorParameters theParams) {
+		return Collections.emptyIterator();
+	}
 }
@@ -55,6 +55,9 @@ public class BulkExportResponseJson {
 	@JsonProperty("output")
 	private List<Output> myOutput;
 
+	@JsonProperty("deleted")
+	private List<Output> myDeleted;
+
 	/*
 	 * Note that we override the include here as ONC regulations require that we actually serialize the empty error array.
 	 */
@@ -99,6 +102,13 @@ public class BulkExportResponseJson {
 		return myOutput;
 	}
 
+	public List<Output> getDeleted() {
+		if (myDeleted == null) {
+			myDeleted = new ArrayList<>();
+		}
+		return myDeleted;
+	}
+
 	public List<Output> getError() {
 		if (myError == null) {
 			myError = new ArrayList<>();
@@ -112,6 +122,12 @@ public class BulkExportResponseJson {
 		return retVal;
 	}
 
+	public Output addDeleted() {
+		Output retVal = new Output();
+		getDeleted().add(retVal);
+		return retVal;
+	}
+
 	public String getMsg() {
 		return myMsg;
 	}
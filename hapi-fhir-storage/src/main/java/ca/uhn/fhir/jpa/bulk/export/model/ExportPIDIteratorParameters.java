@@ -41,6 +41,18 @@ public class ExportPIDIteratorParameters {
 	 */
 	private Date myStartDate;
 
+	/**
+	 * The lowest (inclusive) PID of the records to retrieve, or <code>null</code>
+	 * for no lower bound
+	 */
+	private Long myStartPid;
+
+	/**
+	 * The highest (exclusive) PID of the records to retrieve, or <code>null</code>
+	 * for no upper bound
+	 */
+	private Long myEndPid;
+
 	/**
 	 * List of filters to be applied to the search.
 	 * Eg:
@@ -108,6 +120,22 @@ public class ExportPIDIteratorParameters {
 		myStartDate = theStartDate;
 	}
 
+	public Long getStartPid() {
+		return myStartPid;
+	}
+
+	public void setStartPid(Long theStartPid) {
+		myStartPid = theStartPid;
+	}
+
+	public Long getEndPid() {
+		return myEndPid;
+	}
+
+	public void setEndPid(Long theEndPid) {
+		myEndPid = theEndPid;
+	}
+
 	public List<String> getFilters() {
 		return myFilters;
 	}
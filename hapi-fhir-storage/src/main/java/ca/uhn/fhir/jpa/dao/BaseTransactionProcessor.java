@@ -46,6 +46,8 @@ import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
 import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorService;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorService.ExtractedSearchIndexParameters;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
@@ -99,6 +101,7 @@ import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
@@ -121,6 +124,8 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -173,9 +178,14 @@ public abstract class BaseTransactionProcessor {
 
 	private TaskExecutor myExecutor;
 
+	private AsyncTaskExecutor myIndexingExecutor;
+
 	@Autowired
 	private IResourceVersionSvc myResourceVersionSvc;
 
+	@Autowired(required = false)
+	private SearchParamExtractorService mySearchParamExtractorService;
+
 	@VisibleForTesting
 	public void setStorageSettings(StorageSettings theStorageSettings) {
 		myStorageSettings = theStorageSettings;
@@ -200,6 +210,14 @@ public abstract class BaseTransactionProcessor {
 		return myExecutor;
 	}
 
+	private AsyncTaskExecutor getIndexingTaskExecutor() {
+		if (myIndexingExecutor == null) {
+			int poolSize = myStorageSettings.getTransactionIndexingPoolSize();
+			myIndexingExecutor = myThreadPoolFactory.newThreadPool(poolSize, poolSize, "transaction-index-");
+		}
+		return myIndexingExecutor;
+	}
+
 	public <BUNDLE extends IBaseBundle> BUNDLE transaction(
 			RequestDetails theRequestDetails, BUNDLE theRequest, boolean theNestedMode) {
 		String actionName = "Transaction";
@@ -1320,6 +1338,14 @@ public abstract class BaseTransactionProcessor {
 						idAndOutcome.getKey(), idAndOutcome.getValue().getPersistentId());
 			});
 
+			/*
+			 * Extract the search parameters for resources that won't be touched by the
+			 * ID substitutions in parallel, so that indexing them is cheaper below
+			 */
+			if (myStorageSettings.getTransactionIndexingPoolSize() > 1 && mySearchParamExtractorService != null) {
+				preExtractSearchParameters(theTransactionDetails, theIdSubstitutions, theIdToPersistedOutcome);
+			}
+
 			/*
 			 * Perform ID substitutions and then index each resource we have saved
 			 */
@@ -1537,6 +1563,113 @@ public abstract class BaseTransactionProcessor {
 		DeleteConflictUtil.validateDeleteConflictsEmptyOrThrowException(myContext, theDeleteConflicts);
 	}
 
+	/**
+	 * Extracts the (non-reference) search parameter values for the saved resources which don't
+	 * depend on any other entry in the transaction, splitting the work across the transaction
+	 * indexing thread pool. This is the CPU-heavy part of indexing and it doesn't need the
+	 * database, so the resources are otherwise still indexed one at a time on this thread and
+	 * the pre-extracted values are simply picked up as each one is indexed.
+	 */
+	private void preExtractSearchParameters(
+			TransactionDetails theTransactionDetails,
+			IdSubstitutionMap theIdSubstitutions,
+			Map<IIdType, DaoMethodOutcome> theIdToPersistedOutcome) {
+		FhirTerser terser = myContext.newTerser();
+		List<IBaseResource> resources = new ArrayList<>();
+		for (DaoMethodOutcome nextOutcome : theIdToPersistedOutcome.values()) {
+			IBaseResource nextResource = nextOutcome.getResource();
+			if (!nextOutcome.isNop()
+					&& nextResource != null
+					&& isIndependentOfOtherEntries(terser, nextResource, theIdSubstitutions)) {
+				resources.add(nextResource);
+			}
+		}
+		if (resources.size() < 2) {
+			return;
+		}
+
+		StopWatch sw = new StopWatch();
+		int poolSize = myStorageSettings.getTransactionIndexingPoolSize();
+		ExtractedSearchIndexParameters[] extracted = new ExtractedSearchIndexParameters[resources.size()];
+		int sliceSize = (resources.size() + poolSize - 1) / poolSize;
+		List<Future<?>> futures = new ArrayList<>(poolSize);
+		for (int from = sliceSize; from < resources.size(); from += sliceSize) {
+			int sliceFrom = from;
+			int sliceTo = Math.min(from + sliceSize, resources.size());
+			futures.add(getIndexingTaskExecutor()
+					.submit(() -> preExtractSearchParameterSlice(resources, extracted, sliceFrom, sliceTo)));
+		}
+
+		// The first slice is extracted by this thread
+		preExtractSearchParameterSlice(resources, extracted, 0, sliceSize);
+
+		for (Future<?> next : futures) {
+			try {
+				next.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InternalErrorException(Msg.code(2443) + e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new InternalErrorException(Msg.code(2444) + e.getCause());
+			}
+		}
+
+		for (int i = 0; i < extracted.length; i++) {
+			if (extracted[i] != null) {
+				SearchParamExtractorService.addPreExtractedSearchIndexParameters(
+						theTransactionDetails, resources.get(i), extracted[i]);
+			}
+		}
+		ourLog.debug("Pre-extracted search parameters for {} resources in {}", resources.size(), sw);
+	}
+
+	private void preExtractSearchParameterSlice(
+			List<IBaseResource> theResources, ExtractedSearchIndexParameters[] theTarget, int theFrom, int theTo) {
+		for (int i = theFrom; i < theTo; i++) {
+			theTarget[i] = mySearchParamExtractorService.preExtractSearchIndexParameters(theResources.get(i));
+		}
+	}
+
+	/**
+	 * Returns <code>false</code> if the resource contains any references or URIs which may still be
+	 * rewritten before it is indexed, i.e. references to placeholder IDs or other entries in the
+	 * Bundle, and conditional references.
+	 */
+	private boolean isIndependentOfOtherEntries(
+			FhirTerser theTerser, IBaseResource theResource, IdSubstitutionMap theIdSubstitutions) {
+		for (ResourceReferenceInfo next : theTerser.getAllResourceReferences(theResource)) {
+			IBaseReference reference = next.getResourceReference();
+			IIdType targetId = reference.getReferenceElement();
+			if (!targetId.hasIdPart()) {
+				if (reference.getResource() != null) {
+					String targetResourceId =
+							reference.getResource().getIdElement().getValue();
+					if (targetResourceId != null && !targetResourceId.startsWith("#")) {
+						return false;
+					}
+				}
+				continue;
+			}
+			String value = targetId.getValue();
+			if (value.contains("?") || isUrn(value) || theIdSubstitutions.containsSource(targetId)) {
+				return false;
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		Class<? extends IPrimitiveType<?>> uriType = (Class<? extends IPrimitiveType<?>>)
+				myContext.getElementDefinition("uri").getImplementingClass();
+		for (IPrimitiveType<?> next : theTerser.getAllPopulatedChildElementsOfType(theResource, uriType)) {
+			if (!(next instanceof IIdType) && theIdSubstitutions.containsSource(next.getValueAsString())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * This method replaces any placeholder references in the
 	 * source transaction Bundle with their actual targets, then stores the resource contents and indexes
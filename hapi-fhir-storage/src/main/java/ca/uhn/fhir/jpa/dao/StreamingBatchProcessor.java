@@ -0,0 +1,291 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
+import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import ca.uhn.fhir.util.OperationOutcomeUtil;
+import ca.uhn.fhir.util.StopWatch;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseOperationOutcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * Processes a FHIR <code>batch</code> Bundle that is read from a stream, without ever holding the
+ * whole request Bundle or the whole response Bundle in memory. Entries are parsed one at a time and
+ * processed as regular batches of (at most) the window size, and the response entries for each
+ * window are written to the output as soon as that window has been processed.
+ * <p>
+ * Only the JSON encoding is supported, and the <code>Bundle.type</code> element must appear before
+ * <code>Bundle.entry</code> in the document (as it does in any Bundle encoded by HAPI FHIR). Transaction
+ * Bundles can't be streamed, since a transaction has to be committed (or rolled back) as a whole.
+ * </p>
+ * <p>
+ * Each request entry gets exactly one response entry, in the same order. Entries which can't be parsed
+ * get a response entry with a <code>400</code> status and an OperationOutcome describing the problem.
+ * Once the first response entry has been written the response status can no longer be changed, so if
+ * the rest of the request body turns out not to be valid JSON, a final entry like this is added to the
+ * response and processing stops. Any other failure after that point also stops processing, and adds a
+ * final entry with a <code>500</code> status, so that the response is always a complete Bundle.
+ * </p>
+ */
+public class StreamingBatchProcessor {
+
+	public static final int DEFAULT_WINDOW_SIZE = 100;
+	public static final int MAX_WINDOW_SIZE = 1000;
+	private static final Logger ourLog = LoggerFactory.getLogger(StreamingBatchProcessor.class);
+	private static final ObjectMapper ourObjectMapper = new ObjectMapper();
+
+	private final FhirContext myContext;
+	private final IFhirSystemDao<?, ?> mySystemDao;
+	private final int myWindowSize;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theWindowSize The number of entries to process in each batch, between 1 and {@link #MAX_WINDOW_SIZE}
+	 */
+	public StreamingBatchProcessor(FhirContext theContext, IFhirSystemDao<?, ?> theSystemDao, int theWindowSize) {
+		Validate.notNull(theContext);
+		Validate.notNull(theSystemDao);
+		Validate.inclusiveBetween(1, MAX_WINDOW_SIZE, theWindowSize, "Window size must be between 1 and 1000");
+		myContext = theContext;
+		mySystemDao = theSystemDao;
+		myWindowSize = theWindowSize;
+	}
+
+	/**
+	 * Reads a JSON <code>batch</code> Bundle from the input, processes its entries, and writes a JSON
+	 * <code>batch-response</code> Bundle to the output. Neither stream is closed.
+	 *
+	 * @return The number of request entries which were processed
+	 * @throws InvalidRequestException If the request is not a valid batch Bundle, and no output has been written yet
+	 */
+	public int process(RequestDetails theRequestDetails, InputStream theInput, OutputStream theOutput)
+			throws IOException {
+		StopWatch sw = new StopWatch();
+		ResponseWriter writer = new ResponseWriter(theOutput);
+		int count = 0;
+
+		try (JsonParser parser = ourObjectMapper.getFactory().createParser(theInput)) {
+			try {
+				if (parser.nextToken() != JsonToken.START_OBJECT) {
+					throw new InvalidRequestException(Msg.code(2445) + "Request body must be a JSON Bundle");
+				}
+
+				boolean haveType = false;
+				List<JsonNode> window = new ArrayList<>(myWindowSize);
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String fieldName = parser.getCurrentName();
+					parser.nextToken();
+					switch (fieldName) {
+						case "resourceType":
+							if (!"Bundle".equals(parser.getValueAsString())) {
+								throw new InvalidRequestException(
+										Msg.code(2458) + "Request body must be a JSON Bundle, found resource type: "
+												+ parser.getValueAsString());
+							}
+							break;
+						case "type":
+							if (!"batch".equals(parser.getValueAsString())) {
+								throw new InvalidRequestException(
+										Msg.code(2446) + "Only Bundles of type \"batch\" can be streamed, found: "
+												+ parser.getValueAsString());
+							}
+							haveType = true;
+							break;
+						case "entry":
+							if (!haveType) {
+								throw new InvalidRequestException(
+										Msg.code(2447) + "Bundle.type must appear before Bundle.entry");
+							}
+							if (parser.currentToken() != JsonToken.START_ARRAY) {
+								throw new InvalidRequestException(Msg.code(2459) + "Bundle.entry must be an array");
+							}
+							while (parser.nextToken() != JsonToken.END_ARRAY) {
+								window.add(ourObjectMapper.readTree(parser));
+								if (window.size() >= myWindowSize) {
+									count += processWindow(theRequestDetails, window, writer);
+								}
+							}
+							break;
+						default:
+							parser.skipChildren();
+							break;
+					}
+				}
+
+				count += processWindow(theRequestDetails, window, writer);
+			} catch (JsonProcessingException | InvalidRequestException e) {
+				if (!writer.isStarted()) {
+					if (e instanceof InvalidRequestException) {
+						throw (InvalidRequestException) e;
+					}
+					throw new InvalidRequestException(
+							Msg.code(2448) + "Failed to parse request body: " + e.getMessage());
+				}
+				ourLog.warn("Aborting streaming batch after {} entries: {}", count, e.toString());
+				writer.writeErrorEntry(Constants.STATUS_HTTP_400_BAD_REQUEST + " Bad Request", e.getMessage());
+			} catch (Exception e) {
+				if (!writer.isStarted()) {
+					throw e;
+				}
+				ourLog.error("Aborting streaming batch after {} entries", count, e);
+				writer.writeErrorEntry(
+						Constants.STATUS_HTTP_500_INTERNAL_ERROR + " Internal Server Error",
+						Msg.code(2460) + "Failed to process streaming batch: " + e.getMessage());
+			}
+		}
+
+		writer.finish();
+		ourLog.info("Processed streaming batch with {} entries in {}", count, sw);
+		return count;
+	}
+
+	/**
+	 * Processes the entries in the window as a single batch, writes the response entries and
+	 * then empties the window
+	 */
+	private int processWindow(RequestDetails theRequestDetails, List<JsonNode> theWindow, ResponseWriter theWriter)
+			throws IOException {
+		if (theWindow.isEmpty()) {
+			return 0;
+		}
+		int retVal = theWindow.size();
+
+		ObjectNode requestNode = ourObjectMapper.createObjectNode();
+		requestNode.put("resourceType", "Bundle");
+		requestNode.put("type", "batch");
+		requestNode.putArray("entry").addAll(theWindow);
+
+		IBaseBundle request;
+		try {
+			request = (IBaseBundle) myContext.newJsonParser().parseResource(requestNode.toString());
+		} catch (DataFormatException e) {
+			if (theWindow.size() == 1) {
+				theWindow.clear();
+				theWriter.writeErrorEntry(Constants.STATUS_HTTP_400_BAD_REQUEST + " Bad Request", e.getMessage());
+				return retVal;
+			}
+
+			// Process the entries one at a time so that only the invalid ones fail
+			List<JsonNode> entries = new ArrayList<>(theWindow);
+			theWindow.clear();
+			for (JsonNode next : entries) {
+				theWindow.add(next);
+				processWindow(theRequestDetails, theWindow, theWriter);
+			}
+			return retVal;
+		}
+		theWindow.clear();
+
+		IBaseBundle response = transaction(theRequestDetails, request);
+
+		JsonNode responseNode =
+				ourObjectMapper.readTree(myContext.newJsonParser().encodeResourceToString(response));
+		for (JsonNode next : responseNode.path("entry")) {
+			theWriter.writeEntry(next);
+		}
+		theWriter.flush();
+		return retVal;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private IBaseBundle transaction(RequestDetails theRequestDetails, IBaseBundle theRequest) {
+		return (IBaseBundle) ((IFhirSystemDao) mySystemDao).transaction(theRequestDetails, theRequest);
+	}
+
+	private class ResponseWriter {
+
+		private final OutputStream myOutput;
+		private JsonGenerator myGenerator;
+
+		private ResponseWriter(OutputStream theOutput) {
+			myOutput = theOutput;
+		}
+
+		boolean isStarted() {
+			return myGenerator != null;
+		}
+
+		void writeEntry(JsonNode theEntry) throws IOException {
+			getGenerator().writeTree(theEntry);
+		}
+
+		void writeErrorEntry(String theStatus, String theMessage) throws IOException {
+			IBaseOperationOutcome outcome = OperationOutcomeUtil.newInstance(myContext);
+			OperationOutcomeUtil.addIssue(myContext, outcome, "error", theMessage, null, "processing");
+
+			ObjectNode entry = ourObjectMapper.createObjectNode();
+			ObjectNode response = entry.putObject("response");
+			response.put("status", theStatus);
+			response.set(
+					"outcome",
+					ourObjectMapper.readTree(myContext.newJsonParser().encodeResourceToString(outcome)));
+			writeEntry(entry);
+		}
+
+		void flush() throws IOException {
+			getGenerator().flush();
+		}
+
+		void finish() throws IOException {
+			JsonGenerator generator = getGenerator();
+			generator.writeEndArray();
+			generator.writeEndObject();
+			generator.flush();
+		}
+
+		@Nonnull
+		private JsonGenerator getGenerator() throws IOException {
+			if (myGenerator == null) {
+				myGenerator = ourObjectMapper.getFactory().createGenerator(myOutput, JsonEncoding.UTF8);
+				myGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+				myGenerator.writeStartObject();
+				myGenerator.writeStringField("resourceType", "Bundle");
+				myGenerator.writeStringField("type", "batch-response");
+				myGenerator.writeArrayFieldStart("entry");
+			}
+			return myGenerator;
+		}
+	}
+}
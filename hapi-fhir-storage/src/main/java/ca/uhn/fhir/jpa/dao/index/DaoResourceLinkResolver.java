@@ -121,7 +121,12 @@ public class DaoResourceLinkResolver<T extends IResourcePersistentId> implements
 		IResourceLookup resolvedResource;
 		String idPart = targetResourceId.getIdPart();
 		try {
-			if (persistentId == null) {
+			if (persistentId == null
+					&& theTransactionDetails != null
+					&& theTransactionDetails.isResolvedResourceIdEmpty(targetResourceId.toUnqualifiedVersionless())) {
+				// Already known not to exist, e.g. because the transaction pre-resolved its reference targets
+				throw new ResourceNotFoundException(Msg.code(2442) + targetResourceId.toUnqualifiedVersionless());
+			} else if (persistentId == null) {
 				resolvedResource =
 						myIdHelperService.resolveResourceIdentity(theRequestPartitionId, resourceType, idPart);
 				ourLog.trace("Translated {}/{} to resource PID {}", type, idPart, resolvedResource);
@@ -236,7 +241,16 @@ public class DaoResourceLinkResolver<T extends IResourcePersistentId> implements
 					theTransactionDetails.addRollbackUndoAction(() -> newResource.setId(existingId));
 				}
 				newResource.setId(resName + "/" + theIdToAssignToPlaceholder);
-				valueOf = placeholderResourceDao.update(newResource, theRequest).getEntity();
+
+				// If the target is already known not to exist, the update doesn't need to look for it again
+				TransactionDetails placeholderTransactionDetails = new TransactionDetails();
+				IIdType placeholderId = newResource.getIdElement().toUnqualifiedVersionless();
+				if (theTransactionDetails != null && theTransactionDetails.isResolvedResourceIdEmpty(placeholderId)) {
+					placeholderTransactionDetails.addResolvedResourceId(placeholderId, null);
+				}
+				valueOf = placeholderResourceDao
+						.update(newResource, null, true, false, theRequest, placeholderTransactionDetails)
+						.getEntity();
 			} else {
 				valueOf = placeholderResourceDao.create(newResource, theRequest).getEntity();
 			}
@@ -30,7 +30,8 @@ import org.springframework.context.annotation.Configuration;
 public class SubscriptionChannelConfig {
 
 	/**
-	 * Create a @Primary @Bean if you need a different implementation
+	 * Create a @Primary @Bean if you need a different implementation, e.g.
+	 * {@link ca.uhn.fhir.jpa.subscription.channel.impl.RingBufferChannelFactory}
 	 */
 	@Bean
 	public IChannelFactory queueChannelFactory(IChannelNamer theChannelNamer) {
@@ -0,0 +1,339 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.channel.impl;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelProducer;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelReceiver;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nonnull;
+
+/**
+ * An in-memory channel backed by a preallocated ring buffer.
+ * <p>
+ * Unlike {@link LinkedBlockingChannel}, sending a message doesn't allocate a queue node or take a
+ * lock (unless the {@link RingBufferWaitStrategyEnum#BLOCKING blocking} wait strategy is used).
+ * Every slot in the ring carries a sequence number which tells producers and consumers whether the
+ * slot is free or holds a published message, so both sides claim slots with a single
+ * compare-and-set. Consumers claim all of the messages that are ready (up to a maximum batch size,
+ * and shared fairly between consumers) in one step.
+ * </p>
+ * <p>
+ * Each message is passed to every subscribed handler, in the same way as {@link LinkedBlockingChannel}.
+ * If the ring is full, senders wait for space.
+ * </p>
+ */
+public class RingBufferChannel extends AbstractSubscribableChannel implements IChannelProducer, IChannelReceiver {
+	private static final Logger ourLog = LoggerFactory.getLogger(RingBufferChannel.class);
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	private static final long BLOCKING_WAIT_MILLIS = 100;
+
+	private final String myName;
+	private final int myMask;
+	private final int myConsumerCount;
+	private final int myMaxBatchSize;
+	private final RingBufferWaitStrategyEnum myWaitStrategy;
+	private final Message<?>[] myMessages;
+	private final AtomicLongArray mySlotSequences;
+	private final AtomicLong myProducerPosition = new AtomicLong();
+	private final AtomicLong myConsumerPosition = new AtomicLong();
+	private final ReentrantLock myLock = new ReentrantLock();
+	private final Condition myNotEmpty = myLock.newCondition();
+	private final Condition myNotFull = myLock.newCondition();
+	private final List<Thread> myConsumerThreads = new ArrayList<>();
+	private volatile boolean myRunning;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theName          The channel name
+	 * @param theRingSize      The number of slots in the ring, which must be a power of 2
+	 * @param theConsumerCount The number of consumer threads
+	 * @param theMaxBatchSize  The maximum number of messages a consumer claims at once
+	 * @param theWaitStrategy  What consumers and producers do while they can't make progress
+	 */
+	public RingBufferChannel(
+			String theName,
+			int theRingSize,
+			int theConsumerCount,
+			int theMaxBatchSize,
+			@Nonnull RingBufferWaitStrategyEnum theWaitStrategy) {
+		Validate.isTrue(theRingSize > 0 && Integer.bitCount(theRingSize) == 1, "Ring size must be a power of 2");
+		Validate.isTrue(theConsumerCount >= 1, "Consumer count must be at least 1");
+		Validate.isTrue(theMaxBatchSize >= 1, "Max batch size must be at least 1");
+		Validate.notNull(theWaitStrategy, "Wait strategy must not be null");
+		myName = theName;
+		myMask = theRingSize - 1;
+		myConsumerCount = theConsumerCount;
+		myMaxBatchSize = theMaxBatchSize;
+		myWaitStrategy = theWaitStrategy;
+		myMessages = new Message<?>[theRingSize];
+		mySlotSequences = new AtomicLongArray(theRingSize);
+		for (int i = 0; i < theRingSize; i++) {
+			mySlotSequences.set(i, i);
+		}
+	}
+
+	@Override
+	public String getName() {
+		return myName;
+	}
+
+	public int getQueueSizeForUnitTest() {
+		return (int) (myProducerPosition.get() - myConsumerPosition.get());
+	}
+
+	/**
+	 * Starts the consumer threads
+	 */
+	public synchronized void start() {
+		if (myRunning) {
+			return;
+		}
+		myRunning = true;
+		ThreadFactory threadFactory = new BasicThreadFactory.Builder()
+				.namingPattern(myName + "-%d")
+				.daemon(false)
+				.priority(Thread.NORM_PRIORITY)
+				.build();
+		for (int i = 0; i < myConsumerCount; i++) {
+			Thread thread = threadFactory.newThread(this::consume);
+			myConsumerThreads.add(thread);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Stops the consumer threads once they have finished the messages they have already claimed.
+	 * Messages still in the ring are discarded.
+	 */
+	public synchronized void stop() {
+		myRunning = false;
+		signal(myNotEmpty);
+		signal(myNotFull);
+		for (Thread next : myConsumerThreads) {
+			try {
+				next.join(TimeUnit.SECONDS.toMillis(10));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		myConsumerThreads.clear();
+	}
+
+	@Override
+	public void destroy() {
+		// nothing - channels are shared between producers and receivers, so the factory stops them
+	}
+
+	@Override
+	public boolean hasSubscription(@Nonnull MessageHandler handler) {
+		return getSubscribers().stream()
+				.map(t -> (RetryingMessageHandlerWrapper) t)
+				.anyMatch(t -> t.getWrappedHandler() == handler);
+	}
+
+	@Override
+	public boolean subscribe(@Nonnull MessageHandler theHandler) {
+		return super.subscribe(new RetryingMessageHandlerWrapper(theHandler, getName()));
+	}
+
+	@Override
+	public boolean unsubscribe(@Nonnull MessageHandler handler) {
+		Optional<RetryingMessageHandlerWrapper> match = getSubscribers().stream()
+				.map(t -> (RetryingMessageHandlerWrapper) t)
+				.filter(t -> t.getWrappedHandler() == handler)
+				.findFirst();
+		match.ifPresent(super::unsubscribe);
+		return match.isPresent();
+	}
+
+	@Override
+	protected boolean sendInternal(@Nonnull Message<?> theMessage, long theTimeout) {
+		long deadline = theTimeout >= 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(theTimeout) : 0;
+		int attempt = 0;
+		while (true) {
+			long position = myProducerPosition.get();
+			int index = (int) (position & myMask);
+			long difference = mySlotSequences.get(index) - position;
+			if (difference == 0) {
+				if (myProducerPosition.compareAndSet(position, position + 1)) {
+					myMessages[index] = theMessage;
+					mySlotSequences.set(index, position + 1);
+					if (myWaitStrategy == RingBufferWaitStrategyEnum.BLOCKING) {
+						signal(myNotEmpty);
+					}
+					return true;
+				}
+			} else if (difference < 0) {
+				// The ring is full
+				if (!myRunning) {
+					throw new InternalErrorException(Msg.code(2439) + "Channel " + myName + " is not running");
+				}
+				if (theTimeout >= 0 && System.nanoTime() - deadline >= 0) {
+					return false;
+				}
+				if (myWaitStrategy == RingBufferWaitStrategyEnum.BLOCKING) {
+					awaitUntilNot(myNotFull, () -> isFull(position));
+				} else {
+					idle(attempt++);
+				}
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InternalErrorException(
+							Msg.code(2440) + "Interrupted while waiting for space in channel " + myName);
+				}
+			}
+		}
+	}
+
+	private void consume() {
+		Message<?>[] batch = new Message<?>[myMaxBatchSize];
+		int attempt = 0;
+		while (myRunning && !Thread.currentThread().isInterrupted()) {
+			int claimed = claim(batch);
+			if (claimed == 0) {
+				if (myWaitStrategy == RingBufferWaitStrategyEnum.BLOCKING) {
+					awaitUntilNot(myNotEmpty, this::isEmpty);
+				} else {
+					idle(attempt++);
+				}
+				continue;
+			}
+
+			attempt = 0;
+			for (int i = 0; i < claimed; i++) {
+				dispatch(batch[i]);
+				batch[i] = null;
+			}
+		}
+	}
+
+	/**
+	 * Claims the messages at the head of the ring which have been published, up to the maximum
+	 * batch size. If there are other consumers, only a fair share of the ready messages is claimed
+	 * so that they are still processed in parallel.
+	 *
+	 * @return The number of messages copied into the batch
+	 */
+	private int claim(Message<?>[] theBatch) {
+		while (true) {
+			long position = myConsumerPosition.get();
+			int ready = 0;
+			while (ready < myMaxBatchSize
+					&& mySlotSequences.get((int) ((position + ready) & myMask)) == position + ready + 1) {
+				ready++;
+			}
+			if (ready == 0) {
+				return 0;
+			}
+
+			int toClaim = myConsumerCount > 1 ? Math.max(1, ready / myConsumerCount) : ready;
+			if (!myConsumerPosition.compareAndSet(position, position + toClaim)) {
+				continue;
+			}
+
+			for (int i = 0; i < toClaim; i++) {
+				long sequence = position + i;
+				int index = (int) (sequence & myMask);
+				theBatch[i] = myMessages[index];
+				myMessages[index] = null;
+				mySlotSequences.set(index, sequence + myMask + 1);
+			}
+			if (myWaitStrategy == RingBufferWaitStrategyEnum.BLOCKING) {
+				signal(myNotFull);
+			}
+			return toClaim;
+		}
+	}
+
+	private void dispatch(Message<?> theMessage) {
+		for (MessageHandler next : getSubscribers()) {
+			try {
+				next.handleMessage(theMessage);
+			} catch (Exception e) {
+				ourLog.error("Failure handling message in channel[{}]", myName, e);
+			}
+		}
+	}
+
+	private boolean isEmpty() {
+		long position = myConsumerPosition.get();
+		return mySlotSequences.get((int) (position & myMask)) != position + 1;
+	}
+
+	private boolean isFull(long thePosition) {
+		return mySlotSequences.get((int) (thePosition & myMask)) - thePosition < 0;
+	}
+
+	private void idle(int theAttempt) {
+		if (myWaitStrategy == RingBufferWaitStrategyEnum.BUSY_SPIN || theAttempt < SPIN_TRIES) {
+			Thread.onSpinWait();
+		} else if (myWaitStrategy == RingBufferWaitStrategyEnum.YIELDING || theAttempt < SPIN_TRIES + YIELD_TRIES) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+	}
+
+	private void awaitUntilNot(Condition theCondition, BooleanSupplier theWaitWhile) {
+		myLock.lock();
+		try {
+			// The timeout is only a safety net, the other side signals when it makes progress
+			if (myRunning && theWaitWhile.getAsBoolean()) {
+				theCondition.await(BLOCKING_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			myLock.unlock();
+		}
+	}
+
+	private void signal(Condition theCondition) {
+		myLock.lock();
+		try {
+			theCondition.signalAll();
+		} finally {
+			myLock.unlock();
+		}
+	}
+}
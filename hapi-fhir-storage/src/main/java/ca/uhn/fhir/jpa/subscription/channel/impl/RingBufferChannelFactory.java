@@ -0,0 +1,167 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.channel.impl;
+
+import ca.uhn.fhir.jpa.subscription.channel.api.ChannelConsumerSettings;
+import ca.uhn.fhir.jpa.subscription.channel.api.ChannelProducerSettings;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelProducer;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelReceiver;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelSettings;
+import ca.uhn.fhir.jpa.subscription.channel.subscription.IChannelNamer;
+import ca.uhn.fhir.subscription.SubscriptionConstants;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.PreDestroy;
+
+/**
+ * An {@link IChannelFactory} which creates {@link RingBufferChannel ring buffer channels}. This
+ * is an alternative to {@link LinkedBlockingChannelFactory} for single-node deployments where the
+ * in-memory channels carry all subscription matching, subscription delivery and batch2 work
+ * notifications.
+ * <p>
+ * To use it, declare it as a <code>@Primary</code> bean:
+ * </p>
+ * <pre>
+ * &#64;Primary
+ * &#64;Bean
+ * public IChannelFactory ringBufferChannelFactory(IChannelNamer theChannelNamer) {
+ *    RingBufferChannelFactory retVal = new RingBufferChannelFactory(theChannelNamer);
+ *    retVal.setWaitStrategy(RingBufferWaitStrategyEnum.SLEEPING);
+ *    return retVal;
+ * }
+ * </pre>
+ */
+public class RingBufferChannelFactory implements IChannelFactory {
+
+	/**
+	 * The default ring size, which is the smallest power of 2 that is at least
+	 * {@link SubscriptionConstants#DELIVERY_EXECUTOR_QUEUE_SIZE}
+	 */
+	public static final int DEFAULT_RING_SIZE =
+			Integer.highestOneBit(SubscriptionConstants.DELIVERY_EXECUTOR_QUEUE_SIZE - 1) << 1;
+
+	public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+	private final IChannelNamer myChannelNamer;
+	private final Map<String, RingBufferChannel> myChannels = new ConcurrentHashMap<>();
+	private int myRingSize = DEFAULT_RING_SIZE;
+	private int myMaxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+	private RingBufferWaitStrategyEnum myWaitStrategy = RingBufferWaitStrategyEnum.BLOCKING;
+
+	public RingBufferChannelFactory(IChannelNamer theChannelNamer) {
+		myChannelNamer = theChannelNamer;
+	}
+
+	/**
+	 * The number of slots in the ring buffer of each channel. Must be a power of 2.
+	 * Defaults to {@link #DEFAULT_RING_SIZE}. Only applies to channels created after it is set.
+	 */
+	public int getRingSize() {
+		return myRingSize;
+	}
+
+	/**
+	 * The number of slots in the ring buffer of each channel. Must be a power of 2.
+	 * Defaults to {@link #DEFAULT_RING_SIZE}. Only applies to channels created after it is set.
+	 */
+	public void setRingSize(int theRingSize) {
+		Validate.isTrue(theRingSize > 0 && Integer.bitCount(theRingSize) == 1, "Ring size must be a power of 2");
+		myRingSize = theRingSize;
+	}
+
+	/**
+	 * The maximum number of messages a consumer claims from the ring at once.
+	 * Defaults to {@link #DEFAULT_MAX_BATCH_SIZE}. Only applies to channels created after it is set.
+	 */
+	public int getMaxBatchSize() {
+		return myMaxBatchSize;
+	}
+
+	/**
+	 * The maximum number of messages a consumer claims from the ring at once.
+	 * Defaults to {@link #DEFAULT_MAX_BATCH_SIZE}. Only applies to channels created after it is set.
+	 */
+	public void setMaxBatchSize(int theMaxBatchSize) {
+		Validate.isTrue(theMaxBatchSize >= 1, "Max batch size must be at least 1");
+		myMaxBatchSize = theMaxBatchSize;
+	}
+
+	/**
+	 * What consumers do while a channel is empty, and what producers do while it is full.
+	 * Defaults to {@link RingBufferWaitStrategyEnum#BLOCKING}. Only applies to channels created
+	 * after it is set.
+	 */
+	public RingBufferWaitStrategyEnum getWaitStrategy() {
+		return myWaitStrategy;
+	}
+
+	/**
+	 * What consumers do while a channel is empty, and what producers do while it is full.
+	 * Defaults to {@link RingBufferWaitStrategyEnum#BLOCKING}. Only applies to channels created
+	 * after it is set.
+	 */
+	public void setWaitStrategy(@Nonnull RingBufferWaitStrategyEnum theWaitStrategy) {
+		Validate.notNull(theWaitStrategy, "Wait strategy must not be null");
+		myWaitStrategy = theWaitStrategy;
+	}
+
+	@Override
+	public IChannelReceiver getOrCreateReceiver(
+			String theChannelName, Class<?> theMessageType, ChannelConsumerSettings theChannelSettings) {
+		return getOrCreateChannel(theChannelName, theChannelSettings.getConcurrentConsumers(), theChannelSettings);
+	}
+
+	@Override
+	public IChannelProducer getOrCreateProducer(
+			String theChannelName, Class<?> theMessageType, ChannelProducerSettings theChannelSettings) {
+		return getOrCreateChannel(theChannelName, theChannelSettings.getConcurrentConsumers(), theChannelSettings);
+	}
+
+	@Override
+	public IChannelNamer getChannelNamer() {
+		return myChannelNamer;
+	}
+
+	private RingBufferChannel getOrCreateChannel(
+			String theChannelName, int theConcurrentConsumers, IChannelSettings theChannelSettings) {
+		final String channelName = myChannelNamer.getChannelName(theChannelName, theChannelSettings);
+
+		return myChannels.computeIfAbsent(
+				channelName, t -> buildRingBufferChannel(theConcurrentConsumers, channelName));
+	}
+
+	@Nonnull
+	private RingBufferChannel buildRingBufferChannel(int theConcurrentConsumers, String theChannelName) {
+		RingBufferChannel retVal = new RingBufferChannel(
+				theChannelName, myRingSize, theConcurrentConsumers, myMaxBatchSize, myWaitStrategy);
+		retVal.start();
+		return retVal;
+	}
+
+	@PreDestroy
+	public void stop() {
+		myChannels.values().forEach(RingBufferChannel::stop);
+		myChannels.clear();
+	}
+}
@@ -0,0 +1,51 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.channel.impl;
+
+/**
+ * Determines what a {@link RingBufferChannel} consumer does while its ring buffer is empty, and
+ * what a producer does while the ring buffer is full. The strategies trade CPU usage for latency.
+ */
+public enum RingBufferWaitStrategyEnum {
+
+	/**
+	 * Waits on a lock and is woken by the other side. Uses no CPU while idle, but every send
+	 * has to signal the lock. This is the default.
+	 */
+	BLOCKING,
+
+	/**
+	 * Spins briefly, then yields, then parks for short periods. Uses little CPU while idle and
+	 * avoids locking on send, at the cost of some latency after an idle period.
+	 */
+	SLEEPING,
+
+	/**
+	 * Spins briefly, then yields the thread. Low latency, but idle consumers keep a core busy
+	 * whenever there are other threads to run.
+	 */
+	YIELDING,
+
+	/**
+	 * Spins continuously. Lowest latency, but every consumer thread uses a full core even while
+	 * idle, so this is only appropriate if there are spare cores for every consumer.
+	 */
+	BUSY_SPIN
+}
@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.jpa.subscription.channel.subscription;
 
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.subscription.channel.api.ChannelConsumerSettings;
 import ca.uhn.fhir.jpa.subscription.channel.api.ChannelProducerSettings;
 import ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory;
@@ -27,11 +28,16 @@ import ca.uhn.fhir.jpa.subscription.channel.api.IChannelReceiver;
 import ca.uhn.fhir.jpa.subscription.model.ResourceDeliveryJsonMessage;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedJsonMessage;
 import ca.uhn.fhir.subscription.SubscriptionConstants;
+import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Autowired;
 
 public class SubscriptionChannelFactory {
 	private final IChannelFactory myChannelFactory;
 
+	@Autowired(required = false)
+	private StorageSettings myStorageSettings;
+
 	/**
 	 * Constructor
 	 */
@@ -105,8 +111,21 @@ public class SubscriptionChannelFactory {
 		return config;
 	}
 
+	/**
+	 * If REST-hook delivery batching is enabled, each consumer waits until the batch containing its
+	 * delivery has been sent, so there need to be enough consumers to fill a batch for every
+	 * concurrent request.
+	 *
+	 * @see StorageSettings#getRestHookDeliveryBatchSize()
+	 */
 	public int getDeliveryChannelConcurrentConsumers() {
-		return SubscriptionConstants.DELIVERY_CHANNEL_CONCURRENT_CONSUMERS;
+		int retVal = SubscriptionConstants.DELIVERY_CHANNEL_CONCURRENT_CONSUMERS;
+		if (myStorageSettings != null && myStorageSettings.getRestHookDeliveryBatchSize() > 1) {
+			int batchingConsumers = myStorageSettings.getRestHookDeliveryBatchSize()
+					* myStorageSettings.getRestHookDeliveryMaxConcurrentRequests();
+			retVal = Math.max(retVal, batchingConsumers);
+		}
+		return retVal;
 	}
 
 	public int getMatchingChannelConcurrentConsumers() {
@@ -116,4 +135,9 @@ public class SubscriptionChannelFactory {
 	public IChannelFactory getChannelFactory() {
 		return myChannelFactory;
 	}
+
+	@VisibleForTesting
+	public void setStorageSettingsForUnitTest(StorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
 }
@@ -21,12 +21,16 @@ package ca.uhn.fhir.jpa.subscription.model;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchContext;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.messaging.BaseResourceModifiedMessage;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
+import javax.annotation.Nullable;
+
 /**
  * Most of this class has been moved to ResourceModifiedMessage in the hapi-fhir-server project, for a reusable channel ResourceModifiedMessage
  * that doesn't require knowledge of subscriptions.
@@ -40,6 +44,9 @@ public class ResourceModifiedMessage extends BaseResourceModifiedMessage {
 	@JsonProperty(value = "subscriptionId")
 	private String mySubscriptionId;
 
+	@JsonIgnore
+	private transient InMemoryMatchContext myNewPayloadMatchContext;
+
 	/**
 	 * Constructor
 	 */
@@ -79,6 +86,25 @@ public class ResourceModifiedMessage extends BaseResourceModifiedMessage {
 		mySubscriptionId = theSubscriptionId;
 	}
 
+	/**
+	 * Returns a context for matching the new payload in memory. The same context is returned
+	 * for every call, so search parameters extracted from the payload while matching one
+	 * subscription are reused when matching the next.
+	 */
+	@Nullable
+	public InMemoryMatchContext getNewPayloadMatchContext(FhirContext theCtx) {
+		IBaseResource payload = getNewPayload(theCtx);
+		if (payload == null) {
+			return null;
+		}
+		InMemoryMatchContext retVal = myNewPayloadMatchContext;
+		if (retVal == null || retVal.getResource() != payload) {
+			retVal = new InMemoryMatchContext(payload);
+			myNewPayloadMatchContext = retVal;
+		}
+		return retVal;
+	}
+
 	@Override
 	public String toString() {
 		return new ToStringBuilder(this)
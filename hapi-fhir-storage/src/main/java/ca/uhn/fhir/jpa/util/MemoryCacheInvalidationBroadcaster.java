@@ -0,0 +1,193 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.context.ConfigurationException;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.subscription.channel.api.ChannelConsumerSettings;
+import ca.uhn.fhir.jpa.subscription.channel.api.ChannelProducerSettings;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelProducer;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelReceiver;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Broadcasts {@link MemoryCacheService} invalidations to the other nodes in a cluster, and applies
+ * the invalidations received from them. This is what allows caches whose entries can change (such
+ * as resource ID lookups, which include the deleted status of the resource) to be used when more
+ * than one node writes to the same database.
+ * <p>
+ * The channel must deliver every message to every node (i.e. it must behave like a topic rather than
+ * a work queue), otherwise nodes will keep serving stale entries.
+ * </p>
+ *
+ * @see JpaStorageSettings#isIdCacheInvalidationBroadcastEnabled()
+ */
+public class MemoryCacheInvalidationBroadcaster implements MemoryCacheService.IInvalidationListener, MessageHandler {
+
+	public static final String CHANNEL_NAME = "memory-cache-invalidation";
+	private static final Logger ourLog = LoggerFactory.getLogger(MemoryCacheInvalidationBroadcaster.class);
+
+	private final MemoryCacheService myMemoryCacheService;
+	private final JpaStorageSettings myStorageSettings;
+	private final IChannelFactory myChannelFactory;
+	private final String myNodeId = UUID.randomUUID().toString();
+	private IChannelProducer myProducer;
+	private IChannelReceiver myReceiver;
+
+	/**
+	 * Constructor
+	 */
+	public MemoryCacheInvalidationBroadcaster(
+			MemoryCacheService theMemoryCacheService,
+			JpaStorageSettings theStorageSettings,
+			@Nullable IChannelFactory theChannelFactory) {
+		myMemoryCacheService = theMemoryCacheService;
+		myStorageSettings = theStorageSettings;
+		myChannelFactory = theChannelFactory;
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!myStorageSettings.isIdCacheInvalidationBroadcastEnabled()) {
+			return;
+		}
+		if (myChannelFactory == null) {
+			throw new ConfigurationException(
+					Msg.code(2441) + "ID cache invalidation broadcast is enabled, but no IChannelFactory is available");
+		}
+
+		myProducer = myChannelFactory.getOrCreateProducer(
+				CHANNEL_NAME, MemoryCacheInvalidationJsonMessage.class, new ChannelProducerSettings());
+		myReceiver = myChannelFactory.getOrCreateReceiver(
+				CHANNEL_NAME, MemoryCacheInvalidationJsonMessage.class, new ChannelConsumerSettings());
+		myReceiver.subscribe(this);
+		myMemoryCacheService.setInvalidationListener(this);
+		ourLog.info("Broadcasting memory cache invalidations on channel {} as node {}", CHANNEL_NAME, myNodeId);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (myReceiver != null) {
+			myMemoryCacheService.setInvalidationListener(null);
+			myReceiver.unsubscribe(this);
+			myReceiver = null;
+			myProducer = null;
+		}
+	}
+
+	@Override
+	public void onInvalidate(MemoryCacheService.CacheEnum theCache, @Nullable Collection<?> theKeys) {
+		IChannelProducer producer = myProducer;
+		if (producer == null) {
+			return;
+		}
+
+		List<String> keys = null;
+		if (theKeys != null && isBroadcastableKeyType(theCache.getKeyType())) {
+			keys = new ArrayList<>(theKeys.size());
+			for (Object next : theKeys) {
+				keys.add(next.toString());
+			}
+		}
+
+		MemoryCacheInvalidationMessage payload = new MemoryCacheInvalidationMessage(myNodeId, theCache, keys);
+		producer.send(new MemoryCacheInvalidationJsonMessage(payload));
+	}
+
+	/**
+	 * Sent as a single message rather than one per cache
+	 */
+	@Override
+	public void onInvalidateAll() {
+		IChannelProducer producer = myProducer;
+		if (producer == null) {
+			return;
+		}
+
+		MemoryCacheInvalidationMessage payload = new MemoryCacheInvalidationMessage(myNodeId, null, null);
+		producer.send(new MemoryCacheInvalidationJsonMessage(payload));
+	}
+
+	@Override
+	public void handleMessage(Message<?> theMessage) {
+		if (!(theMessage.getPayload() instanceof MemoryCacheInvalidationMessage)) {
+			return;
+		}
+
+		MemoryCacheInvalidationMessage payload = (MemoryCacheInvalidationMessage) theMessage.getPayload();
+		if (myNodeId.equals(payload.getOriginNodeId())) {
+			return;
+		}
+
+		MemoryCacheService.CacheEnum cache = payload.getCache();
+		if (cache == null) {
+			ourLog.trace("Applying invalidation of all caches from node {}", payload.getOriginNodeId());
+			myMemoryCacheService.invalidateAllCachesLocally();
+			return;
+		}
+
+		List<Object> keys = null;
+		if (payload.getKeys() != null) {
+			keys = new ArrayList<>(payload.getKeys().size());
+			for (String next : payload.getKeys()) {
+				keys.add(parseKey(cache.getKeyType(), next));
+			}
+		}
+
+		ourLog.trace("Applying invalidation of cache {} from node {}", cache, payload.getOriginNodeId());
+		myMemoryCacheService.invalidateLocally(cache, keys);
+	}
+
+	@VisibleForTesting
+	public String getNodeId() {
+		return myNodeId;
+	}
+
+	/**
+	 * Keys of any other type can't be sent over the wire, so the whole cache is
+	 * invalidated on the other nodes instead
+	 */
+	private static boolean isBroadcastableKeyType(Class<?> theKeyType) {
+		return theKeyType == String.class || theKeyType == Long.class || theKeyType == Integer.class;
+	}
+
+	private static Object parseKey(Class<?> theKeyType, String theKey) {
+		if (theKeyType == Long.class) {
+			return Long.parseLong(theKey);
+		} else if (theKeyType == Integer.class) {
+			return Integer.parseInt(theKey);
+		}
+		return theKey;
+	}
+}
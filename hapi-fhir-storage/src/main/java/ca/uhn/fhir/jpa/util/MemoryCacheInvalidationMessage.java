@@ -0,0 +1,94 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.model.api.IModelJson;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A set of {@link MemoryCacheService} invalidations made on one node, which are
+ * broadcast so that they can be applied on every other node.
+ *
+ * @see MemoryCacheInvalidationBroadcaster
+ */
+public class MemoryCacheInvalidationMessage implements IModelJson {
+
+	@JsonProperty("originNodeId")
+	private String myOriginNodeId;
+
+	/**
+	 * If <code>null</code>, every cache is invalidated
+	 */
+	@JsonProperty("cache")
+	private MemoryCacheService.CacheEnum myCache;
+
+	/**
+	 * If <code>null</code>, the whole cache is invalidated
+	 */
+	@JsonProperty("keys")
+	private List<String> myKeys;
+
+	/**
+	 * Constructor
+	 */
+	public MemoryCacheInvalidationMessage() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 */
+	public MemoryCacheInvalidationMessage(
+			String theOriginNodeId, @Nullable MemoryCacheService.CacheEnum theCache, @Nullable List<String> theKeys) {
+		myOriginNodeId = theOriginNodeId;
+		myCache = theCache;
+		myKeys = theKeys != null ? new ArrayList<>(theKeys) : null;
+	}
+
+	public String getOriginNodeId() {
+		return myOriginNodeId;
+	}
+
+	public void setOriginNodeId(String theOriginNodeId) {
+		myOriginNodeId = theOriginNodeId;
+	}
+
+	@Nullable
+	public MemoryCacheService.CacheEnum getCache() {
+		return myCache;
+	}
+
+	public void setCache(@Nullable MemoryCacheService.CacheEnum theCache) {
+		myCache = theCache;
+	}
+
+	@Nullable
+	public List<String> getKeys() {
+		return myKeys;
+	}
+
+	public void setKeys(@Nullable List<String> theKeys) {
+		myKeys = theKeys;
+	}
+}
@@ -32,8 +32,10 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -50,6 +52,8 @@ public class MemoryCacheService {
 
 	private final JpaStorageSettings myStorageSettings;
 	private final EnumMap<CacheEnum, Cache<?, ?>> myCaches = new EnumMap<>(CacheEnum.class);
+	private final AtomicLong myInvalidationCount = new AtomicLong();
+	private volatile IInvalidationListener myInvalidationListener;
 
 	public MemoryCacheService(JpaStorageSettings theStorageSettings) {
 		myStorageSettings = theStorageSettings;
@@ -72,6 +76,7 @@ public class MemoryCacheService {
 					break;
 				case PID_TO_FORCED_ID:
 				case FORCED_ID_TO_PID:
+				case FORCED_ID_NOT_FOUND:
 				case MATCH_URL:
 				case RESOURCE_LOOKUP:
 				case HISTORY_COUNT:
@@ -171,7 +176,136 @@ public class MemoryCacheService {
 		return (Map<K, V>) getCache(theCache).getAllPresent(theKeys);
 	}
 
+	/**
+	 * Like {@link #putAfterCommit(CacheEnum, Object, Object)}, but the value is not put into the cache
+	 * if any cache entry was invalidated since <code>theInvalidationCount</code> was obtained from
+	 * {@link #getInvalidationCount()}. This avoids caching a value which was read from the
+	 * database just before a concurrent change, if the invalidation for that change has already
+	 * been processed.
+	 */
+	public <K, V> void putAfterCommitUnlessInvalidated(
+			CacheEnum theCache, K theKey, V theValue, long theInvalidationCount) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					putUnlessInvalidated(theCache, theKey, theValue, theInvalidationCount);
+				}
+			});
+		} else {
+			putUnlessInvalidated(theCache, theKey, theValue, theInvalidationCount);
+		}
+	}
+
+	private <K, V> void putUnlessInvalidated(CacheEnum theCache, K theKey, V theValue, long theInvalidationCount) {
+		if (myInvalidationCount.get() == theInvalidationCount) {
+			put(theCache, theKey, theValue);
+		}
+	}
+
+	/**
+	 * Returns a counter which is incremented every time any cache entries are invalidated
+	 *
+	 * @see #putAfterCommitUnlessInvalidated(CacheEnum, Object, Object, long)
+	 */
+	public long getInvalidationCount() {
+		return myInvalidationCount.get();
+	}
+
+	/**
+	 * Invalidates the given keys in a cache, and notifies the
+	 * {@link #setInvalidationListener(IInvalidationListener) invalidation listener}
+	 */
+	public <K> void invalidate(CacheEnum theCache, Collection<K> theKeys) {
+		invalidateLocally(theCache, theKeys);
+		notifyInvalidationListener(theCache, theKeys);
+	}
+
+	/**
+	 * Like {@link #invalidate(CacheEnum, Collection)}, but waits until the current database
+	 * transaction successfully commits. If the transaction is rolled back, nothing is invalidated.
+	 */
+	public <K> void invalidateAfterCommit(CacheEnum theCache, Collection<K> theKeys) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					invalidate(theCache, theKeys);
+				}
+			});
+		} else {
+			invalidate(theCache, theKeys);
+		}
+	}
+
+	/**
+	 * Invalidates the given keys in a cache (or the whole cache if <code>theKeys</code> is
+	 * <code>null</code>) without notifying the invalidation listener. This is used to apply
+	 * invalidations which were received from another node.
+	 */
+	public void invalidateLocally(CacheEnum theCache, @Nullable Collection<?> theKeys) {
+		myInvalidationCount.incrementAndGet();
+		Cache<Object, Object> cache = getCache(theCache);
+		if (theKeys == null) {
+			cache.invalidateAll();
+		} else {
+			for (Object next : theKeys) {
+				cache.invalidate(next);
+			}
+		}
+	}
+
+	/**
+	 * Sets a listener which is notified of every invalidation made through this service (other than
+	 * {@link #invalidateLocally(CacheEnum, Collection)}), e.g. so that it can be broadcast to other
+	 * nodes in a cluster.
+	 */
+	public void setInvalidationListener(@Nullable IInvalidationListener theInvalidationListener) {
+		myInvalidationListener = theInvalidationListener;
+	}
+
+	private void notifyInvalidationListener(CacheEnum theCache, @Nullable Collection<?> theKeys) {
+		IInvalidationListener listener = myInvalidationListener;
+		if (listener != null) {
+			listener.onInvalidate(theCache, theKeys);
+		}
+	}
+
+	/**
+	 * Invalidates every cache, and notifies the
+	 * {@link #setInvalidationListener(IInvalidationListener) invalidation listener}
+	 */
 	public void invalidateAllCaches() {
+		invalidateAllCachesLocally();
+		IInvalidationListener listener = myInvalidationListener;
+		if (listener != null) {
+			listener.onInvalidateAll();
+		}
+	}
+
+	/**
+	 * Like {@link #invalidateAllCaches()}, but waits until the current database
+	 * transaction successfully commits. If the transaction is rolled back, nothing is invalidated.
+	 */
+	public void invalidateAllCachesAfterCommit() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					invalidateAllCaches();
+				}
+			});
+		} else {
+			invalidateAllCaches();
+		}
+	}
+
+	/**
+	 * Invalidates every cache without notifying the invalidation listener. This is used to apply
+	 * invalidations which were received from another node.
+	 */
+	public void invalidateAllCachesLocally() {
+		myInvalidationCount.incrementAndGet();
 		myCaches.values().forEach(Cache::invalidateAll);
 	}
 
@@ -185,7 +319,32 @@ public class MemoryCacheService {
 
 	public void invalidateCaches(CacheEnum... theCaches) {
 		for (CacheEnum next : theCaches) {
-			getCache(next).invalidateAll();
+			invalidateLocally(next, null);
+			notifyInvalidationListener(next, null);
+		}
+	}
+
+	/**
+	 * Notified of cache invalidations
+	 *
+	 * @see #setInvalidationListener(IInvalidationListener)
+	 */
+	@FunctionalInterface
+	public interface IInvalidationListener {
+
+		/**
+		 * @param theCache The cache
+		 * @param theKeys  The invalidated keys, or <code>null</code> if the whole cache was invalidated
+		 */
+		void onInvalidate(CacheEnum theCache, @Nullable Collection<?> theKeys);
+
+		/**
+		 * Called when every cache was invalidated, e.g. after an expunge
+		 */
+		default void onInvalidateAll() {
+			for (CacheEnum next : CacheEnum.values()) {
+				onInvalidate(next, null);
+			}
 		}
 	}
 
@@ -198,6 +357,12 @@ public class MemoryCacheService {
 		 * Value type: {@literal Optional<String>}
 		 */
 		PID_TO_FORCED_ID(Long.class),
+		/**
+		 * Client-assigned IDs which are known not to exist.
+		 * Key type: {@literal String} (resource type and ID)
+		 * Value type: {@literal String} (the partition key the lookup was made in)
+		 */
+		FORCED_ID_NOT_FOUND(String.class),
 		CONCEPT_TRANSLATION(TranslationQuery.class),
 		MATCH_URL(String.class),
 		CONCEPT_TRANSLATION_REVERSE(TranslationQuery.class),
@@ -0,0 +1,84 @@
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Meta;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StreamingBatchProcessorTest {
+
+	private final FhirContext myCtx = FhirContext.forR4Cached();
+
+	@Mock
+	private IFhirSystemDao<Bundle, Meta> mySystemDao;
+
+	@Test
+	public void testUnexpectedFailureAfterOutputStarted_WritesTerminalEntry() throws Exception {
+		Bundle firstResponse = new Bundle();
+		firstResponse.setType(Bundle.BundleType.BATCHRESPONSE);
+		firstResponse.addEntry().getResponse().setStatus("201 Created");
+		when(mySystemDao.transaction(any(), any()))
+				.thenReturn(firstResponse)
+				.thenThrow(new IllegalStateException("Database is gone"));
+
+		String input = "{\"resourceType\":\"Bundle\",\"type\":\"batch\",\"entry\":["
+				+ "{\"resource\":{\"resourceType\":\"Patient\",\"active\":true},\"request\":{\"method\":\"POST\",\"url\":\"Patient\"}},"
+				+ "{\"resource\":{\"resourceType\":\"Patient\",\"active\":true},\"request\":{\"method\":\"POST\",\"url\":\"Patient\"}},"
+				+ "{\"resource\":{\"resourceType\":\"Patient\",\"active\":true},\"request\":{\"method\":\"POST\",\"url\":\"Patient\"}}"
+				+ "]}";
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		StreamingBatchProcessor svc = new StreamingBatchProcessor(myCtx, mySystemDao, 1);
+		svc.process(new SystemRequestDetails(), new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+
+		// The output must still be a complete Bundle
+		Bundle response = myCtx.newJsonParser().parseResource(Bundle.class, output.toString(StandardCharsets.UTF_8));
+		assertEquals(Bundle.BundleType.BATCHRESPONSE, response.getType());
+		assertEquals(2, response.getEntry().size());
+		assertEquals("201 Created", response.getEntry().get(0).getResponse().getStatus());
+		assertEquals("500 Internal Server Error", response.getEntry().get(1).getResponse().getStatus());
+		OperationOutcome oo = (OperationOutcome) response.getEntry().get(1).getResponse().getOutcome();
+		assertEquals("HAPI-2460: Failed to process streaming batch: Database is gone", oo.getIssueFirstRep().getDiagnostics());
+	}
+
+	@Test
+	public void testUnexpectedFailureBeforeOutputStarted_IsThrown() {
+		when(mySystemDao.transaction(any(), any())).thenThrow(new IllegalStateException("Database is gone"));
+
+		String input = "{\"resourceType\":\"Bundle\",\"type\":\"batch\",\"entry\":["
+				+ "{\"resource\":{\"resourceType\":\"Patient\",\"active\":true},\"request\":{\"method\":\"POST\",\"url\":\"Patient\"}}"
+				+ "]}";
+
+		StreamingBatchProcessor svc = new StreamingBatchProcessor(myCtx, mySystemDao, 1);
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> svc.process(new SystemRequestDetails(), new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream()));
+		assertEquals("Database is gone", e.getMessage());
+	}
+
+	@Test
+	public void testWrongResourceType() {
+		String input = "{\"resourceType\":\"Patient\",\"active\":true}";
+
+		StreamingBatchProcessor svc = new StreamingBatchProcessor(myCtx, mySystemDao, 1);
+		InvalidRequestException e = assertThrows(InvalidRequestException.class, () -> svc.process(new SystemRequestDetails(), new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream()));
+		assertThat(e.getMessage(), containsString("HAPI-2458: Request body must be a JSON Bundle, found resource type: Patient"));
+	}
+}
@@ -0,0 +1,155 @@
+package ca.uhn.fhir.jpa.subscription.channel.impl;
+
+import ca.uhn.fhir.jpa.subscription.channel.api.ChannelConsumerSettings;
+import ca.uhn.fhir.jpa.subscription.channel.api.ChannelProducerSettings;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelProducer;
+import ca.uhn.fhir.jpa.subscription.channel.api.IChannelReceiver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.GenericMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferChannelFactoryTest {
+
+	private static final String TEST_CHANNEL_NAME = "test-channel-name";
+	private final RingBufferChannelFactory myChannelFactory = new RingBufferChannelFactory((name, settings) -> name);
+
+	@AfterEach
+	public void after() {
+		myChannelFactory.stop();
+	}
+
+	@ParameterizedTest
+	@EnumSource(RingBufferWaitStrategyEnum.class)
+	void testDeliverAllMessages(RingBufferWaitStrategyEnum theWaitStrategy) {
+		// setup
+		myChannelFactory.setWaitStrategy(theWaitStrategy);
+		myChannelFactory.setRingSize(16);
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		IChannelProducer producer = buildChannels(3, msg -> received.add((String) msg.getPayload()));
+
+		// execute
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			expected.add("payload-" + i);
+			producer.send(new GenericMessage<>("payload-" + i));
+		}
+
+		// verify
+		await().until(() -> received.size() == 500);
+		assertThat(received, containsInAnyOrder(expected.toArray()));
+	}
+
+	@Test
+	void testSingleConsumerPreservesOrder() {
+		// setup
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		IChannelProducer producer = buildChannels(1, msg -> received.add((String) msg.getPayload()));
+
+		// execute
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			expected.add("payload-" + i);
+			producer.send(new GenericMessage<>("payload-" + i));
+		}
+
+		// verify
+		await().until(() -> received.size() == 100);
+		assertEquals(expected, received);
+	}
+
+	@Test
+	void testSameChannelForProducerAndReceiver() {
+		IChannelProducer producer =
+				myChannelFactory.getOrCreateProducer(TEST_CHANNEL_NAME, String.class, new ChannelProducerSettings());
+		RingBufferChannel receiver = (RingBufferChannel)
+				myChannelFactory.getOrCreateReceiver(TEST_CHANNEL_NAME, String.class, new ChannelConsumerSettings());
+		assertSame(producer, receiver);
+
+		MessageHandler handler = msg -> {};
+		receiver.subscribe(handler);
+		assertTrue(receiver.hasSubscription(handler));
+		assertTrue(receiver.unsubscribe(handler));
+		assertFalse(receiver.hasSubscription(handler));
+	}
+
+	@Test
+	void testSendTimesOutWhenFull() throws InterruptedException {
+		// setup
+		myChannelFactory.setRingSize(2);
+		CountDownLatch handlerStarted = new CountDownLatch(1);
+		CountDownLatch handlerCanProceed = new CountDownLatch(1);
+		AtomicInteger handled = new AtomicInteger();
+		RingBufferChannel producer = (RingBufferChannel) buildChannels(1, msg -> {
+			handlerStarted.countDown();
+			try {
+				handlerCanProceed.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			handled.incrementAndGet();
+		});
+
+		// execute - the first message is claimed by the consumer, which then blocks
+		assertTrue(producer.send(new GenericMessage<>("1")));
+		assertTrue(handlerStarted.await(10, TimeUnit.SECONDS));
+		assertTrue(producer.send(new GenericMessage<>("2"), 100));
+		assertTrue(producer.send(new GenericMessage<>("3"), 100));
+		assertEquals(2, producer.getQueueSizeForUnitTest());
+		assertFalse(producer.send(new GenericMessage<>("4"), 100));
+
+		// verify
+		handlerCanProceed.countDown();
+		await().until(() -> handled.get() == 3);
+		assertEquals(0, producer.getQueueSizeForUnitTest());
+	}
+
+	@Test
+	void testDeliveryResumesAfterFailedMessages() {
+		// setup
+		AtomicInteger counter = new AtomicInteger();
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		IChannelProducer producer = buildChannels(1, msg -> {
+			if (counter.getAndIncrement() == 0) {
+				throw new RuntimeException("Expected Exception");
+			}
+			received.add((String) msg.getPayload());
+		});
+
+		// execute
+		producer.send(new GenericMessage<>("1"));
+		producer.send(new GenericMessage<>("2"));
+
+		// verify - the first message is retried by the handler wrapper
+		await().until(() -> received.size() == 2);
+		assertEquals(List.of("1", "2"), received);
+	}
+
+	private IChannelProducer buildChannels(int theConsumers, MessageHandler theHandler) {
+		ChannelProducerSettings producerSettings = new ChannelProducerSettings();
+		producerSettings.setConcurrentConsumers(theConsumers);
+		IChannelProducer producer =
+				myChannelFactory.getOrCreateProducer(TEST_CHANNEL_NAME, String.class, producerSettings);
+		IChannelReceiver receiver =
+				myChannelFactory.getOrCreateReceiver(TEST_CHANNEL_NAME, String.class, new ChannelConsumerSettings());
+		receiver.subscribe(theHandler);
+		return producer;
+	}
+}
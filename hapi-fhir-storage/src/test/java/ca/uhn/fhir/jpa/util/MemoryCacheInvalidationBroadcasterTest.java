@@ -0,0 +1,131 @@
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.context.ConfigurationException;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.subscription.channel.impl.LinkedBlockingChannelFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MemoryCacheInvalidationBroadcasterTest {
+
+	private final JpaStorageSettings myStorageSettings = new JpaStorageSettings();
+	private final LinkedBlockingChannelFactory myChannelFactory =
+			new LinkedBlockingChannelFactory((name, settings) -> name);
+	private MemoryCacheService myNode1Cache;
+	private MemoryCacheService myNode2Cache;
+	private MemoryCacheInvalidationBroadcaster myNode1Broadcaster;
+	private MemoryCacheInvalidationBroadcaster myNode2Broadcaster;
+
+	@BeforeEach
+	public void before() {
+		myStorageSettings.setIdCacheInvalidationBroadcastEnabled(true);
+		myNode1Cache = new MemoryCacheService(myStorageSettings);
+		myNode2Cache = new MemoryCacheService(myStorageSettings);
+		myNode1Broadcaster = new MemoryCacheInvalidationBroadcaster(myNode1Cache, myStorageSettings, myChannelFactory);
+		myNode2Broadcaster = new MemoryCacheInvalidationBroadcaster(myNode2Cache, myStorageSettings, myChannelFactory);
+		myNode1Broadcaster.start();
+		myNode2Broadcaster.start();
+	}
+
+	@AfterEach
+	public void after() {
+		myNode1Broadcaster.stop();
+		myNode2Broadcaster.stop();
+		myChannelFactory.stop();
+	}
+
+	@Test
+	public void testInvalidateKeysIsBroadcast() {
+		for (MemoryCacheService next : List.of(myNode1Cache, myNode2Cache)) {
+			next.put(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, "Patient/A", "A");
+			next.put(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, "Patient/B", "B");
+			next.put(MemoryCacheService.CacheEnum.PID_TO_FORCED_ID, 123L, Optional.of("Patient/A"));
+		}
+
+		myNode1Cache.invalidate(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, List.of("Patient/A"));
+		myNode1Cache.invalidate(MemoryCacheService.CacheEnum.PID_TO_FORCED_ID, List.of(123L));
+
+		await().until(() -> myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.PID_TO_FORCED_ID, 123L) == null);
+		assertNull(myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, "Patient/A"));
+		assertEquals("B", myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, "Patient/B"));
+		assertEquals("B", myNode1Cache.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, "Patient/B"));
+	}
+
+	@Test
+	public void testInvalidateAllCachesIsBroadcast() throws InterruptedException {
+		myNode2Cache.put(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, "Patient/A", "A");
+		myNode2Cache.put(MemoryCacheService.CacheEnum.MATCH_URL, "Patient?name=smith", "A");
+		long node2Count = myNode2Cache.getInvalidationCount();
+
+		myNode1Cache.invalidateAllCaches();
+
+		await().until(() -> myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.MATCH_URL, "Patient?name=smith")
+				== null);
+		assertNull(myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, "Patient/A"));
+
+		// Sent as a single message, not one per cache
+		Thread.sleep(100);
+		assertEquals(node2Count + 1, myNode2Cache.getInvalidationCount());
+	}
+
+	@Test
+	public void testInvalidateAllCachesAfterCommitIsBroadcast() {
+		myNode2Cache.put(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A", "A");
+
+		// No transaction is active, so this happens immediately
+		myNode1Cache.invalidateAllCachesAfterCommit();
+
+		await().until(() -> myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A")
+				== null);
+	}
+
+	@Test
+	public void testRemoteInvalidationIsNotRebroadcast() {
+		myNode1Cache.put(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, "Patient/A", "A");
+		long node2Count = myNode2Cache.getInvalidationCount();
+
+		myNode1Cache.invalidate(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP, List.of("Patient/A"));
+
+		await().until(() -> myNode2Cache.getInvalidationCount() == node2Count + 1);
+		assertEquals(1, myNode1Cache.getInvalidationCount());
+	}
+
+	@Test
+	public void testPutUnlessInvalidated() {
+		long count = myNode2Cache.getInvalidationCount();
+		myNode1Cache.invalidate(MemoryCacheService.CacheEnum.FORCED_ID_NOT_FOUND, List.of("Patient/A"));
+		await().until(() -> myNode2Cache.getInvalidationCount() > count);
+
+		// Stale, since something was invalidated after the lookup began
+		myNode2Cache.putAfterCommitUnlessInvalidated(
+				MemoryCacheService.CacheEnum.FORCED_ID_NOT_FOUND, "Patient/A", "", count);
+		assertNull(myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_NOT_FOUND, "Patient/A"));
+
+		myNode2Cache.putAfterCommitUnlessInvalidated(
+				MemoryCacheService.CacheEnum.FORCED_ID_NOT_FOUND,
+				"Patient/A",
+				"",
+				myNode2Cache.getInvalidationCount());
+		assertNotNull(myNode2Cache.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_NOT_FOUND, "Patient/A"));
+	}
+
+	@Test
+	public void testStartFailsWithoutChannelFactory() {
+		MemoryCacheInvalidationBroadcaster broadcaster =
+				new MemoryCacheInvalidationBroadcaster(myNode1Cache, myStorageSettings, null);
+		ConfigurationException e = assertThrows(ConfigurationException.class, broadcaster::start);
+		assertEquals(
+				"HAPI-2441: ID cache invalidation broadcast is enabled, but no IChannelFactory is available",
+				e.getMessage());
+	}
+}
@@ -411,6 +411,25 @@ public class JsonParserR4Test extends BaseTest {
 		}
 	}
 
+	@Test
+	public void testEncodeAndParseWithMethodHandleFieldAccess() throws IOException {
+		String input = loadResource("/multi-thread-parsing-issue-bundle.json");
+
+		FhirContext ctx = FhirContext.forR4();
+		ctx.setPerformanceOptions(PerformanceOptionsEnum.METHOD_HANDLE_FIELD_ACCESS);
+
+		Bundle parsed = ctx.newJsonParser().parseResource(Bundle.class, input);
+		String expected = ourCtx.newJsonParser().encodeResourceToString(ourCtx.newJsonParser().parseResource(Bundle.class, input));
+		assertEquals(expected, ctx.newJsonParser().encodeResourceToString(parsed));
+
+		Patient patient = new Patient();
+		ctx.newTerser().addElement(patient, "Patient.name.family", "Smith");
+		ctx.newTerser().addElement(patient, "Patient.active", "true");
+		assertEquals("Smith", patient.getNameFirstRep().getFamily());
+		assertTrue(patient.getActive());
+		assertEquals(1, ctx.newTerser().getValues(patient, "Patient.name.family").size());
+	}
+
 
 
 	@Test